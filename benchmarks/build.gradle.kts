@@ -0,0 +1,129 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+// JMH benchmarks of the plugin's hot paths, run with `./gradlew :benchmarks:jmh`.
+// Use -Pjmh.include=<regex> to run a subset and -Pjmh.maxRegression=<percent> to fail on regressions.
+// -Pjmh.patchSources=<zip> and -Pjmh.patches=<directory> make PatchBenchmark apply a real patch set.
+// The offline end-to-end harness runs with `./gradlew :benchmarks:harness`, see OfflineHarness.
+// The configuration time of a multi project build is measured with `./gradlew :benchmarks:configurationHarness`.
+
+plugins {
+    id("java")
+}
+
+val jmhVersion = "1.35"
+
+dependencies {
+    implementation(rootProject)
+    implementation(gradleApi())
+    implementation(gradleTestKit())
+    implementation(group = "org.openjdk.jmh", name = "jmh-core", version = jmhVersion)
+    annotationProcessor(group = "org.openjdk.jmh", name = "jmh-generator-annprocess", version = jmhVersion)
+}
+
+val jmhResults = layout.buildDirectory.file("jmh/results.json")
+val baseline = file("baseline.json")
+val harnessResults = layout.buildDirectory.file("harness/results.json")
+val configurationHarnessResults = layout.buildDirectory.file("harness/configuration.json")
+
+tasks {
+    register<JavaExec>("jmh") {
+        group = "benchmark"
+        description = "Runs the JMH benchmark suite and reports the deltas against the baseline"
+
+        classpath = sourceSets["main"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+
+        val include = project.findProperty("jmh.include")?.toString()
+        val patchSet = listOf("patchSources" to "jmh.patchSources", "patches" to "jmh.patches")
+            .mapNotNull { (param, property) -> project.findProperty(property)?.let { listOf("-p", "$param=$it") } }
+            .flatten()
+        args = listOfNotNull(include) + patchSet + listOf("-rf", "json", "-rff", jmhResults.get().asFile.absolutePath)
+
+        outputs.file(jmhResults)
+        outputs.upToDateWhen { false }
+
+        doFirst {
+            jmhResults.get().asFile.parentFile.mkdirs()
+        }
+
+        finalizedBy("jmhReport")
+    }
+
+    register<JavaExec>("jmhReport") {
+        group = "benchmark"
+        description = "Reports the deltas of the last benchmark results against the baseline"
+
+        classpath = sourceSets["main"].runtimeClasspath
+        mainClass.set("net.flintmc.gradle.benchmark.BaselineReport")
+
+        args = listOfNotNull(
+            baseline.absolutePath,
+            jmhResults.get().asFile.absolutePath,
+            project.findProperty("jmh.maxRegression")?.toString()
+        )
+
+        onlyIf { jmhResults.get().asFile.isFile }
+    }
+
+    register<Copy>("jmhUpdateBaseline") {
+        group = "benchmark"
+        description = "Replaces the baseline with the last benchmark results"
+
+        from(jmhResults)
+        into(projectDir)
+        rename { baseline.name }
+    }
+
+    register<JavaExec>("harness") {
+        group = "benchmark"
+        description = "Runs end-to-end builds against a local stand-in for the Mojang and maven endpoints"
+
+        // The metadata lets the TestKit runner inject the plugin under test into the builds
+        classpath = sourceSets["main"].runtimeClasspath + files(rootProject.tasks.named("pluginUnderTestMetadata"))
+        mainClass.set("net.flintmc.gradle.benchmark.harness.OfflineHarness")
+
+        args = listOf(
+            harnessResults.get().asFile.absolutePath,
+            project.findProperty("harness.latency")?.toString() ?: "20",
+            project.findProperty("harness.bandwidth")?.toString() ?: "4194304",
+            project.findProperty("harness.warmRuns")?.toString() ?: "3"
+        )
+
+        outputs.file(harnessResults)
+        outputs.upToDateWhen { false }
+    }
+
+    register<JavaExec>("configurationHarness") {
+        group = "benchmark"
+        description = "Measures the configuration time of a multi project build applying the plugin everywhere"
+
+        classpath = sourceSets["main"].runtimeClasspath + files(rootProject.tasks.named("pluginUnderTestMetadata"))
+        mainClass.set("net.flintmc.gradle.benchmark.harness.ConfigurationHarness")
+
+        args = listOf(
+            configurationHarnessResults.get().asFile.absolutePath,
+            project.findProperty("harness.projects")?.toString() ?: "30",
+            project.findProperty("harness.runs")?.toString() ?: "10"
+        )
+
+        outputs.file(configurationHarnessResults)
+        outputs.upToDateWhen { false }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares JMH JSON results against a baseline and prints the relative change of every benchmark. All benchmarks of
+ * this suite measure time, so a positive change is a regression.
+ * <p>
+ * Arguments: {@code <baseline.json> <results.json> [maximum regression in percent]}. If a maximum regression is given,
+ * the process exits with a non zero status if any benchmark regressed by more than that, or if the baseline is empty.
+ */
+public final class BaselineReport {
+  private BaselineReport() {}
+
+  public static void main(String[] args) throws IOException {
+    if(args.length < 2) {
+      System.err.println("Usage: BaselineReport <baseline.json> <results.json> [maximum regression in percent]");
+      System.exit(2);
+    }
+
+    Map<String, Score> baseline = read(Paths.get(args[0]));
+    Map<String, Score> results = read(Paths.get(args[1]));
+    double maximumRegression = args.length > 2 ? Double.parseDouble(args[2]) : Double.NaN;
+
+    if(baseline.isEmpty()) {
+      // Without a baseline every benchmark is reported as new, which would silently pass any regression check
+      System.err.println("The baseline " + args[0] + " contains no results, record one on the reference machine with "
+          + "`./gradlew :benchmarks:jmh :benchmarks:jmhUpdateBaseline`, see the README");
+    }
+
+    System.out.printf("%-75s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Delta");
+
+    int regressions = 0;
+    for(Map.Entry<String, Score> entry : results.entrySet()) {
+      Score current = entry.getValue();
+      Score base = baseline.get(entry.getKey());
+
+      if(base == null || !base.unit.equals(current.unit)) {
+        System.out.printf("%-75s %14s %14s %9s%n", entry.getKey(), "-", current, "new");
+        continue;
+      }
+
+      double delta = (current.value - base.value) / base.value * 100;
+      boolean regressed = !Double.isNaN(maximumRegression) && delta > maximumRegression;
+      if(regressed) {
+        regressions++;
+      }
+
+      System.out.printf("%-75s %14s %14s %+8.1f%%%s%n", entry.getKey(), base, current, delta, regressed ? " !" : "");
+    }
+
+    for(String missing : baseline.keySet()) {
+      if(!results.containsKey(missing)) {
+        System.out.printf("%-75s %14s %14s %9s%n", missing, baseline.get(missing), "-", "not run");
+      }
+    }
+
+    if(baseline.isEmpty() && !Double.isNaN(maximumRegression)) {
+      System.exit(1);
+    }
+
+    if(regressions > 0) {
+      System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, maximumRegression);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Reads the primary scores of a JMH JSON result file.
+   *
+   * @param file The file to read
+   * @return The scores keyed by the benchmark name including its parameters
+   * @throws IOException If an I/O error occurs while reading the file
+   */
+  private static Map<String, Score> read(Path file) throws IOException {
+    Map<String, Score> scores = new TreeMap<>();
+    if(!Files.isRegularFile(file)) {
+      return scores;
+    }
+
+    for(JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+      StringBuilder name = new StringBuilder(result.get("benchmark").asText()
+          .replace("net.flintmc.gradle.benchmark.", ""));
+
+      JsonNode params = result.get("params");
+      if(params != null) {
+        name.append(" (");
+        for(Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+          Map.Entry<String, JsonNode> param = it.next();
+          name.append(param.getKey()).append('=').append(param.getValue().asText());
+          if(it.hasNext()) {
+            name.append(", ");
+          }
+        }
+        name.append(')');
+      }
+
+      JsonNode metric = result.get("primaryMetric");
+      scores.put(name.toString(), new Score(metric.get("score").asDouble(), metric.get("scoreUnit").asText()));
+    }
+
+    return scores;
+  }
+
+  /**
+   * Primary score of a single benchmark.
+   */
+  private static class Score {
+    private final double value;
+    private final String unit;
+
+    private Score(double value, String unit) {
+      this.value = value;
+      this.unit = unit;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%.3f %s", value, unit);
+    }
+  }
+}
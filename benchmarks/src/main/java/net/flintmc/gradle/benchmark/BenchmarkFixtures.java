@@ -0,0 +1,420 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.UnifiedDiffUtils;
+import com.github.difflib.patch.Patch;
+import net.flintmc.gradle.maven.pom.MavenArtifact;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates synthetic, but realistically shaped inputs for the benchmarks. All generators are seeded, so every run
+ * of the suite works on the same data.
+ */
+public final class BenchmarkFixtures {
+  private static final long SEED = 0x466c696e74L;
+
+  private BenchmarkFixtures() {}
+
+  /**
+   * Creates a new temporary directory for the fixtures of a benchmark.
+   *
+   * @param name The name of the benchmark
+   * @return The created directory
+   * @throws IOException If an I/O error occurs while creating the directory
+   */
+  public static Path createDirectory(String name) throws IOException {
+    return Files.createTempDirectory("flint-gradle-benchmark-" + name);
+  }
+
+  /**
+   * Recursively deletes the given directory.
+   *
+   * @param directory The directory to delete, may not exist
+   * @throws IOException If an I/O error occurs while deleting the directory
+   */
+  public static void delete(Path directory) throws IOException {
+    if(!Files.exists(directory)) {
+      return;
+    }
+
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Writes MCP style {@code methods.csv}, {@code fields.csv} and {@code params.csv} files.
+   *
+   * @param directory The directory to write the files to
+   * @param count     The amount of mappings per file
+   * @throws IOException If an I/O error occurs while writing the files
+   */
+  public static void writeMcpCsvs(Path directory, int count) throws IOException {
+    Files.createDirectories(directory);
+
+    StringBuilder methods = new StringBuilder("searge,name,side,desc\n");
+    StringBuilder fields = new StringBuilder("searge,name,side,desc\n");
+    StringBuilder params = new StringBuilder("param,name,side\n");
+
+    for(int i = 0; i < count; i++) {
+      methods.append("func_").append(i).append("_a,method").append(i).append(",2,Does something ").append(i)
+          .append('\n');
+      fields.append("field_").append(i).append("_a,field").append(i).append(",2,\n");
+      params.append("p_").append(i).append("_1_,param").append(i).append(",2\n");
+    }
+
+    Files.write(directory.resolve("methods.csv"), methods.toString().getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("fields.csv"), fields.toString().getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("params.csv"), params.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Generates the lines of a decompiled source file using SRG names.
+   *
+   * @param random       The random to pick names with
+   * @param className    The simple name of the class
+   * @param methodCount  The amount of methods in the class
+   * @param mappingCount The amount of mapped SRG names to pick from
+   * @return The generated lines, none of which is empty
+   */
+  public static List<String> sourceLines(Random random, String className, int methodCount, int mappingCount) {
+    List<String> lines = new ArrayList<>();
+    lines.add("package net.minecraft.generated;");
+    lines.add("import java.util.List;");
+    lines.add("public class " + className + " {");
+
+    for(int i = 0; i < methodCount; i++) {
+      int method = random.nextInt(mappingCount);
+      int field = random.nextInt(mappingCount);
+      int param = random.nextInt(mappingCount);
+      int unmapped = mappingCount + random.nextInt(mappingCount);
+
+      lines.add("   private int field_" + field + "_a;");
+      lines.add("   public int func_" + method + "_a(int p_" + param + "_1_) {");
+      lines.add("      int i = this.field_" + field + "_a + p_" + param + "_1_;");
+      lines.add("      if (i > " + i + ") {");
+      lines.add("         return this.func_" + unmapped + "_a(i - 1);");
+      lines.add("      }");
+      lines.add("      return i * " + (i + 1) + ";");
+      lines.add("   }");
+    }
+
+    lines.add("}");
+    return lines;
+  }
+
+  /**
+   * Writes a jar of decompiled source files using SRG names.
+   *
+   * @param jar          The jar to write
+   * @param classCount   The amount of classes in the jar
+   * @param methodCount  The amount of methods per class
+   * @param mappingCount The amount of mapped SRG names to pick from
+   * @throws IOException If an I/O error occurs while writing the jar
+   */
+  public static void writeSourceJar(Path jar, int classCount, int methodCount, int mappingCount)
+      throws IOException {
+    Random random = new Random(SEED);
+
+    Map<String, List<String>> files = new HashMap<>();
+    for(int i = 0; i < classCount; i++) {
+      String className = "Generated" + i;
+      files.put("net/minecraft/generated/" + className + ".java",
+          sourceLines(random, className, methodCount, mappingCount));
+    }
+
+    writeZip(jar, files);
+  }
+
+  /**
+   * Writes a jar of compilable source files spread over several packages. Every class references classes of the
+   * neighbouring packages, so the packages form a cycle like the minecraft packages do.
+   *
+   * @param jar               The jar to write
+   * @param packageCount      The amount of packages
+   * @param classesPerPackage The amount of classes per package
+   * @param methodCount       The amount of methods per class
+   * @throws IOException If an I/O error occurs while writing the jar
+   */
+  public static void writeCompilableSourceJar(Path jar, int packageCount, int classesPerPackage, int methodCount)
+      throws IOException {
+    Map<String, List<String>> files = new HashMap<>();
+    for(int p = 0; p < packageCount; p++) {
+      String packageName = "net.minecraft.generated.p" + p;
+      String nextPackage = "net.minecraft.generated.p" + ((p + 1) % packageCount);
+
+      for(int c = 0; c < classesPerPackage; c++) {
+        String className = "Generated" + c;
+        String nextClass = nextPackage + ".Generated" + ((c + 1) % classesPerPackage);
+
+        List<String> lines = new ArrayList<>();
+        lines.add("package " + packageName + ";");
+        lines.add("import java.util.ArrayList;");
+        lines.add("import java.util.List;");
+        lines.add("public class " + className + " {");
+        lines.add("   public static final int CONSTANT = " + (p * classesPerPackage + c) + ";");
+        lines.add("   private final List<" + nextClass + "> children = new ArrayList<>();");
+
+        for(int m = 0; m < methodCount; m++) {
+          lines.add("   public int method" + m + "(int value) {");
+          lines.add("      int result = value + CONSTANT + " + nextClass + ".CONSTANT;");
+          lines.add("      for (" + nextClass + " child : this.children) {");
+          lines.add("         result += child.method" + ((m + 1) % methodCount) + "(value - 1);");
+          lines.add("      }");
+          lines.add("      return result * " + (m + 1) + ";");
+          lines.add("   }");
+        }
+
+        lines.add("}");
+        files.put(packageName.replace('.', '/') + "/" + className + ".java", lines);
+      }
+    }
+
+    writeZip(jar, files);
+  }
+
+  /**
+   * Writes a patch set in the format of the MCP and Yarn patches together with the sources it applies to.
+   *
+   * @param sources     The zip to write the unpatched sources to
+   * @param patches     The directory to write one patch per source file to
+   * @param fileCount   The amount of source files
+   * @param methodCount The amount of methods per source file
+   * @param drift       The amount of lines inserted at the start of every source after generating the patches, so the
+   *                    hunks have to be searched for instead of applying at their recorded position
+   * @throws IOException If an I/O error occurs while writing the patch set
+   */
+  public static void writePatchSet(Path sources, Path patches, int fileCount, int methodCount, int drift)
+      throws IOException {
+    Random random = new Random(SEED);
+    Files.createDirectories(patches);
+
+    Map<String, List<String>> files = new HashMap<>();
+    for(int i = 0; i < fileCount; i++) {
+      String className = "Patched" + i;
+      String path = "net/minecraft/generated/" + className + ".java";
+
+      List<String> original = sourceLines(random, className, methodCount, methodCount * 4);
+      List<String> modified = new ArrayList<>(original);
+
+      // Change every tenth method body, the way the flint patches hook into minecraft
+      for(int line = 4; line < modified.size() - 1; line += 80) {
+        modified.set(line, modified.get(line) + " // patched");
+        modified.add(line + 1, "      net.flintmc.Hooks.call(" + line + ");");
+      }
+
+      Patch<String> diff = DiffUtils.diff(original, modified);
+      List<String> patchLines = UnifiedDiffUtils.generateUnifiedDiff("a/" + path, "b/" + path, original, diff, 3);
+      Files.write(patches.resolve(className + ".java.patch"), patchLines, StandardCharsets.UTF_8);
+
+      List<String> drifted = new ArrayList<>(original);
+      for(int line = 0; line < drift; line++) {
+        drifted.add(2, "import java.util.Generated" + line + ";");
+      }
+
+      files.put(path, drifted);
+    }
+
+    writeZip(sources, files);
+  }
+
+  /**
+   * Writes a graph of POM files into a maven repository layout. Every POM depends on a few POM's written before it.
+   *
+   * @param repository   The root of the repository to write the POM's to
+   * @param count        The amount of POM's to write
+   * @param dependencies The amount of dependencies per POM
+   * @return The paths of the written POM's
+   * @throws IOException If an I/O error occurs while writing the POM's
+   */
+  public static List<Path> writePomGraph(Path repository, int count, int dependencies) throws IOException {
+    Random random = new Random(SEED);
+    List<Path> poms = new ArrayList<>();
+
+    for(int i = 0; i < count; i++) {
+      StringBuilder pom = new StringBuilder()
+          .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+          .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+          .append("  <modelVersion>4.0.0</modelVersion>\n")
+          .append("  <parent>\n")
+          .append("    <groupId>net.flintmc.generated</groupId>\n")
+          .append("    <artifactId>parent</artifactId>\n")
+          .append("    <version>1.0.0</version>\n")
+          .append("  </parent>\n")
+          .append("  <artifactId>artifact").append(i).append("</artifactId>\n")
+          .append("  <name>Generated artifact ").append(i).append("</name>\n")
+          .append("  <licenses>\n")
+          .append("    <license><name>LGPL-3.0</name></license>\n")
+          .append("  </licenses>\n")
+          .append("  <dependencies>\n");
+
+      for(int j = 0; j < dependencies && i > 0; j++) {
+        pom.append("    <dependency>\n")
+            .append("      <groupId>net.flintmc.generated</groupId>\n")
+            .append("      <artifactId>artifact").append(random.nextInt(i)).append("</artifactId>\n")
+            .append("      <version>1.0.0</version>\n")
+            .append("      <scope>").append(j % 3 == 0 ? "runtime" : "compile").append("</scope>\n")
+            .append("    </dependency>\n");
+      }
+
+      pom.append("  </dependencies>\n")
+          .append("</project>\n");
+
+      Path path = repository.resolve("net/flintmc/generated/artifact" + i + "/1.0.0/artifact" + i + "-1.0.0.pom");
+      Files.createDirectories(path.getParent());
+      Files.write(path, pom.toString().getBytes(StandardCharsets.UTF_8));
+      poms.add(path);
+    }
+
+    return poms;
+  }
+
+  /**
+   * Generates maven artifacts with distinct coordinates.
+   *
+   * @param count The amount of artifacts to generate
+   * @return The generated artifacts
+   */
+  public static List<MavenArtifact> artifacts(int count) {
+    List<MavenArtifact> artifacts = new ArrayList<>();
+    for(int i = 0; i < count; i++) {
+      artifacts.add(new MavenArtifact(
+          "net.flintmc.generated.group" + (i % 50), "artifact" + i, "1." + (i % 7) + ".0",
+          i % 5 == 0 ? "sources" : null, null));
+    }
+
+    return artifacts;
+  }
+
+  /**
+   * Writes an artifact URL cache file in the format of {@link net.flintmc.gradle.maven.cache.MavenArtifactURLCache},
+   * resolving every artifact in one of the given repositories.
+   *
+   * @param file         The file to write
+   * @param artifacts    The artifacts to write
+   * @param repositories The base URI's of the repositories the artifacts are spread over
+   * @throws IOException If an I/O error occurs while writing the file
+   */
+  public static void writeArtifactURLCache(Path file, List<MavenArtifact> artifacts, List<URI> repositories)
+      throws IOException {
+    Files.createDirectories(file.getParent());
+
+    try(ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+      out.writeLong(System.currentTimeMillis());
+      out.writeInt(artifacts.size());
+
+      for(int i = 0; i < artifacts.size(); i++) {
+        MavenArtifact artifact = artifacts.get(i);
+        URI repository = repositories.get(i % repositories.size());
+
+        out.writeUTF(artifact.getGroupId());
+        out.writeUTF(artifact.getArtifactId());
+        out.writeUTF(artifact.getVersion());
+        out.writeObject(artifact.getClassifier());
+        out.writeObject(artifact.getType());
+
+        HashMap<URI, URI> known = new HashMap<>();
+        known.put(repository, repository.resolve(artifact.getGroupId().replace('.', '/') + "/"
+            + artifact.getArtifactId() + "/" + artifact.getVersion() + "/" + artifact.getArtifactId() + ".jar"));
+        out.writeObject(known);
+      }
+    }
+  }
+
+  /**
+   * Writes a zip of files with random, moderately compressible content.
+   *
+   * @param zip       The zip to write
+   * @param fileCount The amount of files in the zip
+   * @param fileSize  The size of every file in bytes
+   * @throws IOException If an I/O error occurs while writing the zip
+   */
+  public static void writeRandomZip(Path zip, int fileCount, int fileSize) throws IOException {
+    Random random = new Random(SEED);
+
+    Files.createDirectories(zip.toAbsolutePath().getParent());
+    try(ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      byte[] content = new byte[fileSize];
+
+      for(int i = 0; i < fileCount; i++) {
+        for(int j = 0; j < content.length; j++) {
+          // Restricted alphabet, so the content compresses like class files and resources do
+          content[j] = (byte) ('a' + random.nextInt(16));
+        }
+
+        out.putNextEntry(new ZipEntry("assets/generated/" + (i % 32) + "/file" + i + ".bin"));
+        out.write(content);
+        out.closeEntry();
+      }
+    }
+  }
+
+  /**
+   * Writes the given text files into a zip.
+   *
+   * @param zip   The zip to write
+   * @param files The files to write, keyed by their path in the zip
+   * @throws IOException If an I/O error occurs while writing the zip
+   */
+  private static void writeZip(Path zip, Map<String, List<String>> files) throws IOException {
+    Files.createDirectories(zip.toAbsolutePath().getParent());
+
+    try(ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      files.forEach((path, lines) -> {
+        try {
+          out.putNextEntry(new ZipEntry(path));
+          out.write(String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+          out.closeEntry();
+        } catch(IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+}
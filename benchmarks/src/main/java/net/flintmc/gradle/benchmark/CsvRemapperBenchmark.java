@@ -0,0 +1,86 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import net.flintmc.gradle.environment.mcp.CsvRemapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading MCP mappings and remapping single source lines with them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvRemapperBenchmark {
+  @Param("30000")
+  public int mappingCount;
+
+  private Path directory;
+  private CsvRemapper remapper;
+  private List<String> lines;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = BenchmarkFixtures.createDirectory("csv");
+    BenchmarkFixtures.writeMcpCsvs(directory, mappingCount);
+
+    remapper = loadMappings();
+    lines = BenchmarkFixtures.sourceLines(new Random(1), "Remapped", 2000, mappingCount);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    BenchmarkFixtures.delete(directory);
+  }
+
+  @Benchmark
+  public CsvRemapper loadCsv() throws IOException {
+    return loadMappings();
+  }
+
+  @Benchmark
+  public void remapLines(Blackhole blackhole) {
+    StringBuffer buffer = new StringBuffer();
+    for(String line : lines) {
+      buffer.setLength(0);
+      buffer.append(line);
+      remapper.process(buffer);
+      blackhole.consume(buffer.length());
+    }
+  }
+
+  private CsvRemapper loadMappings() throws IOException {
+    CsvRemapper remapper = new CsvRemapper();
+    remapper.loadCsv(directory.resolve("methods.csv"));
+    remapper.loadCsv(directory.resolve("fields.csv"));
+    remapper.loadCsv(directory.resolve("params.csv"));
+    return remapper;
+  }
+}
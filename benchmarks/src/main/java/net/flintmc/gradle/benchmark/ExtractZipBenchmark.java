@@ -0,0 +1,70 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import net.flintmc.gradle.util.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks extracting an archive shaped like the MCP config and mapping downloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExtractZipBenchmark {
+  @Param("2000")
+  public int fileCount;
+
+  private Path directory;
+  private Path zip;
+  private Path target;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = BenchmarkFixtures.createDirectory("zip");
+    zip = directory.resolve("archive.zip");
+    BenchmarkFixtures.writeRandomZip(zip, fileCount, 16 * 1024);
+  }
+
+  @Setup(Level.Invocation)
+  public void cleanTarget() throws IOException {
+    target = directory.resolve("extracted");
+    BenchmarkFixtures.delete(target);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    BenchmarkFixtures.delete(directory);
+  }
+
+  @Benchmark
+  public Path extract() throws IOException {
+    Util.extractZip(zip, target, StandardCopyOption.REPLACE_EXISTING);
+    return target;
+  }
+}
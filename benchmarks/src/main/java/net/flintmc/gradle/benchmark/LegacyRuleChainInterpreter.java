@@ -0,0 +1,103 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package net.flintmc.gradle.benchmark;
+
+import net.flintmc.gradle.minecraft.data.version.*;
+import org.apache.tools.ant.taskdefs.condition.Os;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * The rule chain interpreter as it was before rule chains were compiled, kept only as a baseline for
+ * {@link RuleChainBenchmark}.
+ */
+final class LegacyRuleChainInterpreter {
+  private static final VersionedOsRuleValue RULE_OS_NAME;
+  private static final String RULE_OS_VERSION = System.getProperty("os.version");
+  private static final String RULE_OS_ARCH = System.getProperty("os.arch");
+
+  static {
+    if(Os.isFamily(Os.FAMILY_MAC)) {
+      RULE_OS_NAME = VersionedOsRuleValue.OSX;
+    } else if(Os.isFamily(Os.FAMILY_WINDOWS)) {
+      RULE_OS_NAME = VersionedOsRuleValue.WINDOWS;
+    } else if(Os.isFamily(Os.FAMILY_UNIX)) {
+      RULE_OS_NAME = VersionedOsRuleValue.LINUX;
+    } else {
+      RULE_OS_NAME = VersionedOsRuleValue.OTHER;
+    }
+  }
+
+  private LegacyRuleChainInterpreter() {}
+
+  /**
+   * Interprets the given rule chain against the current environment, walking all rules on every call.
+   *
+   * @param rules    The rule chain to test
+   * @param features The features to use for detection
+   * @return {@code true} if the rule chain matches or is {@code null}, false otherwise
+   */
+  static boolean testRuleChain(List<VersionedRule> rules, Map<String, Object> features) {
+    if(rules == null || rules.isEmpty()) {
+      return true;
+    }
+
+    boolean allow = false;
+
+    for(VersionedRule rule : rules) {
+      boolean applies = true;
+
+      if(rule.getOs() != null) {
+        VersionedOsRule osRule = rule.getOs();
+
+        if(osRule.getName() != null) {
+          applies = osRule.getName() == RULE_OS_NAME;
+        }
+
+        if(applies && osRule.getVersion() != null) {
+          applies = Pattern.compile(osRule.getVersion()).matcher(RULE_OS_VERSION).matches();
+        }
+
+        if(applies && osRule.getArch() != null) {
+          applies = RULE_OS_ARCH.equals(osRule.getArch());
+        }
+      }
+
+      if(applies && rule.getFeatures() != null) {
+        for(String key : rule.getFeatures().keySet()) {
+          applies = Objects.equals(features.get(key), rule.getFeatures().get(key));
+          if(!applies) {
+            break;
+          }
+        }
+      }
+
+      if(applies) {
+        allow = rule.getAction() == VersionedRuleAction.ALLOW;
+      }
+    }
+
+    return allow;
+  }
+}
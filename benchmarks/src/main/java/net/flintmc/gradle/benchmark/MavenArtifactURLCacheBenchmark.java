@@ -0,0 +1,125 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import net.flintmc.gradle.maven.RemoteMavenRepository;
+import net.flintmc.gradle.maven.cache.MavenArtifactURLCache;
+import net.flintmc.gradle.maven.pom.MavenArtifact;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the artifact URL cache. Loading resolves every artifact from a fully populated cache file, saving
+ * resolves a single missing artifact against a local repository, which reloads and rewrites the whole cache file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class MavenArtifactURLCacheBenchmark {
+  @Param("5000")
+  public int artifactCount;
+
+  private Path directory;
+  private Path fixture;
+  private Path cacheFile;
+  private HttpServer server;
+  private OkHttpClient httpClient;
+  private List<MavenArtifact> artifacts;
+  private List<RemoteMavenRepository> repositories;
+  private RemoteMavenRepository localRepository;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = BenchmarkFixtures.createDirectory("url-cache");
+    fixture = directory.resolve("fixture.bin");
+    cacheFile = directory.resolve("artifact-urls.bin");
+
+    // A repository answering every request successfully, so missing artifacts resolve without leaving the machine
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", (exchange) -> {
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    server.start();
+
+    httpClient = new OkHttpClient();
+    localRepository = new RemoteMavenRepository(
+        httpClient, URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/maven/"));
+
+    List<URI> repositoryURIs = new ArrayList<>();
+    repositories = new ArrayList<>();
+    for(int i = 0; i < 4; i++) {
+      URI uri = URI.create("https://repository" + i + ".example.com/maven/");
+      repositoryURIs.add(uri);
+      repositories.add(new RemoteMavenRepository(httpClient, uri));
+    }
+
+    artifacts = BenchmarkFixtures.artifacts(artifactCount);
+    BenchmarkFixtures.writeArtifactURLCache(fixture, artifacts, repositoryURIs);
+  }
+
+  @Setup(Level.Invocation)
+  public void resetCacheFile() throws IOException {
+    Files.copy(fixture, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    server.stop(0);
+    httpClient.dispatcher().executorService().shutdown();
+    httpClient.connectionPool().evictAll();
+    BenchmarkFixtures.delete(directory);
+  }
+
+  @Benchmark
+  public Map<MavenArtifact, URI> load() throws IOException {
+    MavenArtifactURLCache cache = new MavenArtifactURLCache(cacheFile, true);
+    cache.setup();
+    return cache.resolve(artifacts, repositories, true);
+  }
+
+  @Benchmark
+  public Map<MavenArtifact, URI> save() throws IOException {
+    MavenArtifactURLCache cache = new MavenArtifactURLCache(cacheFile, false);
+    cache.setup();
+    return cache.resolve(
+        Collections.singletonList(new MavenArtifact("net.flintmc.generated", "missing", "1.0.0")),
+        Collections.singletonList(localRepository),
+        true
+    );
+  }
+}
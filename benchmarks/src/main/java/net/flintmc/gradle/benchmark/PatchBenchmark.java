@@ -0,0 +1,142 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import net.flintmc.gradle.patch.PatchContextual;
+import net.flintmc.gradle.patch.PatchFile;
+import net.flintmc.gradle.patch.PatchHelper;
+import net.flintmc.gradle.patch.context.ZipPatchContextProvider;
+import net.flintmc.gradle.patch.report.PatchReport;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * Benchmarks applying a patch set to a source jar, once with every hunk at its recorded position and once with the
+ * sources drifted away from the patches, so the hunks have to be searched for. Setting {@code patchSources} and
+ * {@code patches} applies a real patch set instead of the generated one, the drift is ignored then.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PatchBenchmark {
+  @Param({"0", "40"})
+  public int drift;
+
+  // The source zip and the patch directory of a real patch set, generated ones are used if empty
+  @Param("")
+  public String patchSources;
+
+  @Param("")
+  public String patches;
+
+  private Path directory;
+  private Path sources;
+  private List<Path> patchFiles;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    Path patchDirectory;
+
+    if(patchSources.isEmpty() || patches.isEmpty()) {
+      directory = BenchmarkFixtures.createDirectory("patch");
+      sources = directory.resolve("sources.zip");
+
+      patchDirectory = directory.resolve("patches");
+      BenchmarkFixtures.writePatchSet(sources, patchDirectory, 200, 60, drift);
+    } else {
+      sources = Paths.get(patchSources);
+      patchDirectory = Paths.get(patches);
+    }
+
+    // Collected the same way as the deobfuscation environment does
+    try(Stream<Path> files = Files.walk(patchDirectory)) {
+      patchFiles = files
+          .filter((file) -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(".patch"))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if(directory != null) {
+      BenchmarkFixtures.delete(directory);
+    }
+  }
+
+  @Benchmark
+  public void applyPatches(Blackhole blackhole) throws Exception {
+    try(ZipFile zipFile = new ZipFile(sources.toFile())) {
+      ZipPatchContextProvider provider = new ZipPatchContextProvider(zipFile);
+
+      for(Path patch : patchFiles) {
+        PatchContextual contextual = PatchContextual.create(PatchFile.from(patch.toFile()), provider);
+        contextual.setCanonicalization(false, false);
+        contextual.setMaximalAttempt(10);
+
+        for(PatchReport report : contextual.patch(false)) {
+          if(!report.getStatus().isSuccess()) {
+            throw new IllegalStateException("Patch " + patch + " failed to apply");
+          }
+
+          blackhole.consume(report);
+        }
+      }
+    }
+  }
+
+  /**
+   * Benchmarks the line comparison used while searching for hunks with all canonicalizations enabled.
+   */
+  @State(Scope.Benchmark)
+  public static class Similarity {
+    private PatchContextual contextual;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      contextual = PatchContextual.create(PatchFile.from(""), null);
+      contextual.setCanonicalization(true, true);
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void similar(Similarity similarity, Blackhole blackhole) {
+    blackhole.consume(PatchHelper.similar(similarity.contextual,
+        "   public final int func_1234_a(int p_1234_1_) {",
+        "   protected   int func_1234_a(int p_1234_1_)   {"));
+    blackhole.consume(PatchHelper.similar(similarity.contextual,
+        "      return this.field_4321_a + p_1234_1_;",
+        "      return this.field_4322_a + p_1234_1_;"));
+  }
+}
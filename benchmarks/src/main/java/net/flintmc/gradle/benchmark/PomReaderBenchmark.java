@@ -0,0 +1,64 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import net.flintmc.gradle.maven.pom.io.PomReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing a graph of POM files without any caching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PomReaderBenchmark {
+  @Param("500")
+  public int pomCount;
+
+  private Path directory;
+  private List<Path> poms;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = BenchmarkFixtures.createDirectory("pom");
+    poms = BenchmarkFixtures.writePomGraph(directory, pomCount, 8);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    BenchmarkFixtures.delete(directory);
+  }
+
+  @Benchmark
+  public void readGraph(Blackhole blackhole) throws IOException {
+    for(Path pom : poms) {
+      blackhole.consume(PomReader.read(pom));
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import net.flintmc.gradle.java.compile.JavaCompileHelper;
+import net.flintmc.gradle.java.exec.JavaExecutionResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the wall clock time of recompiling a source jar with cyclic package references.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecompileBenchmark {
+  @Param("40")
+  public int packageCount;
+
+  private Path directory;
+  private Path input;
+  private Path output;
+  private JavaCompileHelper compileHelper;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = BenchmarkFixtures.createDirectory("recompile");
+    input = directory.resolve("input-sources.jar");
+    output = directory.resolve("output.jar");
+
+    BenchmarkFixtures.writeCompilableSourceJar(input, packageCount, 25, 20);
+    compileHelper = new JavaCompileHelper();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    BenchmarkFixtures.delete(directory);
+  }
+
+  @Benchmark
+  public Path recompile() throws IOException {
+    JavaExecutionResult result = compileHelper.compile(input, Collections.emptyList(), output);
+    if(result.getExitCode() != 0) {
+      throw new IllegalStateException("Compilation failed: " + result.getStderr());
+    }
+
+    return output;
+  }
+}
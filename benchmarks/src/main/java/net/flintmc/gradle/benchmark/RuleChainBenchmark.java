@@ -0,0 +1,126 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.flintmc.gradle.minecraft.data.version.ArgumentString;
+import net.flintmc.gradle.minecraft.data.version.VersionedArguments;
+import net.flintmc.gradle.minecraft.data.version.VersionedRule;
+import net.flintmc.gradle.util.RuleChainResolver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks evaluating the rule chains of a version manifest, shaped like the library and argument rules of recent
+ * minecraft versions. The current resolver is measured against the interpreter it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RuleChainBenchmark {
+  private static final String[] CHAINS = {
+      "[{\"action\": \"allow\"}, {\"action\": \"disallow\", \"os\": {\"name\": \"osx\"}}]",
+      "[{\"action\": \"allow\", \"os\": {\"name\": \"osx\"}}]",
+      "[{\"action\": \"allow\", \"os\": {\"name\": \"windows\", \"version\": \"^10\\\\.\"}}]",
+      "[{\"action\": \"allow\", \"os\": {\"arch\": \"x86\"}}]",
+      "[{\"action\": \"allow\", \"features\": {\"is_demo_user\": true}}]",
+      "[{\"action\": \"allow\", \"features\": {\"has_custom_resolution\": true}}]"
+  };
+
+  private List<List<VersionedRule>> chains;
+  private Map<String, Object> features;
+  private List<ArgumentString> arguments;
+  private VersionedArguments versionedArguments;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+
+    // A version manifest has a few hundred rule chains, most of them repeating the same few conditions
+    chains = new ArrayList<>();
+    for(int i = 0; i < 300; i++) {
+      chains.add(mapper.readValue(CHAINS[i % CHAINS.length], new TypeReference<List<VersionedRule>>() {
+      }));
+    }
+
+    features = Collections.singletonMap("has_custom_resolution", true);
+
+    arguments = new ArrayList<>();
+    for(List<VersionedRule> chain : chains) {
+      arguments.add(new ArgumentString(null, "--argument", chain));
+    }
+
+    versionedArguments = new VersionedArguments();
+    versionedArguments.setGame(arguments);
+  }
+
+  @Benchmark
+  public void interpretChains(Blackhole blackhole) {
+    for(List<VersionedRule> chain : chains) {
+      blackhole.consume(LegacyRuleChainInterpreter.testRuleChain(chain, features));
+    }
+  }
+
+  @Benchmark
+  public void testChains(Blackhole blackhole) {
+    for(List<VersionedRule> chain : chains) {
+      blackhole.consume(RuleChainResolver.testRuleChain(chain, features));
+    }
+  }
+
+  @Benchmark
+  public void interpretArguments(Blackhole blackhole) {
+    // How launch arguments used to be resolved, testing every argument on every run
+    for(ArgumentString argument : arguments) {
+      if(LegacyRuleChainInterpreter.testRuleChain(argument.getRules(), Collections.emptyMap())) {
+        blackhole.consume(argument);
+      }
+    }
+  }
+
+  @Benchmark
+  public void filterArguments(Blackhole blackhole) {
+    // A fresh manifest has to filter its arguments once, later lookups return the same list
+    VersionedArguments freshArguments = new VersionedArguments();
+    freshArguments.setGame(arguments);
+
+    for(ArgumentString argument : freshArguments.getApplicableGame()) {
+      blackhole.consume(argument);
+    }
+  }
+
+  @Benchmark
+  public void lookupArguments(Blackhole blackhole) {
+    for(ArgumentString argument : versionedArguments.getApplicableGame()) {
+      blackhole.consume(argument);
+    }
+  }
+}
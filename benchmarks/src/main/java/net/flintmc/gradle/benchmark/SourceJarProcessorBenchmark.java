@@ -0,0 +1,78 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark;
+
+import net.flintmc.gradle.environment.SourceJarProcessor;
+import net.flintmc.gradle.environment.mcp.CsvRemapper;
+import net.flintmc.gradle.environment.mcp.ForgeAdditionStripper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks remapping a large source jar the way the MCP environment does after decompilation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SourceJarProcessorBenchmark {
+  @Param("2000")
+  public int classCount;
+
+  private Path directory;
+  private Path input;
+  private Path output;
+  private SourceJarProcessor processor;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = BenchmarkFixtures.createDirectory("source-jar");
+    input = directory.resolve("input-sources.jar");
+    output = directory.resolve("output-sources.jar");
+
+    BenchmarkFixtures.writeMcpCsvs(directory.resolve("mappings"), 30000);
+    BenchmarkFixtures.writeSourceJar(input, classCount, 40, 30000);
+
+    CsvRemapper remapper = new CsvRemapper();
+    remapper.loadCsv(directory.resolve("mappings/methods.csv"));
+    remapper.loadCsv(directory.resolve("mappings/fields.csv"));
+    remapper.loadCsv(directory.resolve("mappings/params.csv"));
+
+    processor = new SourceJarProcessor();
+    processor.addAction(remapper);
+    processor.addAction(new ForgeAdditionStripper());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    BenchmarkFixtures.delete(directory);
+  }
+
+  @Benchmark
+  public Path process() throws IOException {
+    processor.process(input, output);
+    return output;
+  }
+}
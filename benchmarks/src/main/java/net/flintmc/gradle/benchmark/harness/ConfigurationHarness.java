@@ -0,0 +1,219 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.flintmc.gradle.benchmark.BenchmarkFixtures;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Harness measuring the configuration time of a multi project build applying the plugin to every project. Every step
+ * is executed a few times to warm up the daemon, afterwards the wall clock time of the measured runs is recorded
+ * together with the amount of tasks registered and realized while configuring.
+ * <p>
+ * The builds run against a {@link SyntheticMinecraftServer} without latency, so the configuration never leaves the
+ * machine. Minecraft versions are not configured, as deobfuscation can't be synthesized.
+ */
+public final class ConfigurationHarness {
+  private static final String[][] STEPS = {
+      {"help", "help"},
+      {"single-jar", ":project01:jar", "--dry-run"}
+  };
+
+  private static final Pattern TASK_COUNTS = Pattern.compile("flint-harness tasks: registered=(\\d+) realized=(\\d+)");
+  private static final int WARMUP_RUNS = 3;
+
+  private ConfigurationHarness() {}
+
+  /**
+   * Runs the harness.
+   *
+   * @param args The path to write the JSON results to, the amount of projects and the amount of measured runs
+   * @throws IOException If an I/O error occurs while running the harness
+   */
+  public static void main(String[] args) throws IOException {
+    if(args.length < 1) {
+      System.err.println("Usage: ConfigurationHarness <results> [projects] [runs]");
+      System.exit(1);
+      return;
+    }
+
+    Path resultsFile = Paths.get(args[0]);
+    int projectCount = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+    int runCount = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    ObjectNode results = objectMapper.createObjectNode();
+    results.put("projects", projectCount);
+    ArrayNode steps = results.putArray("steps");
+
+    Path workDir = BenchmarkFixtures.createDirectory("configuration-harness");
+    try(SyntheticMinecraftServer server = new SyntheticMinecraftServer(0, 0, 40, 0, 0)) {
+      Path projectDir = workDir.resolve("project");
+      Path testKitDir = workDir.resolve("testkit");
+      writeProject(projectDir, projectCount, server.getPluginProperties());
+
+      for(String[] step : STEPS) {
+        String[] arguments = Arrays.copyOfRange(step, 1, step.length);
+
+        for(int run = 0; run < WARMUP_RUNS; run++) {
+          // Warm up the daemon, the first builds include compiling the build scripts
+          build(projectDir, testKitDir, arguments);
+        }
+
+        long[] millis = new long[runCount];
+        BuildResult lastResult = null;
+        for(int run = 0; run < runCount; run++) {
+          long start = System.nanoTime();
+          lastResult = build(projectDir, testKitDir, arguments);
+          millis[run] = (System.nanoTime() - start) / 1_000_000;
+        }
+
+        Arrays.sort(millis);
+        long median = millis[millis.length / 2];
+
+        ObjectNode result = steps.addObject();
+        result.put("step", step[0]);
+        result.put("minMillis", millis[0]);
+        result.put("medianMillis", median);
+        result.put("maxMillis", millis[millis.length - 1]);
+
+        String registered = "?";
+        String realized = "?";
+        Matcher matcher = lastResult == null ? null : TASK_COUNTS.matcher(lastResult.getOutput());
+        if(matcher != null && matcher.find()) {
+          registered = matcher.group(1);
+          realized = matcher.group(2);
+          result.put("registeredTasks", Integer.parseInt(registered));
+          result.put("realizedTasks", Integer.parseInt(realized));
+        }
+
+        System.out.printf("%-12s min %6d ms median %6d ms %6s tasks registered %6s realized%n",
+            step[0], millis[0], median, registered, realized);
+      }
+    } finally {
+      BenchmarkFixtures.delete(workDir);
+    }
+
+    if(resultsFile.getParent() != null) {
+      Files.createDirectories(resultsFile.getParent());
+    }
+
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultsFile.toFile(), results);
+  }
+
+  /**
+   * Runs a single build.
+   *
+   * @param projectDir The directory of the project to build
+   * @param testKitDir The Gradle user home to use for the build
+   * @param arguments  The arguments to pass to Gradle
+   * @return The result of the build
+   */
+  private static BuildResult build(Path projectDir, Path testKitDir, String... arguments) {
+    return GradleRunner.create()
+        .withProjectDir(projectDir.toFile())
+        .withTestKitDir(testKitDir.toFile())
+        .withPluginClasspath()
+        .withArguments(arguments)
+        .build();
+  }
+
+  /**
+   * Writes the multi project build the configuration is measured on.
+   *
+   * @param projectDir   The directory to write the project into
+   * @param projectCount The amount of sub projects to generate
+   * @param properties   The properties to redirect the plugin to the synthetic server
+   * @throws IOException If an I/O error occurs while writing the project
+   */
+  private static void writeProject(Path projectDir, int projectCount, Map<String, String> properties)
+      throws IOException {
+    Files.createDirectories(projectDir);
+
+    try(Writer writer = Files.newBufferedWriter(projectDir.resolve("gradle.properties"), StandardCharsets.UTF_8)) {
+      for(Map.Entry<String, String> property : properties.entrySet()) {
+        writer.write(property.getKey() + "=" + property.getValue() + "\n");
+      }
+    }
+
+    StringBuilder settings = new StringBuilder("rootProject.name = 'configuration-harness'\n");
+    for(int i = 1; i <= projectCount; i++) {
+      String name = String.format("project%02d", i);
+      settings.append("include '").append(name).append("'\n");
+
+      Path subProjectDir = projectDir.resolve(name);
+      Path sourceDir = subProjectDir.resolve("src/main/java/harness/" + name);
+      Files.createDirectories(sourceDir);
+      write(sourceDir.resolve("Marker.java"), "package harness." + name + ";\n\npublic class Marker {\n}\n");
+    }
+    write(projectDir.resolve("settings.gradle"), settings.toString());
+
+    write(projectDir.resolve("build.gradle"), String.join("\n",
+        "plugins {",
+        "    id 'java'",
+        "    id 'net.flintmc.flint-gradle'",
+        "}",
+        "",
+        "def realizedTasks = new java.util.concurrent.atomic.AtomicInteger()",
+        "",
+        "allprojects {",
+        "    // Only fires for tasks which are actually created",
+        "    tasks.configureEach { realizedTasks.incrementAndGet() }",
+        "}",
+        "",
+        "subprojects {",
+        "    apply plugin: 'java'",
+        "    apply plugin: 'net.flintmc.flint-gradle'",
+        "}",
+        "",
+        "allprojects {",
+        "    flint {",
+        "        flintVersion = '1.0.0'",
+        "        enablePublishing(false)",
+        "    }",
+        "}",
+        "",
+        "gradle.taskGraph.whenReady {",
+        "    int registered = allprojects.sum { it.tasks.names.size() }",
+        "    println \"flint-harness tasks: registered=${registered} realized=${realizedTasks.get()}\"",
+        "}",
+        ""
+    ));
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
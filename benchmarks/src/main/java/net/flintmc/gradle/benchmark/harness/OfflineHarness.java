@@ -0,0 +1,173 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.flintmc.gradle.benchmark.BenchmarkFixtures;
+import org.gradle.testkit.runner.GradleRunner;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * End-to-end harness running real builds with the plugin against a {@link SyntheticMinecraftServer}. Every step is
+ * executed once with an empty Gradle user home (cold) and a few more times reusing it (warm), recording the wall
+ * clock time as well as the amount of requests and bytes the server had to answer.
+ * <p>
+ * Deobfuscation can't be synthesized, so the measured steps are the plugin configuration, installing the minecraft
+ * jars including their libraries and downloading the assets.
+ */
+public final class OfflineHarness {
+  private static final String[][] STEPS = {
+      {"configuration", "help"},
+      {"install", "harnessInstall"},
+      {"assets", "harnessAssets"}
+  };
+
+  private OfflineHarness() {}
+
+  /**
+   * Runs the harness.
+   *
+   * @param args The path to write the JSON results to, the latency in milliseconds, the bandwidth in bytes per second
+   *             and the amount of warm runs
+   * @throws IOException If an I/O error occurs while running the harness
+   */
+  public static void main(String[] args) throws IOException {
+    if(args.length < 1) {
+      System.err.println("Usage: OfflineHarness <results> [latency millis] [bytes per second] [warm runs]");
+      System.exit(1);
+      return;
+    }
+
+    Path resultsFile = Paths.get(args[0]);
+    long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+    long bytesPerSecond = args.length > 2 ? Long.parseLong(args[2]) : 4 * 1024 * 1024;
+    int warmRuns = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    ObjectNode results = objectMapper.createObjectNode();
+    results.put("latencyMillis", latencyMillis);
+    results.put("bytesPerSecond", bytesPerSecond);
+    ArrayNode runs = results.putArray("runs");
+
+    Path workDir = BenchmarkFixtures.createDirectory("harness");
+    try(SyntheticMinecraftServer server = new SyntheticMinecraftServer(latencyMillis, bytesPerSecond, 40, 2000, 4096)) {
+      Path projectDir = workDir.resolve("project");
+      Path testKitDir = workDir.resolve("testkit");
+      writeProject(projectDir, server.getPluginProperties());
+
+      for(int run = 0; run <= warmRuns; run++) {
+        // The first run starts with an empty Gradle user home, all following runs reuse the caches
+        String scenario = run == 0 ? "cold" : "warm";
+
+        for(String[] step : STEPS) {
+          server.resetCounters();
+
+          long start = System.nanoTime();
+          GradleRunner.create()
+              .withProjectDir(projectDir.toFile())
+              .withTestKitDir(testKitDir.toFile())
+              .withPluginClasspath()
+              .withArguments(step[1], "--stacktrace")
+              .build();
+          long millis = (System.nanoTime() - start) / 1_000_000;
+
+          ObjectNode result = runs.addObject();
+          result.put("scenario", scenario);
+          result.put("step", step[0]);
+          result.put("millis", millis);
+          result.put("requests", server.getRequestCount());
+          result.put("bytes", server.getBytesSent());
+
+          System.out.printf("%-5s %-14s %8d ms %6d requests %12d bytes%n",
+              scenario, step[0], millis, server.getRequestCount(), server.getBytesSent());
+        }
+      }
+    } finally {
+      BenchmarkFixtures.delete(workDir);
+    }
+
+    if(resultsFile.getParent() != null) {
+      Files.createDirectories(resultsFile.getParent());
+    }
+
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultsFile.toFile(), results);
+  }
+
+  /**
+   * Writes the project the builds are executed in.
+   *
+   * @param projectDir The directory to write the project into
+   * @param properties The properties to redirect the plugin to the synthetic server
+   * @throws IOException If an I/O error occurs while writing the project
+   */
+  private static void writeProject(Path projectDir, Map<String, String> properties) throws IOException {
+    Files.createDirectories(projectDir);
+
+    try(Writer writer = Files.newBufferedWriter(projectDir.resolve("gradle.properties"), StandardCharsets.UTF_8)) {
+      for(Map.Entry<String, String> property : properties.entrySet()) {
+        writer.write(property.getKey() + "=" + property.getValue() + "\n");
+      }
+    }
+
+    write(projectDir.resolve("settings.gradle"), "rootProject.name = 'harness'\n");
+    write(projectDir.resolve("build.gradle"), String.join("\n",
+        "plugins {",
+        "    id 'java'",
+        "    id 'net.flintmc.flint-gradle'",
+        "}",
+        "",
+        "flint {",
+        "    flintVersion = '1.0.0'",
+        "    enablePublishing(false)",
+        "}",
+        "",
+        "def flintPlugin = plugins.getPlugin(net.flintmc.gradle.FlintGradlePlugin)",
+        "",
+        "tasks.register('harnessInstall') {",
+        "    doLast {",
+        "        flintPlugin.minecraftRepository.installArtifacts(",
+        "            '" + SyntheticMinecraftServer.VERSION + "', flintPlugin.internalRepository, flintPlugin.downloader)",
+        "    }",
+        "}",
+        "",
+        "tasks.register('harnessAssets', net.flintmc.gradle.minecraft.MinecraftAssetsTask) {",
+        "    outputDirectory = new File(gradle.gradleUserHomeDir, 'caches/flint-gradle/harness-assets').toPath()",
+        "    doFirst {",
+        "        versionManifest = flintPlugin.minecraftRepository.getVersionManifest('"
+            + SyntheticMinecraftServer.VERSION + "')",
+        "    }",
+        "}",
+        ""
+    ));
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
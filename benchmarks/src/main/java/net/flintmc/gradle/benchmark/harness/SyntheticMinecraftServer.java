@@ -0,0 +1,395 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.benchmark.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Local stand-in for the Mojang launcher meta, asset and library servers as well as the mappings index. All content
+ * is generated from a fixed seed, so the checksums stay the same across runs and warm caches remain valid.
+ * <p>
+ * Every response is delayed by a fixed latency and streamed with a limited bandwidth, so the harness can model slow
+ * and fast connections reproducibly.
+ */
+public class SyntheticMinecraftServer implements AutoCloseable {
+  public static final String VERSION = "synthetic-1.0";
+
+  private static final long SEED = 0x466c696e74L;
+  private static final long ENTRY_TIME = 1577836800000L;
+  private static final int CHUNKS_PER_SECOND = 20;
+  private static final DateTimeFormatter LAST_MODIFIED_FORMATTER =
+      DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+
+  private final ObjectMapper objectMapper;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final URI baseURI;
+  private final Map<String, byte[]> resources;
+  private final String lastModified;
+  private final long latencyMillis;
+  private final long bytesPerSecond;
+
+  private final AtomicLong requestCount;
+  private final AtomicLong bytesSent;
+
+  /**
+   * Starts a new synthetic server on a random loopback port.
+   *
+   * @param latencyMillis  The delay before every response in milliseconds
+   * @param bytesPerSecond The maximum bandwidth per response, or {@code 0} for no limit
+   * @param libraryCount   The amount of libraries the synthetic version depends on
+   * @param assetCount     The amount of asset objects of the synthetic version
+   * @param assetSize      The size of every asset object in bytes
+   * @throws IOException If the server fails to start
+   */
+  public SyntheticMinecraftServer(
+      long latencyMillis, long bytesPerSecond, int libraryCount, int assetCount, int assetSize) throws IOException {
+    this.objectMapper = new ObjectMapper();
+    this.latencyMillis = latencyMillis;
+    this.bytesPerSecond = bytesPerSecond;
+    this.requestCount = new AtomicLong();
+    this.bytesSent = new AtomicLong();
+    this.resources = new HashMap<>();
+    this.lastModified = LAST_MODIFIED_FORMATTER.format(
+        ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.baseURI = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+
+    generate(new Random(SEED), libraryCount, assetCount, assetSize);
+
+    // The plugin downloads in parallel, so the server needs to answer concurrently as well
+    this.executor = Executors.newCachedThreadPool((runnable) -> {
+      Thread thread = new Thread(runnable, "synthetic-minecraft-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Retrieves the project properties which redirect all remote endpoints of the plugin to this server.
+   *
+   * @return The properties to pass to the build
+   */
+  public Map<String, String> getPluginProperties() {
+    Map<String, String> properties = new LinkedHashMap<>();
+    properties.put("net.flintmc.minecraft.version-manifest-url", resolve("launchermeta/version_manifest.json"));
+    properties.put("net.flintmc.mappings.index-url", resolve("mappings/index.json"));
+    properties.put("net.flintmc.minecraft.assets-url", resolve("resources"));
+    properties.put("net.flintmc.minecraft.libraries-url", resolve("libraries/"));
+    properties.put("net.flintmc.maven-central-url", resolve("maven2/"));
+    properties.put("net.flintmc.minecraft.auth-url", resolve("auth/"));
+    properties.put("net.flintmc.distributor.url", resolve("distributor/"));
+    return properties;
+  }
+
+  /**
+   * Retrieves the amount of requests answered since the server has been started or reset.
+   *
+   * @return The amount of requests
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Retrieves the amount of body bytes sent since the server has been started or reset.
+   *
+   * @return The amount of bytes
+   */
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  /**
+   * Resets the request and byte counters.
+   */
+  public void resetCounters() {
+    requestCount.set(0);
+    bytesSent.set(0);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Generates the content of all endpoints.
+   *
+   * @param random       The random to generate the content with
+   * @param libraryCount The amount of libraries to generate
+   * @param assetCount   The amount of asset objects to generate
+   * @param assetSize    The size of every asset object
+   * @throws IOException If an I/O error occurs while generating the jars
+   */
+  private void generate(Random random, int libraryCount, int assetCount, int assetSize) throws IOException {
+    ObjectNode versionJson = objectMapper.createObjectNode();
+    versionJson.put("id", VERSION);
+    versionJson.put("type", "release");
+    versionJson.put("mainClass", "net.minecraft.client.main.Main");
+    versionJson.put("assets", VERSION);
+    versionJson.put("minimumLauncherVersion", 21);
+
+    // Client and server jar
+    ObjectNode downloads = versionJson.putObject("downloads");
+    downloads.set("client", download("launcher/client.jar", randomJar(random, "client", 256, 2048)));
+    downloads.set("server", download("launcher/server.jar", randomJar(random, "server", 128, 2048)));
+
+    // Libraries in maven layout, including a POM so the downloader resolves them like real ones
+    ArrayNode libraries = versionJson.putArray("libraries");
+    for(int i = 0; i < libraryCount; i++) {
+      String artifactId = "library-" + i;
+      String directory = "libraries/net/flintmc/synthetic/" + artifactId + "/1.0/";
+      String path = "net/flintmc/synthetic/" + artifactId + "/1.0/" + artifactId + "-1.0.jar";
+
+      resources.put(directory + artifactId + "-1.0.pom", pom(artifactId));
+
+      ObjectNode artifact = download("libraries/" + path, randomJar(random, artifactId, 16, 1024));
+      artifact.put("path", path);
+
+      ObjectNode library = libraries.addObject();
+      library.put("name", "net.flintmc.synthetic:" + artifactId + ":1.0");
+      library.putObject("downloads").set("artifact", artifact);
+    }
+
+    // Asset objects and their index
+    ObjectNode assetIndex = objectMapper.createObjectNode();
+    ObjectNode objects = assetIndex.putObject("objects");
+    long totalSize = 0;
+    for(int i = 0; i < assetCount; i++) {
+      byte[] content = new byte[assetSize];
+      random.nextBytes(content);
+
+      String hash = sha1(content);
+      resources.put("resources/" + hash.substring(0, 2) + "/" + hash, content);
+
+      ObjectNode object = objects.putObject("synthetic/asset-" + i);
+      object.put("hash", hash);
+      object.put("size", content.length);
+      totalSize += content.length;
+    }
+
+    ObjectNode assetIndexDownload = download("assets/indexes/" + VERSION + ".json", json(assetIndex));
+    assetIndexDownload.put("id", VERSION);
+    assetIndexDownload.put("totalSize", totalSize);
+    versionJson.set("assetIndex", assetIndexDownload);
+
+    byte[] versionContent = json(versionJson);
+    resources.put("launchermeta/v1/" + VERSION + ".json", versionContent);
+
+    // The manifest listing the single synthetic version
+    ObjectNode manifest = objectMapper.createObjectNode();
+    manifest.putObject("latest").put("release", VERSION).put("snapshot", VERSION);
+    manifest.putArray("versions").addObject()
+        .put("id", VERSION)
+        .put("type", "release")
+        .put("url", resolve("launchermeta/v1/" + VERSION + ".json"))
+        .put("time", "2020-01-01T00:00:00+00:00")
+        .put("releaseTime", "2020-01-01T00:00:00+00:00");
+    resources.put("launchermeta/version_manifest.json", json(manifest));
+
+    // No default deobfuscation environments, the harness only measures what can be synthesized
+    resources.put("mappings/index.json", "{}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Registers the given content and creates a download description for it.
+   *
+   * @param path    The path to serve the content at
+   * @param content The content to serve
+   * @return The download description as used by the version manifests
+   */
+  private ObjectNode download(String path, byte[] content) {
+    resources.put(path, content);
+
+    ObjectNode download = objectMapper.createObjectNode();
+    download.put("sha1", sha1(content));
+    download.put("size", content.length);
+    download.put("url", resolve(path));
+    return download;
+  }
+
+  /**
+   * Handles a single request by serving the generated content.
+   *
+   * @param exchange The exchange to handle
+   * @throws IOException If an I/O error occurs while responding
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      requestCount.incrementAndGet();
+      sleep(latencyMillis);
+
+      String path = exchange.getRequestURI().getPath().substring(1);
+      byte[] content = resources.get(path);
+
+      if(content == null) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+
+      String eTag = "\"" + sha1(content) + "\"";
+      exchange.getResponseHeaders().add("Last-Modified", lastModified);
+      exchange.getResponseHeaders().add("ETag", eTag);
+      exchange.getResponseHeaders().add("X-Checksum-Sha1", sha1(content));
+
+      if(eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        exchange.sendResponseHeaders(304, -1);
+        return;
+      }
+
+      if(exchange.getRequestMethod().equals("HEAD")) {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+
+      exchange.sendResponseHeaders(200, content.length);
+      try(OutputStream out = exchange.getResponseBody()) {
+        write(out, content);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Writes the given content while respecting the configured bandwidth.
+   *
+   * @param out     The stream to write to
+   * @param content The content to write
+   * @throws IOException If an I/O error occurs while writing
+   */
+  private void write(OutputStream out, byte[] content) throws IOException {
+    if(bytesPerSecond <= 0) {
+      out.write(content);
+      bytesSent.addAndGet(content.length);
+      return;
+    }
+
+    int chunkSize = (int) Math.max(1, bytesPerSecond / CHUNKS_PER_SECOND);
+    for(int offset = 0; offset < content.length; offset += chunkSize) {
+      int length = Math.min(chunkSize, content.length - offset);
+      out.write(content, offset, length);
+      out.flush();
+      bytesSent.addAndGet(length);
+
+      sleep(TimeUnit.SECONDS.toMillis(1) / CHUNKS_PER_SECOND);
+    }
+  }
+
+  private String resolve(String path) {
+    return baseURI.resolve(path).toString();
+  }
+
+  private byte[] json(Object value) throws IOException {
+    return objectMapper.writeValueAsBytes(value);
+  }
+
+  private static byte[] pom(String artifactId) {
+    return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+        "  <modelVersion>4.0.0</modelVersion>\n" +
+        "  <groupId>net.flintmc.synthetic</groupId>\n" +
+        "  <artifactId>" + artifactId + "</artifactId>\n" +
+        "  <version>1.0</version>\n" +
+        "</project>\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] randomJar(Random random, String name, int fileCount, int fileSize) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try(ZipOutputStream out = new ZipOutputStream(bytes)) {
+      for(int i = 0; i < fileCount; i++) {
+        byte[] content = new byte[fileSize];
+        random.nextBytes(content);
+
+        // Fixed timestamps, otherwise the checksums would change with every run
+        ZipEntry entry = new ZipEntry(name + "/file" + i + ".bin");
+        entry.setTime(ENTRY_TIME);
+
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+      }
+    }
+
+    return bytes.toByteArray();
+  }
+
+  private static String sha1(byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+
+      StringBuilder builder = new StringBuilder();
+      for(byte b : digest) {
+        builder.append(String.format("%02x", b));
+      }
+
+      return builder.toString();
+    } catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not available", e);
+    }
+  }
+
+  private static void sleep(long millis) {
+    if(millis <= 0) {
+      return;
+    }
+
+    try {
+      Thread.sleep(millis);
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
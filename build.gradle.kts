@@ -71,6 +71,14 @@ repositories {
     mavenCentral()
 }
 
+subprojects {
+    repositories {
+        mavenLocal()
+        flintRepository()
+        mavenCentral()
+    }
+}
+
 version = System.getenv().getOrDefault("VERSION", "2.12.0")
 
 dependencies {
@@ -92,6 +100,13 @@ dependencies {
     implementation(group = "org.ow2.asm", name ="asm-commons", version = "9.1")
 
     implementation(group = "com.cloudbees", name = "diff4j", version = "1.2")
+    implementation(group = "org.apache.commons", name = "commons-compress", version = "1.20")
+
+    testImplementation(group = "org.junit.jupiter", name = "junit-jupiter", version = "5.7.1")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 gradlePlugin {
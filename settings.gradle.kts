@@ -19,3 +19,4 @@
 
 rootProject.name = "flint-gradle"
 
+include("benchmarks")
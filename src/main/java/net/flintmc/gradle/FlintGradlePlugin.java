@@ -23,6 +23,8 @@ import net.flintmc.gradle.environment.DeobfuscationEnvironment;
 import net.flintmc.gradle.extension.FlintGradleExtension;
 import net.flintmc.gradle.extension.FlintPatcherExtension;
 import net.flintmc.gradle.extension.FlintStaticFileDescription;
+import net.flintmc.gradle.io.ContentStore;
+import net.flintmc.gradle.io.HashingService;
 import net.flintmc.gradle.java.JarTaskProvider;
 import net.flintmc.gradle.java.JavaPluginInteraction;
 import net.flintmc.gradle.java.RunConfigurationProvider;
@@ -39,7 +41,8 @@ import net.flintmc.gradle.minecraft.MinecraftRepository;
 import net.flintmc.gradle.minecraft.data.environment.EnvironmentType;
 import net.flintmc.gradle.minecraft.data.environment.MinecraftVersion;
 import net.flintmc.gradle.minecraft.yggdrasil.YggdrasilAuthenticator;
-import net.flintmc.gradle.util.JavaClosure;
+import net.flintmc.gradle.property.FlintPluginProperties;
+import net.flintmc.gradle.telemetry.TelemetryService;
 import net.flintmc.gradle.util.Util;
 import okhttp3.OkHttpClient;
 import org.gradle.api.GradleException;
@@ -58,14 +61,14 @@ import java.util.Collection;
 public class FlintGradlePlugin implements Plugin<Project> {
   public static final String MINECRAFT_TASK_GROUP = "minecraft";
 
-  private static final String MINECRAFT_MAVEN = "https://libraries.minecraft.net";
-  private static final String MAVEN_CENTRAL = "https://repo.maven.apache.org/maven2/";
-
   private Project project;
+  private URI minecraftLibrariesURI;
 
   private OkHttpClient httpClient;
   private MavenArtifactDownloader downloader;
   private MavenArtifactURLCache mavenArtifactURLCache;
+  private ContentStore contentStore;
+  private HashingService hashingService;
 
   private FlintGradleExtension extension;
   private JavaPluginInteraction interaction;
@@ -99,27 +102,48 @@ public class FlintGradlePlugin implements Plugin<Project> {
 
     if (this.parentPlugin == null) {
       Gradle gradle = project.getGradle();
+
+      if (FlintPluginProperties.TELEMETRY.resolve(project)) {
+        // Creating the service starts the recording, Gradle closes it at the end of the build
+        gradle.getSharedServices().registerIfAbsent(TelemetryService.NAME, TelemetryService.class, (spec) ->
+            spec.getParameters().getOutputDirectory().set(
+                project.getLayout().getBuildDirectory().dir("flint-telemetry"))).get();
+      }
       httpClient = gradle.getStartParameter().isOffline() ? null :
           new OkHttpClient.Builder().build();
 
-      downloader = new MavenArtifactDownloader();
+      Path flintGradlePath = gradle.getGradleUserHomeDir().toPath().resolve("caches/flint-gradle");
+      Path minecraftCache = flintGradlePath.resolve("minecraft-cache");
+
+      try {
+        this.contentStore = new ContentStore(flintGradlePath.resolve("content-store"));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to create content store", e);
+      }
+
+      hashingService = new HashingService(httpClient, flintGradlePath.resolve("remote-checksums.properties"));
+      downloader = new MavenArtifactDownloader(contentStore);
+
+      // All remote endpoints can be overridden, for example to use mirrors or a local test server
+      this.minecraftLibrariesURI = FlintPluginProperties.MINECRAFT_LIBRARIES_URL.resolve(project);
 
       if (httpClient != null) {
-        downloader.addSource(new RemoteMavenRepository(httpClient, URI.create(MINECRAFT_MAVEN)));
-        downloader.addSource(new RemoteMavenRepository(httpClient, URI.create(MAVEN_CENTRAL)));
+        downloader.addSource(new RemoteMavenRepository(httpClient, minecraftLibrariesURI));
+        downloader.addSource(new RemoteMavenRepository(
+            httpClient, FlintPluginProperties.MAVEN_CENTRAL_URL.resolve(project)));
       }
 
       this.extension = project.getExtensions().create(FlintGradleExtension.NAME, FlintGradleExtension.class, this);
       project.getExtensions().create(FlintPatcherExtension.NAME, FlintPatcherExtension.class, this);
 
-      Path flintGradlePath = gradle.getGradleUserHomeDir().toPath().resolve("caches/flint-gradle");
-      Path minecraftCache = flintGradlePath.resolve("minecraft-cache");
-
       try {
         this.minecraftRepository = new MinecraftRepository(
             flintGradlePath.resolve("minecraft-repository"),
             minecraftCache,
-            httpClient
+            httpClient,
+            contentStore,
+            FlintPluginProperties.MINECRAFT_VERSION_MANIFEST_URL.resolve(project),
+            FlintPluginProperties.MAPPINGS_INDEX_URL.resolve(project)
         );
 
         this.internalRepository = new SimpleMavenRepository(flintGradlePath.resolve("internal-repository"));
@@ -129,7 +153,11 @@ public class FlintGradlePlugin implements Plugin<Project> {
 
       try {
         this.authenticator = httpClient != null ?
-            new YggdrasilAuthenticator(httpClient, flintGradlePath.resolve("yggdrasil")) :
+            new YggdrasilAuthenticator(
+                httpClient,
+                flintGradlePath.resolve("yggdrasil"),
+                FlintPluginProperties.MINECRAFT_AUTH_URL.resolve(project)
+            ) :
             null;
       } catch (IOException e) {
         throw new UncheckedIOException("Failed to create Yggdrasil authenticator", e);
@@ -150,6 +178,7 @@ public class FlintGradlePlugin implements Plugin<Project> {
 
     } else {
       this.httpClient = parentPlugin.httpClient;
+      this.minecraftLibrariesURI = parentPlugin.minecraftLibrariesURI;
       this.downloader = parentPlugin.downloader;
       this.minecraftRepository = parentPlugin.minecraftRepository;
       this.internalRepository = parentPlugin.internalRepository;
@@ -159,20 +188,22 @@ public class FlintGradlePlugin implements Plugin<Project> {
       this.runConfigurationProvider = parentPlugin.runConfigurationProvider;
       this.jarTaskProvider = parentPlugin.jarTaskProvider;
       this.mavenArtifactURLCache = parentPlugin.mavenArtifactURLCache;
+      this.contentStore = parentPlugin.contentStore;
+      this.hashingService = parentPlugin.hashingService;
       this.instrumentation = parentPlugin.instrumentation;
       this.instrumentation.apply(project);
     }
 
     this.manifestConfigurator = new ManifestConfigurator(this);
     interaction.setup();
-    project.getTasks().getByName("clean").configure(
-        JavaClosure.of((Delete task) -> task.delete(Util.getProjectCacheDir(project))));
+    project.getTasks().named("clean", Delete.class).configure(
+        (task) -> task.delete(Util.getProjectCacheDir(project)));
 
     project.afterEvaluate((p) -> extension.ensureConfigured());
 
     project.getRepositories().maven(repo -> {
       repo.setName("Mojang");
-      repo.setUrl(MINECRAFT_MAVEN);
+      repo.setUrl(minecraftLibrariesURI);
     });
 
     project.getRepositories().maven(repo -> {
@@ -214,7 +245,7 @@ public class FlintGradlePlugin implements Plugin<Project> {
       }
       subProject.getRepositories().maven(repo -> {
         repo.setName("Mojang");
-        repo.setUrl(MINECRAFT_MAVEN);
+        repo.setUrl(minecraftLibrariesURI);
       });
 
       subProject.getPluginManager().apply(getClass());
@@ -324,6 +355,24 @@ public class FlintGradlePlugin implements Plugin<Project> {
     return mavenArtifactURLCache;
   }
 
+  /**
+   * Retrieves the content addressable store the plugin uses for deduplicating downloaded files.
+   *
+   * @return The content addressable store
+   */
+  public ContentStore getContentStore() {
+    return contentStore;
+  }
+
+  /**
+   * Retrieves the service the plugin uses for computing checksums.
+   *
+   * @return The hashing service
+   */
+  public HashingService getHashingService() {
+    return hashingService;
+  }
+
   public Project getProject() {
     return project;
   }
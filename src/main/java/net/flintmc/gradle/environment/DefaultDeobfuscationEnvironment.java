@@ -27,17 +27,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.jar.JarInputStream;
-import java.util.jar.JarOutputStream;
 
 import com.google.common.collect.ImmutableMap;
+import net.flintmc.gradle.io.ArchiveHelper;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.minecraft.data.environment.DefaultInput;
 import net.flintmc.gradle.minecraft.data.environment.EnvironmentType;
 import net.flintmc.gradle.util.Util;
 import okhttp3.OkHttpClient;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 
 public abstract class DefaultDeobfuscationEnvironment implements DeobfuscationEnvironment {
 
@@ -168,81 +166,35 @@ public abstract class DefaultDeobfuscationEnvironment implements DeobfuscationEn
    * @throws IOException If an I/O error occurs while copying
    */
   protected void addResources(Path sourceJar, Path jar) throws IOException {
-    Set<String> existingResources = new HashSet<>();
+    Set<String> existingEntries = new HashSet<>();
 
-    // Open the initial jar file to check which assets exist already
-    try (JarFile jarFile = new JarFile(jar.toFile())) {
-      Enumeration<JarEntry> entries = jarFile.entries();
-
-      // Iterate all jar entries
-      while (entries.hasMoreElements()) {
-        JarEntry entry = entries.nextElement();
-        if (entry.getName().startsWith("assets/")
-            || entry.getName().startsWith("/data")
-            || entry.getName().equals("pack.png")
-            || entry.getName().equals("version.json")
-            || entry.getName().equals("pack.mcmeta")) {
-          // Found an assets entry, index it
-          existingResources.add(entry.getName());
-        }
-      }
-    }
-
-    // Create a temporary jar to read from
-    Path temporaryJar = Files.createTempFile(this.name + "_resource_fix", ".jar");
+    // Write into a temporary jar next to the target, entries are copied without recompressing them
+    Path temporaryJar = jar.resolveSibling(jar.getFileName() + ".tmp");
 
     try {
-      // Copy the original jar to the temporary one
-      Files.copy(jar, temporaryJar, StandardCopyOption.REPLACE_EXISTING);
-
-      try (
-      // Open the required streams, 2 for reading from the original and resources jar,
-      // one for writing to the output
-      JarInputStream originalSource = new JarInputStream(Files.newInputStream(temporaryJar));
-          JarInputStream resourcesSource = new JarInputStream(Files.newInputStream(sourceJar));
-          JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
-        JarEntry originalEntry;
-
+      try (ZipArchiveOutputStream output = new ZipArchiveOutputStream(temporaryJar.toFile())) {
         // Copy all of the original jar entries
-        while ((originalEntry = originalSource.getNextJarEntry()) != null) {
-          output.putNextEntry(originalEntry);
-          Util.copyStream(originalSource, output);
-          output.closeEntry();
-
-          // Avoid adding duplicates
-          existingResources.add(originalEntry.getName());
-        }
-
-        JarEntry resourcesEntry;
-
-        // Iterate all resource jar entries
-        while ((resourcesEntry = resourcesSource.getNextJarEntry()) != null) {
-          if ((!resourcesEntry.getName().startsWith("assets/")
-                      && !resourcesEntry.getName().startsWith("data/")
-                      && !resourcesEntry.getName().equals("pack.png")
-                      && !resourcesEntry.getName().equals("version.json"))
-                  && !resourcesEntry.getName().equals("pack.mcmeta")
-              || existingResources.contains(resourcesEntry.getName())) {
-            // The entry is not a resource or exists already in the other jar, skip it
-            continue;
-          }
-
-          // Copy the resource entry
-          output.putNextEntry(resourcesEntry);
-          Util.copyStream(resourcesSource, output);
-          output.closeEntry();
-
-          // Avoid adding duplicates
-          existingResources.add(resourcesEntry.getName());
-        }
+        ArchiveHelper.copyRawEntries(jar, output, (entry) -> existingEntries.add(entry.getName()));
+
+        // Copy all resource entries which don't exist in the original jar already
+        ArchiveHelper.copyRawEntries(sourceJar, output, (entry) -> {
+          String name = entry.getName();
+          return (name.startsWith("assets/")
+              || name.startsWith("data/")
+              || name.equals("pack.png")
+              || name.equals("version.json")
+              || name.equals("pack.mcmeta"))
+              && existingEntries.add(name);
+        });
       }
+
+      Files.move(temporaryJar, jar, StandardCopyOption.REPLACE_EXISTING);
     } finally {
       // Make sure to delete the temporary file
-      Files.delete(temporaryJar);
+      Files.deleteIfExists(temporaryJar);
     }
   }
 
-
   /**
    * Downloads and extracts a ZIP if the output does not exist already.
    *
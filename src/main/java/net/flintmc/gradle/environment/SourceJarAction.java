@@ -23,10 +23,34 @@ package net.flintmc.gradle.environment;
  * Base interface for all actions which can be taken on source jars.
  */
 public interface SourceJarAction {
+  /**
+   * Action which leaves the source untouched.
+   */
+  SourceJarAction IDENTITY = new SourceJarAction() {
+    @Override
+    public void process(StringBuffer source) {
+    }
+
+    @Override
+    public boolean isIdentity() {
+      return true;
+    }
+  };
+
   /**
    * Processes a source code snippet.
    *
    * @param source The snippet to process
    */
   void process(StringBuffer source);
+
+  /**
+   * Determines whether this action never changes the source. If all actions of a processor are identity actions, the
+   * processor can skip reading and rewriting the jar.
+   *
+   * @return {@code true} if this action never changes the source, {@code false} otherwise
+   */
+  default boolean isIdentity() {
+    return false;
+  }
 }
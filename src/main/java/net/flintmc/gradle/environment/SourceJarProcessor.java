@@ -25,6 +25,7 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.ZipEntry;
@@ -66,6 +67,12 @@ public class SourceJarProcessor {
       throw new IllegalStateException("No actions have been added to this process");
     }
 
+    if (actions.stream().allMatch(SourceJarAction::isIdentity)) {
+      // Nothing would change, the jar can be taken over as is
+      installUnchanged(input, output);
+      return;
+    }
+
     try (
         ZipInputStream inputStream = new ZipInputStream(Files.newInputStream(input));
         ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(output))
@@ -90,6 +97,25 @@ public class SourceJarProcessor {
     }
   }
 
+  /**
+   * Installs the given input at the given output without processing it. The output is hard linked to the input if
+   * possible, else the input is copied as is.
+   *
+   * @param input  The path to the jar to install
+   * @param output The path to install the jar at
+   * @throws IOException If an I/O error occurs while linking or copying
+   */
+  private void installUnchanged(Path input, Path output) throws IOException {
+    Files.deleteIfExists(output);
+
+    try {
+      Files.createLink(output, input);
+    } catch (IOException | UnsupportedOperationException e) {
+      // Links are not supported, usually because input and output are on different file systems
+      Files.copy(input, output, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
   /**
    * Processes the given input stream to the given output stream.
    *
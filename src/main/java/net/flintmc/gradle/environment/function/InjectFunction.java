@@ -19,19 +19,12 @@
 
 package net.flintmc.gradle.environment.function;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
-import net.flintmc.gradle.environment.DeobfuscationException;
-import net.flintmc.gradle.environment.DeobfuscationUtilities;
-import net.flintmc.gradle.util.Util;
+import java.util.Collections;
+import java.util.List;
 
-public class InjectFunction extends Function {
+public class InjectFunction extends JarRewriteFunction {
 
-  private final Path input;
   private final String environmentName;
 
   /**
@@ -43,34 +36,13 @@ public class InjectFunction extends Function {
    * @param environmentName The environment name of the function.
    */
   public InjectFunction(String name, Path output, Path input, String environmentName) {
-    super(name, output);
-    this.input = input;
+    super(name, input, output);
     this.environmentName = environmentName;
   }
 
   /** {@inheritDoc} */
   @Override
-  public void execute(DeobfuscationUtilities utilities) throws DeobfuscationException {
-
-    try (ZipInputStream inputStream = new ZipInputStream(Files.newInputStream(this.input));
-        ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(this.output))) {
-
-      ZipEntry entry;
-
-      while ((entry = inputStream.getNextEntry()) != null) {
-        outputStream.putNextEntry(entry);
-
-        Util.copyStream(inputStream, outputStream);
-
-        outputStream.closeEntry();
-      }
-
-      entry = new ZipEntry("." + this.environmentName + "-processed");
-      outputStream.putNextEntry(entry);
-      outputStream.closeEntry();
-    } catch (IOException exception) {
-      throw new DeobfuscationException(
-          "Failed to execute inject function named " + name, exception);
-    }
+  protected List<String> getAddedEntries() {
+    return Collections.singletonList("." + this.environmentName + "-processed");
   }
 }
@@ -0,0 +1,221 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.environment.function;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import net.flintmc.gradle.environment.DeobfuscationException;
+import net.flintmc.gradle.environment.DeobfuscationUtilities;
+import net.flintmc.gradle.io.ArchiveHelper;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+/**
+ * Base for functions which rewrite a jar by dropping and adding entries. Kept entries are copied without being
+ * recompressed, and adjacent rewrite functions can be fused into a single pass over the input jar.
+ */
+public abstract class JarRewriteFunction extends Function {
+
+  protected final Path input;
+
+  /**
+   * Constructs a new jar rewriting function.
+   *
+   * @param name The name of the function.
+   * @param input The jar to rewrite.
+   * @param output The jar to write the result to.
+   */
+  protected JarRewriteFunction(String name, Path input, Path output) {
+    super(name, output);
+    this.input = input;
+  }
+
+  /**
+   * Retrieves the input of this function.
+   *
+   * @return The input of this function.
+   */
+  public Path getInput() {
+    return input;
+  }
+
+  /**
+   * Determines whether the given entry should be kept.
+   *
+   * @param entry The entry to check
+   * @return {@code true} if the entry should be written to the output, {@code false} otherwise
+   */
+  protected boolean keep(ZipArchiveEntry entry) {
+    return true;
+  }
+
+  /**
+   * Retrieves the names of the empty entries this function adds to the jar.
+   *
+   * @return The names of the added entries
+   */
+  protected List<String> getAddedEntries() {
+    return Collections.emptyList();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void execute(DeobfuscationUtilities utilities) throws DeobfuscationException {
+    rewrite(name, input, output, Collections.singletonList(this));
+  }
+
+  /**
+   * Fuses all adjacent rewrite functions of the given steps, where a function consumes the output of the previous
+   * one and that output is not referenced anywhere else.
+   *
+   * @param steps The steps to fuse
+   * @param references The amount of times every resolved value has been referenced by a step
+   * @return The steps with adjacent rewrite functions fused
+   */
+  public static List<Function> fuse(List<Function> steps, Map<String, Integer> references) {
+    List<Function> fusedSteps = new ArrayList<>();
+
+    for (Function step : steps) {
+      Function previous = fusedSteps.isEmpty() ? null : fusedSteps.get(fusedSteps.size() - 1);
+
+      if (step instanceof JarRewriteFunction
+          && previous instanceof JarRewriteFunction
+          && ((JarRewriteFunction) step).getInput().equals(previous.getOutput())
+          && references.getOrDefault(previous.getOutput().toString(), 0) == 1) {
+        // The output of the previous function is only used as the input of this one, skip writing it
+        List<JarRewriteFunction> parts = new ArrayList<>();
+        if (previous instanceof Fused) {
+          parts.addAll(((Fused) previous).parts);
+        } else {
+          parts.add((JarRewriteFunction) previous);
+        }
+
+        parts.add((JarRewriteFunction) step);
+        fusedSteps.set(fusedSteps.size() - 1, new Fused(parts));
+      } else {
+        fusedSteps.add(step);
+      }
+    }
+
+    return fusedSteps;
+  }
+
+  /**
+   * Rewrites the given input jar applying all given functions in order.
+   *
+   * @param name The name of the step, used for error messages
+   * @param input The jar to rewrite
+   * @param output The jar to write the result to
+   * @param functions The functions to apply
+   * @throws DeobfuscationException If an I/O error occurs while rewriting the jar
+   */
+  private static void rewrite(String name, Path input, Path output, List<JarRewriteFunction> functions)
+      throws DeobfuscationException {
+    try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(output.toFile())) {
+      // Copy all entries kept by every function without recompressing them
+      ArchiveHelper.copyRawEntries(input, outputStream, (entry) -> keptFrom(functions, 0, entry));
+
+      for (int i = 0; i < functions.size(); i++) {
+        for (String addedName : functions.get(i).getAddedEntries()) {
+          // Entries added by a function still pass through all following functions
+          ZipArchiveEntry addedEntry = new ZipArchiveEntry(addedName);
+          if (keptFrom(functions, i + 1, addedEntry)) {
+            outputStream.putArchiveEntry(addedEntry);
+            outputStream.closeArchiveEntry();
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new DeobfuscationException("Failed to execute jar rewriting function named " + name, e);
+    }
+  }
+
+  /**
+   * Determines whether the given entry is kept by all functions starting at the given index.
+   *
+   * @param functions The functions to check
+   * @param start The index of the first function to check
+   * @param entry The entry to check
+   * @return {@code true} if all functions keep the entry, {@code false} otherwise
+   */
+  private static boolean keptFrom(List<JarRewriteFunction> functions, int start, ZipArchiveEntry entry) {
+    for (int i = start; i < functions.size(); i++) {
+      if (!functions.get(i).keep(entry)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Multiple adjacent rewrite functions executed in a single pass.
+   */
+  private static class Fused extends JarRewriteFunction {
+
+    private final List<JarRewriteFunction> parts;
+
+    /**
+     * Constructs a new fused function.
+     *
+     * @param parts The functions to fuse, in order of execution
+     */
+    private Fused(List<JarRewriteFunction> parts) {
+      super(
+          joinNames(parts),
+          parts.get(0).getInput(),
+          parts.get(parts.size() - 1).getOutput());
+      this.parts = parts;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void prepare(DeobfuscationUtilities utilities) throws DeobfuscationException {
+      for (JarRewriteFunction part : parts) {
+        part.prepare(utilities);
+      }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void execute(DeobfuscationUtilities utilities) throws DeobfuscationException {
+      rewrite(name, input, output, parts);
+    }
+
+    /**
+     * Joins the names of the given functions.
+     *
+     * @param parts The functions to join the names of
+     * @return The joined name
+     */
+    private static String joinNames(List<JarRewriteFunction> parts) {
+      List<String> names = new ArrayList<>();
+      for (JarRewriteFunction part : parts) {
+        names.add(part.getName());
+      }
+
+      return String.join("+", names);
+    }
+  }
+}
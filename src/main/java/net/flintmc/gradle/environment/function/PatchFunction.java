@@ -35,6 +35,8 @@ import net.flintmc.gradle.patch.PatchFile;
 import net.flintmc.gradle.patch.context.ZipPatchContextProvider;
 import net.flintmc.gradle.patch.report.HunkReport;
 import net.flintmc.gradle.patch.report.PatchReport;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
@@ -86,6 +88,7 @@ public class PatchFunction extends Function {
 
   /** {@inheritDoc} */
   @Override
+  @SuppressWarnings("try")
   public void execute(DeobfuscationUtilities utilities) throws DeobfuscationException {
     try (ZipFile zipFile = new ZipFile(this.input.toFile())) {
       ZipPatchContextProvider zipPatchContextProvider = new ZipPatchContextProvider(zipFile);
@@ -114,7 +117,11 @@ public class PatchFunction extends Function {
                     try {
                       LOGGER.info("Apply Patch: {}", name);
 
-                      List<PatchReport> result = patchContextual.patch(false);
+                      List<PatchReport> result;
+                      try (TelemetrySpan ignored =
+                          Telemetry.span("patch", "apply").attribute("patch", name)) {
+                        result = patchContextual.patch(false);
+                      }
 
                       for (int i = 0; i < result.size(); i++) {
                         PatchReport report = result.get(i);
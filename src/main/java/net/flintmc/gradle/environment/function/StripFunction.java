@@ -22,21 +22,17 @@ package net.flintmc.gradle.environment.function;
 import net.flintmc.gradle.environment.DeobfuscationException;
 import net.flintmc.gradle.environment.DeobfuscationUtilities;
 import net.flintmc.gradle.environment.mcp.function.MCPFunction;
-import net.flintmc.gradle.util.Util;
+import net.flintmc.gradle.mapping.MappingCache;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
-public class StripFunction extends Function {
+public class StripFunction extends JarRewriteFunction {
   private final Path mappings;
-  private final Path input;
   private final boolean whitelist;
   private final Set<String> classList;
 
@@ -51,9 +47,8 @@ public class StripFunction extends Function {
    * @param whitelist If the strip function should operate in whitelist mode
    */
   public StripFunction(String name, Path mappings, Path input, Path output, boolean whitelist) {
-    super(name, output);
+    super(name, input, output);
     this.mappings = mappings;
-    this.input = input;
     this.whitelist = whitelist;
     this.classList = new HashSet<>();
   }
@@ -63,17 +58,11 @@ public class StripFunction extends Function {
    */
   @Override
   public void prepare(DeobfuscationUtilities utilities) throws DeobfuscationException {
-    // Open the mappings file
-    try (BufferedReader reader = Files.newBufferedReader(mappings)) {
-      String line;
-      while ((line = reader.readLine()) != null) {
-        // If the line is not a class mapping, skip it
-        if (line.startsWith("\t")) {
-          continue;
-        }
-
-        // Parse the mapping line
-        classList.add(line.split(" ", 2)[0] + ".class");
+    try {
+      // Collect all class names, parsed mappings are cached across runs
+      MappingCache cache = new MappingCache(utilities.getCacheFileProvider().directory("mapping-cache"));
+      for (String className : cache.loadClassNames(mappings)) {
+        classList.add(className + ".class");
       }
     } catch (IOException e) {
       throw new DeobfuscationException("IO error occurred while reading the mappings file", e);
@@ -84,29 +73,8 @@ public class StripFunction extends Function {
    * {@inheritDoc}
    */
   @Override
-  public void execute(DeobfuscationUtilities utilities) throws DeobfuscationException {
-    try (
-        ZipInputStream inputStream = new ZipInputStream(Files.newInputStream(input));
-        ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(output))
-    ) {
-      ZipEntry entry;
-
-      // Iterate all entries
-      while ((entry = inputStream.getNextEntry()) != null) {
-        if (shouldStripEntry(entry)) {
-          // The entry should be stripped from the jar,
-          // simply don't write it to the output stream
-          continue;
-        }
-
-        // Copy the entry
-        outputStream.putNextEntry(entry);
-        Util.copyStream(inputStream, outputStream);
-        outputStream.closeEntry();
-      }
-    } catch (IOException e) {
-      throw new DeobfuscationException("IO error occurred while stripping jar", e);
-    }
+  protected boolean keep(ZipArchiveEntry entry) {
+    return !shouldStripEntry(entry);
   }
 
   /**
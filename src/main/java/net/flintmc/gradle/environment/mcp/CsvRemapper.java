@@ -20,13 +20,12 @@
 package net.flintmc.gradle.environment.mcp;
 
 import net.flintmc.gradle.environment.SourceJarAction;
+import net.flintmc.gradle.mapping.MappingCache;
+import net.flintmc.gradle.mapping.MappingFiles;
+import net.flintmc.gradle.mapping.SrgNameTable;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,13 +37,24 @@ public class CsvRemapper implements SourceJarAction {
       Pattern.compile("func_[0-9]+_[a-zA-Z_]+|field_[0-9]+_[a-zA-Z_]+|p_[\\w]+_\\d+_\\b");
 
 
-  private final Map<String, String> names;
+  private final MappingCache cache;
+  private final SrgNameTable names;
 
   /**
    * Constructs a new, empty {@link CsvRemapper}.
    */
   public CsvRemapper() {
-    names = new HashMap<>();
+    this(null);
+  }
+
+  /**
+   * Constructs a new, empty {@link CsvRemapper} loading its mappings through the given cache.
+   *
+   * @param cache The cache to load the mappings through, or {@code null}, to always parse the mapping files
+   */
+  public CsvRemapper(MappingCache cache) {
+    this.cache = cache;
+    this.names = new SrgNameTable();
   }
 
   /**
@@ -54,63 +64,7 @@ public class CsvRemapper implements SourceJarAction {
    * @throws IOException If an I/O error occurs while loading the given file
    */
   public void loadCsv(Path file) throws IOException {
-    // Extract all lines from the file
-    List<String> lines = Files.readAllLines(file);
-
-    if (lines.isEmpty()) {
-      throw new IOException("Invalid, empty CSV file " + file.toString());
-    }
-
-    int keyIndex = -1;
-    int nameIndex = -1;
-
-    // Iterate every line
-    for (String line : lines) {
-      // MCP files uses , as a separator
-      String[] parts = line.split(",");
-
-      if (keyIndex == -1) {
-        // First row
-        if (parts.length < 2) {
-          // MCP mappings CSV's always have more than 1 row
-          throw new IOException("Invalid mappings CSV, contains less than 2 rows");
-        }
-
-        // Iterate the header row parts
-        for (int i = 0; i < parts.length; i++) {
-          String part = parts[i];
-          if (part.equals("searge") || part.equals("param")) {
-            // Found the field defining the key
-            if (keyIndex != -1) {
-              throw new IOException("Invalid CSV, contains duplicated searge or param row");
-            }
-
-            keyIndex = i;
-          } else if (part.equals("name")) {
-            // Found the field defining the value
-            if (nameIndex != -1) {
-              throw new IOException("Invalid CSV, contains duplicated name row");
-            }
-
-            nameIndex = i;
-          }
-        }
-
-        // Check if all required fields have been set
-        if (keyIndex == -1) {
-          throw new IOException("Invalid mappings CSV, does not contain searge or param row");
-        } else if (nameIndex == -1) {
-          throw new IOException("Invalid mappings CSV, does not contain name row");
-        }
-      } else {
-        // Check if the row is valid
-        if (keyIndex >= parts.length || nameIndex >= parts.length) {
-          throw new IOException("Invalid mappings CSV, line " + line + " does not contain enough fields");
-        }
-
-        names.put(parts[keyIndex], parts[nameIndex]);
-      }
-    }
+    names.putAll(cache == null ? MappingFiles.readCsvNames(file) : cache.loadCsvNames(file));
   }
 
   /**
@@ -120,7 +74,7 @@ public class CsvRemapper implements SourceJarAction {
    */
   @Override
   public void process(StringBuffer line) {
-    if (names.isEmpty()) {
+    if (names.size() == 0) {
       throw new IllegalStateException("No mappings have been loaded");
     }
 
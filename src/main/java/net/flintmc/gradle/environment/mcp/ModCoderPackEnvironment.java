@@ -22,6 +22,7 @@ package net.flintmc.gradle.environment.mcp;
 import com.google.common.collect.ImmutableMap;
 import net.flintmc.gradle.environment.*;
 import net.flintmc.gradle.java.exec.JavaExecutionResult;
+import net.flintmc.gradle.mapping.MappingCache;
 import net.flintmc.gradle.maven.SimpleMavenRepository;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.maven.pom.MavenDependency;
@@ -29,7 +30,6 @@ import net.flintmc.gradle.maven.pom.MavenPom;
 import net.flintmc.gradle.minecraft.MinecraftRepository;
 import net.flintmc.gradle.minecraft.data.environment.DefaultInput;
 import net.flintmc.gradle.minecraft.data.environment.EnvironmentType;
-import net.flintmc.gradle.util.Util;
 import okhttp3.OkHttpClient;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -174,8 +174,9 @@ public class ModCoderPackEnvironment extends DefaultDeobfuscationEnvironment {
     // Construct the source jar processor
     SourceJarProcessor processor = new SourceJarProcessor();
 
-    // Construct the CSV remapper
-    CsvRemapper remapper = new CsvRemapper();
+    // Construct the CSV remapper, parsed mappings are cached across runs
+    CsvRemapper remapper =
+        new CsvRemapper(new MappingCache(cacheFileProvider.directory("mapping-cache")));
     try {
       Files.walk(mappingsOutput)
           .filter(Files::isRegularFile)
@@ -202,10 +203,19 @@ public class ModCoderPackEnvironment extends DefaultDeobfuscationEnvironment {
     // Retrieve utility classes
     MinecraftRepository minecraftRepository = utilities.getMinecraftRepository();
 
-    for (Map.Entry<String, Path> output : outputs.entrySet()) {
+    // Process the joined side first, so the other sides can reuse its compilation output
+    List<String> processingOrder = new ArrayList<>(sides);
+    if (processingOrder.remove("joined")) {
+      processingOrder.add(0, "joined");
+    }
+
+    // Sources and binaries of the joined side, available once it has been recompiled
+    Path joinedSourcesPath = null;
+    Path joinedOutputPath = null;
+
+    for (String side : processingOrder) {
       // Extract every side and the associated jar
-      String side = output.getKey();
-      Path srgArtifactPath = output.getValue();
+      Path srgArtifactPath = outputs.get(side);
 
       // Generate output artifact
       MavenArtifact sourcesArtifact =
@@ -232,8 +242,6 @@ public class ModCoderPackEnvironment extends DefaultDeobfuscationEnvironment {
 
       if (clientLibraries != null) {
         // Recompilation can only be done if the client libraries are known
-        Path sourceDir = null;
-
         // Generate output artifact
         MavenArtifact outputArtifact =
             new MavenArtifact("net.minecraft", side, version, getClassifier(false));
@@ -242,15 +250,20 @@ public class ModCoderPackEnvironment extends DefaultDeobfuscationEnvironment {
         Path outputPath = minecraftRepository.getArtifactPath(outputArtifact);
 
         try {
-          // Extract the sources jar for recompilation
-          sourceDir = Util.temporaryDir();
-          Util.extractZip(sourcesTargetArtifactPath, sourceDir);
+          JavaExecutionResult compilationResult;
+          if (joinedOutputPath != null) {
+            LOGGER.lifecycle("Recompiling {} {} based on joined", side, version);
 
-          LOGGER.lifecycle("Recompiling {} {}", side, version);
+            // Only compile the units which differ from the joined sources, the rest is taken from the joined jar
+            compilationResult = utilities.getJavaCompileHelper().compileDerived(
+                sourcesTargetArtifactPath, joinedSourcesPath, joinedOutputPath, clientLibraries, outputPath);
+          } else {
+            LOGGER.lifecycle("Recompiling {} {}", side, version);
 
-          // Set up the compilation
-          JavaExecutionResult compilationResult =
-              utilities.getJavaCompileHelper().compile(sourceDir, clientLibraries, outputPath);
+            // Set up the compilation, the sources are read directly from the sources jar
+            compilationResult =
+                utilities.getJavaCompileHelper().compile(sourcesTargetArtifactPath, clientLibraries, outputPath);
+          }
 
           if (compilationResult.getExitCode() != 0) {
             // Compilation failed, bail out
@@ -282,18 +295,12 @@ public class ModCoderPackEnvironment extends DefaultDeobfuscationEnvironment {
               // Also copy server resources
               addResources(minecraftRepository.getArtifactPath(serverPom), outputPath);
             }
+
+            joinedSourcesPath = sourcesTargetArtifactPath;
+            joinedOutputPath = outputPath;
           }
         } catch (IOException e) {
           throw new DeobfuscationException("IO exception while deobfuscating " + side + " " + version, e);
-        } finally {
-          if (sourceDir != null) {
-            try {
-              // Try to delete the temporary source directory
-              Util.nukeDirectory(sourceDir, true);
-            } catch (IOException e) {
-              LOGGER.warn("Failed to delete temporary directory {}", sourceDir.toString());
-            }
-          }
         }
       } else {
         LOGGER.warn("Can't recompile {} {}, missing client libraries", side, version);
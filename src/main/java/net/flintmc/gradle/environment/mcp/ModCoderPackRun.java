@@ -38,6 +38,7 @@ import net.flintmc.gradle.environment.DeobfuscationUtilities;
 import net.flintmc.gradle.environment.EnvironmentRunnable;
 import net.flintmc.gradle.environment.function.Function;
 import net.flintmc.gradle.environment.function.InjectFunction;
+import net.flintmc.gradle.environment.function.JarRewriteFunction;
 import net.flintmc.gradle.environment.function.JavaExecutionFunction;
 import net.flintmc.gradle.environment.function.JavaExecutionTemplate;
 import net.flintmc.gradle.environment.function.ListLibrariesFunction;
@@ -48,6 +49,8 @@ import net.flintmc.gradle.maven.RemoteMavenRepository;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.maven.pom.MavenPom;
 import net.flintmc.gradle.minecraft.MinecraftRepository;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
@@ -57,6 +60,7 @@ public class ModCoderPackRun implements EnvironmentRunnable {
   private final Map<String, Path> variables;
   private final Map<String, JavaExecutionTemplate> javaFunctions;
   private final Map<String, List<Function>> steps;
+  private final Map<String, Integer> references;
 
   private final MavenPom clientJar;
   private final MavenPom serverJar;
@@ -69,6 +73,7 @@ public class ModCoderPackRun implements EnvironmentRunnable {
     this.variables = new HashMap<>();
     this.javaFunctions = new HashMap<>();
     this.steps = new HashMap<>();
+    this.references = new HashMap<>();
 
     this.clientJar = clientJar;
     this.serverJar = serverJar;
@@ -169,6 +174,9 @@ public class ModCoderPackRun implements EnvironmentRunnable {
 
       processSteps(stepsNode.get(sideName), sideName);
     }
+
+    // Run adjacent jar rewriting steps in a single pass if their intermediate output is not needed
+    steps.replaceAll((side, sidedSteps) -> JarRewriteFunction.fuse(sidedSteps, references));
   }
 
   /**
@@ -448,6 +456,8 @@ public class ModCoderPackRun implements EnvironmentRunnable {
       value = resolveOne(value, side, extraVariables);
     } while (!value.equals(previous));
 
+    // Remember how often the value is used, outputs which are used only once don't need to be written
+    references.merge(value, 1, Integer::sum);
     return value;
   }
 
@@ -550,6 +560,7 @@ public class ModCoderPackRun implements EnvironmentRunnable {
 
   /** {@inheritDoc} */
   @Override
+  @SuppressWarnings("try")
   public Path execute(String side) throws DeobfuscationException {
     if (!steps.containsKey(side)) {
       throw new IllegalArgumentException("No steps defined for side " + side);
@@ -578,7 +589,7 @@ public class ModCoderPackRun implements EnvironmentRunnable {
         LOGGER.lifecycle(
             "[{}/{}] Running MCP step {} for {}", i + 1, sidedSteps.size(), step.getName(), side);
         long startMillis = System.currentTimeMillis();
-        try {
+        try (TelemetrySpan ignored = Telemetry.span("mcp", step.getName()).attribute("side", side)) {
           step.execute(utilities);
         } catch (DeobfuscationException | RuntimeException e) {
           try {
@@ -34,6 +34,7 @@ import net.flintmc.gradle.environment.DefaultDeobfuscationEnvironment;
 import net.flintmc.gradle.environment.DeobfuscationException;
 import net.flintmc.gradle.environment.DeobfuscationUtilities;
 import net.flintmc.gradle.environment.EnvironmentCacheFileProvider;
+import net.flintmc.gradle.environment.SourceJarAction;
 import net.flintmc.gradle.environment.SourceJarProcessor;
 import net.flintmc.gradle.java.exec.JavaExecutionResult;
 import net.flintmc.gradle.maven.SimpleMavenRepository;
@@ -43,7 +44,6 @@ import net.flintmc.gradle.maven.pom.MavenPom;
 import net.flintmc.gradle.minecraft.MinecraftRepository;
 import net.flintmc.gradle.minecraft.data.environment.DefaultInput;
 import net.flintmc.gradle.minecraft.data.environment.EnvironmentType;
-import net.flintmc.gradle.util.Util;
 import okhttp3.OkHttpClient;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -138,7 +138,7 @@ public class YarnEnvironment extends DefaultDeobfuscationEnvironment {
     }
 
     SourceJarProcessor processor = new SourceJarProcessor();
-    processor.addAction(source -> {});
+    processor.addAction(SourceJarAction.IDENTITY);
 
     MinecraftRepository minecraftRepository = utilities.getMinecraftRepository();
 
@@ -174,8 +174,6 @@ public class YarnEnvironment extends DefaultDeobfuscationEnvironment {
 
       if (clientLibraries != null) {
 
-        Path sourceDir = null;
-
         MavenArtifact outputArtifact =
             new MavenArtifact("net.minecraft", side, version, this.getClassifier(false));
 
@@ -183,13 +181,12 @@ public class YarnEnvironment extends DefaultDeobfuscationEnvironment {
 
         try {
 
-          sourceDir = Util.temporaryDir();
-          Util.extractZip(sourcesTargetArtifactPath, sourceDir);
-
           if (side.equals("client")) {
 
             JavaExecutionResult compilationResult =
-                utilities.getJavaCompileHelper().compile(sourceDir, clientLibraries, outputPath);
+                utilities
+                    .getJavaCompileHelper()
+                    .compile(sourcesTargetArtifactPath, clientLibraries, outputPath);
 
             if (compilationResult.getExitCode() != 0) {
               LOGGER.error("Minecraft {} {} failed to recompile", side, version);
@@ -214,15 +211,6 @@ public class YarnEnvironment extends DefaultDeobfuscationEnvironment {
         } catch (IOException exception) {
           throw new DeobfuscationException(
               "IO exception while deobfuscating " + side + " " + version, exception);
-        } finally {
-          if (sourceDir != null) {
-
-            try {
-              Util.nukeDirectory(sourceDir, true);
-            } catch (IOException exception) {
-              LOGGER.warn("Failed to delete temporary directory {}", sourceDir.toString());
-            }
-          }
         }
       }
     }
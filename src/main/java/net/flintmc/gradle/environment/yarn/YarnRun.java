@@ -30,30 +30,31 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import net.flintmc.gradle.environment.DeobfuscationException;
 import net.flintmc.gradle.environment.DeobfuscationUtilities;
 import net.flintmc.gradle.environment.EnvironmentRunnable;
 import net.flintmc.gradle.environment.function.Function;
 import net.flintmc.gradle.environment.function.InjectFunction;
+import net.flintmc.gradle.environment.function.JarRewriteFunction;
 import net.flintmc.gradle.environment.function.JavaExecutionFunction;
 import net.flintmc.gradle.environment.function.JavaExecutionTemplate;
 import net.flintmc.gradle.environment.function.ListLibrariesFunction;
 import net.flintmc.gradle.environment.function.PatchFunction;
 import net.flintmc.gradle.environment.function.StripFunction;
 import net.flintmc.gradle.extension.FlintPatcherExtension;
+import net.flintmc.gradle.io.ArchiveHelper;
 import net.flintmc.gradle.json.JsonConverter;
 import net.flintmc.gradle.maven.RemoteMavenRepository;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.maven.pom.MavenPom;
 import net.flintmc.gradle.minecraft.MinecraftRepository;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
@@ -64,6 +65,7 @@ public class YarnRun implements EnvironmentRunnable {
   private final Map<String, Path> variables;
   private final Map<String, JavaExecutionTemplate> javaFunctions;
   private final Map<String, List<Function>> steps;
+  private final Map<String, Integer> references;
 
   private final MavenPom clientJar;
   private final MavenPom serverJar;
@@ -76,6 +78,7 @@ public class YarnRun implements EnvironmentRunnable {
     this.variables = new HashMap<>();
     this.javaFunctions = new HashMap<>();
     this.steps = new HashMap<>();
+    this.references = new HashMap<>();
 
     this.clientJar = clientJar;
     this.serverJar = serverJar;
@@ -93,44 +96,17 @@ public class YarnRun implements EnvironmentRunnable {
    * @throws IOException If an I/O error occurs while reading or writing files
    */
   public void extractZip(Path zip, Path targetDir, CopyOption... options) throws IOException {
-    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
-      // Get a list of all entries
-      Enumeration<? extends ZipEntry> entries = zipFile.entries();
-      while (entries.hasMoreElements()) {
-        ZipEntry entry = entries.nextElement();
-        if (entry.isDirectory()) {
-          // Required directories will be created automatically
-          continue;
-        }
-
-        String name = entry.getName();
-
-        if (name.contains("assets")
-            || name.contains("pack.png")
-            || name.contains("META-INF")
-            || name.contains("log4j2.xml")) {
-          continue;
-        }
-
-        if (name.startsWith("/")) {
-          // Make sure that the entry does not start with a /, else it will corrupt
-          // the Path#resolve result
-          name = name.substring(1);
-        }
-
-        Path targetFile = targetDir.resolve(name);
-        if (!Files.exists(targetFile.getParent())) {
-          // Make sure the parent directories exist
-          Files.createDirectories(targetFile.getParent());
-        }
-
-        try (InputStream entryStream = zipFile.getInputStream(entry)) {
-          // Copy the entire entry to the target file
-
-          if (!targetFile.toFile().exists()) Files.copy(entryStream, targetFile, options);
-        }
-      }
-    }
+    ArchiveHelper.extract(
+        zip,
+        targetDir,
+        (name) -> !name.contains("assets")
+            && !name.contains("pack.png")
+            && !name.contains("META-INF")
+            && !name.contains("log4j2.xml")
+            // Existing files are kept
+            && !Files.exists(targetDir.resolve(name)),
+        options
+    );
   }
 
   @Override
@@ -221,6 +197,9 @@ public class YarnRun implements EnvironmentRunnable {
 
       this.processSteps(stepsNode.get(sideName), sideName);
     }
+
+    // Run adjacent jar rewriting steps in a single pass if their intermediate output is not needed
+    this.steps.replaceAll((side, sidedSteps) -> JarRewriteFunction.fuse(sidedSteps, this.references));
   }
 
   private void processSteps(JsonNode steps, String sideName) {
@@ -430,6 +409,8 @@ public class YarnRun implements EnvironmentRunnable {
       value = resolveOne(value, side, extraVariables);
     } while (!value.equals(previous));
 
+    // Remember how often the value is used, outputs which are used only once don't need to be written
+    this.references.merge(value, 1, Integer::sum);
     return value;
   }
 
@@ -558,6 +539,7 @@ public class YarnRun implements EnvironmentRunnable {
   }
 
   @Override
+  @SuppressWarnings("try")
   public Path execute(String side) throws DeobfuscationException {
     if (!steps.containsKey(side)) {
       throw new IllegalArgumentException("No steps defined for side " + side);
@@ -586,7 +568,7 @@ public class YarnRun implements EnvironmentRunnable {
         LOGGER.lifecycle(
             "[{}/{}] Running Yarn step {} for {}", i + 1, sidedSteps.size(), step.getName(), side);
         long startMillis = System.currentTimeMillis();
-        try {
+        try (TelemetrySpan ignored = Telemetry.span("yarn", step.getName()).attribute("side", side)) {
           step.execute(utilities);
         } catch (DeobfuscationException | RuntimeException exception) {
           try {
@@ -0,0 +1,237 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.io;
+
+import net.flintmc.gradle.util.Parallel;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryPredicate;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.CopyOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Shared helper for reading and writing zip archives. Extraction and compression are spread across multiple threads,
+ * and entries which are copied from one archive to another are transferred without being decompressed.
+ */
+public final class ArchiveHelper {
+  private ArchiveHelper() {}
+
+  /**
+   * Extracts the given zip file to the given directory.
+   *
+   * @param zip       The path to the zip file to extract
+   * @param targetDir The directory to extract the zip file into
+   * @param options   Options to pass to {@link Files#copy(InputStream, Path, CopyOption...)}
+   * @throws IOException If an I/O error occurs while reading or writing files
+   */
+  public static void extract(Path zip, Path targetDir, CopyOption... options) throws IOException {
+    extract(zip, targetDir, (name) -> true, options);
+  }
+
+  /**
+   * Extracts all entries of the given zip file matching the given filter to the given directory. The entries are
+   * written in parallel.
+   *
+   * @param zip       The path to the zip file to extract
+   * @param targetDir The directory to extract the zip file into
+   * @param filter    The filter receiving the relative entry names, only matching entries are extracted
+   * @param options   Options to pass to {@link Files#copy(InputStream, Path, CopyOption...)}
+   * @throws IOException If an I/O error occurs while reading or writing files
+   */
+  public static void extract(Path zip, Path targetDir, Predicate<String> filter, CopyOption... options)
+      throws IOException {
+    Path normalizedTargetDir = targetDir.toAbsolutePath().normalize();
+
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      List<ExtractedEntry> extractedEntries = new ArrayList<>();
+      Set<Path> directories = new HashSet<>();
+
+      // Collect all entries and the directories required for them first
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory()) {
+          // Required directories will be created automatically
+          continue;
+        }
+
+        String name = entry.getName();
+        if (name.startsWith("/")) {
+          // Make sure that the entry does not start with a /, else it will corrupt
+          // the Path#resolve result
+          name = name.substring(1);
+        }
+
+        if (!filter.test(name)) {
+          continue;
+        }
+
+        Path targetFile = normalizedTargetDir.resolve(name).normalize();
+        if (!targetFile.startsWith(normalizedTargetDir)) {
+          throw new IOException("Entry " + entry.getName() + " of " + zip + " points outside of the target directory");
+        }
+
+        extractedEntries.add(new ExtractedEntry(entry, targetFile));
+        directories.add(targetFile.getParent());
+      }
+
+      for (Path directory : directories) {
+        Files.createDirectories(directory);
+      }
+
+      Parallel.forEach(extractedEntries, Parallel.CPU_PARALLELISM, (extractedEntry) -> {
+        try (InputStream entryStream = zipFile.getInputStream(extractedEntry.entry)) {
+          // Copy the entire entry to the target file
+          Files.copy(entryStream, extractedEntry.target, options);
+        }
+      });
+    }
+  }
+
+  /**
+   * Zips the given directory to the given zip file. The entries are compressed in parallel.
+   *
+   * @param input  The directory to zip
+   * @param output The zip file to write
+   * @throws IOException If an I/O error occurs while reading or writing files
+   */
+  public static void zip(Path input, Path output) throws IOException {
+    // The creator shuts its executor down once written, so it can't use a shared one
+    ExecutorService executor = Parallel.newExecutor(Parallel.CPU_PARALLELISM);
+
+    try {
+      ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executor);
+      List<String> directories = new ArrayList<>();
+
+      Files.walkFileTree(input, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          if (!dir.equals(input)) {
+            directories.add(toEntryName(input, dir) + "/");
+          }
+
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          ZipArchiveEntry entry = new ZipArchiveEntry(toEntryName(input, file));
+          entry.setMethod(ZipEntry.DEFLATED);
+          entry.setTime(attrs.lastModifiedTime().toMillis());
+
+          creator.addArchiveEntry(entry, () -> {
+            try {
+              return Files.newInputStream(file);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+
+          return FileVisitResult.CONTINUE;
+        }
+      });
+
+      try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(output.toFile())) {
+        for (String directory : directories) {
+          outputStream.putArchiveEntry(new ZipArchiveEntry(directory));
+          outputStream.closeArchiveEntry();
+        }
+
+        creator.writeTo(outputStream);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while compressing " + input);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException) {
+          throw ((UncheckedIOException) cause).getCause();
+        } else if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+
+        throw new IOException("Failed to compress " + input, cause);
+      }
+    } finally {
+      // Also stops the compression of already added entries if walking the directory failed
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Copies all entries of the given zip file matching the given filter to the given output without recompressing
+   * them.
+   *
+   * @param source       The zip file to copy the entries from
+   * @param outputStream The stream to copy the entries to
+   * @param filter       The filter determining which entries to copy
+   * @throws IOException If an I/O error occurs while reading or writing the entries
+   */
+  public static void copyRawEntries(Path source, ZipArchiveOutputStream outputStream, ZipArchiveEntryPredicate filter)
+      throws IOException {
+    try (org.apache.commons.compress.archivers.zip.ZipFile zipFile =
+             new org.apache.commons.compress.archivers.zip.ZipFile(source.toFile())) {
+      zipFile.copyRawEntries(outputStream, filter);
+    }
+  }
+
+  /**
+   * Converts the given path to a zip entry name relative to the given root.
+   *
+   * @param root The root the entry name is relative to
+   * @param path The path to convert
+   * @return The entry name
+   */
+  private static String toEntryName(Path root, Path path) {
+    return root.relativize(path).toString().replace('\\', '/');
+  }
+
+  /**
+   * Entry which is going to be extracted.
+   */
+  private static class ExtractedEntry {
+    private final ZipEntry entry;
+    private final Path target;
+
+    private ExtractedEntry(ZipEntry entry, Path target) {
+      this.entry = entry;
+      this.target = target;
+    }
+  }
+}
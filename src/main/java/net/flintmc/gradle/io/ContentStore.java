@@ -0,0 +1,326 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.io;
+
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.util.Util;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global content addressable store shared by all files flint-gradle downloads. Every blob is stored exactly once
+ * keyed by its SHA-1 hash, additionally an MD5 alias is kept so sources which only know the MD5 checksum can look up
+ * the blob as well.
+ * <p>
+ * Blobs are materialized into their real layout (maven repositories, asset stores) by hard linking them, falling back
+ * to a copy if the file system does not support links. Linked files share their content with the store and thus must
+ * be replaced instead of being modified in place, targets which may be edited (such as files in run directories) have
+ * to be materialized as copies instead. Blobs are verified against their hash before being materialized, so a blob
+ * which has been modified through a link is discarded instead of being handed out.
+ */
+public class ContentStore {
+  private static final Logger LOGGER = Logging.getLogger(ContentStore.class);
+
+  private final Path root;
+  private final Path temporaryDir;
+  private final Map<Path, String> verifiedBlobs;
+
+  /**
+   * Constructs a new {@link ContentStore} at the given root directory.
+   *
+   * @param root The directory the blobs are stored in
+   * @throws IOException If an I/O error occurs while creating the store directory
+   */
+  public ContentStore(Path root) throws IOException {
+    this.root = root;
+    this.temporaryDir = root.resolve("tmp");
+    this.verifiedBlobs = new ConcurrentHashMap<>();
+
+    if(!Files.isDirectory(temporaryDir)) {
+      Files.createDirectories(temporaryDir);
+    }
+  }
+
+  /**
+   * Retrieves the path a blob with the given hash is stored at. The blob does not need to exist.
+   *
+   * @param algorithm The algorithm the hash has been computed with
+   * @param hash      The hex encoded hash of the blob
+   * @return The path of the blob
+   */
+  public Path getBlobPath(HashAlgorithm algorithm, String hash) {
+    String lowerHash = hash.toLowerCase();
+    return root.resolve(algorithm.getName()).resolve(lowerHash.substring(0, 2)).resolve(lowerHash);
+  }
+
+  /**
+   * Determines whether the store contains a blob with the given hash.
+   *
+   * @param algorithm The algorithm the hash has been computed with
+   * @param hash      The hex encoded hash of the blob, may be {@code null}
+   * @return {@code true} if the blob is present in the store, {@code false} otherwise
+   */
+  public boolean contains(HashAlgorithm algorithm, String hash) {
+    return hash != null && hash.length() > 2 && Files.isRegularFile(getBlobPath(algorithm, hash));
+  }
+
+  /**
+   * Materializes the blob with the given hash at the given target by linking it, replacing the target if it exists
+   * already.
+   *
+   * @param algorithm The algorithm the hash has been computed with
+   * @param hash      The hex encoded hash of the blob, may be {@code null}
+   * @param target    The path to materialize the blob at
+   * @return {@code true} if the blob was present and has been materialized, {@code false} otherwise
+   * @throws IOException If an I/O error occurs while materializing the blob
+   */
+  public boolean materialize(HashAlgorithm algorithm, String hash, Path target) throws IOException {
+    return materialize(algorithm, hash, target, true);
+  }
+
+  /**
+   * Materializes the blob with the given hash at the given target, replacing the target if it exists already.
+   *
+   * @param algorithm The algorithm the hash has been computed with
+   * @param hash      The hex encoded hash of the blob, may be {@code null}
+   * @param target    The path to materialize the blob at
+   * @param link      If {@code false}, the blob is always copied, use this for targets which may be modified in place
+   * @return {@code true} if the blob was present and has been materialized, {@code false} otherwise
+   * @throws IOException If an I/O error occurs while materializing the blob
+   */
+  public boolean materialize(HashAlgorithm algorithm, String hash, Path target, boolean link) throws IOException {
+    if(!contains(algorithm, hash) || !verify(algorithm, hash)) {
+      Telemetry.cacheMiss("content-store");
+      return false;
+    }
+
+    Telemetry.cacheHit("content-store");
+    link(getBlobPath(algorithm, hash), target, link);
+    return true;
+  }
+
+  /**
+   * Writes the given stream into the store and links it to the given target afterwards. The stream is not closed by
+   * this method.
+   *
+   * @param stream The stream to read the content from
+   * @param target The path to materialize the content at
+   * @return The hex encoded SHA-1 hash of the content
+   * @throws IOException If an I/O error occurs while reading or writing the content
+   */
+  public String install(InputStream stream, Path target) throws IOException {
+    return install(stream, target, true);
+  }
+
+  /**
+   * Writes the given stream into the store and materializes it at the given target afterwards. The stream is not
+   * closed by this method.
+   *
+   * @param stream The stream to read the content from
+   * @param target The path to materialize the content at
+   * @param link   If {@code false}, the content is always copied, use this for targets which may be modified in place
+   * @return The hex encoded SHA-1 hash of the content
+   * @throws IOException If an I/O error occurs while reading or writing the content
+   */
+  public String install(InputStream stream, Path target, boolean link) throws IOException {
+    String sha1 = insert(stream);
+    link(getBlobPath(HashAlgorithm.SHA1, sha1), target, link);
+    return sha1;
+  }
+
+  /**
+   * Writes the given stream into the store. The stream is not closed by this method.
+   *
+   * @param stream The stream to read the content from
+   * @return The hex encoded SHA-1 hash of the content
+   * @throws IOException If an I/O error occurs while reading or writing the content
+   */
+  public String insert(InputStream stream) throws IOException {
+    MessageDigest sha1Digest = HashAlgorithm.SHA1.createDigest();
+    MessageDigest md5Digest = HashAlgorithm.MD5.createDigest();
+
+    // Write the content to a temporary file first, the hash is not known until the end of the stream
+    Path temporaryBlob = temporaryDir.resolve(UUID.randomUUID().toString());
+
+    try {
+      try(OutputStream out = new DigestOutputStream(
+          new DigestOutputStream(Files.newOutputStream(temporaryBlob), sha1Digest), md5Digest)) {
+        Util.copyStream(stream, out);
+      }
+
+      String sha1 = Util.toHexString(sha1Digest.digest());
+      String md5 = Util.toHexString(md5Digest.digest());
+      Telemetry.bytesWritten(Files.size(temporaryBlob));
+
+      Path blob = getBlobPath(HashAlgorithm.SHA1, sha1);
+      publish(temporaryBlob, blob);
+      publishAlias(blob, getBlobPath(HashAlgorithm.MD5, md5));
+
+      return sha1;
+    } finally {
+      Files.deleteIfExists(temporaryBlob);
+    }
+  }
+
+  /**
+   * Moves the given temporary file to its final blob location. If another process has published the same blob in the
+   * meantime, the temporary file is discarded.
+   *
+   * @param temporaryBlob The temporary file to publish
+   * @param blob          The final blob location
+   * @throws IOException If an I/O error occurs while moving the file
+   */
+  private void publish(Path temporaryBlob, Path blob) throws IOException {
+    if(Files.isRegularFile(blob)) {
+      // The content is present already
+      return;
+    }
+
+    Files.createDirectories(blob.getParent());
+
+    try {
+      Files.move(temporaryBlob, blob, StandardCopyOption.ATOMIC_MOVE);
+    } catch(IOException e) {
+      if(!Files.isRegularFile(blob)) {
+        // Not a concurrent publish of the same content
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Makes the given blob available under another hash as well.
+   *
+   * @param blob  The existing blob
+   * @param alias The path to make the blob available at
+   * @throws IOException If an I/O error occurs while creating the alias
+   */
+  private void publishAlias(Path blob, Path alias) throws IOException {
+    if(Files.isRegularFile(alias)) {
+      return;
+    }
+
+    Files.createDirectories(alias.getParent());
+
+    try {
+      Files.createLink(alias, blob);
+    } catch(FileAlreadyExistsException ignored) {
+      // Created concurrently by another process
+    } catch(IOException | UnsupportedOperationException e) {
+      LOGGER.debug("Failed to link {} to {}, copying instead", alias, blob, e);
+      Path temporaryAlias = temporaryDir.resolve(UUID.randomUUID().toString());
+      Files.copy(blob, temporaryAlias);
+      publish(temporaryAlias, alias);
+      Files.deleteIfExists(temporaryAlias);
+    }
+  }
+
+  /**
+   * Verifies that the content of the blob with the given hash still matches the hash. Blobs can only change if a
+   * linked file has been modified in place, in which case the blob is discarded. The result is remembered as long as
+   * the size and modification time of the blob don't change.
+   *
+   * @param algorithm The algorithm the hash has been computed with
+   * @param hash      The hex encoded hash of the blob
+   * @return {@code true} if the blob is intact, {@code false} if it has been discarded
+   * @throws IOException If an I/O error occurs while reading the blob
+   */
+  private boolean verify(HashAlgorithm algorithm, String hash) throws IOException {
+    Path blob = getBlobPath(algorithm, hash);
+    BasicFileAttributes attributes = Files.readAttributes(blob, BasicFileAttributes.class);
+    String state = attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+
+    if(state.equals(verifiedBlobs.get(blob))) {
+      return true;
+    }
+
+    String actualHash;
+    try(InputStream in = Files.newInputStream(blob)) {
+      actualHash = HashingService.digest(in, algorithm);
+    }
+    Telemetry.bytesRead(attributes.size());
+
+    if(!actualHash.equalsIgnoreCase(hash)) {
+      LOGGER.warn("Content store blob {} has been modified, discarding it", blob);
+      verifiedBlobs.remove(blob);
+      Files.deleteIfExists(blob);
+      return false;
+    }
+
+    verifiedBlobs.put(blob, state);
+    return true;
+  }
+
+  /**
+   * Links the given blob to the given target, or copies it if linking is not possible or not wanted.
+   *
+   * @param blob   The blob to link
+   * @param target The path to link the blob to
+   * @param link   If {@code false}, the blob is always copied
+   * @throws IOException If an I/O error occurs while linking or copying
+   */
+  private void link(Path blob, Path target, boolean link) throws IOException {
+    if(link && Files.exists(target) && Files.isSameFile(blob, target)) {
+      // Already materialized
+      return;
+    }
+
+    Path parent = target.toAbsolutePath().getParent();
+    if(!Files.isDirectory(parent)) {
+      Files.createDirectories(parent);
+    }
+
+    // Materialize next to the target and move it into place afterwards, so the target never is half written. Moving
+    // replaces the target, so an existing link to another blob is broken up instead of written through.
+    Path temporaryTarget = parent.resolve(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+    try {
+      if(link) {
+        try {
+          Files.createLink(temporaryTarget, blob);
+        } catch(IOException | UnsupportedOperationException e) {
+          // Links are not supported, usually because the target is on another file system
+          LOGGER.debug("Failed to link {} to {}, copying instead", target, blob, e);
+          Files.copy(blob, temporaryTarget);
+        }
+      } else {
+        Files.copy(blob, temporaryTarget);
+      }
+
+      Files.move(temporaryTarget, target, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryTarget);
+    }
+  }
+}
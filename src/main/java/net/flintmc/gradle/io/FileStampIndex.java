@@ -0,0 +1,245 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.io;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent index associating a value with the state of a file. The state of a file is described by its size and
+ * its last modification time, so a stored value is only returned as long as the file has not been changed.
+ */
+public class FileStampIndex {
+  private static final Logger LOGGER = Logging.getLogger(FileStampIndex.class);
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path indexFile;
+  private final Map<String, Entry> entries;
+  private boolean dirty;
+
+  /**
+   * Constructs a new, empty {@link FileStampIndex}.
+   *
+   * @param indexFile The file the index is saved to
+   */
+  private FileStampIndex(Path indexFile) {
+    this.indexFile = indexFile;
+    this.entries = new HashMap<>();
+  }
+
+  /**
+   * Loads the index from the given file. If the file does not exist or can't be read, an empty index is returned.
+   *
+   * @param indexFile The file to load the index from
+   * @return The loaded index
+   */
+  public static FileStampIndex load(Path indexFile) {
+    FileStampIndex index = new FileStampIndex(indexFile);
+    if(!Files.isRegularFile(indexFile)) {
+      return index;
+    }
+
+    try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+      if(in.readInt() != FORMAT_VERSION) {
+        // Written by another version, start over
+        return index;
+      }
+
+      int count = in.readInt();
+      for(int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String value = readString(in);
+
+        index.entries.put(path, new Entry(size, lastModified, value));
+      }
+    } catch(IOException e) {
+      LOGGER.warn("Failed to read file stamp index {}, discarding it", indexFile, e);
+      index.entries.clear();
+    }
+
+    return index;
+  }
+
+  /**
+   * Describes the current state of the given file.
+   *
+   * @param file The file to describe
+   * @return A string describing the current state of the file, or {@code null}, if the file does not exist
+   */
+  public static String describe(File file) {
+    Entry stamp = stamp(file.toPath(), null);
+    return stamp == null ? null : stamp.size + ":" + stamp.lastModified;
+  }
+
+  /**
+   * Retrieves the value stored for the given file.
+   *
+   * @param file The file to retrieve the value for
+   * @return The stored value, or {@code null}, if no value is stored or the file has changed since
+   */
+  public String get(File file) {
+    String key = file.getAbsolutePath();
+
+    Entry entry;
+    synchronized(this) {
+      entry = entries.get(key);
+    }
+
+    if(entry == null) {
+      return null;
+    }
+
+    Entry current = stamp(file.toPath(), null);
+    if(current == null || current.size != entry.size || current.lastModified != entry.lastModified) {
+      // The file has changed or is gone
+      return null;
+    }
+
+    return entry.value;
+  }
+
+  /**
+   * Stores the given value for the current state of the given file.
+   *
+   * @param file  The file to store the value for
+   * @param value The value to store
+   */
+  public void put(File file, String value) {
+    Entry entry = stamp(file.toPath(), value);
+    String key = file.getAbsolutePath();
+
+    synchronized(this) {
+      if(entry == null) {
+        dirty |= entries.remove(key) != null;
+      } else {
+        entries.put(key, entry);
+        dirty = true;
+      }
+    }
+  }
+
+  /**
+   * Saves the index if it has been changed since it has been loaded.
+   *
+   * @throws IOException If an I/O error occurs while writing the index
+   */
+  public synchronized void save() throws IOException {
+    if(!dirty) {
+      return;
+    }
+
+    if(!Files.isDirectory(indexFile.getParent())) {
+      Files.createDirectories(indexFile.getParent());
+    }
+
+    // Write to a temporary file first, so a concurrent reader never sees a half written index
+    Path temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+    try(DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(entries.size());
+
+      for(Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+        Entry entry = mapEntry.getValue();
+
+        out.writeUTF(mapEntry.getKey());
+        out.writeLong(entry.size);
+        out.writeLong(entry.lastModified);
+        writeString(out, entry.value);
+      }
+    }
+
+    Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    dirty = false;
+  }
+
+  /**
+   * Reads the current state of the given file.
+   *
+   * @param path  The file to read the state of
+   * @param value The value to attach to the state
+   * @return The state of the file, or {@code null}, if the file does not exist
+   */
+  private static Entry stamp(Path path, String value) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), value);
+    } catch(IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads a string of arbitrary length.
+   *
+   * @param in The stream to read from
+   * @return The read string
+   * @throws IOException If an I/O error occurs
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] data = new byte[in.readInt()];
+    in.readFully(data);
+    return new String(data, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a string of arbitrary length.
+   *
+   * @param out   The stream to write to
+   * @param value The string to write
+   * @throws IOException If an I/O error occurs
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] data = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(data.length);
+    out.write(data);
+  }
+
+  /**
+   * Stored state of a single file.
+   */
+  private static class Entry {
+    private final long size;
+    private final long lastModified;
+    private final String value;
+
+    private Entry(long size, long lastModified, String value) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.io;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hash algorithms used for checksums and content addressing.
+ */
+public enum HashAlgorithm {
+  /**
+   * SHA-1, used by maven repositories and mojang.
+   */
+  SHA1("SHA-1", "sha1", 40),
+
+  /**
+   * MD5, used by static files.
+   */
+  MD5("MD5", "md5", 32);
+
+  private final String digestName;
+  private final String name;
+  private final int hexLength;
+
+  HashAlgorithm(String digestName, String name, int hexLength) {
+    this.digestName = digestName;
+    this.name = name;
+    this.hexLength = hexLength;
+  }
+
+  /**
+   * Retrieves the lower case short name of this algorithm, as used in file extensions and directory names.
+   *
+   * @return The short name of this algorithm
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Retrieves the length of a hex encoded hash computed with this algorithm.
+   *
+   * @return The length of a hex encoded hash
+   */
+  public int getHexLength() {
+    return hexLength;
+  }
+
+  /**
+   * Creates a new digest for this algorithm.
+   *
+   * @return The created digest
+   */
+  public MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(digestName);
+    } catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException(digestName + " digest not available", e);
+    }
+  }
+}
@@ -0,0 +1,412 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.io;
+
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.util.Parallel;
+import net.flintmc.gradle.util.Util;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service computing checksums of local and remote files. All hashes are computed by streaming the content through a
+ * fixed size buffer, results for local files are memoized as long as the size and modification time of the file do
+ * not change.
+ * <p>
+ * Remote files are hashed using server supplied checksums if available, which are first asked for using a HEAD
+ * request. Otherwise the last result is revalidated using a conditional request, and only if that fails the file is
+ * streamed through the digest.
+ */
+public class HashingService {
+  private static final Logger LOGGER = Logging.getLogger(HashingService.class);
+  private static final int BUFFER_SIZE = 65536;
+
+  private final OkHttpClient httpClient;
+  private final Path remoteCacheFile;
+  private final Map<String, LocalEntry> localEntries;
+  private final Properties remoteEntries;
+  private boolean remoteEntriesDirty;
+
+  /**
+   * Constructs a new {@link HashingService}.
+   *
+   * @param httpClient      The HTTP client to use for hashing remote files, or {@code null}, if working offline
+   * @param remoteCacheFile The file to persist the validators and hashes of remote files in
+   */
+  public HashingService(OkHttpClient httpClient, Path remoteCacheFile) {
+    this.httpClient = httpClient;
+    this.remoteCacheFile = remoteCacheFile;
+    this.localEntries = new ConcurrentHashMap<>();
+    this.remoteEntries = new Properties();
+
+    if(Files.isRegularFile(remoteCacheFile)) {
+      try(InputStream in = Files.newInputStream(remoteCacheFile)) {
+        remoteEntries.load(in);
+      } catch(IOException e) {
+        LOGGER.warn("Failed to read remote checksum cache {}, discarding it", remoteCacheFile, e);
+        remoteEntries.clear();
+      }
+    }
+  }
+
+  /**
+   * Computes the hash of the given file.
+   *
+   * @param file      The file to hash
+   * @param algorithm The algorithm to hash the file with
+   * @return The hex encoded hash of the file
+   * @throws IOException If an I/O error occurs while reading the file
+   */
+  public String hash(Path file, HashAlgorithm algorithm) throws IOException {
+    String key = algorithm.getName() + ":" + file.toAbsolutePath();
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    long lastModified = attributes.lastModifiedTime().toMillis();
+
+    LocalEntry entry = localEntries.get(key);
+    if(entry != null && entry.size == attributes.size() && entry.lastModified == lastModified) {
+      // The file has not changed since it has been hashed the last time
+      Telemetry.cacheHit("hash");
+      return entry.hash;
+    }
+
+    Telemetry.cacheMiss("hash");
+
+    String hash;
+    try(InputStream in = Files.newInputStream(file)) {
+      hash = digest(in, algorithm);
+    }
+    Telemetry.bytesRead(attributes.size());
+
+    localEntries.put(key, new LocalEntry(attributes.size(), lastModified, hash));
+    return hash;
+  }
+
+  /**
+   * Computes the hashes of all given files in parallel.
+   *
+   * @param files     The files to hash
+   * @param algorithm The algorithm to hash the files with
+   * @return A map of all given files to their hex encoded hashes
+   * @throws IOException If an I/O error occurs while reading one of the files
+   */
+  public Map<Path, String> hashAll(Collection<Path> files, HashAlgorithm algorithm) throws IOException {
+    Map<Path, String> out = new ConcurrentHashMap<>();
+    Parallel.forEach(files, Parallel.CPU_PARALLELISM, (file) -> out.put(file, hash(file, algorithm)));
+    return out;
+  }
+
+  /**
+   * Computes the hash of the file at the given URI.
+   *
+   * @param uri       The URI of the file to hash
+   * @param algorithm The algorithm to hash the file with
+   * @return The hex encoded hash of the file
+   * @throws IOException If an I/O error occurs while retrieving the file
+   */
+  public String hash(URI uri, HashAlgorithm algorithm) throws IOException {
+    if(uri.getScheme().equals("file")) {
+      return hash(Paths.get(uri), algorithm);
+    } else if(uri.getScheme().equals("jar")) {
+      try(InputStream in = uri.toURL().openStream()) {
+        return digest(in, algorithm);
+      }
+    }
+
+    if(httpClient == null) {
+      throw new IOException("Can't hash " + uri + " because gradle is in offline mode");
+    }
+
+    String key = algorithm.getName() + ":" + uri.toASCIIString();
+    RemoteEntry entry = RemoteEntry.parse(getRemoteEntry(key));
+
+    // The headers alone are enough if the file did not change or the server sends a checksum
+    try(Response response = httpClient.newCall(conditionalRequest(uri, entry).head().build()).execute()) {
+      if(response.code() == 304 && entry != null) {
+        // Not modified
+        Telemetry.cacheHit("remote-hash");
+        return entry.hash;
+      } else if(response.code() == 200) {
+        String hash = serverChecksum(response, algorithm);
+        if(hash != null) {
+          Telemetry.cacheMiss("remote-hash");
+          rememberRemoteEntry(key, response, hash);
+          return hash;
+        }
+      }
+
+      // Otherwise the server does not support HEAD requests or sends no checksums, fall back to the content
+    }
+
+    try(Response response = httpClient.newCall(conditionalRequest(uri, entry).get().build()).execute()) {
+      if(response.code() == 304 && entry != null) {
+        // Not modified
+        Telemetry.cacheHit("remote-hash");
+        return entry.hash;
+      } else if(response.code() != 200) {
+        throw new IOException("Failed to hash file from " + uri + ", server responded with "
+            + response.code() + " (" + response.message() + ")");
+      }
+
+      Telemetry.cacheMiss("remote-hash");
+
+      String hash = serverChecksum(response, algorithm);
+      if(hash == null) {
+        // The server did not send a checksum, hash the content
+        ResponseBody body = response.body();
+        if(body == null) {
+          throw new IOException("Failed to hash file from " + uri + ", server sent no content");
+        }
+
+        try(InputStream in = Telemetry.countDownloaded(body.byteStream())) {
+          hash = digest(in, algorithm);
+        }
+      }
+
+      rememberRemoteEntry(key, response, hash);
+      return hash;
+    }
+  }
+
+  /**
+   * Creates a request for the given URI which asks the server whether the file changed since the given entry has been
+   * computed.
+   *
+   * @param uri   The URI to request
+   * @param entry The last entry of the file, or {@code null}, if it has not been hashed yet
+   * @return The created request builder, the method still has to be set
+   */
+  private Request.Builder conditionalRequest(URI uri, RemoteEntry entry) {
+    Request.Builder requestBuilder = new Request.Builder().url(uri.toString());
+
+    if(entry != null) {
+      if(entry.eTag != null) {
+        requestBuilder.header("If-None-Match", entry.eTag);
+      }
+
+      if(entry.lastModified != null) {
+        requestBuilder.header("If-Modified-Since", entry.lastModified);
+      }
+    }
+
+    return requestBuilder;
+  }
+
+  /**
+   * Remembers the hash of a remote file together with the validators of the response.
+   *
+   * @param key      The key of the remote file
+   * @param response The response the file has been hashed from
+   * @param hash     The hex encoded hash of the file
+   */
+  private void rememberRemoteEntry(String key, Response response, String hash) {
+    RemoteEntry entry = new RemoteEntry(response.header("ETag"), response.header("Last-Modified"), hash);
+    if(entry.eTag != null || entry.lastModified != null) {
+      // Only worth remembering if the server supports conditional requests
+      putRemoteEntry(key, entry.toString());
+    }
+  }
+
+  /**
+   * Saves the validators and hashes of remote files if they have changed since they have been loaded or saved.
+   *
+   * @throws IOException If an I/O error occurs while writing the cache file
+   */
+  public void save() throws IOException {
+    synchronized(remoteEntries) {
+      if(!remoteEntriesDirty) {
+        return;
+      }
+
+      if(!Files.isDirectory(remoteCacheFile.getParent())) {
+        Files.createDirectories(remoteCacheFile.getParent());
+      }
+
+      // Concurrent builds may save at the same time, each of them needs its own temporary file
+      Path temporaryFile = remoteCacheFile.resolveSibling(
+          remoteCacheFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+      try {
+        try(OutputStream out = Files.newOutputStream(temporaryFile)) {
+          remoteEntries.store(out, "flint-gradle remote checksums");
+        }
+
+        try {
+          Files.move(
+              temporaryFile, remoteCacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException e) {
+          Files.move(temporaryFile, remoteCacheFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+
+      remoteEntriesDirty = false;
+    }
+  }
+
+  /**
+   * Streams the given input through a digest of the given algorithm.
+   *
+   * @param in        The stream to hash, not closed by this method
+   * @param algorithm The algorithm to hash the stream with
+   * @return The hex encoded hash
+   * @throws IOException If an I/O error occurs while reading the stream
+   */
+  public static String digest(InputStream in, HashAlgorithm algorithm) throws IOException {
+    MessageDigest digest = algorithm.createDigest();
+    byte[] buffer = new byte[BUFFER_SIZE];
+
+    int count;
+    while((count = in.read(buffer)) != -1) {
+      digest.update(buffer, 0, count);
+    }
+
+    return Util.toHexString(digest.digest());
+  }
+
+  /**
+   * Extracts a checksum sent by the server along the response.
+   *
+   * @param response  The response to extract the checksum from
+   * @param algorithm The algorithm the checksum is required for
+   * @return The hex encoded checksum, or {@code null}, if the server did not send one
+   */
+  private String serverChecksum(Response response, HashAlgorithm algorithm) {
+    // Artifactory and Nexus style headers
+    String checksum = response.header(algorithm == HashAlgorithm.SHA1 ? "X-Checksum-Sha1" : "X-Checksum-Md5");
+    if(checksum != null && checksum.length() == algorithm.getHexLength()) {
+      return checksum.toLowerCase();
+    }
+
+    if(algorithm == HashAlgorithm.MD5) {
+      // RFC 1864 style and Google Cloud Storage style base64 encoded MD5
+      String base64 = response.header("Content-MD5");
+
+      if(base64 == null) {
+        for(String googleHash : response.headers("x-goog-hash")) {
+          if(googleHash.startsWith("md5=")) {
+            base64 = googleHash.substring(4);
+          }
+        }
+      }
+
+      if(base64 != null) {
+        try {
+          return Util.toHexString(Base64.getDecoder().decode(base64.trim()));
+        } catch(IllegalArgumentException e) {
+          LOGGER.debug("Server sent malformed MD5 {}", base64, e);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private String getRemoteEntry(String key) {
+    synchronized(remoteEntries) {
+      return remoteEntries.getProperty(key);
+    }
+  }
+
+  private void putRemoteEntry(String key, String value) {
+    synchronized(remoteEntries) {
+      remoteEntriesDirty |= !value.equals(remoteEntries.setProperty(key, value));
+    }
+  }
+
+  /**
+   * Memoized hash of a local file.
+   */
+  private static class LocalEntry {
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+
+    private LocalEntry(long size, long lastModified, String hash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+  }
+
+  /**
+   * Memoized hash of a remote file including the validators required for revalidating it.
+   */
+  private static class RemoteEntry {
+    private final String eTag;
+    private final String lastModified;
+    private final String hash;
+
+    private RemoteEntry(String eTag, String lastModified, String hash) {
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+
+    /**
+     * Parses an entry previously converted using {@link #toString()}.
+     *
+     * @param value The value to parse, may be {@code null}
+     * @return The parsed entry, or {@code null}, if the value is {@code null} or malformed
+     */
+    private static RemoteEntry parse(String value) {
+      if(value == null) {
+        return null;
+      }
+
+      String[] parts = value.split("\t", -1);
+      if(parts.length != 3) {
+        return null;
+      }
+
+      return new RemoteEntry(
+          parts[0].isEmpty() ? null : parts[0],
+          parts[1].isEmpty() ? null : parts[1],
+          parts[2]
+      );
+    }
+
+    @Override
+    public String toString() {
+      return (eTag == null ? "" : eTag) + "\t" + (lastModified == null ? "" : lastModified) + "\t" + hash;
+    }
+  }
+}
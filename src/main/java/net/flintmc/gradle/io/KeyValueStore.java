@@ -0,0 +1,345 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.io;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Persistent string key value store split into namespaces, used for small per project caches. The store is read
+ * lazily on first access and only written back if it has been changed since.
+ * <p>
+ * Stores are shared per file across the daemon, so tasks of parallel project builds operating on the same file see
+ * each others changes without going through the disk. All access is synchronized on the store.
+ */
+public class KeyValueStore {
+  private static final Logger LOGGER = Logging.getLogger(KeyValueStore.class);
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAX_OPEN_STORES = 256;
+
+  private static final Map<String, KeyValueStore> OPEN_STORES =
+      new LinkedHashMap<String, KeyValueStore>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KeyValueStore> eldest) {
+          return size() > MAX_OPEN_STORES;
+        }
+      };
+
+  private final Path file;
+  private final Map<String, Map<String, String>> namespaces;
+
+  private boolean loaded;
+  private boolean dirty;
+  private long loadedSize;
+  private long loadedLastModified;
+
+  /**
+   * Constructs a new, not yet loaded {@link KeyValueStore}.
+   *
+   * @param file The file backing the store
+   */
+  private KeyValueStore(Path file) {
+    this.file = file;
+    this.namespaces = new HashMap<>();
+  }
+
+  /**
+   * Opens the store backed by the given file. If the store is open already and has been changed on disk by someone
+   * else since, it is reloaded on next access, unless it has unsaved changes.
+   *
+   * @param file The file backing the store, does not need to exist
+   * @return The opened store
+   */
+  public static KeyValueStore open(Path file) {
+    Path absoluteFile = file.toAbsolutePath();
+
+    KeyValueStore store;
+    synchronized(OPEN_STORES) {
+      store = OPEN_STORES.computeIfAbsent(absoluteFile.toString(), (key) -> new KeyValueStore(absoluteFile));
+    }
+
+    store.revalidate();
+    return store;
+  }
+
+  /**
+   * Retrieves the value stored for the given key.
+   *
+   * @param namespace The namespace of the key
+   * @param key       The key to retrieve the value for
+   * @return The stored value, or {@code null}, if no value is stored for the key
+   */
+  public synchronized String get(String namespace, String key) {
+    Map<String, String> entries = namespace(namespace, false);
+    return entries == null ? null : entries.get(key);
+  }
+
+  /**
+   * Determines whether a value is stored for the given key.
+   *
+   * @param namespace The namespace of the key
+   * @param key       The key to check
+   * @return {@code true} if a value is stored for the key, {@code false} otherwise
+   */
+  public synchronized boolean contains(String namespace, String key) {
+    Map<String, String> entries = namespace(namespace, false);
+    return entries != null && entries.containsKey(key);
+  }
+
+  /**
+   * Stores the given value for the given key. The store is only marked as changed if the value differs from the
+   * currently stored one.
+   *
+   * @param namespace The namespace of the key
+   * @param key       The key to store the value for
+   * @param value     The value to store
+   */
+  public synchronized void put(String namespace, String key, String value) {
+    Objects.requireNonNull(value, "value");
+    dirty |= !value.equals(namespace(namespace, true).put(key, value));
+  }
+
+  /**
+   * Retrieves a snapshot of all entries of the given namespace.
+   *
+   * @param namespace The namespace to retrieve the entries of
+   * @return A copy of all entries of the namespace
+   */
+  public synchronized Map<String, String> entries(String namespace) {
+    Map<String, String> entries = namespace(namespace, false);
+    return entries == null ? Collections.emptyMap() : new HashMap<>(entries);
+  }
+
+  /**
+   * Removes all entries of the given namespace which are not associated with one of the given keys.
+   *
+   * @param namespace The namespace to remove the entries from
+   * @param keys      The keys to keep
+   */
+  public synchronized void retain(String namespace, Collection<String> keys) {
+    Map<String, String> entries = namespace(namespace, false);
+    if(entries != null) {
+      dirty |= entries.keySet().retainAll(keys);
+    }
+  }
+
+  /**
+   * Replaces all entries of the given namespace. The store is only marked as changed if the new entries differ from
+   * the current ones.
+   *
+   * @param namespace The namespace to replace the entries of
+   * @param entries   The new entries of the namespace
+   */
+  public synchronized void replace(String namespace, Map<String, String> entries) {
+    Map<String, String> current = namespace(namespace, true);
+    if(!current.equals(entries)) {
+      current.clear();
+      current.putAll(entries);
+      dirty = true;
+    }
+  }
+
+  /**
+   * Saves the store if it has been changed since it has been loaded, or if the backing file does not exist yet.
+   *
+   * @throws IOException If an I/O error occurs while writing the store
+   */
+  public synchronized void save() throws IOException {
+    if(!dirty && Files.isRegularFile(file)) {
+      return;
+    }
+
+    ensureLoaded();
+
+    if(!Files.isDirectory(file.getParent())) {
+      Files.createDirectories(file.getParent());
+    }
+
+    // Write to a unique temporary file first, so concurrent writers never interleave and readers never see a half
+    // written store
+    Path temporaryFile = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      try(DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(namespaces.size());
+
+        for(Map.Entry<String, Map<String, String>> namespace : namespaces.entrySet()) {
+          writeString(out, namespace.getKey());
+          out.writeInt(namespace.getValue().size());
+
+          for(Map.Entry<String, String> entry : namespace.getValue().entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+          }
+        }
+      }
+
+      try {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch(AtomicMoveNotSupportedException e) {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+
+    dirty = false;
+    rememberStamp();
+  }
+
+  /**
+   * Drops the loaded state if the backing file has been changed by someone else since it has been loaded.
+   */
+  private synchronized void revalidate() {
+    if(!loaded || dirty) {
+      // Nothing to revalidate, or local changes which must not be lost
+      return;
+    }
+
+    long[] stamp = stamp();
+    if(stamp == null || stamp[0] != loadedSize || stamp[1] != loadedLastModified) {
+      namespaces.clear();
+      loaded = false;
+    }
+  }
+
+  /**
+   * Retrieves the entries of the given namespace, loading the store if required.
+   *
+   * @param namespace The namespace to retrieve the entries of
+   * @param create    Whether the namespace should be created if it does not exist
+   * @return The live entries of the namespace, or {@code null}, if it does not exist and should not be created
+   */
+  private Map<String, String> namespace(String namespace, boolean create) {
+    ensureLoaded();
+    return create ? namespaces.computeIfAbsent(namespace, (key) -> new HashMap<>()) : namespaces.get(namespace);
+  }
+
+  /**
+   * Loads the store from the backing file if this has not happened yet. If the file does not exist, was written by
+   * another version or can't be read, the store starts out empty.
+   */
+  private void ensureLoaded() {
+    if(loaded) {
+      return;
+    }
+
+    loaded = true;
+    rememberStamp();
+
+    if(!Files.isRegularFile(file)) {
+      return;
+    }
+
+    try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if(in.readInt() != FORMAT_VERSION) {
+        // Written by another version, start over
+        LOGGER.debug("Discarding store {} written by another version", file);
+        return;
+      }
+
+      int namespaceCount = in.readInt();
+      for(int i = 0; i < namespaceCount; i++) {
+        String namespace = readString(in);
+        int count = in.readInt();
+
+        Map<String, String> entries = new HashMap<>(count * 2);
+        for(int j = 0; j < count; j++) {
+          String key = readString(in);
+          entries.put(key, readString(in));
+        }
+
+        namespaces.put(namespace, entries);
+      }
+    } catch(IOException e) {
+      LOGGER.warn("Failed to read store {}, discarding it", file, e);
+      namespaces.clear();
+    }
+  }
+
+  /**
+   * Remembers the current state of the backing file.
+   */
+  private void rememberStamp() {
+    long[] stamp = stamp();
+    loadedSize = stamp == null ? -1 : stamp[0];
+    loadedLastModified = stamp == null ? -1 : stamp[1];
+  }
+
+  /**
+   * Reads the current state of the backing file.
+   *
+   * @return The size and the last modification time of the file, or {@code null}, if the file does not exist
+   */
+  private long[] stamp() {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      return new long[]{attributes.size(), attributes.lastModifiedTime().toMillis()};
+    } catch(IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads a string of arbitrary length.
+   *
+   * @param in The stream to read from
+   * @return The read string
+   * @throws IOException If an I/O error occurs
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] data = new byte[in.readInt()];
+    in.readFully(data);
+    return new String(data, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a string of arbitrary length.
+   *
+   * @param out   The stream to write to
+   * @param value The string to write
+   * @throws IOException If an I/O error occurs
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] data = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(data.length);
+    out.write(data);
+  }
+}
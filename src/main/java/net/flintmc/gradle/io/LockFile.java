@@ -24,9 +24,13 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.OverlappingFileLockException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Wrapper for locks that are based on files but represent more a lock other than on the file itself.
+ * <p>
+ * The lock file is created on demand and kept after the lock has been released. Deleting it would allow a process
+ * still waiting on the old file and a process creating a new file to hold the lock at the same time.
  */
 public class LockFile {
   private final Path lockFilePath;
@@ -52,8 +56,13 @@ public class LockFile {
       Files.createDirectories(lockFilePath.getParent());
     }
 
-    FileChannel channel = FileChannel.open(lockFilePath);
-    return new FileLock(channel, lockFilePath, channel.lock());
+    FileChannel channel = open();
+    try {
+      return new FileLock(channel, null, channel.lock());
+    } catch(IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
   }
 
   /**
@@ -68,13 +77,30 @@ public class LockFile {
       Files.createDirectories(lockFilePath.getParent());
     }
 
-    FileChannel channel = FileChannel.open(lockFilePath);
-    java.nio.channels.FileLock lock = channel.tryLock();
+    FileChannel channel = open();
+    java.nio.channels.FileLock lock;
+    try {
+      lock = channel.tryLock();
+    } catch(IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
 
     if(lock == null) {
+      channel.close();
       return null;
     }
 
-    return new FileLock(channel, lockFilePath, lock);
+    return new FileLock(channel, null, lock);
+  }
+
+  /**
+   * Opens a channel to the lock file, creating it if required. Exclusive locks require the channel to be writable.
+   *
+   * @return The opened channel
+   * @throws IOException If an I/O error occurs while opening the channel
+   */
+  private FileChannel open() throws IOException {
+    return FileChannel.open(lockFilePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
   }
 }
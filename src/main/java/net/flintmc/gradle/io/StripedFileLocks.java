@@ -0,0 +1,110 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.io;
+
+import net.flintmc.gradle.telemetry.Telemetry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keyed locks which exclude both threads of this daemon and other processes. Threads are excluded using a fixed set
+ * of striped locks selected by the lock file, processes are excluded using a {@link LockFile}. The striped lock is
+ * always taken first, so no two threads of this process ever lock the same file concurrently.
+ */
+public class StripedFileLocks {
+  private static final int DEFAULT_STRIPES = 64;
+  private static final StripedFileLocks INSTANCE = new StripedFileLocks(DEFAULT_STRIPES);
+
+  private final ReentrantLock[] stripes;
+
+  /**
+   * Constructs a new {@link StripedFileLocks}.
+   *
+   * @param stripeCount The amount of striped locks to distribute the lock files over
+   */
+  public StripedFileLocks(int stripeCount) {
+    this.stripes = new ReentrantLock[stripeCount];
+    for(int i = 0; i < stripeCount; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Retrieves the locks shared by the entire daemon.
+   *
+   * @return The shared locks
+   */
+  public static StripedFileLocks getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Acquires the lock represented by the given file, blocking until it is available.
+   *
+   * @param lockFile The file representing the lock, created if it does not exist
+   * @return The acquired lock
+   * @throws IOException If an I/O error occurs while acquiring the file lock
+   */
+  public Lock acquire(Path lockFile) throws IOException {
+    Path absoluteLockFile = lockFile.toAbsolutePath();
+    ReentrantLock stripe = stripes[Math.floorMod(absoluteLockFile.hashCode(), stripes.length)];
+
+    long startNanos = System.nanoTime();
+
+    stripe.lock();
+    try {
+      Lock lock = new Lock(stripe, new LockFile(absoluteLockFile).acquire());
+      Telemetry.lockWait("file", System.nanoTime() - startNanos);
+      return lock;
+    } catch(IOException | RuntimeException e) {
+      stripe.unlock();
+      throw e;
+    }
+  }
+
+  /**
+   * A lock acquired from {@link StripedFileLocks}.
+   */
+  public static class Lock implements AutoCloseable {
+    private final ReentrantLock stripe;
+    private final FileLock fileLock;
+
+    private Lock(ReentrantLock stripe, FileLock fileLock) {
+      this.stripe = stripe;
+      this.fileLock = fileLock;
+    }
+
+    /**
+     * Releases the lock.
+     *
+     * @throws IOException If an I/O error occurs while releasing the file lock
+     */
+    @Override
+    public void close() throws IOException {
+      try {
+        fileLock.release();
+      } finally {
+        stripe.unlock();
+      }
+    }
+  }
+}
@@ -19,6 +19,8 @@
 
 package net.flintmc.gradle.io;
 
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
 import net.flintmc.gradle.util.Util;
 import okhttp3.Call;
 import okhttp3.OkHttpClient;
@@ -67,8 +69,20 @@ public class TimeStampedFile {
    * @param dateTimeFormatter The date time formatter to use for parsing the Last-Modified Header
    * @throws IOException If an I/O error occurs while updating the file
    */
+  @SuppressWarnings("try")
   public void update(
       OkHttpClient httpClient, String updateUrl, DateTimeFormatter dateTimeFormatter) throws IOException {
+    try (TelemetrySpan ignored = Telemetry.span("http", "update " + filePath.getFileName())
+        .attribute("url", updateUrl)) {
+      updateFile(httpClient, updateUrl, dateTimeFormatter);
+    }
+  }
+
+  /**
+   * Performs the actual update, see {@link #update(OkHttpClient, String, DateTimeFormatter)}.
+   */
+  private void updateFile(
+      OkHttpClient httpClient, String updateUrl, DateTimeFormatter dateTimeFormatter) throws IOException {
     Date lastModifiedDate = null;
 
 
@@ -110,10 +124,13 @@ public class TimeStampedFile {
       Date lastLocalModifiedDate = Date.from(Instant.ofEpochMilli(timestamp));
       if (!lastLocalModifiedDate.before(lastModifiedDate)) {
         // Local file is newer
+        Telemetry.cacheHit("timestamped-file");
         return;
       }
     }
 
+    Telemetry.cacheMiss("timestamped-file");
+
     // Fetch the file data
     try (Response response = httpClient.newCall(new Request.Builder()
         .url(updateUrl)
@@ -141,7 +158,8 @@ public class TimeStampedFile {
       }
 
       // Write the received data
-      Files.copy(response.body().byteStream(), this.filePath, StandardCopyOption.REPLACE_EXISTING);
+      long size = Files.copy(response.body().byteStream(), this.filePath, StandardCopyOption.REPLACE_EXISTING);
+      Telemetry.bytesDownloaded(size);
     }
   }
 
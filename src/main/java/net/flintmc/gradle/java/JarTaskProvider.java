@@ -30,14 +30,18 @@ import org.gradle.api.GradleException;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.file.RegularFile;
 import org.gradle.api.plugins.ExtraPropertiesExtension;
 import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.bundling.Jar;
 import org.gradle.api.tasks.compile.JavaCompile;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 public class JarTaskProvider {
@@ -105,114 +109,114 @@ public class JarTaskProvider {
    */
   @SuppressWarnings("unchecked")
   public void addToMainJar(Project project, SourceSet sourceSet) {
-    // Retrieve the jar task producing the fat, bundled jar which will be used
-    // in the production environment
-    Jar mainJarTask = (Jar) project.getTasks().getByName("jar");
-
-    // Get a place to store properties for a task run
-    ExtraPropertiesExtension mainJarTaskProperties = mainJarTask.getExtensions().getExtraProperties();
-
-    // Extract the properties if they exist already
-    List<File> serviceInputDirs = mainJarTaskProperties.has("serviceInputDirs") ?
-        (List<File>) mainJarTaskProperties.get("serviceInputDirs") : null;
-    File serviceMergeDir = mainJarTaskProperties.has("serviceMergeDir") ?
-        (File) mainJarTaskProperties.get("serviceMergeDir") : null;
-
-    if(serviceMergeDir == null) {
-      // The service merge dir has not been set yet, define it as $buildDir/service-merge
-      // and add it as a task input
-      serviceMergeDir = new File(project.getBuildDir(), "service-merge");
-      mainJarTaskProperties.set("serviceMergeDir", serviceMergeDir);
-      mainJarTask.from(serviceMergeDir);
-    }
-
-    if(serviceInputDirs == null) {
-      // The service input dirs have not been configured yet, create a list to save all
-      // directories which should be probed for services in
-      serviceInputDirs = new ArrayList<>();
-      mainJarTaskProperties.set("serviceInputDirs", serviceInputDirs);
+    // Configure the jar task producing the fat, bundled jar which will be used
+    // in the production environment, this is deferred until the task is realized
+    project.getTasks().named("jar", Jar.class).configure((mainJarTask) -> {
+      // Get a place to store properties for a task run
+      ExtraPropertiesExtension mainJarTaskProperties = mainJarTask.getExtensions().getExtraProperties();
+
+      // Extract the properties if they exist already
+      List<File> serviceInputDirs = mainJarTaskProperties.has("serviceInputDirs") ?
+          (List<File>) mainJarTaskProperties.get("serviceInputDirs") : null;
+      File serviceMergeDir = mainJarTaskProperties.has("serviceMergeDir") ?
+          (File) mainJarTaskProperties.get("serviceMergeDir") : null;
+
+      if(serviceMergeDir == null) {
+        // The service merge dir has not been set yet, define it as $buildDir/service-merge
+        // and add it as a task input
+        serviceMergeDir = new File(project.getBuildDir(), "service-merge");
+        mainJarTaskProperties.set("serviceMergeDir", serviceMergeDir);
+        mainJarTask.from(serviceMergeDir);
+      }
 
-      // Lambda workaround to make variables final
-      File finalServiceMergeDir = serviceMergeDir;
-      List<File> finalServiceInputDirs = serviceInputDirs;
+      if(serviceInputDirs == null) {
+        // The service input dirs have not been configured yet, create a list to save all
+        // directories which should be probed for services in
+        serviceInputDirs = new ArrayList<>();
+        mainJarTaskProperties.set("serviceInputDirs", serviceInputDirs);
 
-      mainJarTask.doFirst((self) -> {
-        if(finalServiceMergeDir.exists()) {
-          // Nuke the merge directory if it exists already
-          project.delete(finalServiceMergeDir);
-        }
+        // Lambda workaround to make variables final
+        File finalServiceMergeDir = serviceMergeDir;
+        List<File> finalServiceInputDirs = serviceInputDirs;
 
-        // Define the full output directory to write service files to and create it
-        File serviceOutputDir = new File(finalServiceMergeDir, "META-INF/services");
-        if(!serviceOutputDir.mkdirs()) {
-          throw new GradleException("Failed to create service merge output directory");
-        }
+        mainJarTask.doFirst((self) -> {
+          if(finalServiceMergeDir.exists()) {
+            // Nuke the merge directory if it exists already
+            project.delete(finalServiceMergeDir);
+          }
 
-        // Iterate over all possible input dirs to probe for service files
-        for(File root : finalServiceInputDirs) {
-          File rootServiceDir = new File(root, "META-INF/services");
-          if(rootServiceDir.exists()) {
-            // Found a directory which potentially contains service files
-            File[] descriptorFiles = rootServiceDir.listFiles();
-            if(descriptorFiles == null) {
-              // Unable to list files in directory, this doesn't have to mean
-              // that something went wrong, rather that the operating system
-              // did not report any file container to be present in the directory
-              continue;
-            }
+          // Define the full output directory to write service files to and create it
+          File serviceOutputDir = new File(finalServiceMergeDir, "META-INF/services");
+          if(!serviceOutputDir.mkdirs()) {
+            throw new GradleException("Failed to create service merge output directory");
+          }
 
-            // Iterate all found files, assume they are service files or directories
-            // (shame the developer if they are not)
-            for(File serviceDescriptor : descriptorFiles) {
-              if(!serviceDescriptor.isFile()) {
-                // Ignore things which are not service files, some frameworks
-                // use directories inside the service dir
+          // Iterate over all possible input dirs to probe for service files
+          for(File root : finalServiceInputDirs) {
+            File rootServiceDir = new File(root, "META-INF/services");
+            if(rootServiceDir.exists()) {
+              // Found a directory which potentially contains service files
+              File[] descriptorFiles = rootServiceDir.listFiles();
+              if(descriptorFiles == null) {
+                // Unable to list files in directory, this doesn't have to mean
+                // that something went wrong, rather that the operating system
+                // did not report any file container to be present in the directory
                 continue;
               }
 
-              try(
-                  // Open a write for appending to a service file in case it exists already
-                  FileWriter serviceDescriptorWriter =
-                      new FileWriter(new File(serviceOutputDir, serviceDescriptor.getName()), true);
-                  // Open a reader to copy from
-                  BufferedReader serviceDescriptorReader = new BufferedReader(new FileReader(serviceDescriptor))
-              ) {
-                String line;
-                while((line = serviceDescriptorReader.readLine()) != null) {
-                  // Copy every line over to the service file
-                  serviceDescriptorWriter.write(line + "\n");
+              // Iterate all found files, assume they are service files or directories
+              // (shame the developer if they are not)
+              for(File serviceDescriptor : descriptorFiles) {
+                if(!serviceDescriptor.isFile()) {
+                  // Ignore things which are not service files, some frameworks
+                  // use directories inside the service dir
+                  continue;
+                }
+
+                try(
+                    // Open a write for appending to a service file in case it exists already
+                    FileWriter serviceDescriptorWriter =
+                        new FileWriter(new File(serviceOutputDir, serviceDescriptor.getName()), true);
+                    // Open a reader to copy from
+                    BufferedReader serviceDescriptorReader = new BufferedReader(new FileReader(serviceDescriptor))
+                ) {
+                  String line;
+                  while((line = serviceDescriptorReader.readLine()) != null) {
+                    // Copy every line over to the service file
+                    serviceDescriptorWriter.write(line + "\n");
+                  }
+                } catch(IOException e) {
+                  throw new GradleException("Failed to merge service files", e);
                 }
-              } catch(IOException e) {
-                throw new GradleException("Failed to merge service files", e);
               }
             }
           }
-        }
-      });
-    }
+        });
+      }
 
-    // Add the current source outputs as a probe directory for service files
-    serviceInputDirs.addAll(sourceSet.getOutput().getFiles());
+      // Add the current source outputs as a probe directory for service files
+      serviceInputDirs.addAll(sourceSet.getOutput().getFiles());
 
-    // Add the source set output as an input to the main jar task
-    mainJarTask.from(sourceSet.getOutput());
+      // Add the source set output as an input to the main jar task
+      mainJarTask.from(sourceSet.getOutput());
 
-    // Configure exclusions so we can merge service files instead of having
-    // gradle overwrite them
-    mainJarTask.exclude((f) -> {
-      // We need the absolute path so we don't exclude wrong stuff
-      String path = f.getFile().getAbsolutePath();
+      // Configure exclusions so we can merge service files instead of having
+      // gradle overwrite them
+      mainJarTask.exclude((f) -> {
+        // We need the absolute path so we don't exclude wrong stuff
+        String path = f.getFile().getAbsolutePath();
 
-      for(File output : sourceSet.getOutput().getFiles()) {
-        // Probe if file lies within any source set and is very like a service file
-        if(path.startsWith(output.getAbsolutePath()) && path.replace('\\', '/').contains("META-INF/services")) {
-          // If so, exclude it
-          return true;
+        for(File output : sourceSet.getOutput().getFiles()) {
+          // Probe if file lies within any source set and is very like a service file
+          if(path.startsWith(output.getAbsolutePath()) && path.replace('\\', '/').contains("META-INF/services")) {
+            // If so, exclude it
+            return true;
+          }
         }
-      }
 
-      // Merging other stuff is managed by gradle
-      return false;
+        // Merging other stuff is managed by gradle
+        return false;
+      });
     });
 
     // Depend on the task, so the single jars are also created when the main jar task
@@ -235,73 +239,58 @@ public class JarTaskProvider {
       return;
     }
 
-    Jar mainJarTask = (Jar) project.getTasks().getByName("jar");
-    project.getTasks().create("bundledInstallerJar", Jar.class, (bundledInstallerJarTask) -> {
+    TaskProvider<Jar> mainJarTask = project.getTasks().named("jar", Jar.class);
+    TaskProvider<Jar> bundledInstallerJar = project.getTasks().register("bundledInstallerJar", Jar.class);
+    bundledInstallerJar.configure((bundledInstallerJarTask) -> {
       bundledInstallerJarTask.getArchiveClassifier().set("bundled-installer");
       bundledInstallerJarTask.setGroup("build");
       bundledInstallerJarTask.dependsOn(mainJarTask);
       bundledInstallerJarTask.setDuplicatesStrategy(DuplicatesStrategy.INCLUDE);
 
-      Map<String, String> bundle = new HashMap<>();
-
       Map<String, File> staticFiles = DevelopmentStaticFiles.getFor(project);
       if(staticFiles != null) {
         staticFiles.forEach((localPath, file) -> {
-          String inJarPath = "resources/" + localPath.substring(0, localPath.lastIndexOf('/'));
-
           // Package the file into the resources folder
-          bundledInstallerJarTask.from(file, (spec) -> spec.into(inJarPath));
-          bundle.put(localPath, inJarPath);
+          bundledInstallerJarTask.from(file, (spec) -> spec.into(getBundledStaticFilePath(localPath)));
         });
       }
 
       // Package the main jar
-      File mainJar = mainJarTask.getOutputs().getFiles().getSingleFile();
-      String inJarPath = "resources/" + mainJar.getName();
-      bundle.put(mainJar.getName(), inJarPath);
+      Provider<RegularFile> mainJar = mainJarTask.flatMap(Jar::getArchiveFile);
 
       // Include certain files from main jar
       bundledInstallerJarTask.from(project.zipTree(mainJar), (spec) -> spec.include("manifest.json"));
 
       bundledInstallerJarTask.from(mainJar, (spec) -> spec.into("resources"));
 
-      // Create the bundle.json file
+      // Include the bundle file, it describes the other inputs and is written right before the jar is created
       File bundleFile = new File(project.getBuildDir(), "tmp/bundledJar/bundle.json");
-      if(!bundleFile.getParentFile().isDirectory() && !bundleFile.getParentFile().mkdirs()) {
-        throw new FlintGradleException(
-            "Failed to create bundled jar dir " + bundleFile.getParentFile().getAbsolutePath());
-      }
-
-      try {
-        // Write the bundle file
-        JsonConverter.OBJECT_MAPPER.writeValue(bundleFile, new InstallBundle(bundle));
-      } catch(IOException e) {
-        throw new FlintGradleException("Failed to write bundle.json", e);
-      }
-
-      // Include the bundle file
       bundledInstallerJarTask.from(bundleFile);
-
-      // Create a detached configuration to resolve artifacts from
-      Configuration bundledInstallerConfiguration = project.getConfigurations().detachedConfiguration(
-          project.getDependencies().create(extension.getDependencyNotation())
-      );
-
-      Set<Object> inputs = new HashSet<>();
-
-      for(File file : bundledInstallerConfiguration) {
-        // Compute the inputs
-        if(file.isDirectory()) {
-          // Add directories directly
-          inputs.add(file);
-        } else {
-          // Add files as zip trees
-          inputs.add(project.zipTree(file));
+      bundledInstallerJarTask.doFirst((task) ->
+          writeBundleFile(bundleFile, staticFiles, mainJar.get().getAsFile().getName()));
+
+      // Include the installer artifacts in the jar, they are only resolved once the task inputs are resolved
+      bundledInstallerJarTask.from((Callable<Set<Object>>) () -> {
+        // Create a detached configuration to resolve artifacts from
+        Configuration bundledInstallerConfiguration = project.getConfigurations().detachedConfiguration(
+            project.getDependencies().create(extension.getDependencyNotation())
+        );
+
+        Set<Object> inputs = new HashSet<>();
+
+        for(File file : bundledInstallerConfiguration) {
+          // Compute the inputs
+          if(file.isDirectory()) {
+            // Add directories directly
+            inputs.add(file);
+          } else {
+            // Add files as zip trees
+            inputs.add(project.zipTree(file));
+          }
         }
-      }
 
-      // Include the configuration in the jar
-      bundledInstallerJarTask.from(inputs);
+        return inputs;
+      });
 
       // Configure main class
       bundledInstallerJarTask.manifest((manifest) -> {
@@ -310,10 +299,51 @@ public class JarTaskProvider {
 
         manifest.attributes(attributes);
       });
-
-      // Make "build" depend on the bundled installer
-      project.getTasks().getByName("build").dependsOn(bundledInstallerJarTask);
     });
+
+    // Make "build" depend on the bundled installer
+    project.getTasks().named("build").configure((task) -> task.dependsOn(bundledInstallerJar));
+  }
+
+  /**
+   * Computes the path a static file is packaged at within the bundled installer jar.
+   *
+   * @param localPath The path of the static file relative to the minecraft directory
+   * @return The directory within the jar the static file is packaged in
+   */
+  private String getBundledStaticFilePath(String localPath) {
+    return "resources/" + localPath.substring(0, localPath.lastIndexOf('/'));
+  }
+
+  /**
+   * Writes the bundle.json describing the contents of the bundled installer jar.
+   *
+   * @param bundleFile   The file to write the bundle to
+   * @param staticFiles  The static files packaged into the jar, may be {@code null}
+   * @param mainJarName  The name of the main jar packaged into the jar
+   * @throws FlintGradleException If the bundle file can't be written
+   */
+  private void writeBundleFile(File bundleFile, Map<String, File> staticFiles, String mainJarName) {
+    Map<String, String> bundle = new HashMap<>();
+
+    if(staticFiles != null) {
+      staticFiles.keySet().forEach((localPath) -> bundle.put(localPath, getBundledStaticFilePath(localPath)));
+    }
+
+    bundle.put(mainJarName, "resources/" + mainJarName);
+
+    // Create the bundle.json file
+    if(!bundleFile.getParentFile().isDirectory() && !bundleFile.getParentFile().mkdirs()) {
+      throw new FlintGradleException(
+          "Failed to create bundled jar dir " + bundleFile.getParentFile().getAbsolutePath());
+    }
+
+    try {
+      // Write the bundle file
+      JsonConverter.OBJECT_MAPPER.writeValue(bundleFile, new InstallBundle(bundle));
+    } catch(IOException e) {
+      throw new FlintGradleException("Failed to write bundle.json", e);
+    }
   }
 
   /**
@@ -323,7 +353,7 @@ public class JarTaskProvider {
    * @param project   The project to install task on
    */
   public void installCompileTask(SourceSet sourceSet, Project project) {
-    project.getTasks().getByName("compileJava").finalizedBy(sourceSet.getCompileJavaTaskName());
+    project.getTasks().named("compileJava").configure((task) -> task.finalizedBy(sourceSet.getCompileJavaTaskName()));
   }
 
 }
@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 import net.flintmc.gradle.FlintGradleException;
@@ -51,6 +52,7 @@ import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
 
 /**
  * Utility class for adding run configurations to the root project.
@@ -63,7 +65,7 @@ public class RunConfigurationProvider {
   private final YggdrasilAuthenticator authenticator;
   private final OkHttpClient httpClient;
 
-  private final Map<String, Pair<MinecraftRunTask, InstallStaticFilesTask>> tasks;
+  private final Map<String, Pair<PotentialMinecraftClasspath, TaskProvider<InstallStaticFilesTask>>> tasks;
   private final Map<String, PotentialMinecraftClasspath> configurationClasspaths;
 
   /**
@@ -183,178 +185,221 @@ public class RunConfigurationProvider {
     // Generate a task name
     String runTaskName = "runClient" + version + getConfigurationName(configuration);
     if (!tasks.containsKey(runTaskName)) {
-      // The task does not yet exist, create it
-      MinecraftRunTask runTask = createRunTask(runTaskName, version);
-      runTask.setConfigurationName(configuration);
+      // The task does not yet exist, register it
+      TaskProvider<MinecraftRunTask> runTask = registerRunTask(runTaskName, version);
 
       // Retrieve the runs extension of the root project
       FlintRunsExtension extension =
           project.getExtensions().getByType(FlintGradleExtension.class).getRuns();
-      Map<String, String> overrides = extension.getMainClassOverrides();
 
-      // Retrieve a matching override or null
-      String mainClassOverride =
-          overrides.containsKey(configuration)
-              ? overrides.get(configuration)
-              : extension.getGeneralMainClassOverride();
-
-      if (mainClassOverride != null) {
-        // Override has been set, pass it to the task
-        runTask.setMain(mainClassOverride);
-      }
-
-      // Set up the authenticator
-      runTask.setAuthenticator(authenticator);
-
-      if (!extension.getArguments().isEmpty()) {
-
-        extension.getArguments().forEach(
-            argument -> runTask.args(argument.getFirst(), argument.getSecond()));
-      }
-
-      if (!extension.getJvmArguments().isEmpty()) {
-        extension.getJvmArguments().forEach(
-            jvmArgument -> runTask.jvmArgs(jvmArgument.getFirst() + "=" + jvmArgument.getSecond()));
-      }
-
-      // Set the potential classpath and index the task
-      runTask.setPotentialClasspath(potentialClasspath);
-
-      // Create the static files task
-      InstallStaticFilesTask installStaticFiles =
+      // Register the static files task, the task dependencies are only collected when the task
+      // graph is built, so source sets added later on are respected as well
+      TaskProvider<InstallStaticFilesTask> installStaticFiles =
           project
               .getTasks()
-              .create(
+              .register(
                   "installStaticFilesFor" + version + getConfigurationName(configuration),
                   InstallStaticFilesTask.class,
                   new MaybeNull<>(httpClient),
                   potentialClasspath,
                   version,
-                  runTask.getWorkingDir());
+                  project.file("run/" + version));
+      installStaticFiles.configure(
+          task ->
+              task.dependsOn(
+                  (Callable<Set<TaskProvider<Task>>>)
+                      () -> potentialClasspath.getTaskDependencies(version)));
+
+      runTask.configure(
+          task -> {
+            task.setConfigurationName(configuration);
+
+            Map<String, String> overrides = extension.getMainClassOverrides();
+
+            // Retrieve a matching override or null
+            String mainClassOverride =
+                overrides.containsKey(configuration)
+                    ? overrides.get(configuration)
+                    : extension.getGeneralMainClassOverride();
+
+            if (mainClassOverride != null) {
+              // Override has been set, pass it to the task
+              task.setMain(mainClassOverride);
+            }
 
-      // Set up the dependencies of the tasks
-      Set<Task> taskDependencies = potentialClasspath.getTaskDependencies(version);
-      installStaticFiles.dependsOn(taskDependencies);
+            // Set up the authenticator
+            task.setAuthenticator(authenticator);
 
-      runTask.dependsOn(installStaticFiles);
+            if (!extension.getArguments().isEmpty()) {
+              extension.getArguments().forEach(
+                  argument -> task.args(argument.getFirst(), argument.getSecond()));
+            }
 
-      tasks.put(runTaskName, new Pair<>(runTask, installStaticFiles));
-    } else {
-      // The task exists already
-      Pair<MinecraftRunTask, InstallStaticFilesTask> tasks = this.tasks.get(runTaskName);
-      tasks.getSecond().dependsOn(potentialClasspath.getTaskDependencies(version));
-
-      if (tasks.getFirst().getPotentialClasspath() != potentialClasspath) {
-        // This means something tried to replace the set of source sets afterwards, this would break
-        // the discovery mechanism
-        throw new IllegalArgumentException(
-            "Can't redefine the potential classpath of a minecraft run task");
-      }
+            if (!extension.getJvmArguments().isEmpty()) {
+              extension.getJvmArguments().forEach(
+                  jvmArgument ->
+                      task.jvmArgs(jvmArgument.getFirst() + "=" + jvmArgument.getSecond()));
+            }
+
+            // Set the potential classpath and the dependencies
+            task.setPotentialClasspath(potentialClasspath);
+            task.dependsOn(installStaticFiles);
+          });
+
+      tasks.put(runTaskName, new Pair<>(potentialClasspath, installStaticFiles));
+    } else if (tasks.get(runTaskName).getFirst() != potentialClasspath) {
+      // This means something tried to replace the set of source sets afterwards, this would break
+      // the discovery mechanism
+      throw new IllegalArgumentException(
+          "Can't redefine the potential classpath of a minecraft run task");
     }
   }
 
   /**
-   * Creates the minecraft run task with the given name for the given version.
+   * Registers the minecraft run task with the given name for the given version. The version
+   * manifest is only read once the task is realized, and the run and natives directories are
+   * only created when the task executes.
    *
    * @param name    The name of the task
-   * @param version The minecraft version to create the task for
-   * @return The created task
+   * @param version The minecraft version to register the task for
+   * @return The registered task
    */
-  private MinecraftRunTask createRunTask(String name, String version) {
-    // Create the task itself
-    MinecraftRunTask task = project.getTasks().create(name, MinecraftRunTask.class);
-
-    // Build a path for the run directory
-    Path runDir = project.file("run/" + version).toPath();
-    if (!Files.isDirectory(runDir)) {
-      // The run directory does not exist, try to create it
-      try {
-        Files.createDirectories(runDir);
-      } catch (IOException e) {
-        throw new FlintGradleException("Failed to create run directory for version " + version, e);
-      }
+  private TaskProvider<MinecraftRunTask> registerRunTask(String name, String version) {
+    // Register the assets task, versions sharing an asset index share the task. Only the asset index id is read
+    // here, the full manifest is read once the task is realized.
+    Path assetsPath = runCacheDir.resolve("assets-store");
+    String assetTaskName = "download" + readAssetIndexId(version) + "Assets";
+    TaskProvider<MinecraftAssetsTask> assetsTask;
+    if (project.getTasks().getNames().contains(assetTaskName)) {
+      assetsTask = project.getTasks().named(assetTaskName, MinecraftAssetsTask.class);
+    } else {
+      assetsTask = project.getTasks().register(assetTaskName, MinecraftAssetsTask.class);
+      assetsTask.configure(
+          task -> {
+            task.setVersionManifest(readVersionManifest(version));
+            task.setOutputDirectory(assetsPath);
+          });
     }
 
-    // Acquire the version manifest for the given version
-    VersionManifest manifest;
+    TaskProvider<MinecraftRunTask> taskProvider =
+        project.getTasks().register(name, MinecraftRunTask.class);
+    taskProvider.configure(
+        task -> {
+          // Acquire the version manifest for the given version
+          VersionManifest manifest = readVersionManifest(version);
+
+          // Build a path for the run directory and get a natives directory for the run task
+          Path runDir = project.file("run/" + version).toPath();
+          Path nativesDir = runCacheDir.resolve("natives").resolve(manifest.getId());
+
+          // Set up the task with the required arguments
+          task.setVersion(version);
+          task.setVersionType(manifest.getType().name().toLowerCase());
+
+          // Set arguments
+          VersionedArguments versionedArguments = new VersionedArguments();
+
+          // Ugly hack for legacy versions...
+          if (manifest.getMinecraftArguments() != null) {
+            String minecraftArguments = manifest.getMinecraftArguments();
+
+            // Arguments take the form of --key ${value} in the manifest
+            String[] split = minecraftArguments.split(" ");
+            List<ArgumentString> list = new ArrayList<>();
+
+            for (int i = 0; i < split.length; i += 2) {
+              // Convert them to the new format, this currently assumes that the value is indeed a
+              // variable
+              list.add(new ArgumentString(null, split[i], null));
+              list.add(
+                  new ArgumentString(split[i + 1].replace("${", "").replace("}", ""), "", null));
+            }
+
+            versionedArguments.setGame(list);
+            versionedArguments.setJvm(
+                Collections.singletonList(
+                    new ArgumentString(
+                        "natives_directory", "-Djava.library.path=", Collections.emptyList())));
+
+            task.setVersionedArguments(versionedArguments);
+          } else {
+            task.setVersionedArguments(manifest.getArguments());
+          }
+          // Asset store options
+          task.setAssetIndex(manifest.getAssetIndex().getId());
+          task.setAssetsPath(assetsPath);
+
+          // Make sure to provide the directory to store natives
+          task.setNativesDirectory(nativesDir);
+
+          // Set up java options
+          task.setWorkingDir(runDir);
+          task.setMain(manifest.getMainClass());
+
+          // Give context to gradle
+          task.setGroup(FlintGradlePlugin.MINECRAFT_TASK_GROUP);
+          task.setDescription("Runs the minecraft version " + version);
+
+          // Make sure the run task depends on the corresponding assets download task
+          task.dependsOn(assetsTask);
+
+          // The directories are only required when actually running
+          task.doFirst(
+              "createRunDirectories",
+              ignored -> {
+                createDirectory(runDir, "run directory for version " + version);
+                createDirectory(nativesDir, "natives dir for " + manifest.getId());
+              });
+        });
+
+    return taskProvider;
+  }
+
+  /**
+   * Reads the version manifest of the given minecraft version.
+   *
+   * @param version The minecraft version to read the manifest of
+   * @return The read manifest
+   * @throws FlintGradleException If an I/O error occurs while reading the manifest
+   */
+  private VersionManifest readVersionManifest(String version) {
     try {
-      manifest = minecraftRepository.getVersionManifest(version);
+      return minecraftRepository.getVersionManifest(version);
     } catch (IOException e) {
       throw new FlintGradleException("IO error while reading version manifest", e);
     }
+  }
 
-    // Retrieve the assets store path
-    Path assetsPath = runCacheDir.resolve("assets-store");
-    String assetTaskName = "download" + manifest.getAssetIndex().getId() + "Assets";
-    MinecraftAssetsTask assetsTask =
-        (MinecraftAssetsTask) project.getTasks().findByName(assetTaskName);
-    if (assetsTask == null) {
-      assetsTask = project.getTasks().create(assetTaskName, MinecraftAssetsTask.class);
-      assetsTask.setVersionManifest(manifest);
-      assetsTask.setOutputDirectory(assetsPath);
+  /**
+   * Reads the id of the asset index used by the given minecraft version.
+   *
+   * @param version The version to read the asset index id of
+   * @return The id of the asset index
+   * @throws FlintGradleException If an I/O error occurs while reading the version file
+   */
+  private String readAssetIndexId(String version) {
+    try {
+      return minecraftRepository.getAssetIndexId(version);
+    } catch (IOException e) {
+      throw new FlintGradleException("IO error while reading asset index of version " + version, e);
     }
+  }
 
-    // Get a natives directory for the run task
-    Path nativesDir = runCacheDir.resolve("natives").resolve(manifest.getId());
-    if (!Files.isDirectory(nativesDir)) {
-      // Try to create the natives directory if it does not exist
+  /**
+   * Creates the given directory if it does not exist yet.
+   *
+   * @param directory   The directory to create
+   * @param description The description of the directory used in error messages
+   * @throws FlintGradleException If the directory can't be created
+   */
+  private void createDirectory(Path directory, String description) {
+    if (!Files.isDirectory(directory)) {
       try {
-        Files.createDirectories(nativesDir);
+        Files.createDirectories(directory);
       } catch (IOException e) {
-        throw new FlintGradleException("Failed to create natives dir for " + manifest.getId(), e);
+        throw new FlintGradleException("Failed to create " + description, e);
       }
     }
-
-    // Set up the task with the required arguments
-    task.setVersion(version);
-    task.setVersionType(manifest.getType().name().toLowerCase());
-
-    // Set arguments
-    VersionedArguments versionedArguments = new VersionedArguments();
-
-    // Ugly hack for legacy versions...
-    if (manifest.getMinecraftArguments() != null) {
-      String minecraftArguments = manifest.getMinecraftArguments();
-
-      // Arguments take the form of --key ${value} in the manifest
-      String[] split = minecraftArguments.split(" ");
-      List<ArgumentString> list = new ArrayList<>();
-
-      for (int i = 0; i < split.length; i += 2) {
-        // Convert them to the new format, this currently assumes that the value is indeed a variable
-        list.add(new ArgumentString(null, split[i], null));
-        list.add(new ArgumentString(split[i + 1].replace("${", "").replace("}", ""), "", null));
-      }
-
-      versionedArguments.setGame(list);
-      versionedArguments.setJvm(
-          Collections.singletonList(
-              new ArgumentString(
-                  "natives_directory", "-Djava.library.path=", Collections.emptyList())));
-
-      task.setVersionedArguments(versionedArguments);
-    } else {
-      task.setVersionedArguments(manifest.getArguments());
-    }
-    // Asset store options
-    task.setAssetIndex(manifest.getAssetIndex().getId());
-    task.setAssetsPath(assetsPath);
-
-    // Make sure to provide the directory to store natives
-    task.setNativesDirectory(nativesDir);
-
-    // Set up java options
-    task.setWorkingDir(runDir);
-    task.setMain(manifest.getMainClass());
-
-    // Give context to gradle
-    task.setGroup(FlintGradlePlugin.MINECRAFT_TASK_GROUP);
-    task.setDescription("Runs the minecraft version " + version);
-
-    // Make sure the run task depends on the corresponding assets download task
-    task.dependsOn(assetsTask);
-
-    return task;
   }
 
   /**
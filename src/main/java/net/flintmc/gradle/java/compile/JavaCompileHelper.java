@@ -19,161 +19,700 @@
 
 package net.flintmc.gradle.java.compile;
 
+import net.flintmc.gradle.io.HashAlgorithm;
+import net.flintmc.gradle.io.HashingService;
 import net.flintmc.gradle.java.exec.JavaExecutionResult;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
 import net.flintmc.gradle.util.Util;
-import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
 
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
-import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Utility class for compiling Java source code using the Gradle configured compiler.
  */
 public class JavaCompileHelper {
-  private final Project project;
+  private static final Logger LOGGER = Logging.getLogger(JavaCompileHelper.class);
 
   /**
-   * Creates a new Java compile helper using the given project as a base for accessing
-   * the gradle configured compiler.
+   * Compiles the given source jar with the given classpath writing into the given jar. The sources are read directly
+   * from the jar and the compiled classes are written directly into the output jar, nothing is extracted to disk.
+   * All non Java files of the source jar are copied over to the output jar.
    *
-   * @param project The project to use for accessing the compile
+   * @param sourceJar The jar containing the sources to compile
+   * @param classpath The classpath to pass to the compiler
+   * @param outputJar The jar to write to
+   * @return The result of the compilation and packaging
+   * @throws IOException If an I/O error occurs while compiling or packaging
    */
-  public JavaCompileHelper(Project project) {
-    this.project = project;
+  public JavaExecutionResult compile(Path sourceJar, List<Path> classpath, Path outputJar) throws IOException {
+    return compile(sourceJar, Collections.emptySet(), classpath, null, outputJar);
   }
 
   /**
-   * Compiles the given source directory with the given classpath writing into the given jar.
+   * Compiles the given source jar like {@link #compile(Path, List, Path)}, but reuses the classes of a previous
+   * compilation for all compilation units which are identical to the ones the previous compilation has been run on,
+   * and whose dependencies are reused as well. Only the remaining compilation units are passed to the compiler, with
+   * the reused classes on the classpath. If the recompiled units changed a compile time constant, which might have
+   * been inlined into reused classes, everything is compiled again.
    *
-   * @param source    The source to directory to compile
-   * @param classpath The classpath to pass to the compiler
-   * @param outputJar The jar to write to
+   * @param sourceJar     The jar containing the sources to compile
+   * @param baseSourceJar The jar containing the sources of the previous compilation
+   * @param baseOutputJar The jar the previous compilation has been written to
+   * @param classpath     The classpath to pass to the compiler
+   * @param outputJar     The jar to write to
    * @return The result of the compilation and packaging
    * @throws IOException If an I/O error occurs while compiling or packaging
    */
-  public JavaExecutionResult compile(Path source, List<Path> classpath, Path outputJar) throws IOException {
-    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-    if (compiler == null) {
-      throw new IOException("A JDK is required in order to use the compiler");
+  public JavaExecutionResult compileDerived(
+      Path sourceJar, Path baseSourceJar, Path baseOutputJar, List<Path> classpath, Path outputJar)
+      throws IOException {
+    Map<String, String> baseUnits = hashCompilationUnits(baseSourceJar);
+    Map<String, String> units = hashCompilationUnits(sourceJar);
+    CompiledUnits baseClasses = CompiledUnits.read(baseOutputJar, null);
+
+    Set<String> reusedUnits = findReusableUnits(baseUnits, units, baseClasses);
+
+    LOGGER.info("Reusing {} of {} compilation units from {}", reusedUnits.size(), units.size(), baseOutputJar);
+
+    if (!Files.isDirectory(outputJar.getParent())) {
+      Files.createDirectories(outputJar.getParent());
     }
 
-    // Get a place to put the output
-    Path compileOutputDir = Util.temporaryDir();
+    // The reused classes need to be on the classpath of the remaining units, so they are collected in a jar first
+    Path reusedJar = outputJar.resolveSibling(outputJar.getFileName() + "." + UUID.randomUUID() + ".reused.tmp");
 
     try {
-      // Save the result of the compiler execution
-      JavaExecutionResult compilerResult;
-
       try (
-          ByteArrayOutputStream compileOutputStream = new ByteArrayOutputStream();
-          ByteArrayOutputStream compileErrorStream = new ByteArrayOutputStream()
+          ZipFile baseZip = new ZipFile(baseOutputJar.toFile());
+          JarOutputStream reusedStream = new JarOutputStream(Files.newOutputStream(reusedJar))
       ) {
-        // Set up javac arguments
-        List<String> arguments = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = baseZip.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+            continue;
+          }
+
+          byte[] data;
+          try (InputStream inputStream = baseZip.getInputStream(entry)) {
+            data = Util.readAllAsBytes(inputStream);
+          }
+
+          if (reusedUnits.contains(baseClasses.classUnits.get(entry.getName()))) {
+            reusedStream.putNextEntry(new JarEntry(entry.getName()));
+            reusedStream.write(data);
+            reusedStream.closeEntry();
+          }
+        }
+      }
+
+      List<Path> derivedClasspath = new ArrayList<>(classpath);
+      derivedClasspath.add(reusedJar);
 
-        // Set the classpath
-        arguments.add("-classpath");
-        arguments.add(project.files(classpath).getAsPath());
+      JavaExecutionResult result = compile(sourceJar, reusedUnits, derivedClasspath, reusedJar, outputJar);
+      if (result.getExitCode() != 0 || reusedUnits.isEmpty()) {
+        return result;
+      }
 
-        // Make sure to read the input files as UTF-8 to prevent weird encoding issues
-        arguments.add("-encoding");
-        arguments.add("utf8");
+      // Constants are inlined by javac without leaving a reference behind, so the reused classes are only valid if
+      // the recompiled units kept all constants of the base
+      Set<String> recompiledUnits = new HashSet<>(baseUnits.keySet());
+      recompiledUnits.removeAll(reusedUnits);
 
-        // Set the output directory
-        arguments.add("-d");
-        arguments.add(compileOutputDir.toString());
+      CompiledUnits recompiledClasses = CompiledUnits.read(outputJar, recompiledUnits);
+      if (recompiledClasses.constants(recompiledUnits).equals(baseClasses.constants(recompiledUnits))) {
+        return result;
+      }
 
-        // Add all source files to the end of the commandline
-        for (File file : project.fileTree(source).filter(file -> file.getName().endsWith(".java"))) {
-          arguments.add(file.getAbsolutePath());
+      LOGGER.info("Recompiled units changed compile time constants, compiling {} without reusing classes", sourceJar);
+    } finally {
+      Files.deleteIfExists(reusedJar);
+    }
+
+    return compile(sourceJar, classpath, outputJar);
+  }
+
+  /**
+   * Determines the compilation units whose classes can be reused from a previous compilation. A unit can be reused
+   * if its source is identical, no unit has been added to or removed from its package, which could change how names
+   * are resolved, and all units it depends on can be reused as well.
+   *
+   * @param baseUnits   The hashes of the compilation units of the previous compilation
+   * @param units       The hashes of the compilation units to compile
+   * @param baseClasses The classes of the previous compilation
+   * @return The names of the compilation units which can be reused
+   */
+  private static Set<String> findReusableUnits(
+      Map<String, String> baseUnits, Map<String, String> units, CompiledUnits baseClasses) {
+    Set<String> changedPackages = new HashSet<>();
+    for (String unit : units.keySet()) {
+      if (!baseUnits.containsKey(unit)) {
+        changedPackages.add(getPackage(unit));
+      }
+    }
+
+    for (String unit : baseUnits.keySet()) {
+      if (!units.containsKey(unit)) {
+        changedPackages.add(getPackage(unit));
+      }
+    }
+
+    Set<String> reusableUnits = new HashSet<>();
+    for (Map.Entry<String, String> unit : units.entrySet()) {
+      boolean identical = unit.getValue().equals(baseUnits.get(unit.getKey()));
+      if (identical && !changedPackages.contains(getPackage(unit.getKey()))) {
+        reusableUnits.add(unit.getKey());
+      }
+    }
+
+    // Everything depending on a unit which is not reused, directly or indirectly, has to be compiled again
+    Map<String, Set<String>> dependents = baseClasses.dependents();
+
+    Deque<String> invalidated = new ArrayDeque<>();
+    for (String unit : baseUnits.keySet()) {
+      if (!reusableUnits.contains(unit)) {
+        invalidated.add(unit);
+      }
+    }
+
+    while (!invalidated.isEmpty()) {
+      for (String dependent : dependents.getOrDefault(invalidated.poll(), Collections.emptySet())) {
+        if (reusableUnits.remove(dependent)) {
+          invalidated.add(dependent);
         }
+      }
+    }
 
-        int exitCode =
-            compiler.run(null, compileOutputStream, compileErrorStream, arguments.toArray(new String[0]));
+    return reusableUnits;
+  }
 
-        // Save the summary
-        compilerResult = new JavaExecutionResult(
-            exitCode,
-            compileOutputStream.toString("UTF-8"),
-            compileErrorStream.toString("UTF-8")
-        );
+  /**
+   * Retrieves the package directory of the given compilation unit.
+   *
+   * @param unit The entry name of the compilation unit
+   * @return The directory of the unit within the jar, or an empty string, if it is in the default package
+   */
+  private static String getPackage(String unit) {
+    int packageEnd = unit.lastIndexOf('/');
+    return packageEnd == -1 ? "" : unit.substring(0, packageEnd);
+  }
 
-        if (exitCode != 0) {
-          // Don't attempt to package the jar if the compiler failed
-          return compilerResult;
+  /**
+   * Compiles the given source jar with the given classpath writing into the given jar.
+   *
+   * @param sourceJar    The jar containing the sources to compile
+   * @param skippedUnits The names of the compilation units which should not be compiled
+   * @param classpath    The classpath to pass to the compiler
+   * @param prebuiltJar  The jar containing already compiled classes to add to the output, or {@code null}, if none
+   * @param outputJar    The jar to write to
+   * @return The result of the compilation and packaging
+   * @throws IOException If an I/O error occurs while compiling or packaging
+   */
+  private JavaExecutionResult compile(
+      Path sourceJar, Set<String> skippedUnits, List<Path> classpath, Path prebuiltJar, Path outputJar)
+      throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IOException("A JDK is required in order to use the compiler");
+    }
+
+    // Make sure to create the parent directories
+    if (!Files.isDirectory(outputJar.getParent())) {
+      Files.createDirectories(outputJar.getParent());
+    }
+
+    // Write into a unique temporary jar first, so a failed compilation does not leave a broken jar behind and
+    // concurrent compilations of the same jar don't write into each other's files
+    Path temporaryJar = outputJar.resolveSibling(outputJar.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    boolean packaged = false;
+
+    try (
+        TelemetrySpan span = Telemetry.span("compile", "javac").attribute("jar", sourceJar.getFileName());
+        ZipFile sourceZip = new ZipFile(sourceJar.toFile());
+        JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(temporaryJar));
+        StandardJavaFileManager standardFileManager =
+            compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)
+    ) {
+      // Collect all compilation units
+      List<ZipSourceFileObject> compilationUnits = new ArrayList<>();
+      Enumeration<? extends ZipEntry> entries = sourceZip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory() && entry.getName().endsWith(".java") && !skippedUnits.contains(entry.getName())) {
+          compilationUnits.add(new ZipSourceFileObject(sourceZip, entry));
         }
       }
 
-      // Make sure to create the parent directories
-      if (!Files.isDirectory(outputJar.getParent())) {
-        Files.createDirectories(outputJar.getParent());
+      // Set the classpath
+      Set<File> classpathFiles = new LinkedHashSet<>();
+      for (Path entry : classpath) {
+        classpathFiles.add(entry.toFile());
       }
+      standardFileManager.setLocation(StandardLocation.CLASS_PATH, classpathFiles);
 
-      // Collect all files to package into the jar
-      Map<String, Path> jarContent = new HashMap<>();
-      jarContent.putAll(relativeChildren(source));
-      jarContent.putAll(relativeChildren(compileOutputDir));
+      Set<String> writtenEntries = new HashSet<>();
+      if (prebuiltJar != null) {
+        // Add the already compiled classes first
+        copyEntries(prebuiltJar, outputStream, writtenEntries);
+      }
 
-      try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(outputJar))) {
-        // Iterate all files that should be put into the jar
-        for (Map.Entry<String, Path> entry : jarContent.entrySet()) {
-          // Extract the values from the map
-          String relativePath = entry.getKey().replace('\\', '/');
-          Path absolutePath = entry.getValue();
+      JarOutputFileManager fileManager = new JarOutputFileManager(standardFileManager, outputStream, writtenEntries);
 
-          // Write the entry
-          JarEntry jarEntry = new JarEntry(relativePath);
-          outputStream.putNextEntry(jarEntry);
+      // Capture the compiler output
+      StringWriter compileOutput = new StringWriter();
+      StringWriter compileError = new StringWriter();
+      DiagnosticListener<JavaFileObject> diagnosticListener = (diagnostic) -> {
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+          compileError.append(diagnostic.toString()).append(System.lineSeparator());
+        } else {
+          compileOutput.append(diagnostic.toString()).append(System.lineSeparator());
+        }
+      };
 
-          try (InputStream inputStream = Files.newInputStream(absolutePath)) {
-            // Copy the entire entry
-            Util.copyStream(inputStream, outputStream);
-          }
+      // Annotation processors would need to write resources, none of them are required for minecraft
+      List<String> arguments = Collections.singletonList("-proc:none");
+
+      boolean success = compilationUnits.isEmpty() || compiler.getTask(
+          compileOutput, fileManager, diagnosticListener, arguments, null, compilationUnits).call();
+      span.attribute("units", compilationUnits.size());
+
+      // Save the summary
+      JavaExecutionResult compilerResult = new JavaExecutionResult(
+          success ? 0 : 1,
+          compileOutput.toString(),
+          compileError.toString()
+      );
+
+      if (!success) {
+        // Don't attempt to package the jar if the compiler failed
+        return compilerResult;
+      }
+
+      // Copy over everything which is not a java source, compiled classes take precedence
+      entries = sourceZip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        String name = entry.getName();
+
+        if (entry.isDirectory() || name.endsWith(".java") || !writtenEntries.add(name)) {
+          continue;
+        }
+
+        outputStream.putNextEntry(new JarEntry(name));
 
-          // Make sure to close the entry
-          outputStream.closeEntry();
+        try (InputStream inputStream = sourceZip.getInputStream(entry)) {
+          // Copy the entire entry
+          Util.copyStream(inputStream, outputStream);
         }
+
+        // Make sure to close the entry
+        outputStream.closeEntry();
       }
 
+      packaged = true;
       return compilerResult;
     } finally {
-      // Clean up the compiler output, it is not required anymore
-      Util.nukeDirectory(compileOutputDir, true);
+      // The resources have been closed at this point
+      try {
+        if (packaged) {
+          try {
+            Files.move(
+                temporaryJar, outputJar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryJar, outputJar, StandardCopyOption.REPLACE_EXISTING);
+          }
+        }
+      } finally {
+        Files.deleteIfExists(temporaryJar);
+      }
     }
   }
 
   /**
-   * Recursively collects all files of the given root and maps them
-   * to a pair of absolute and relative paths. This function excludes all java source files.
+   * Copies all entries of the given jar into the given output.
    *
-   * @param root The root path to search for files
-   * @return A map of all files in the root recursively mapped to their absolute and relative paths
-   * @throws IOException If an I/O error occurs while walking the file tree
+   * @param jar            The jar to copy the entries of
+   * @param outputStream   The jar to copy the entries into
+   * @param writtenEntries The set to record the names of the written entries in
+   * @throws IOException If an I/O error occurs while copying
    */
-  private Map<String, Path> relativeChildren(Path root) throws IOException {
-    Map<String, Path> output = new HashMap<>();
+  private static void copyEntries(Path jar, JarOutputStream outputStream, Set<String> writtenEntries)
+      throws IOException {
+    try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory() || !writtenEntries.add(entry.getName())) {
+          continue;
+        }
+
+        outputStream.putNextEntry(new JarEntry(entry.getName()));
 
-    try (Stream<Path> stream = Files.walk(root)) {
-      stream.filter(file -> !file.getFileName().toString().endsWith(".java"))
-          .filter(Files::isRegularFile)
-          // Use the path as the key and the path relative to the root as the value
-          .forEach((path) -> output.put(root.relativize(path).toString(), path));
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+          Util.copyStream(inputStream, outputStream);
+        }
+
+        outputStream.closeEntry();
+      }
     }
+  }
 
-    return output;
+  /**
+   * Hashes all compilation units of the given source jar.
+   *
+   * @param sourceJar The jar to hash the compilation units of
+   * @return A map of entry names to the hex encoded hashes of the compilation units
+   * @throws IOException If an I/O error occurs while reading the jar
+   */
+  private static Map<String, String> hashCompilationUnits(Path sourceJar) throws IOException {
+    Map<String, String> hashes = new HashMap<>();
+
+    try (ZipFile zipFile = new ZipFile(sourceJar.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory() || !entry.getName().endsWith(".java")) {
+          continue;
+        }
+
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+          hashes.put(entry.getName(), HashingService.digest(inputStream, HashAlgorithm.SHA1));
+        }
+      }
+    }
+
+    return hashes;
+  }
+
+  /**
+   * Determines the name of the compilation unit a class has been compiled from.
+   *
+   * @param className  The internal name of the class
+   * @param sourceFile The source file recorded in the class, or {@code null}, if it has been compiled without debug
+   *                   information
+   * @return The entry name of the compilation unit the class originates from
+   */
+  private static String getOriginUnit(String className, String sourceFile) {
+    int packageEnd = className.lastIndexOf('/');
+
+    if (sourceFile == null) {
+      // Compiled without debug information, assume the outermost class is named like its source file
+      int nestEnd = className.indexOf('$', packageEnd + 1);
+      return (nestEnd == -1 ? className : className.substring(0, nestEnd)) + ".java";
+    }
+
+    return className.substring(0, packageEnd + 1) + sourceFile;
+  }
+
+  /**
+   * The classes of a compiled jar grouped by the compilation units they originate from.
+   */
+  private static class CompiledUnits {
+    private final Map<String, String> classUnits = new HashMap<>();
+    private final Map<String, Set<String>> referencedClasses = new HashMap<>();
+    private final Map<String, Map<String, Object>> unitConstants = new HashMap<>();
+
+    /**
+     * Reads the classes of the given jar.
+     *
+     * @param jar   The jar to read the classes of
+     * @param units The compilation units to collect the references and constants of, or {@code null}, to collect them
+     *              for all units
+     * @return The read classes
+     * @throws IOException If an I/O error occurs while reading the jar
+     */
+    private static CompiledUnits read(Path jar, Set<String> units) throws IOException {
+      CompiledUnits compiledUnits = new CompiledUnits();
+
+      try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+            continue;
+          }
+
+          try (InputStream inputStream = zipFile.getInputStream(entry)) {
+            compiledUnits.add(entry.getName(), new ClassReader(Util.readAllAsBytes(inputStream)), units);
+          }
+        }
+      }
+
+      return compiledUnits;
+    }
+
+    /**
+     * Adds a class to the compiled units.
+     *
+     * @param entryName The name of the entry the class has been read from
+     * @param reader    The reader of the class
+     * @param units     The compilation units to collect the references and constants of, or {@code null}, to collect
+     *                  them for all units
+     */
+    private void add(String entryName, ClassReader reader, Set<String> units) {
+      String className = reader.getClassName();
+      Set<String> references = new HashSet<>();
+      Map<String, Object> constants = new HashMap<>();
+      String[] sourceFile = new String[1];
+
+      ClassVisitor visitor = new ClassVisitor(Opcodes.ASM9) {
+        @Override
+        public void visitSource(String source, String debug) {
+          sourceFile[0] = source;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+          if (value != null) {
+            constants.put(className + "." + name + ":" + descriptor, value);
+          }
+
+          return null;
+        }
+      };
+
+      // Collect every type the class mentions, in signatures as well as in code
+      Remapper referenceCollector = new Remapper() {
+        @Override
+        public String map(String internalName) {
+          references.add(internalName);
+          return internalName;
+        }
+      };
+
+      reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+      String unit = getOriginUnit(className, sourceFile[0]);
+      classUnits.put(entryName, unit);
+
+      if (units == null || units.contains(unit)) {
+        // The remapper only descends into members the delegate visits
+        reader.accept(new ClassRemapper(new ClassVisitor(Opcodes.ASM9) {
+          @Override
+          public FieldVisitor visitField(
+              int access, String name, String descriptor, String signature, Object value) {
+            return new FieldVisitor(Opcodes.ASM9) {
+            };
+          }
+
+          @Override
+          public MethodVisitor visitMethod(
+              int access, String name, String descriptor, String signature, String[] exceptions) {
+            return new MethodVisitor(Opcodes.ASM9) {
+            };
+          }
+        }, referenceCollector), ClassReader.SKIP_FRAMES);
+
+        referencedClasses.computeIfAbsent(unit, (k) -> new HashSet<>()).addAll(references);
+        unitConstants.computeIfAbsent(unit, (k) -> new HashMap<>()).putAll(constants);
+      }
+    }
+
+    /**
+     * Maps every compilation unit to the compilation units referencing one of its classes.
+     *
+     * @return The dependents of every compilation unit
+     */
+    private Map<String, Set<String>> dependents() {
+      Map<String, Set<String>> dependents = new HashMap<>();
+
+      for (Map.Entry<String, Set<String>> unit : referencedClasses.entrySet()) {
+        for (String reference : unit.getValue()) {
+          String dependency = classUnits.get(reference + ".class");
+          if (dependency != null && !dependency.equals(unit.getKey())) {
+            dependents.computeIfAbsent(dependency, (k) -> new HashSet<>()).add(unit.getKey());
+          }
+        }
+      }
+
+      return dependents;
+    }
+
+    /**
+     * Collects the compile time constants declared by the classes of the given compilation units.
+     *
+     * @param units The compilation units to collect the constants of
+     * @return The constants keyed by their owner, name and descriptor
+     */
+    private Map<String, Object> constants(Set<String> units) {
+      Map<String, Object> constants = new HashMap<>();
+      for (String unit : units) {
+        constants.putAll(unitConstants.getOrDefault(unit, Collections.emptyMap()));
+      }
+
+      return constants;
+    }
+  }
+
+  /**
+   * Compilation unit backed by an entry of a zip file.
+   */
+  private static class ZipSourceFileObject extends SimpleJavaFileObject {
+    private final ZipFile zipFile;
+    private final ZipEntry entry;
+
+    /**
+     * Constructs a new {@link ZipSourceFileObject} for the given entry.
+     *
+     * @param zipFile The zip file containing the entry
+     * @param entry   The entry containing the source
+     */
+    private ZipSourceFileObject(ZipFile zipFile, ZipEntry entry) {
+      super(toURI(entry.getName()), Kind.SOURCE);
+      this.zipFile = zipFile;
+      this.entry = entry;
+    }
+
+    @Override
+    public String getName() {
+      return zipFile.getName() + "!/" + entry.getName();
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+      try (InputStream inputStream = zipFile.getInputStream(entry)) {
+        return new String(Util.readAllAsBytes(inputStream), StandardCharsets.UTF_8);
+      }
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return zipFile.getInputStream(entry);
+    }
+  }
+
+  /**
+   * Class file which is written into a jar as soon as it has been written completely.
+   */
+  private static class JarClassFileObject extends SimpleJavaFileObject {
+    private final JarOutputStream jarOutputStream;
+    private final Set<String> writtenEntries;
+    private final String entryName;
+
+    /**
+     * Constructs a new {@link JarClassFileObject}.
+     *
+     * @param jarOutputStream The jar to write the class into
+     * @param writtenEntries  The set to record the name of the written entry in
+     * @param entryName       The name of the entry to write
+     */
+    private JarClassFileObject(JarOutputStream jarOutputStream, Set<String> writtenEntries, String entryName) {
+      super(toURI(entryName), Kind.CLASS);
+      this.jarOutputStream = jarOutputStream;
+      this.writtenEntries = writtenEntries;
+      this.entryName = entryName;
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+      return new ByteArrayOutputStream() {
+        @Override
+        public void close() throws IOException {
+          synchronized (jarOutputStream) {
+            if (!writtenEntries.add(entryName)) {
+              // Should not happen, javac only writes every class once
+              return;
+            }
+
+            jarOutputStream.putNextEntry(new JarEntry(entryName));
+            writeTo(jarOutputStream);
+            jarOutputStream.closeEntry();
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * File manager writing all class output into a jar.
+   */
+  private static class JarOutputFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final JarOutputStream jarOutputStream;
+    private final Set<String> writtenEntries;
+
+    /**
+     * Constructs a new {@link JarOutputFileManager}.
+     *
+     * @param fileManager     The file manager to delegate reading to
+     * @param jarOutputStream The jar to write the classes into
+     * @param writtenEntries  The set to record the names of written entries in
+     */
+    private JarOutputFileManager(
+        StandardJavaFileManager fileManager, JarOutputStream jarOutputStream, Set<String> writtenEntries) {
+      super(fileManager);
+      this.jarOutputStream = jarOutputStream;
+      this.writtenEntries = writtenEntries;
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(
+        Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+      if (location != StandardLocation.CLASS_OUTPUT || kind != JavaFileObject.Kind.CLASS) {
+        return super.getJavaFileForOutput(location, className, kind, sibling);
+      }
+
+      return new JarClassFileObject(jarOutputStream, writtenEntries, className.replace('.', '/') + ".class");
+    }
+  }
+
+  /**
+   * Converts the given entry name to an URI suitable for {@link SimpleJavaFileObject}.
+   *
+   * @param entryName The name of the entry
+   * @return The URI of the entry
+   */
+  private static URI toURI(String entryName) {
+    try {
+      return new URI("jar", null, entryName.startsWith("/") ? entryName : "/" + entryName, null);
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Invalid entry name " + entryName, e);
+    }
   }
 }
@@ -28,6 +28,7 @@ import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.plugins.JavaBasePlugin;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
 
 public class Instrumentation {
 
@@ -59,21 +60,25 @@ public class Instrumentation {
    *                  configured.
    */
   private void configure(final Project project, final SourceSet sourceSet, Configuration instrumentationConfiguration) {
-    InstrumentationTask instrumentationTask = project.getTasks()
-        .create(sourceSet.getTaskName("instrument", "code") + Util.capitalize(project.getName()),
+    TaskProvider<InstrumentationTask> instrumentationTask = project.getTasks()
+        .register(sourceSet.getTaskName("instrument", "code") + Util.capitalize(project.getName()),
             InstrumentationTask.class);
-    instrumentationTask.getOutputs().dir(sourceSet.getOutput().getClassesDirs().getSingleFile().getPath() + "-instrumented");
-    instrumentationTask.dependsOn(sourceSet.getClassesTaskName());
-    instrumentationTask.setGroup(GROUP);
-    instrumentationTask.setSourceSet(sourceSet);
-    instrumentationTask.setConfiguration(instrumentationConfiguration);
+    instrumentationTask.configure(task -> {
+      task.getOutputs().dir(sourceSet.getOutput().getClassesDirs().getSingleFile().getPath() + "-instrumented");
+      task.dependsOn(sourceSet.getClassesTaskName());
+      task.setGroup(GROUP);
+      task.setSourceSet(sourceSet);
+      task.setConfiguration(instrumentationConfiguration);
+    });
 
-    Task postInstrumentationTask = project.getTasks()
-        .create("post" + Util.capitalize(instrumentationTask.getName()));
-    postInstrumentationTask.dependsOn(instrumentationTask);
-    postInstrumentationTask.setGroup(GROUP);
-    postInstrumentationTask.doLast(task -> {
-      ((ConfigurableFileCollection) sourceSet.getOutput().getClassesDirs()).setFrom(instrumentationTask.getOutputs().getFiles().getSingleFile());
+    TaskProvider<Task> postInstrumentationTask = project.getTasks()
+        .register("post" + Util.capitalize(instrumentationTask.getName()));
+    postInstrumentationTask.configure(task -> {
+      task.dependsOn(instrumentationTask);
+      task.setGroup(GROUP);
+      task.doLast(self -> {
+        ((ConfigurableFileCollection) sourceSet.getOutput().getClassesDirs()).setFrom(instrumentationTask.get().getOutputs().getFiles().getSingleFile());
+      });
     });
     sourceSet.compiledBy(postInstrumentationTask);
   }
@@ -22,6 +22,8 @@ package net.flintmc.gradle.java.instrumentation.api.context;
 import net.flintmc.gradle.java.instrumentation.tasks.InstrumentationTask;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.tasks.SourceSet;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.tree.ClassNode;
 
 import java.io.File;
 
@@ -61,10 +63,32 @@ public interface InstrumentationTransformerContext {
   File getOriginalFile();
 
   /**
+   * If the class has been parsed into a {@link ClassNode} by a previous transformer, the node is written back first
+   * and will be parsed again if requested later.
+   *
    * @return the content of the currently modified file as a byte array
    */
   byte[] getData();
 
+  /**
+   * Parses the currently modified class into a tree. The tree is parsed lazily once and shared by all transformers
+   * until the bytes are requested or replaced, modifications made to it will end up in the final compilation artifact.
+   * Stack frames are kept as they are, the maximum stack size and amount of locals are recomputed when writing the
+   * class back.
+   *
+   * @return the parsed class, or {@code null} if the file has been removed from compilation
+   * @see InstrumentationTransformerContext#visitClass(ClassVisitor)
+   */
+  ClassNode getClassNode();
+
+  /**
+   * Lets the given visitor visit the currently modified class without modifying it. If the class has been parsed
+   * into a tree already, the tree is visited, otherwise the bytes are read directly without building a tree.
+   *
+   * @param visitor the visitor to pass the class to
+   */
+  void visitClass(ClassVisitor visitor);
+
   /**
    * Overrides the content of the currently modified file.
    * Data passed to this method will be used in {@link InstrumentationTask} and will override the original
@@ -0,0 +1,50 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.java.instrumentation.api.transformer;
+
+import net.flintmc.gradle.java.instrumentation.api.context.InstrumentationTransformerContext;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Transformer working on the parsed tree of a class instead of its bytes. The class is parsed once and shared by all
+ * tree based transformers of an instrumentation round, and only written back to bytes once at the end or when a byte
+ * based transformer requests the data.
+ */
+public interface ClassNodeTransformer extends InstrumentationTransformer {
+
+  /**
+   * Transform the given class node. Changes have to be applied to the node directly.
+   *
+   * @param instrumentationTransformerContext the context to retrieve all informations about the transform from
+   * @param classNode                         the parsed class, shared with all other tree based transformers
+   */
+  void transform(InstrumentationTransformerContext instrumentationTransformerContext, ClassNode classNode);
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  default void transform(InstrumentationTransformerContext instrumentationTransformerContext) {
+    ClassNode classNode = instrumentationTransformerContext.getClassNode();
+    if (classNode != null) {
+      this.transform(instrumentationTransformerContext, classNode);
+    }
+  }
+}
@@ -22,6 +22,10 @@ package net.flintmc.gradle.java.instrumentation.impl.context;
 import net.flintmc.gradle.java.instrumentation.api.context.InstrumentationTransformerContext;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.tasks.SourceSet;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
 
 import java.io.File;
 
@@ -34,6 +38,7 @@ public class DefaultInstrumentationTransformerContext implements Instrumentation
   private final File instrumentedClassDirectory;
   private final File originalFile;
   private byte[] classData;
+  private ClassNode classNode;
 
   public DefaultInstrumentationTransformerContext(
       SourceSet sourceSet,
@@ -78,11 +83,39 @@ public class DefaultInstrumentationTransformerContext implements Instrumentation
 
   @Override
   public byte[] getData() {
+    if (this.classNode != null) {
+      // Write back the tree once, it might be modified through the bytes from now on
+      ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+      this.classNode.accept(writer);
+      this.classData = writer.toByteArray();
+      this.classNode = null;
+    }
+
     return this.classData;
   }
 
   @Override
   public void setData(byte[] classData) {
     this.classData = classData;
+    this.classNode = null;
+  }
+
+  @Override
+  public ClassNode getClassNode() {
+    if (this.classNode == null && this.classData != null) {
+      this.classNode = new ClassNode();
+      new ClassReader(this.classData).accept(this.classNode, 0);
+    }
+
+    return this.classNode;
+  }
+
+  @Override
+  public void visitClass(ClassVisitor visitor) {
+    if (this.classNode != null) {
+      this.classNode.accept(visitor);
+    } else if (this.classData != null) {
+      new ClassReader(this.classData).accept(visitor, 0);
+    }
   }
 }
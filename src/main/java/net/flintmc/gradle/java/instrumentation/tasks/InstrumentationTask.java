@@ -24,6 +24,7 @@ import net.flintmc.gradle.java.instrumentation.api.InstrumentationException;
 import net.flintmc.gradle.java.instrumentation.api.InstrumentationTransformerRegistrator;
 import net.flintmc.gradle.java.instrumentation.api.InstrumentationTransformerRegistry;
 import net.flintmc.gradle.java.instrumentation.api.context.InstrumentationTransformerContext;
+import net.flintmc.gradle.java.instrumentation.api.transformer.ClassNodeTransformer;
 import net.flintmc.gradle.java.instrumentation.api.transformer.InstrumentationTransformer;
 import net.flintmc.gradle.java.instrumentation.impl.DefaultInstrumentationTransformerRegistry;
 import net.flintmc.gradle.java.instrumentation.impl.context.DefaultInstrumentationTransformerContext;
@@ -197,13 +198,29 @@ public class InstrumentationTask extends DefaultTask {
         bytes
     );
 
+    //the order of transformers is not defined, run all tree based ones first so the class is parsed and written once
+    transformAll(context, registry, true);
+    transformAll(context, registry, false);
+
+    //writes back the class if it has been parsed
+    return context.getData();
+  }
+
+  private void transformAll(
+      InstrumentationTransformerContext context,
+      InstrumentationTransformerRegistry registry,
+      boolean classNodeTransformers
+  ) {
     for (Map.Entry<InstrumentationTransformer, Predicate<InstrumentationTransformerContext>> entry : registry.getTransformers().entrySet()) {
+      if ((entry.getKey() instanceof ClassNodeTransformer) != classNodeTransformers) {
+        continue;
+      }
+
       //check if transformer should handle the context
       if (entry.getValue().test(context)) {
         //perform the transformation
         entry.getKey().transform(context);
       }
     }
-    return context.getData();
   }
 }
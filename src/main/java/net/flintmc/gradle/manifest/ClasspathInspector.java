@@ -0,0 +1,169 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.manifest;
+
+import net.flintmc.gradle.json.JsonConverter;
+import net.flintmc.gradle.json.JsonConverterException;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.util.Util;
+import net.flintmc.installer.impl.repository.models.PackageModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Service classifying the files of a classpath as flint packages or plain maven artifacts. Every jar is opened at
+ * most once, results are shared by all tasks and builds running in the same gradle daemon and invalidated as soon as
+ * the size or modification time of the file changes.
+ */
+public class ClasspathInspector {
+  private static final int MAXIMUM_SIZE = 4096;
+  private static final ClasspathInspector INSTANCE = new ClasspathInspector();
+
+  private final Map<File, Inspection> inspections;
+
+  private ClasspathInspector() {
+    this.inspections = new LinkedHashMap<File, Inspection>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<File, Inspection> eldest) {
+        return size() > MAXIMUM_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Retrieves the inspector shared by the entire daemon.
+   *
+   * @return The shared inspector
+   */
+  public static ClasspathInspector getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Inspects the given classpath file, or retrieves the previous result if the file has not changed since.
+   *
+   * @param file The file to inspect
+   * @return The result of the inspection
+   * @throws IOException If an I/O error occurs while reading the file
+   */
+  public Inspection inspect(File file) throws IOException {
+    File key = file.getAbsoluteFile();
+    if (!key.getName().endsWith(".jar")) {
+      // Needs to be a jar file to be a package
+      return Inspection.NOT_A_PACKAGE;
+    }
+
+    BasicFileAttributes attributes = Files.readAttributes(key.toPath(), BasicFileAttributes.class);
+    long lastModified = attributes.lastModifiedTime().toMillis();
+
+    Inspection inspection;
+    synchronized (inspections) {
+      inspection = inspections.get(key);
+    }
+
+    if (inspection == null || inspection.size != attributes.size() || inspection.lastModified != lastModified) {
+      // Not inspected yet or the file has changed
+      Telemetry.cacheMiss("classpath-inspection");
+      inspection = new Inspection(attributes.size(), lastModified, readPackageManifest(key));
+
+      synchronized (inspections) {
+        inspections.put(key, inspection);
+      }
+    } else {
+      Telemetry.cacheHit("classpath-inspection");
+    }
+
+    return inspection;
+  }
+
+  /**
+   * Reads the package manifest of the given jar.
+   *
+   * @param file The jar to read the manifest from
+   * @return The content of the {@code manifest.json}, or {@code null}, if the jar does not contain one
+   * @throws IOException If an I/O error occurs while reading the jar
+   */
+  private static String readPackageManifest(File file) throws IOException {
+    try (JarFile jarFile = new JarFile(file)) {
+      JarEntry entry = jarFile.getJarEntry("manifest.json");
+      if (entry == null) {
+        return null;
+      }
+
+      try (InputStream stream = jarFile.getInputStream(entry)) {
+        return Util.readAll(stream);
+      }
+    }
+  }
+
+  /**
+   * Result of inspecting a classpath file.
+   */
+  public static final class Inspection {
+    private static final Inspection NOT_A_PACKAGE = new Inspection(-1, -1, null);
+
+    private final long size;
+    private final long lastModified;
+    private final String packageManifest;
+
+    private PackageModel packageModel;
+
+    private Inspection(long size, long lastModified, String packageManifest) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.packageManifest = packageManifest;
+    }
+
+    /**
+     * Determines whether the file is a flint package.
+     *
+     * @return {@code true} if the file is a package jar, {@code false} if it is a plain maven artifact
+     */
+    public boolean isPackage() {
+      return packageManifest != null;
+    }
+
+    /**
+     * Retrieves the package model of the file. The manifest is parsed on first access.
+     *
+     * @return The package model, or {@code null}, if the file is not a package
+     * @throws JsonConverterException If the {@code manifest.json} can't be read as a {@link PackageModel}
+     */
+    public synchronized PackageModel getPackageModel() throws JsonConverterException {
+      if (packageModel == null && packageManifest != null) {
+        try {
+          packageModel = JsonConverter.PACKAGE_MODEL_SERIALIZER.fromString(packageManifest, PackageModel.class);
+        } catch (RuntimeException e) {
+          throw new JsonConverterException("Failed to read manifest.json as a package model", e);
+        }
+      }
+
+      return packageModel;
+    }
+  }
+}
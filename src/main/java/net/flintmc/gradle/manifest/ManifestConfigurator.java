@@ -21,6 +21,8 @@ package net.flintmc.gradle.manifest;
 
 import net.flintmc.gradle.FlintGradlePlugin;
 import net.flintmc.gradle.extension.FlintGradleExtension;
+import net.flintmc.gradle.manifest.cache.BoundMavenDependencies;
+import net.flintmc.gradle.manifest.cache.StaticFileChecksums;
 import net.flintmc.gradle.manifest.data.ManifestMavenDependencyInput;
 import net.flintmc.gradle.manifest.data.ManifestPackageDependencyInput;
 import net.flintmc.gradle.manifest.data.ManifestRepositoryInput;
@@ -37,7 +39,7 @@ import org.gradle.api.artifacts.repositories.MavenArtifactRepository;
 import org.gradle.api.publish.PublishingExtension;
 import org.gradle.api.publish.maven.MavenPublication;
 import org.gradle.api.tasks.Copy;
-import org.gradle.jvm.tasks.Jar;
+import org.gradle.api.tasks.TaskProvider;
 
 import java.io.File;
 import java.net.URI;
@@ -110,8 +112,12 @@ public class ManifestConfigurator {
     ManifestStaticFileInput staticFileInput = new ManifestStaticFileInput(this);
     ManifestPackageDependencyInput packageDependencyInput = new ManifestPackageDependencyInput();
 
-    // Create the tasks
-    ResolveArtifactURLsTask resolveArtifactURLsTask = project.getTasks().create(
+    // The cache files are known upfront, so the tasks don't have to be realized to wire them together
+    File artifactURLsCacheFile = BoundMavenDependencies.getCacheFile(project);
+    File staticFileChecksumsCacheFile = StaticFileChecksums.getCacheFile(project);
+
+    // Register the tasks
+    TaskProvider<ResolveArtifactURLsTask> resolveArtifactURLsTask = project.getTasks().register(
         "resolveArtifactURLs",
         ResolveArtifactURLsTask.class,
         new MaybeNull<>(httpClient),
@@ -119,21 +125,25 @@ public class ManifestConfigurator {
         repositoryInput,
         mavenDependencyInput
     );
-    resolveArtifactURLsTask.setGroup("publishing");
-    resolveArtifactURLsTask.setDescription("Resolves the URLs of all package dependency artifacts and caches them");
+    resolveArtifactURLsTask.configure((task) -> {
+      task.setGroup("publishing");
+      task.setDescription("Resolves the URLs of all package dependency artifacts and caches them");
+    });
 
-    GenerateStaticFileChecksumsTask generateStaticFileChecksumsTask = project.getTasks().create(
+    TaskProvider<GenerateStaticFileChecksumsTask> generateStaticFileChecksumsTask = project.getTasks().register(
         "generateStaticFileChecksums",
         GenerateStaticFileChecksumsTask.class,
         new MaybeNull<>(httpClient),
         staticFileInput
     );
-    generateStaticFileChecksumsTask.setGroup("publishing");
-    generateStaticFileChecksumsTask.setDescription("Calculates the checksums of all static files and caches them");
+    generateStaticFileChecksumsTask.configure((task) -> {
+      task.setGroup("publishing");
+      task.setDescription("Calculates the checksums of all static files and caches them");
+    });
 
     File manifestFileJar = new File(Util.getProjectCacheDir(project), "manifestJar.json");
 
-    GenerateFlintManifestTask generateFlintManifestJarTask = project.getTasks().create(
+    TaskProvider<GenerateFlintManifestTask> generateFlintManifestJarTask = project.getTasks().register(
         "generateFlintManifestJar",
         GenerateFlintManifestTask.class,
         this.flintGradlePlugin,
@@ -141,16 +151,18 @@ public class ManifestConfigurator {
         manifestFileJar,
         staticFileInput,
         packageDependencyInput,
-        resolveArtifactURLsTask.getCacheFile(),
-        generateStaticFileChecksumsTask.getCacheFile()
+        artifactURLsCacheFile,
+        staticFileChecksumsCacheFile
     );
-    generateFlintManifestJarTask.setGroup("publishing");
-    generateFlintManifestJarTask.setDescription("Generates the flint manifest.json to include in the jar file and caches it");
-    generateFlintManifestJarTask.dependsOn(resolveArtifactURLsTask, generateStaticFileChecksumsTask);
+    generateFlintManifestJarTask.configure((task) -> {
+      task.setGroup("publishing");
+      task.setDescription("Generates the flint manifest.json to include in the jar file and caches it");
+      task.dependsOn(resolveArtifactURLsTask, generateStaticFileChecksumsTask);
+    });
 
     File manifestFileDistributor = new File(Util.getProjectCacheDir(project), "manifestDistributor.json");
 
-    GenerateFlintManifestTask generateFlintManifestDistributorTask = project.getTasks().create(
+    TaskProvider<GenerateFlintManifestTask> generateFlintManifestDistributorTask = project.getTasks().register(
         "generateFlintManifestDistributor",
         GenerateFlintManifestTask.class,
         this.flintGradlePlugin,
@@ -158,23 +170,25 @@ public class ManifestConfigurator {
         manifestFileDistributor,
         staticFileInput,
         packageDependencyInput,
-        resolveArtifactURLsTask.getCacheFile(),
-        generateStaticFileChecksumsTask.getCacheFile()
+        artifactURLsCacheFile,
+        staticFileChecksumsCacheFile
     );
-    Jar jar = (Jar) project.getTasks().getByName("jar");
-    generateFlintManifestDistributorTask.setGroup("publishing");
-    generateFlintManifestDistributorTask.setDescription("Generates the flint manifest.json to publish to the distributor and caches it");
-    generateFlintManifestDistributorTask.dependsOn(resolveArtifactURLsTask, generateStaticFileChecksumsTask, jar);
-
+    TaskProvider<Task> jar = project.getTasks().named("jar");
+    generateFlintManifestDistributorTask.configure((task) -> {
+      task.setGroup("publishing");
+      task.setDescription("Generates the flint manifest.json to publish to the distributor and caches it");
+      task.dependsOn(resolveArtifactURLsTask, generateStaticFileChecksumsTask, jar);
+    });
 
     // Retrieve the process resources task so we can include the manifest
     // The processResources task is a copy task, and as the ProcessResources class is marked unstable,
     // we cast it to a copy task
-    Copy processResourcesTask = (Copy) project.getTasks().getByName("processResources");
-    processResourcesTask
-        .from(manifestFileJar)
-        .rename("manifestJar.json", "manifest.json");
-    processResourcesTask.dependsOn(generateFlintManifestJarTask);
+    project.getTasks().named("processResources", Copy.class).configure((processResourcesTask) -> {
+      processResourcesTask
+          .from(manifestFileJar)
+          .rename("manifestJar.json", "manifest.json");
+      processResourcesTask.dependsOn(generateFlintManifestJarTask);
+    });
 
     if (extension.shouldEnablePublishing()) {
       // Generate the URI to publish the manifest to
@@ -183,8 +197,8 @@ public class ManifestConfigurator {
           "manifest.json"
       );
 
-      // Create the manifest publish task
-      PublishFileTask publishManifestTask = project.getTasks().create(
+      // Register the manifest publish task
+      TaskProvider<PublishFileTask> publishManifestTask = project.getTasks().register(
           "publishFlintManifest",
           PublishFileTask.class,
           this,
@@ -192,32 +206,38 @@ public class ManifestConfigurator {
           manifestFileDistributor,
           manifestURI
       );
-      publishManifestTask.setGroup("publishing");
-      publishManifestTask.setDescription("Publishes the flint manifest.json to the distributor");
-      publishManifestTask.dependsOn(generateFlintManifestJarTask);
-      publishManifestTask.dependsOn(generateFlintManifestDistributorTask);
-
-      // Create the static files publish task
-      PublishStaticFilesTask publishStaticFilesTask = project.getTasks().create(
+      publishManifestTask.configure((task) -> {
+        task.setGroup("publishing");
+        task.setDescription("Publishes the flint manifest.json to the distributor");
+        task.dependsOn(generateFlintManifestJarTask);
+        task.dependsOn(generateFlintManifestDistributorTask);
+      });
+
+      // Register the static files publish task
+      TaskProvider<PublishStaticFilesTask> publishStaticFilesTask = project.getTasks().register(
           "publishFlintStaticFiles",
           PublishStaticFilesTask.class,
           this,
           new MaybeNull<>(httpClient),
           staticFileInput,
-          generateStaticFileChecksumsTask.getCacheFile()
+          staticFileChecksumsCacheFile
       );
-      publishStaticFilesTask.setGroup("publishing");
-      publishStaticFilesTask.setDescription("Publishes the static files to the distributor");
-      publishStaticFilesTask.dependsOn(generateStaticFileChecksumsTask);
-
-      // Create a compound task
-      Task publishFlintPackageMetaTask = project.getTasks().create("publishFlintPackageMeta");
-      publishFlintPackageMetaTask.setGroup("publishing");
-      publishFlintPackageMetaTask.setDescription("Compound task which depends on other publish tasks");
-      publishFlintPackageMetaTask.dependsOn(publishManifestTask, publishStaticFilesTask);
+      publishStaticFilesTask.configure((task) -> {
+        task.setGroup("publishing");
+        task.setDescription("Publishes the static files to the distributor");
+        task.dependsOn(generateStaticFileChecksumsTask);
+      });
+
+      // Register a compound task
+      TaskProvider<Task> publishFlintPackageMetaTask = project.getTasks().register("publishFlintPackageMeta");
+      publishFlintPackageMetaTask.configure((task) -> {
+        task.setGroup("publishing");
+        task.setDescription("Compound task which depends on other publish tasks");
+        task.dependsOn(publishManifestTask, publishStaticFilesTask);
+      });
 
       // Add dependency for the publish task
-      project.getTasks().getByName("publish").dependsOn(publishFlintPackageMetaTask);
+      project.getTasks().named("publish").configure((task) -> task.dependsOn(publishFlintPackageMetaTask));
     }
   }
 
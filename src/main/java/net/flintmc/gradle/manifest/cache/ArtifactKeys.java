@@ -0,0 +1,67 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.manifest.cache;
+
+import net.flintmc.gradle.maven.pom.MavenArtifact;
+
+/**
+ * Converts maven artifacts to and from keys of a {@link net.flintmc.gradle.io.KeyValueStore}. Unlike the artifact
+ * identifier, the key preserves every component, including a type without a classifier.
+ */
+final class ArtifactKeys {
+  private static final String SEPARATOR = "\t";
+
+  private ArtifactKeys() {}
+
+  /**
+   * Converts the given artifact to a key.
+   *
+   * @param artifact The artifact to convert
+   * @return The key of the artifact
+   */
+  static String toKey(MavenArtifact artifact) {
+    return artifact.getGroupId() + SEPARATOR +
+        artifact.getArtifactId() + SEPARATOR +
+        artifact.getVersion() + SEPARATOR +
+        (artifact.getClassifier() == null ? "" : artifact.getClassifier()) + SEPARATOR +
+        (artifact.getType() == null ? "" : artifact.getType());
+  }
+
+  /**
+   * Converts a key created by {@link #toKey(MavenArtifact)} back to an artifact.
+   *
+   * @param key The key to convert
+   * @return The artifact described by the key
+   */
+  static MavenArtifact fromKey(String key) {
+    String[] parts = key.split(SEPARATOR, -1);
+    if(parts.length != 5) {
+      throw new IllegalArgumentException("Malformed artifact key " + key);
+    }
+
+    return new MavenArtifact(
+        parts[0],
+        parts[1],
+        parts[2],
+        parts[3].isEmpty() ? null : parts[3],
+        parts[4].isEmpty() ? null : parts[4]
+    );
+  }
+}
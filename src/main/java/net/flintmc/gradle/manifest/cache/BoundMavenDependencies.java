@@ -19,41 +19,59 @@
 
 package net.flintmc.gradle.manifest.cache;
 
+import net.flintmc.gradle.io.KeyValueStore;
 import net.flintmc.gradle.manifest.data.ManifestMavenDependency;
 import net.flintmc.gradle.util.Util;
 import org.gradle.api.Project;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
 import java.util.Map;
 
 public class BoundMavenDependencies {
+  private static final String NAMESPACE = "dependencies";
+
   /**
    * Loads the bound dependencies from a file.
    *
    * @param file The file to load the bound dependencies from
    * @return The loaded bound dependencies
-   * @throws IOException If an I/O error occurs
+   * @throws IOException If the cached data is malformed
    */
   public static Map<ManifestMavenDependency, URI> load(File file) throws IOException {
-    try(ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-      return Util.forceCast(in.readObject());
-    } catch(ClassNotFoundException e) {
-      throw new IOException("Failed to load cached bound maven dependencies due to ClassNotFoundException", e);
+    Map<ManifestMavenDependency, URI> dependencies = new HashMap<>();
+
+    try {
+      for(Map.Entry<String, String> entry : KeyValueStore.open(file.toPath()).entries(NAMESPACE).entrySet()) {
+        dependencies.put(
+            new ManifestMavenDependency(ArtifactKeys.fromKey(entry.getKey())), new URI(entry.getValue()));
+      }
+    } catch(IllegalArgumentException | URISyntaxException e) {
+      throw new IOException("Failed to load cached bound maven dependencies", e);
     }
+
+    return dependencies;
   }
 
   /**
-   * Saves the bound dependencies to a file.
+   * Saves the bound dependencies to a file. The file is only rewritten if the dependencies have changed.
    *
    * @param file         The file to save the bound dependencies to
    * @param dependencies The bound dependencies to save
    * @throws IOException If an I/O error occurs
    */
   public static void save(File file, Map<ManifestMavenDependency, URI> dependencies) throws IOException {
-    try(ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
-      out.writeObject(dependencies);
+    Map<String, String> entries = new HashMap<>();
+    for(Map.Entry<ManifestMavenDependency, URI> entry : dependencies.entrySet()) {
+      entries.put(ArtifactKeys.toKey(entry.getKey().getArtifact()), entry.getValue().toASCIIString());
     }
+
+    KeyValueStore store = KeyValueStore.open(file.toPath());
+    store.replace(NAMESPACE, entries);
+    store.save();
   }
 
   /**
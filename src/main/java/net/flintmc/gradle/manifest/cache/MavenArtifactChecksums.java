@@ -19,100 +19,91 @@
 
 package net.flintmc.gradle.manifest.cache;
 
+import net.flintmc.gradle.io.KeyValueStore;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.util.Util;
 import org.gradle.api.Project;
 
-import java.io.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+public class MavenArtifactChecksums {
+  private static final String NAMESPACE = "artifacts";
 
-public class MavenArtifactChecksums implements Externalizable {
   /**
-   * Loads the cached static file checksums from a file.
+   * Loads the cached maven artifact checksums from a file. The file does not need to exist, and is only read once
+   * the first checksum is accessed.
    *
    * @param file The file to load the cached checksums from
    * @return The loaded checksums
-   * @throws IOException If an I/O error occurs while loading the checksums
    */
-  public static MavenArtifactChecksums load(File file) throws IOException {
-    try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-      return Util.forceCast(in.readObject());
-    } catch (ClassNotFoundException e) {
-      throw new IOException("Failed to read cached checksums of maven artifacts due to ClassNotFoundException", e);
-    }
+  public static MavenArtifactChecksums load(File file) {
+    return new MavenArtifactChecksums(KeyValueStore.open(file.toPath()));
   }
 
-  private Map<MavenArtifact, String> artifactChecksums;
+  private final KeyValueStore store;
 
   /**
-   * Constructs a new {@link MavenArtifactChecksums} with all values empty.
+   * Constructs a new {@link MavenArtifactChecksums} backed by the given store.
+   *
+   * @param store The store to keep the checksums in
    */
-  public MavenArtifactChecksums() {
-    this.artifactChecksums = new HashMap<>();
+  private MavenArtifactChecksums(KeyValueStore store) {
+    this.store = store;
   }
 
   /**
-   * Saves this instance to the given file.
+   * Saves this instance to its file. The file is only rewritten if checksums have changed.
    *
-   * @param file The file to write the cache to
    * @throws IOException If an I/O error occurs
    */
-  public void save(File file) throws IOException {
-    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
-      out.writeObject(this);
-    }
+  public void save() throws IOException {
+    store.save();
   }
 
   /**
-   * Adds a checksum to the map of URI checksums.
+   * Adds a checksum to the map of artifact checksums.
    *
    * @param mavenArtifact The maven artifact to add the checksum for
    * @param checksum      The checksum of the download
    */
   public void add(MavenArtifact mavenArtifact, String checksum) {
-    this.artifactChecksums.put(mavenArtifact, checksum);
+    store.put(NAMESPACE, ArtifactKeys.toKey(mavenArtifact), checksum);
   }
 
   /**
-   * Checks if the checksums contain a checksum for the given URI.
+   * Checks if the checksums contain a checksum for the given artifact.
    *
    * @param mavenArtifact The maven artifact to check for
-   * @return {@code true} if a checksum for the URI has been cached, {@code false} otherwise
+   * @return {@code true} if a checksum for the artifact has been cached, {@code false} otherwise
    */
   public boolean has(MavenArtifact mavenArtifact) {
-    return artifactChecksums.containsKey(mavenArtifact);
+    return store.contains(NAMESPACE, ArtifactKeys.toKey(mavenArtifact));
   }
 
   /**
-   * Retrieves the checksum for the given URI.
+   * Retrieves the checksum for the given artifact.
    *
    * @param mavenArtifact The maven artifact to retrieve the checksum for
-   * @return The checksum of the download behind the URI, or {@code null}, if the URI has not been cached
+   * @return The checksum of the artifact, or {@code null}, if the artifact has not been cached
    */
   public String get(MavenArtifact mavenArtifact) {
-    return artifactChecksums.get(mavenArtifact);
+    return store.get(NAMESPACE, ArtifactKeys.toKey(mavenArtifact));
   }
 
   /**
-   * Clears all URI checksums.
+   * Removes the checksums of all artifacts except the given ones.
+   *
+   * @param mavenArtifacts The maven artifacts to keep the checksums of
    */
-  public void clearArtifacts() {
-    artifactChecksums.clear();
-  }
-
-  @Override
-  public void writeExternal(ObjectOutput out) throws IOException {
-    out.writeObject(this.artifactChecksums);
-  }
-
-  @Override
-  public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-    this.artifactChecksums = Util.forceCast(in.readObject());
+  public void retainArtifacts(Collection<MavenArtifact> mavenArtifacts) {
+    store.retain(NAMESPACE, mavenArtifacts.stream().map(ArtifactKeys::toKey).collect(Collectors.toSet()));
   }
 
   /**
-   * Retrieves a project unique file to cache bound dependencies in.
+   * Retrieves a project unique file to cache artifact checksums in.
    *
    * @param project The project to retrieve the cache file for
    * @return The cache file
@@ -19,51 +19,49 @@
 
 package net.flintmc.gradle.manifest.cache;
 
+import net.flintmc.gradle.io.KeyValueStore;
 import net.flintmc.gradle.util.Util;
 import org.gradle.api.Project;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+public class StaticFileChecksums {
+  private static final String URI_NAMESPACE = "uris";
+  private static final String FILE_NAMESPACE = "files";
 
-public class StaticFileChecksums implements Externalizable {
   /**
-   * Loads the cached static file checksums from a file.
+   * Loads the cached static file checksums from a file. The file does not need to exist, and is only read once the
+   * first checksum is accessed.
    *
    * @param file The file to load the cached checksums from
    * @return The loaded checksums
-   * @throws IOException If an I/O error occurs while loading the checksums
    */
-  public static StaticFileChecksums load(File file) throws IOException {
-    try(ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-      return Util.forceCast(in.readObject());
-    } catch(ClassNotFoundException e) {
-      throw new IOException("Failed to read cached checksums of static files due to ClassNotFoundException", e);
-    }
+  public static StaticFileChecksums load(File file) {
+    return new StaticFileChecksums(KeyValueStore.open(file.toPath()));
   }
 
-  private Map<URI, String> uriChecksums;
-  private Map<File, String> fileChecksums;
+  private final KeyValueStore store;
 
   /**
-   * Constructs a new {@link StaticFileChecksums} with all values empty.
+   * Constructs a new {@link StaticFileChecksums} backed by the given store.
+   *
+   * @param store The store to keep the checksums in
    */
-  public StaticFileChecksums() {
-    this.uriChecksums = new HashMap<>();
-    this.fileChecksums = new HashMap<>();
+  private StaticFileChecksums(KeyValueStore store) {
+    this.store = store;
   }
 
   /**
-   * Saves this instance to the given file.
+   * Saves this instance to its file. The file is only rewritten if checksums have changed.
    *
-   * @param file The file to write the cache to
    * @throws IOException If an I/O error occurs
    */
-  public void save(File file) throws IOException {
-    try(ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
-      out.writeObject(this);
-    }
+  public void save() throws IOException {
+    store.save();
   }
 
   /**
@@ -73,7 +71,7 @@ public class StaticFileChecksums implements Externalizable {
    * @param checksum The checksum of the download
    */
   public void add(URI uri, String checksum) {
-    this.uriChecksums.put(uri, checksum);
+    store.put(URI_NAMESPACE, uri.toASCIIString(), checksum);
   }
 
   /**
@@ -83,7 +81,7 @@ public class StaticFileChecksums implements Externalizable {
    * @return {@code true} if a checksum for the URI has been cached, {@code false} otherwise
    */
   public boolean has(URI uri) {
-    return uriChecksums.containsKey(uri);
+    return store.contains(URI_NAMESPACE, uri.toASCIIString());
   }
 
   /**
@@ -93,14 +91,16 @@ public class StaticFileChecksums implements Externalizable {
    * @return The checksum of the download behind the URI, or {@code null}, if the URI has not been cached
    */
   public String get(URI uri) {
-    return uriChecksums.get(uri);
+    return store.get(URI_NAMESPACE, uri.toASCIIString());
   }
 
   /**
-   * Clears all URI checksums.
+   * Removes the checksums of all URIs except the given ones.
+   *
+   * @param uris The URIs to keep the checksums of
    */
-  public void clearURIs() {
-    uriChecksums.clear();
+  public void retainURIs(Collection<URI> uris) {
+    store.retain(URI_NAMESPACE, uris.stream().map(URI::toASCIIString).collect(Collectors.toSet()));
   }
 
   /**
@@ -110,7 +110,7 @@ public class StaticFileChecksums implements Externalizable {
    * @param checksum The checksum of the file
    */
   public void add(File file, String checksum) {
-    this.fileChecksums.put(file, checksum);
+    store.put(FILE_NAMESPACE, file.getAbsolutePath(), checksum);
   }
 
   /**
@@ -120,7 +120,7 @@ public class StaticFileChecksums implements Externalizable {
    * @return {@code true} if a checksum for the file has been cached, {@code false} otherwise
    */
   public boolean has(File file) {
-    return fileChecksums.containsKey(file);
+    return store.contains(FILE_NAMESPACE, file.getAbsolutePath());
   }
 
   /**
@@ -130,30 +130,20 @@ public class StaticFileChecksums implements Externalizable {
    * @return The checksum for the given file, or {@code null}, if the file has not been cached
    */
   public String get(File file) {
-    return fileChecksums.get(file);
+    return store.get(FILE_NAMESPACE, file.getAbsolutePath());
   }
 
   /**
-   * Clears all cached file checksums.
+   * Removes the checksums of all files except the given ones.
+   *
+   * @param files The files to keep the checksums of
    */
-  public void clearFiles() {
-    fileChecksums.clear();
-  }
-
-  @Override
-  public void writeExternal(ObjectOutput out) throws IOException {
-    out.writeObject(this.uriChecksums);
-    out.writeObject(this.fileChecksums);
-  }
-
-  @Override
-  public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-    this.uriChecksums = Util.forceCast(in.readObject());
-    this.fileChecksums = Util.forceCast(in.readObject());
+  public void retainFiles(Collection<File> files) {
+    store.retain(FILE_NAMESPACE, files.stream().map(File::getAbsolutePath).collect(Collectors.toSet()));
   }
 
   /**
-   * Retrieves a project unique file to cache bound dependencies in.
+   * Retrieves a project unique file to cache static file checksums in.
    *
    * @param project The project to retrieve the cache file for
    * @return The cache file
@@ -20,8 +20,8 @@
 package net.flintmc.gradle.manifest.data;
 
 import net.flintmc.gradle.FlintGradleException;
+import net.flintmc.gradle.manifest.ClasspathInspector;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
-import net.flintmc.gradle.util.Util;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
@@ -65,7 +65,7 @@ public class ManifestMavenDependencyInput {
         // Check if the artifact is a package
         File artifactFile = resolvedArtifact.getFile();
         try {
-          if(Util.isPackageJar(artifactFile)) {
+          if(ClasspathInspector.getInstance().inspect(artifactFile).isPackage()) {
             // Package jars are handled differently
             continue;
           }
@@ -22,8 +22,8 @@ package net.flintmc.gradle.manifest.data;
 import net.flintmc.gradle.FlintGradleException;
 import net.flintmc.gradle.extension.FlintGradleExtension;
 import net.flintmc.gradle.json.JsonConverterException;
+import net.flintmc.gradle.manifest.ClasspathInspector;
 import net.flintmc.gradle.property.FlintPluginProperties;
-import net.flintmc.gradle.util.Util;
 import net.flintmc.installer.impl.repository.models.PackageModel;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ResolvedArtifact;
@@ -71,7 +71,8 @@ public class ManifestPackageDependencyInput {
         // Check if the artifact is a package
         File artifactFile = resolvedArtifact.getFile();
         try {
-          packageModel = Util.getPackageModelFromJar(artifactFile);
+          // The jar has most likely been inspected already while computing the maven dependencies
+          packageModel = ClasspathInspector.getInstance().inspect(artifactFile).getPackageModel();
         } catch(IOException e) {
           throw new FlintGradleException(
               "Failed to check if file " + artifactFile.getAbsolutePath() + " is a package jar", e);
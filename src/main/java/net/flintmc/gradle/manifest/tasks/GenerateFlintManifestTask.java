@@ -24,6 +24,9 @@ import net.flintmc.gradle.FlintGradlePlugin;
 import net.flintmc.gradle.extension.FlintGradleExtension;
 import net.flintmc.gradle.extension.FlintMetaExtension;
 import net.flintmc.gradle.extension.json.FlintJsonInjectionDescription;
+import net.flintmc.gradle.io.HashAlgorithm;
+import net.flintmc.gradle.io.HashingService;
+import net.flintmc.gradle.io.StripedFileLocks;
 import net.flintmc.gradle.json.JsonConverter;
 import net.flintmc.gradle.manifest.cache.BoundMavenDependencies;
 import net.flintmc.gradle.manifest.cache.MavenArtifactChecksums;
@@ -35,7 +38,7 @@ import net.flintmc.gradle.maven.SimpleMavenRepository;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.minecraft.data.environment.MinecraftVersion;
 import net.flintmc.gradle.property.FlintPluginProperties;
-import net.flintmc.gradle.util.Util;
+import net.flintmc.gradle.util.Parallel;
 import net.flintmc.installer.impl.repository.models.DependencyDescriptionModel;
 import net.flintmc.installer.impl.repository.models.PackageModel;
 import net.flintmc.installer.impl.repository.models.install.InstallInstructionModel;
@@ -48,7 +51,6 @@ import net.flintmc.installer.impl.repository.models.install.data.json.injections
 import net.flintmc.installer.install.json.JsonFileDataInjection;
 import net.flintmc.installer.install.json.JsonInjectionPath;
 import net.flintmc.installer.util.OperatingSystem;
-import org.apache.commons.io.IOUtils;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.NamedDomainObjectContainer;
 import org.gradle.api.Project;
@@ -58,12 +60,11 @@ import org.gradle.jvm.tasks.Jar;
 
 import javax.inject.Inject;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
@@ -344,26 +345,10 @@ public class GenerateFlintManifestTask extends DefaultTask {
     }
 
     // Load cached checksums
-    StaticFileChecksums checksums;
-    try {
-      checksums = StaticFileChecksums.load(staticFilesChecksumsCacheFile);
-    } catch (IOException e) {
-      throw new FlintGradleException("IOException while loading cached static files checksums", e);
-    }
+    StaticFileChecksums checksums = StaticFileChecksums.load(staticFilesChecksumsCacheFile);
 
-    try {
-      File cacheFile = MavenArtifactChecksums.getCacheFile(getProject());
-      if (!cacheFile.exists()) {
-        cacheFile.getParentFile().mkdirs();
-        cacheFile.createNewFile();
-        artifactChecksums = new MavenArtifactChecksums();
-        artifactChecksums.save(cacheFile);
-      } else {
-        artifactChecksums = MavenArtifactChecksums.load(cacheFile);
-      }
-    } catch (IOException e) {
-      throw new FlintGradleException("IOException while loading cached artifacts checksums", e);
-    }
+    // Cached artifact checksums, only read once a checksum is required
+    artifactChecksums = MavenArtifactChecksums.load(MavenArtifactChecksums.getCacheFile(getProject()));
 
     // Build package dependencies
     Set<DependencyDescriptionModel> dependencyDescriptionModels = new HashSet<>();
@@ -446,7 +431,8 @@ public class GenerateFlintManifestTask extends DefaultTask {
     }
 
     try {
-      artifactChecksums.save(MavenArtifactChecksums.getCacheFile(getProject()));
+      // Only rewrites the cache if new artifacts have been hashed
+      artifactChecksums.save();
     } catch (IOException e) {
       throw new FlintGradleException("Failed to write maven artifact cache file", e);
     }
@@ -458,90 +444,95 @@ public class GenerateFlintManifestTask extends DefaultTask {
    * @param mavenDependencyURIs The URI's of the maven dependencies
    * @return The install instructions of the maven dependencies
    */
+  @SuppressWarnings("try")
   private Set<InstallInstructionModel> buildMavenInstallInstructions(
       Map<ManifestMavenDependency, URI> mavenDependencyURIs) {
     Set<InstallInstructionModel> out = new HashSet<>();
 
     SimpleMavenRepository internalRepository = this.flintGradlePlugin.getInternalRepository();
-    MavenArtifactDownloader downloader = this.flintGradlePlugin.getDownloader();
+    StripedFileLocks artifactLocks = StripedFileLocks.getInstance();
 
-    synchronized(downloader) {
-      for(Map.Entry<ManifestMavenDependency, URI> entry : mavenDependencyURIs.entrySet()) {
+    // Install missing artifacts in parallel, projects only contend with each other when installing the same artifact
+    try {
+      Parallel.forEach(mavenDependencyURIs.entrySet(), Parallel.NETWORK_PARALLELISM, (entry) -> {
         MavenArtifact artifact = entry.getKey().getArtifact();
+        if(internalRepository.isInstalled(artifact)) {
+          return;
+        }
 
-        // Construct the path relative to the root of the libraries folder
-        String localPath = String.format(
-            "${FLINT_LIBRARY_DIR}/%s/%s/%s/%s-%s%s.jar",
-            artifact.getGroupId().replace('.', '/'),
-            artifact.getArtifactId(),
-            artifact.getVersion(),
-            artifact.getArtifactId(),
-            artifact.getVersion(),
-            artifact.getClassifier() == null ? "" : "-" + artifact.getClassifier()
-        );
-
-        RemoteMavenRepository remoteMavenRepository;
         if(flintGradlePlugin.getHttpClient() == null) {
-          remoteMavenRepository = null;
-        } else {
-          remoteMavenRepository = new RemoteMavenRepository(flintGradlePlugin.getHttpClient(), entry.getValue());
+          // Can't download anything in offline mode
+          throw new FlintGradleException("Missing artifact " + artifact + " in local repository, " +
+              "but working in offline mode");
         }
 
-        synchronized(internalRepository) {
-          if(!internalRepository.isInstalled(artifact)) {
-            // The artifact is not installed already, install it
-            if(remoteMavenRepository == null) {
-              // Can't download anything in offline mode
-              throw new RuntimeException("Missing artifact " + artifact + " in local repository, " +
-                  "but working in offline mode");
-            }
-
-            boolean setupSource = !downloader.hasSource(remoteMavenRepository);
-            if(setupSource) {
-              // The download has the source not set already, add it now
-              downloader.addSource(remoteMavenRepository);
-            }
-
-            try {
-              // Install the artifact including dependencies
-              downloader.installArtifact(artifact, internalRepository);
-            } catch(IOException e) {
-              throw new FlintGradleException("Failed to install maven artifact", e);
-            }
-
-            if(setupSource) {
-              // We added the source, clean up afterwards
-              downloader.removeSource(remoteMavenRepository);
-            }
+        try(StripedFileLocks.Lock ignored = artifactLocks.acquire(internalRepository.getArtifactLockPath(artifact))) {
+          if(internalRepository.isInstalled(artifact)) {
+            // Installed by another project in the meantime
+            return;
           }
 
-          if(!artifactChecksums.has(artifact)) {
-            try(InputStream inputStream = internalRepository.getArtifactStream(artifact)) {
-              String sha1Hex = Util.sha1Hex(IOUtils.toByteArray(inputStream));
-              this.artifactChecksums.add(artifact, sha1Hex);
-            } catch(IOException e) {
-              throw new FlintGradleException("Could not generate checksum of maven artifact", e);
-            }
-          }
+          // Use a downloader only knowing the bound repository, the shared one is not touched
+          MavenArtifactDownloader downloader = new MavenArtifactDownloader(flintGradlePlugin.getContentStore());
+          downloader.addSource(new RemoteMavenRepository(flintGradlePlugin.getHttpClient(), entry.getValue()));
 
-          // Add the instruction
-          out.add(new InstallInstructionModel(
-              InstallInstructionTypes.DOWNLOAD_MAVEN_DEPENDENCY,
-              null,
-              new DownloadMavenDependencyDataModel(
-                  artifact.getGroupId(),
-                  artifact.getArtifactId(),
-                  artifact.getVersion(),
-                  artifact.getClassifier(),
-                  entry.getValue().toASCIIString(),
-                  localPath,
-                  artifactChecksums.get(artifact)
-              )
-          ));
+          if(!downloader.installArtifact(artifact, internalRepository)) {
+            throw new FlintGradleException("Artifact " + artifact + " not found at " + entry.getValue());
+          }
         }
+      });
+    } catch(IOException e) {
+      throw new FlintGradleException("Failed to install maven artifact", e);
+    }
+
+    // Hash all artifacts without a cached checksum in parallel, no lock is required for reading
+    Map<Path, MavenArtifact> toHash = new HashMap<>();
+    for(ManifestMavenDependency dependency : mavenDependencyURIs.keySet()) {
+      MavenArtifact artifact = dependency.getArtifact();
+      if(!artifactChecksums.has(artifact)) {
+        toHash.put(internalRepository.getArtifactPath(artifact), artifact);
       }
     }
 
+    try {
+      HashingService hashingService = flintGradlePlugin.getHashingService();
+      for(Map.Entry<Path, String> hashed : hashingService.hashAll(toHash.keySet(), HashAlgorithm.SHA1).entrySet()) {
+        this.artifactChecksums.add(toHash.get(hashed.getKey()), hashed.getValue());
+      }
+    } catch(IOException e) {
+      throw new FlintGradleException("Could not generate checksum of maven artifact", e);
+    }
+
+    for(Map.Entry<ManifestMavenDependency, URI> entry : mavenDependencyURIs.entrySet()) {
+      MavenArtifact artifact = entry.getKey().getArtifact();
+
+      // Construct the path relative to the root of the libraries folder
+      String localPath = String.format(
+          "${FLINT_LIBRARY_DIR}/%s/%s/%s/%s-%s%s.jar",
+          artifact.getGroupId().replace('.', '/'),
+          artifact.getArtifactId(),
+          artifact.getVersion(),
+          artifact.getArtifactId(),
+          artifact.getVersion(),
+          artifact.getClassifier() == null ? "" : "-" + artifact.getClassifier()
+      );
+
+      // Add the instruction
+      out.add(new InstallInstructionModel(
+          InstallInstructionTypes.DOWNLOAD_MAVEN_DEPENDENCY,
+          null,
+          new DownloadMavenDependencyDataModel(
+              artifact.getGroupId(),
+              artifact.getArtifactId(),
+              artifact.getVersion(),
+              artifact.getClassifier(),
+              entry.getValue().toASCIIString(),
+              localPath,
+              artifactChecksums.get(artifact)
+          )
+      ));
+    }
+
     return out;
   }
 
@@ -575,8 +566,8 @@ public class GenerateFlintManifestTask extends DefaultTask {
       Jar jar = (Jar) getProject().getTasks().getByName("jar");
       File singleFile = jar.getOutputs().getFiles().getSingleFile();
 
-      try (FileInputStream fileInputStream = new FileInputStream(singleFile)) {
-        sha1Hex = Util.sha1Hex(IOUtils.toByteArray(fileInputStream));
+      try {
+        sha1Hex = flintGradlePlugin.getHashingService().hash(singleFile.toPath(), HashAlgorithm.SHA1);
       } catch (IOException e) {
         throw new FlintGradleException("Could not hash generated jar file", e);
       }
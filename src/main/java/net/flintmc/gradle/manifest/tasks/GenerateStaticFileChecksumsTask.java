@@ -19,11 +19,14 @@
 
 package net.flintmc.gradle.manifest.tasks;
 
+import net.flintmc.gradle.FlintGradlePlugin;
+import net.flintmc.gradle.io.HashAlgorithm;
+import net.flintmc.gradle.io.HashingService;
 import net.flintmc.gradle.manifest.cache.StaticFileChecksums;
 import net.flintmc.gradle.manifest.data.ManifestStaticFile;
 import net.flintmc.gradle.manifest.data.ManifestStaticFileInput;
 import net.flintmc.gradle.util.MaybeNull;
-import net.flintmc.gradle.util.Util;
+import net.flintmc.gradle.util.Parallel;
 import okhttp3.OkHttpClient;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.tasks.Input;
@@ -34,11 +37,13 @@ import org.gradle.api.tasks.TaskAction;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Task that generates and caches the checksums for static files.
@@ -123,22 +128,31 @@ public class GenerateStaticFileChecksumsTask extends DefaultTask {
       throw new IOException("Failed to create directory " + parentDir.getAbsolutePath());
     }
 
-    StaticFileChecksums checksums = cacheFile.exists() ? StaticFileChecksums.load(cacheFile) : new StaticFileChecksums();
+    StaticFileChecksums checksums = StaticFileChecksums.load(cacheFile);
+
+    HashingService hashingService = getProject().getPlugins().getPlugin(FlintGradlePlugin.class).getHashingService();
 
     // Calculate the checksums for local files
-    checksums.clearFiles();
-    for (File localFile : getLocalFiles()) {
-      checksums.add(localFile, Util.md5Hex(Files.readAllBytes(localFile.toPath())));
+    Set<File> localFiles = getLocalFiles();
+    checksums.retainFiles(localFiles);
+    Map<Path, String> localChecksums = hashingService.hashAll(
+        localFiles.stream().map(File::toPath).collect(Collectors.toList()), HashAlgorithm.MD5);
+    for (Map.Entry<Path, String> entry : localChecksums.entrySet()) {
+      checksums.add(entry.getKey().toFile(), entry.getValue());
     }
 
     if (httpClient != null) {
       // Calculate the checksums for remote files
-      for(URI remoteFile : getRemoteFiles()) {
-        // Calculate the checksum
-        try(InputStream stream = Util.getURLStream(httpClient, remoteFile)) {
-          checksums.add(remoteFile, Util.md5Hex(Util.readAllAsBytes(stream)));
-        }
+      checksums.retainURIs(getRemoteFiles());
+      Map<URI, String> remoteChecksums = new ConcurrentHashMap<>();
+      Parallel.forEach(getRemoteFiles(), Parallel.NETWORK_PARALLELISM,
+          (remoteFile) -> remoteChecksums.put(remoteFile, hashingService.hash(remoteFile, HashAlgorithm.MD5)));
+
+      for (Map.Entry<URI, String> entry : remoteChecksums.entrySet()) {
+        checksums.add(entry.getKey(), entry.getValue());
       }
+
+      hashingService.save();
     } else {
       getLogger().warn("Can't recalculate checksums for remote files because gradle is in offline mode");
 
@@ -150,7 +164,7 @@ public class GenerateStaticFileChecksumsTask extends DefaultTask {
       }
     }
 
-    // Save the checksum cache
-    checksums.save(cacheFile);
+    // Save the checksum cache, this only rewrites the file if a checksum changed
+    checksums.save();
   }
 }
@@ -25,6 +25,7 @@ import net.flintmc.gradle.manifest.cache.StaticFileChecksums;
 import net.flintmc.gradle.manifest.data.ManifestStaticFile;
 import net.flintmc.gradle.manifest.data.ManifestStaticFileInput;
 import net.flintmc.gradle.util.MaybeNull;
+import net.flintmc.gradle.util.Parallel;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
@@ -35,12 +36,14 @@ import org.gradle.api.tasks.TaskAction;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.util.Collection;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PublishStaticFilesTask extends PublishTaskBase {
+  private static final int MAX_CONCURRENT_UPLOADS = 4;
+
   private final ManifestStaticFileInput staticFiles;
 
   @InputFile
@@ -88,7 +91,7 @@ public class PublishStaticFilesTask extends PublishTaskBase {
   }
 
   /**
-   * Publishes the static files.
+   * Publishes the static files. Files of which the distributor has the same checksum already are skipped.
    */
   @TaskAction
   public void publish() {
@@ -99,32 +102,54 @@ public class PublishStaticFilesTask extends PublishTaskBase {
     staticFiles.compute(getProject());
 
     // Load cached checksums
-    StaticFileChecksums checksums;
-    try {
-      checksums = StaticFileChecksums.load(staticFilesChecksumsCacheFile);
-    } catch(IOException e) {
-      throw new FlintGradleException("IOException while loading cached static files checksums", e);
-    }
-
-    // Publish all files
-    for(Map.Entry<File, ManifestStaticFile> entry : staticFiles.getLocalFiles().entrySet()) {
-      File file = entry.getKey();
-      ManifestStaticFile description = entry.getValue();
+    StaticFileChecksums checksums = StaticFileChecksums.load(staticFilesChecksumsCacheFile);
 
+    // Make sure every file has a checksum before starting to upload
+    for(File file : staticFiles.getLocalFiles().keySet()) {
       if(!checksums.has(file)) {
         // Should not be possible unless the user manually excluded the checksum task
         throw new FlintGradleException("Missing checksum for file " + file.getAbsolutePath());
       }
+    }
+
+    AtomicInteger skipped = new AtomicInteger();
+    AtomicLong transferredBytes = new AtomicLong();
+    long startMillis = System.currentTimeMillis();
 
-      URI publishURI = description.getURI();
+    // Publish all files
+    try {
+      Parallel.forEach(staticFiles.getLocalFiles().entrySet(), MAX_CONCURRENT_UPLOADS, (entry) -> {
+        File file = entry.getKey();
+        String checksum = checksums.get(file);
+
+        URI publishURI = entry.getValue().getURI();
+
+        // Add .md5 to the end of the URI
+        URI md5URI = publishURI.resolve(publishURI.getPath() + ".md5");
 
-      // Publish file
-      publish(publishURI, RequestBody.create(file, MediaType.get("application/octet-stream")));
+        String publishedChecksum = fetchPublished(md5URI);
+        if(publishedChecksum != null && publishedChecksum.trim().equalsIgnoreCase(checksum)) {
+          // The distributor has this exact file already
+          getLogger().info("Skipping {}, already published", publishURI);
+          skipped.incrementAndGet();
+          return;
+        }
 
-      // Add .md5 to the end of the URI
-      URI md5URI = publishURI.resolve(publishURI.getPath() + ".md5");
-      // Upload the hash
-      publish(md5URI, RequestBody.create(checksums.get(file), MediaType.get("application/octet-stream")));
+        // Publish file
+        publish(publishURI, RequestBody.create(file, MediaType.get("application/octet-stream")));
+
+        // Upload the hash
+        publish(md5URI, RequestBody.create(checksum, MediaType.get("application/octet-stream")));
+
+        transferredBytes.addAndGet(file.length() + checksum.length());
+      });
+    } catch(IOException e) {
+      throw new FlintGradleException("Failed to publish static files", e);
     }
+
+    int total = staticFiles.getLocalFiles().size();
+    getLogger().lifecycle("Published {} static files ({} unchanged), {}",
+        total - skipped.get(), skipped.get(),
+        formatTransfer(transferredBytes.get(), System.currentTimeMillis() - startMillis));
   }
 }
@@ -26,19 +26,26 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.credentials.HttpHeaderCredentials;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Locale;
 
 /**
  * Base for all publish tasks.
  */
 public abstract class PublishTaskBase extends DefaultTask {
+  private static final int MAX_ATTEMPTS = 4;
+  private static final long INITIAL_BACKOFF_MILLIS = 500;
+
   private final ManifestConfigurator configurator;
   private final OkHttpClient httpClient;
 
+  private HttpHeaderCredentials credentials;
+
   /**
    * Constructs a new {@link PublishTaskBase}.
    *
@@ -51,10 +58,10 @@ public abstract class PublishTaskBase extends DefaultTask {
   }
 
   /**
-   * Publishes the given entity to the given URI.
+   * Publishes the given entity to the given URI. Failed uploads are retried with an exponential backoff.
    *
    * @param uri         The URI to publish to
-   * @param requestBody The HTTP request body to publish
+   * @param requestBody The HTTP request body to publish, must be replayable
    */
   protected final void publish(URI uri, RequestBody requestBody) {
     if (httpClient == null) {
@@ -66,27 +73,111 @@ public abstract class PublishTaskBase extends DefaultTask {
         .url(uri.toString())
         .put(requestBody);
 
-
-    HttpHeaderCredentials credentials = Util.getDistributorCredentials(
-        getProject(),
-        true,
-        "Set enablePublishing to false in the flint extension");
-
     // Add the credentials header
+    HttpHeaderCredentials credentials = getCredentials();
     put.header(credentials.getName(), credentials.getValue());
 
-    try (Response response = httpClient.newCall(put.build()).execute()) {
-      // Upload now...
+    Request request = put.build();
+    long backoff = INITIAL_BACKOFF_MILLIS;
+
+    for (int attempt = 1; ; attempt++) {
+      IOException failure;
+      boolean retryable;
+
+      try (Response response = httpClient.newCall(request).execute()) {
+        // Upload now...
+
+        // Check the status of the upload
+        int code = response.code();
+
+        if (code >= 200 && code < 300) {
+          return;
+        }
+
+        // Unexpected response, only server errors and rate limits are worth retrying
+        failure = new IOException("Server responded with " + code + " (" + response.message() + ")");
+        retryable = code >= 500 || code == 429;
+      } catch (IOException e) {
+        failure = e;
+        retryable = true;
+      }
+
+      if (!retryable || attempt >= MAX_ATTEMPTS) {
+        throw new FlintGradleException("Failed to publish file", failure);
+      }
+
+      getLogger().warn("Failed to publish {} (attempt {}/{}), retrying in {}ms: {}",
+          uri, attempt, MAX_ATTEMPTS, backoff, failure.getMessage());
+
+      try {
+        Thread.sleep(backoff);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new FlintGradleException("Interrupted while waiting to retry publishing", failure);
+      }
+
+      backoff *= 2;
+    }
+  }
+
+  /**
+   * Reads the content of the given URI from the distributor as a string.
+   *
+   * @param uri The URI to read
+   * @return The content of the URI, or {@code null}, if it does not exist or could not be read
+   */
+  protected final String fetchPublished(URI uri) {
+    if (httpClient == null) {
+      return null;
+    }
 
-      // Check the status of the upload
-      int code = response.code();
+    HttpHeaderCredentials credentials = getCredentials();
+    Request request = new Request.Builder()
+        .url(uri.toString())
+        .get()
+        .header(credentials.getName(), credentials.getValue())
+        .build();
 
-      if (code < 200 || code >= 300) {
-        // Unexpected response
-        throw new IOException("Server responded with " + code + " (" + response.message() + ")");
+    try (Response response = httpClient.newCall(request).execute()) {
+      ResponseBody body = response.body();
+      if (response.code() != 200 || body == null) {
+        return null;
       }
+
+      return body.string();
     } catch (IOException e) {
-      throw new FlintGradleException("Failed to publish file", e);
+      // The check is only an optimization, upload instead
+      getLogger().debug("Failed to check {} for existence", uri, e);
+      return null;
     }
   }
+
+  /**
+   * Formats a summary of the given transfer.
+   *
+   * @param bytes  The amount of bytes transferred
+   * @param millis The time the transfer took in milliseconds
+   * @return A human readable summary of the transfer
+   */
+  protected static String formatTransfer(long bytes, long millis) {
+    long bytesPerSecond = millis <= 0 ? bytes : bytes * 1000 / millis;
+    return String.format(Locale.ROOT, "%s in %.1fs (%s/s)",
+        Util.formatBytes(bytes), millis / 1000.0, Util.formatBytes(bytesPerSecond));
+  }
+
+  /**
+   * Retrieves the credentials for the distributor, resolving them only once per task.
+   *
+   * @return The credentials for the distributor
+   */
+  private synchronized HttpHeaderCredentials getCredentials() {
+    if (credentials == null) {
+      credentials = Util.getDistributorCredentials(
+          getProject(),
+          true,
+          "Set enablePublishing to false in the flint extension");
+    }
+
+    return credentials;
+  }
 }
@@ -0,0 +1,225 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.mapping;
+
+import net.flintmc.gradle.io.HashAlgorithm;
+import net.flintmc.gradle.io.HashingService;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Binary cache of parsed mapping files. Entries are keyed by the hash of the mapping file, so a changed file is
+ * parsed again while an unchanged one is loaded without parsing it.
+ */
+public class MappingCache {
+  private static final Logger LOGGER = Logging.getLogger(MappingCache.class);
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path directory;
+
+  /**
+   * Constructs a new {@link MappingCache} storing its entries in the given directory.
+   *
+   * @param directory The directory to store the cache entries in
+   */
+  public MappingCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Loads the SRG to name mappings of an MCP mappings CSV file, see {@link MappingFiles#readCsvNames(Path)}.
+   *
+   * @param file The CSV file to load
+   * @return The table containing the mappings of the file
+   * @throws IOException If an I/O error occurs while reading the file or the file is malformed
+   */
+  public SrgNameTable loadCsvNames(Path file) throws IOException {
+    Path cacheFile = getCacheFile(file, "names");
+
+    if (Files.isRegularFile(cacheFile)) {
+      try (DataInputStream in = openCacheFile(cacheFile)) {
+        SrgNameTable table = new SrgNameTable();
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+          table.put(in.readUTF(), in.readUTF());
+        }
+
+        return table;
+      } catch (IOException e) {
+        LOGGER.warn("Failed to read mapping cache {}, parsing {} again", cacheFile, file, e);
+      }
+    }
+
+    SrgNameTable table = MappingFiles.readCsvNames(file);
+    writeCacheFile(cacheFile, (out) -> {
+      out.writeInt(table.size());
+
+      try {
+        table.forEach((srgName, name) -> {
+          try {
+            out.writeUTF(srgName);
+            out.writeUTF(name);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    });
+
+    return table;
+  }
+
+  /**
+   * Loads the names of all classes of an SRG or TSRG mappings file, see {@link MappingFiles#readClassNames(Path)}.
+   *
+   * @param file The mappings file to load
+   * @return A set of the internal names of all classes in the file
+   * @throws IOException If an I/O error occurs while reading the file
+   */
+  public Set<String> loadClassNames(Path file) throws IOException {
+    Path cacheFile = getCacheFile(file, "classes");
+
+    if (Files.isRegularFile(cacheFile)) {
+      try (DataInputStream in = openCacheFile(cacheFile)) {
+        int count = in.readInt();
+        Set<String> classNames = new HashSet<>(count * 2);
+
+        for (int i = 0; i < count; i++) {
+          classNames.add(in.readUTF());
+        }
+
+        return classNames;
+      } catch (IOException e) {
+        LOGGER.warn("Failed to read mapping cache {}, parsing {} again", cacheFile, file, e);
+      }
+    }
+
+    Set<String> classNames = MappingFiles.readClassNames(file);
+    writeCacheFile(cacheFile, (out) -> {
+      out.writeInt(classNames.size());
+
+      for (String className : classNames) {
+        out.writeUTF(className);
+      }
+    });
+
+    return classNames;
+  }
+
+  /**
+   * Computes the cache file of the given mapping file.
+   *
+   * @param file The mapping file to compute the cache file of
+   * @param kind The kind of data which is cached
+   * @return The path of the cache file
+   * @throws IOException If an I/O error occurs while hashing the mapping file
+   */
+  private Path getCacheFile(Path file, String kind) throws IOException {
+    String hash;
+    try (InputStream in = Files.newInputStream(file)) {
+      hash = HashingService.digest(in, HashAlgorithm.SHA1);
+    }
+
+    return directory.resolve(hash + "." + kind);
+  }
+
+  /**
+   * Opens the given cache file and checks its format version.
+   *
+   * @param cacheFile The file to open
+   * @return A stream positioned after the header of the file
+   * @throws IOException If an I/O error occurs or the file has been written using another format
+   */
+  private static DataInputStream openCacheFile(Path cacheFile) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)));
+
+    try {
+      if (in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Unsupported format version");
+      }
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+
+    return in;
+  }
+
+  /**
+   * Writes the given cache file, failures are logged but not propagated as the cache is optional.
+   *
+   * @param cacheFile The file to write
+   * @param writer    The writer writing the content of the file
+   */
+  private static void writeCacheFile(Path cacheFile, CacheWriter writer) {
+    Path temporaryFile = cacheFile.resolveSibling(cacheFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+    try {
+      Files.createDirectories(cacheFile.getParent());
+
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        writer.write(out);
+      }
+
+      Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to write mapping cache {}", cacheFile, e);
+    } finally {
+      try {
+        Files.deleteIfExists(temporaryFile);
+      } catch (IOException e) {
+        LOGGER.debug("Failed to delete temporary mapping cache file {}", temporaryFile, e);
+      }
+    }
+  }
+
+  /**
+   * Writer for the content of a cache file.
+   */
+  @FunctionalInterface
+  private interface CacheWriter {
+    /**
+     * Writes the content of a cache file.
+     *
+     * @param out The stream to write to
+     * @throws IOException If an I/O error occurs while writing
+     */
+    void write(DataOutputStream out) throws IOException;
+  }
+}
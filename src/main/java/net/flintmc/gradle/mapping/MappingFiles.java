@@ -0,0 +1,158 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.mapping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streaming parsers for the mapping file formats used by the deobfuscation environments. The files are read line by
+ * line and only the required fields are extracted from every line.
+ */
+public final class MappingFiles {
+  private MappingFiles() {}
+
+  /**
+   * Reads the SRG to name mappings of an MCP mappings CSV file. The file is required to have a header row containing
+   * a {@code searge} or {@code param} column and a {@code name} column.
+   *
+   * @param file The CSV file to read
+   * @return The table containing the mappings of the file
+   * @throws IOException If an I/O error occurs while reading the file or the file is malformed
+   */
+  public static SrgNameTable readCsvNames(Path file) throws IOException {
+    SrgNameTable table = new SrgNameTable();
+
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      String header = reader.readLine();
+      if (header == null) {
+        throw new IOException("Invalid, empty CSV file " + file.toString());
+      }
+
+      // MCP files uses , as a separator
+      String[] parts = header.split(",");
+      if (parts.length < 2) {
+        // MCP mappings CSV's always have more than 1 row
+        throw new IOException("Invalid mappings CSV, contains less than 2 rows");
+      }
+
+      int keyIndex = -1;
+      int nameIndex = -1;
+
+      // Iterate the header row parts
+      for (int i = 0; i < parts.length; i++) {
+        String part = parts[i];
+        if (part.equals("searge") || part.equals("param")) {
+          // Found the field defining the key
+          if (keyIndex != -1) {
+            throw new IOException("Invalid CSV, contains duplicated searge or param row");
+          }
+
+          keyIndex = i;
+        } else if (part.equals("name")) {
+          // Found the field defining the value
+          if (nameIndex != -1) {
+            throw new IOException("Invalid CSV, contains duplicated name row");
+          }
+
+          nameIndex = i;
+        }
+      }
+
+      // Check if all required fields have been set
+      if (keyIndex == -1) {
+        throw new IOException("Invalid mappings CSV, does not contain searge or param row");
+      } else if (nameIndex == -1) {
+        throw new IOException("Invalid mappings CSV, does not contain name row");
+      }
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+
+        String key = field(line, ',', keyIndex);
+        String name = field(line, ',', nameIndex);
+
+        // Check if the row is valid
+        if (key == null || name == null) {
+          throw new IOException("Invalid mappings CSV, line " + line + " does not contain enough fields");
+        }
+
+        table.put(key, name);
+      }
+    }
+
+    return table;
+  }
+
+  /**
+   * Reads the names of all classes of an SRG or TSRG mappings file. Class mappings are all lines which are not
+   * indented, the first token of such a line is the obfuscated class name.
+   *
+   * @param file The mappings file to read
+   * @return A set of the internal names of all classes in the file
+   * @throws IOException If an I/O error occurs while reading the file
+   */
+  public static Set<String> readClassNames(Path file) throws IOException {
+    Set<String> classNames = new HashSet<>();
+
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        // If the line is not a class mapping, skip it
+        if (line.isEmpty() || line.charAt(0) == '\t') {
+          continue;
+        }
+
+        int tokenEnd = line.indexOf(' ');
+        classNames.add(tokenEnd == -1 ? line : line.substring(0, tokenEnd));
+      }
+    }
+
+    return classNames;
+  }
+
+  /**
+   * Extracts a single field from a separated line without splitting the entire line.
+   *
+   * @param line      The line to extract the field from
+   * @param separator The character separating the fields
+   * @param index     The index of the field to extract
+   * @return The extracted field, or {@code null}, if the line does not contain enough fields
+   */
+  private static String field(String line, char separator, int index) {
+    int start = 0;
+    for (int i = 0; i < index; i++) {
+      start = line.indexOf(separator, start) + 1;
+      if (start == 0) {
+        return null;
+      }
+    }
+
+    int end = line.indexOf(separator, start);
+    return line.substring(start, end == -1 ? line.length() : end);
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact lookup table from SRG names to mapped names. Canonical SRG names ({@code func_1234_a}, {@code field_1234_a},
+ * {@code p_1234_1_} and {@code p_i1234_1_}) are keyed by their numeric identity in an open addressing table of
+ * primitive keys, all other names fall back to a regular map.
+ */
+public class SrgNameTable {
+  private static final int KIND_METHOD = 1;
+  private static final int KIND_FIELD = 2;
+  private static final int KIND_PARAMETER = 3;
+  private static final int KIND_CONSTRUCTOR_PARAMETER = 4;
+
+  private static final long EMPTY = 0;
+
+  private long[] keys;
+  private String[] srgNames;
+  private String[] names;
+  private int size;
+
+  private final Map<String, String> fallback;
+
+  /**
+   * Constructs a new, empty {@link SrgNameTable}.
+   */
+  public SrgNameTable() {
+    this.keys = new long[1024];
+    this.srgNames = new String[1024];
+    this.names = new String[1024];
+    this.fallback = new HashMap<>();
+  }
+
+  /**
+   * Associates the given SRG name with the given mapped name.
+   *
+   * @param srgName The SRG name to map
+   * @param name    The name to map the SRG name to
+   */
+  public void put(String srgName, String name) {
+    long key = keyOf(srgName);
+    if (key == EMPTY) {
+      fallback.put(srgName, name);
+      return;
+    }
+
+    if ((size + 1) * 2 > keys.length) {
+      // Keep the load factor below 0.5
+      grow();
+    }
+
+    int slot = findSlot(keys, key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+    } else if (!srgNames[slot].equals(srgName)) {
+      // Same identity with a different suffix, should not happen in practice
+      fallback.put(srgName, name);
+      return;
+    }
+
+    srgNames[slot] = srgName;
+    names[slot] = name;
+  }
+
+  /**
+   * Retrieves the name the given SRG name is mapped to.
+   *
+   * @param srgName The SRG name to look up
+   * @return The mapped name, or {@code null}, if the SRG name is not mapped
+   */
+  public String get(String srgName) {
+    long key = keyOf(srgName);
+    if (key == EMPTY) {
+      return fallback.get(srgName);
+    }
+
+    int slot = findSlot(keys, key);
+    if (keys[slot] == EMPTY) {
+      return null;
+    } else if (!srgNames[slot].equals(srgName)) {
+      // Same identity with a different suffix
+      return fallback.get(srgName);
+    }
+
+    return names[slot];
+  }
+
+  /**
+   * Adds all mappings of the given table to this table.
+   *
+   * @param other The table to add the mappings of
+   */
+  public void putAll(SrgNameTable other) {
+    other.forEach(this::put);
+  }
+
+  /**
+   * Calls the given consumer for every mapping in this table.
+   *
+   * @param consumer The consumer to call with the SRG name and the mapped name
+   */
+  public void forEach(BiConsumer<String, String> consumer) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != EMPTY) {
+        consumer.accept(srgNames[i], names[i]);
+      }
+    }
+
+    fallback.forEach(consumer);
+  }
+
+  /**
+   * Retrieves the amount of mappings in this table.
+   *
+   * @return The amount of mappings
+   */
+  public int size() {
+    return size + fallback.size();
+  }
+
+  /**
+   * Doubles the capacity of the table.
+   */
+  private void grow() {
+    long[] oldKeys = keys;
+    String[] oldSrgNames = srgNames;
+    String[] oldNames = names;
+
+    keys = new long[oldKeys.length * 2];
+    srgNames = new String[keys.length];
+    names = new String[keys.length];
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = findSlot(keys, oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        srgNames[slot] = oldSrgNames[i];
+        names[slot] = oldNames[i];
+      }
+    }
+  }
+
+  /**
+   * Finds the slot the given key is stored in or would be stored in using linear probing.
+   *
+   * @param keys The key array to search
+   * @param key  The key to search for
+   * @return The index of the slot
+   */
+  private static int findSlot(long[] keys, long key) {
+    int mask = keys.length - 1;
+    int slot = (int) (mix(key) & mask);
+
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+
+    return slot;
+  }
+
+  /**
+   * Spreads the bits of the given key, the identities are mostly sequential numbers.
+   *
+   * @param key The key to spread
+   * @return The spread key
+   */
+  private static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return key;
+  }
+
+  /**
+   * Computes the primitive key of the given SRG name.
+   *
+   * @param srgName The name to compute the key of
+   * @return The key of the name, or {@code 0}, if the name is not a canonical SRG name
+   */
+  static long keyOf(String srgName) {
+    if (srgName.startsWith("func_")) {
+      return keyOf(KIND_METHOD, srgName, 5, false);
+    } else if (srgName.startsWith("field_")) {
+      return keyOf(KIND_FIELD, srgName, 6, false);
+    } else if (srgName.startsWith("p_i")) {
+      return keyOf(KIND_CONSTRUCTOR_PARAMETER, srgName, 3, true);
+    } else if (srgName.startsWith("p_")) {
+      return keyOf(KIND_PARAMETER, srgName, 2, true);
+    }
+
+    return EMPTY;
+  }
+
+  /**
+   * Computes the primitive key of the given SRG name.
+   *
+   * @param kind      The kind of the name
+   * @param srgName   The name to compute the key of
+   * @param start     The index the numeric identity starts at
+   * @param parameter Whether the name is a parameter name which is followed by the parameter index
+   * @return The key of the name, or {@code 0}, if the name is not a canonical SRG name
+   */
+  private static long keyOf(int kind, String srgName, int start, boolean parameter) {
+    int idEnd = skipDigits(srgName, start);
+    if (idEnd == start || idEnd - start > 9 || idEnd >= srgName.length() || srgName.charAt(idEnd) != '_') {
+      return EMPTY;
+    }
+
+    long id = Long.parseLong(srgName.substring(start, idEnd));
+    long index = 0;
+
+    if (parameter) {
+      int indexEnd = skipDigits(srgName, idEnd + 1);
+      if (indexEnd == idEnd + 1 || indexEnd - idEnd - 1 > 4 || indexEnd != srgName.length() - 1
+          || srgName.charAt(indexEnd) != '_') {
+        return EMPTY;
+      }
+
+      index = Long.parseLong(srgName.substring(idEnd + 1, indexEnd));
+    }
+
+    return ((long) kind << 56) | (index << 32) | id;
+  }
+
+  /**
+   * Skips all digits starting at the given index.
+   *
+   * @param value The value to skip the digits in
+   * @param start The index to start at
+   * @return The index of the first non digit character
+   */
+  private static int skipDigits(String value, int start) {
+    int index = start;
+    while (index < value.length() && value.charAt(index) >= '0' && value.charAt(index) <= '9') {
+      index++;
+    }
+
+    return index;
+  }
+}
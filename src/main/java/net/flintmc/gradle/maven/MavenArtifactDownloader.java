@@ -19,12 +19,16 @@
 
 package net.flintmc.gradle.maven;
 
+import net.flintmc.gradle.io.ContentStore;
+import net.flintmc.gradle.io.StripedFileLocks;
+import net.flintmc.gradle.maven.cache.PomCache;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.maven.pom.MavenDependency;
 import net.flintmc.gradle.maven.pom.MavenDependencyScope;
 import net.flintmc.gradle.maven.pom.MavenPom;
-import net.flintmc.gradle.maven.pom.io.PomReader;
 import net.flintmc.gradle.maven.pom.io.PomWriter;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
 import net.flintmc.gradle.util.Pair;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -47,12 +51,26 @@ public class MavenArtifactDownloader {
   private static final Logger LOGGER = Logging.getLogger(MavenArtifactDownloader.class);
 
   private final List<ReadableMavenRepository> sources;
+  private final ContentStore contentStore;
+  private final PomCache pomCache;
 
   /**
    * Constructs a new {@link MavenArtifactDownloader} without any repositories
    */
   public MavenArtifactDownloader() {
+    this(null);
+  }
+
+  /**
+   * Constructs a new {@link MavenArtifactDownloader} without any repositories which installs artifacts through the
+   * given content store.
+   *
+   * @param contentStore The store to install artifacts through, or {@code null}, to copy artifacts directly
+   */
+  public MavenArtifactDownloader(ContentStore contentStore) {
     this.sources = new ArrayList<>();
+    this.contentStore = contentStore;
+    this.pomCache = PomCache.getInstance();
   }
 
   /**
@@ -89,10 +107,25 @@ public class MavenArtifactDownloader {
    * @param artifact           The artifact to install
    * @param target             The repository to install the artifact into
    * @param installIfNotExists If the given artifact should also be installed if it does not exist
+   * @return All dependencies which have been resolved for the artifact, not including the artifact itself
    * @throws IOException           If an I/O error occurs while installing the artifact or one if its dependencies
    * @throws MavenResolveException If the artifact  or one of its dependencies can't be resolved
    */
-  public synchronized void installAll(MavenArtifact artifact, SimpleMavenRepository target, boolean installIfNotExists)
+  @SuppressWarnings("try")
+  public synchronized Set<MavenDependency> installAll(
+      MavenArtifact artifact, SimpleMavenRepository target, boolean installIfNotExists)
+      throws IOException, MavenResolveException {
+    try (TelemetrySpan ignored =
+             Telemetry.span("maven", "installAll").attribute("artifact", formatArtifact(artifact))) {
+      return installAllRecorded(artifact, target, installIfNotExists);
+    }
+  }
+
+  /**
+   * Performs the actual installation, see {@link #installAll(MavenArtifact, SimpleMavenRepository, boolean)}.
+   */
+  private Set<MavenDependency> installAllRecorded(
+      MavenArtifact artifact, SimpleMavenRepository target, boolean installIfNotExists)
       throws IOException, MavenResolveException {
     // Get the local POM path
     Path localPomPath = target.getPomPath(artifact);
@@ -103,12 +136,13 @@ public class MavenArtifactDownloader {
       artifactPom = (MavenPom) artifact;
     } else {
       // Query the local POM if it exists, else find the POM online
-      artifactPom = Files.exists(localPomPath) ? PomReader.read(localPomPath) : findPom(artifact);
+      artifactPom = Files.exists(localPomPath) ? pomCache.read(localPomPath) : findPom(artifact);
     }
 
+    Set<MavenDependency> resolved = new HashSet<>();
     if (artifactPom != null) {
       // POM found, install it with all its dependencies
-      installAll(artifactPom, target);
+      resolved = installAll(artifactPom, target);
 
       if (installIfNotExists) {
         if (!Files.exists(localPomPath)) {
@@ -119,14 +153,14 @@ public class MavenArtifactDownloader {
     }
 
     if (installIfNotExists) {
-      synchronized (target) {
-        // If the artifact is not installed locally, try to install it
-        if (!target.isInstalled(artifact) && !installArtifact(artifact, target) && artifactPom == null) {
-          // The artifact failed to install and there was also no POM for it
-          throw new MavenResolveException("Could not resolve " + artifact);
-        }
+      // If the artifact is not installed locally, try to install it
+      if (!installIfMissing(artifact, target) && artifactPom == null) {
+        // The artifact failed to install and there was also no POM for it
+        throw new MavenResolveException("Could not resolve " + artifact);
       }
     }
+
+    return resolved;
   }
 
   /**
@@ -135,12 +169,15 @@ public class MavenArtifactDownloader {
    *
    * @param pom    The POM to install all artifacts for
    * @param target The repository to install artifacts and POM's into
+   * @return All dependencies which have been resolved, skipped and broken dependencies are not included
    * @throws IOException           If an I/O error occurs while installing artifacts
    * @throws MavenResolveException If a dependency fails to resolve
    */
-  private void installAll(MavenPom pom, SimpleMavenRepository target) throws IOException, MavenResolveException {
+  private Set<MavenDependency> installAll(MavenPom pom, SimpleMavenRepository target)
+      throws IOException, MavenResolveException {
     // Keep track of what should be processed and what has been processed already
     Set<MavenDependency> dependencies = new HashSet<>();
+    Set<MavenDependency> resolved = new HashSet<>();
     Set<MavenDependency> toProcess = new HashSet<>(pom.getDependencies());
 
     // Process until the list to process is empty
@@ -160,11 +197,13 @@ public class MavenArtifactDownloader {
           continue;
         }
 
+        resolved.add(dependency);
+
         // Resolve the local POM path
         Path localPomPath = target.getPomPath(dependency);
 
         // Try to read the POM locally, if it does not exist fall back to reading it online
-        MavenPom dependencyPom = Files.exists(localPomPath) ? PomReader.read(localPomPath) : findPom(dependency);
+        MavenPom dependencyPom = Files.exists(localPomPath) ? pomCache.read(localPomPath) : findPom(dependency);
         if (dependencyPom != null) {
           // A POM file was found, iterate its dependencies
           for (MavenDependency innerDependency : dependencyPom.getDependencies()) {
@@ -187,15 +226,15 @@ public class MavenArtifactDownloader {
           }
         }
 
-        synchronized (target) {
-          // Try to install the dependency locally
-          if (!target.isInstalled(dependency) && !installArtifact(dependency, target) && dependencyPom == null) {
-            // The dependency had no artifact and also no POM
-            throw new MavenResolveException("Could not resolve " + dependency);
-          }
+        // Try to install the dependency locally
+        if (!installIfMissing(dependency, target) && dependencyPom == null) {
+          // The dependency had no artifact and also no POM
+          throw new MavenResolveException("Could not resolve " + dependency);
         }
       }
     }
+
+    return resolved;
   }
 
   /**
@@ -277,9 +316,11 @@ public class MavenArtifactDownloader {
    * @return {@code true} if the artifact has been found and installed, {@code false} otherwise
    * @throws IOException If an I/O error occurs while installing the artifact
    */
-  @SuppressWarnings("BooleanMethodIsAlwaysInverted")
+  @SuppressWarnings({"BooleanMethodIsAlwaysInverted", "try"})
   public synchronized boolean installArtifact(MavenArtifact artifact, SimpleMavenRepository target) throws IOException {
-    try (InputStream stream = findArtifactStream(artifact)) {
+    try (TelemetrySpan ignored =
+             Telemetry.span("maven", "install artifact").attribute("artifact", formatArtifact(artifact));
+         InputStream stream = findArtifactStream(artifact)) {
       // Try to find the given artifact
       if (stream != null) {
         // The artifact has been found, install it
@@ -291,8 +332,13 @@ public class MavenArtifactDownloader {
 
         LOGGER.lifecycle("Installing artifact {}", formatArtifact(artifact));
 
-        // Copy the artifact to the local path
-        Files.copy(stream, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        if(contentStore != null) {
+          // Store the artifact once and link it to the local path
+          contentStore.install(stream, targetPath);
+        } else {
+          // Copy the artifact to the local path
+          Files.copy(stream, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
         return true;
       } else {
         return false;
@@ -300,6 +346,30 @@ public class MavenArtifactDownloader {
     }
   }
 
+  /**
+   * Installs the given artifact into the given repository if it is not installed already. Only installations of the
+   * same artifact exclude each other, both within this daemon and across processes.
+   *
+   * @param artifact The artifact to install
+   * @param target   The repository to install the artifact into
+   * @return {@code true} if the artifact is installed now, {@code false} if it could not be found
+   * @throws IOException If an I/O error occurs while installing the artifact
+   */
+  @SuppressWarnings("try")
+  private boolean installIfMissing(MavenArtifact artifact, SimpleMavenRepository target) throws IOException {
+    if (target.isInstalled(artifact)) {
+      Telemetry.cacheHit("maven-repository");
+      return true;
+    }
+
+    Telemetry.cacheMiss("maven-repository");
+
+    try (StripedFileLocks.Lock ignored = StripedFileLocks.getInstance().acquire(target.getArtifactLockPath(artifact))) {
+      // Check again, another thread or process might have installed it while waiting for the lock
+      return target.isInstalled(artifact) || installArtifact(artifact, target);
+    }
+  }
+
   /**
    * Formats the given artifact as a human readable string.
    *
@@ -22,11 +22,16 @@ package net.flintmc.gradle.maven;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.maven.pom.MavenPom;
 import net.flintmc.gradle.maven.pom.io.PomReader;
+import net.flintmc.gradle.telemetry.Telemetry;
 import net.flintmc.gradle.util.Util;
+import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -36,10 +41,14 @@ import java.util.Objects;
  * Represents a remote maven repository hosted on some server.
  */
 public class RemoteMavenRepository implements ReadableMavenRepository {
+  private static final Logger LOGGER = Logging.getLogger(RemoteMavenRepository.class);
+
   private final OkHttpClient httpClient;
   private final URI baseURI;
-  private final String authenticationHeaderName;
-  private final String authenticationHeaderValue;
+  private final Headers headers;
+
+  // null as long as no HEAD request has been answered
+  private volatile Boolean headSupported;
 
   /**
    * Constructs a new remote maven repository using the given HTTP client and the given base URL.
@@ -50,9 +59,7 @@ public class RemoteMavenRepository implements ReadableMavenRepository {
   public RemoteMavenRepository(OkHttpClient httpClient, URI baseURI) {
     this.httpClient = httpClient;
     this.baseURI = baseURI;
-
-    this.authenticationHeaderName = null;
-    this.authenticationHeaderValue = null;
+    this.headers = Headers.of();
   }
 
   /**
@@ -72,10 +79,10 @@ public class RemoteMavenRepository implements ReadableMavenRepository {
     this.httpClient = httpClient;
     this.baseURI = baseURI;
 
-    this.authenticationHeaderName = Objects.requireNonNull(
-        authenticationHeaderName, "authenticationHeaderName can not be null");
-    this.authenticationHeaderValue = Objects.requireNonNull(
-        authenticationHeaderValue, "authenticationHeaderValue can not be null");
+    // The headers are immutable and shared by all requests
+    this.headers = Headers.of(
+        Objects.requireNonNull(authenticationHeaderName, "authenticationHeaderName can not be null"),
+        Objects.requireNonNull(authenticationHeaderValue, "authenticationHeaderValue can not be null"));
   }
 
   @Override
@@ -94,7 +101,7 @@ public class RemoteMavenRepository implements ReadableMavenRepository {
   public URI getArtifactURI(MavenArtifact artifact) throws IOException {
     URI fullURI = buildURL(buildArtifactPath(artifact, false));
 
-    if (!requestHead(fullURI)) {
+    if (!requestExists(fullURI)) {
       return null;
     }
 
@@ -136,25 +143,27 @@ public class RemoteMavenRepository implements ReadableMavenRepository {
    */
   private InputStream request(URI fullURI) throws IOException {
     // Execute the get request
-    Request.Builder requestBuilder = new Request.Builder()
+    Request request = new Request.Builder()
         .url(fullURI.toURL())
+        .headers(headers)
         .get()
-        .get();
+        .build();
 
-    if (authenticationHeaderName != null) {
-      requestBuilder.header(authenticationHeaderName, authenticationHeaderValue);
-    }
-
-    Response response = httpClient.newCall(requestBuilder.build()).execute();
+    Response response = httpClient.newCall(request).execute();
 
     switch (response.code()) {
-      // 200 - Ok - Return the stream to read from
+      // 200 - Ok - Return the stream to read from, closing it releases the connection
       case 200:
-        return response.body().byteStream();
+        return new FilterInputStream(Telemetry.countDownloaded(response.body().byteStream())) {
+          @Override
+          public void close() {
+            response.close();
+          }
+        };
 
       // 404 - Not Found - Return null since 404 is not a fatal error for a maven repository
       case 404: {
-        response.body().close();
+        response.close();
         return null;
       }
 
@@ -162,7 +171,7 @@ public class RemoteMavenRepository implements ReadableMavenRepository {
       // occur on a maven repository, 3** codes should be handled by the http client and everything else
       // is an error per HTTP definition.
       default: {
-        response.body().close();
+        response.close();
         throw new IOException("Maven repository at " + baseURI + " responded with " +
             response.code() + " (" + response.message() + ")");
       }
@@ -170,39 +179,60 @@ public class RemoteMavenRepository implements ReadableMavenRepository {
   }
 
   /**
-   * Executes a HTTP HEAD request to the given URI.
+   * Checks whether the given URI exists without downloading it. A HEAD request is used as long as the repository
+   * supports them, otherwise a GET request for the first byte only.
    *
-   * @param fullURI The URI to send the request to
+   * @param fullURI The URI to check
    * @return {@code true} if the server returned 200, {@code false} if the server returned 404
    * @throws IOException If an I/O error occurs while communicating with the server
    */
-  private boolean requestHead(URI fullURI) throws IOException {
-    // Execute the get request
-    Request.Builder requestBuilder = new Request.Builder()
-        .url(fullURI.toString());
+  private boolean requestExists(URI fullURI) throws IOException {
+    if (headSupported != Boolean.FALSE) {
+      Boolean exists = requestHead(fullURI);
+      if (exists != null) {
+        headSupported = true;
+        return exists;
+      }
 
-    if (authenticationHeaderName != null) {
-      requestBuilder.header(authenticationHeaderName, authenticationHeaderValue);
+      // Remember that HEAD is not supported, so further checks skip the failing request
+      LOGGER.debug("Maven repository at {} does not support HEAD requests, falling back to ranged GET", baseURI);
+      headSupported = false;
     }
 
-    try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
+    return requestFirstByte(fullURI);
+  }
+
+  /**
+   * Executes a HTTP HEAD request to the given URI.
+   *
+   * @param fullURI The URI to send the request to
+   * @return {@code true} if the server returned 200, {@code false} if the server returned 404, or {@code null} if
+   *     the server does not support HEAD requests
+   * @throws IOException If an I/O error occurs while communicating with the server
+   */
+  private Boolean requestHead(URI fullURI) throws IOException {
+    Request request = new Request.Builder()
+        .url(fullURI.toString())
+        .headers(headers)
+        .head()
+        .build();
+
+    try (Response response = httpClient.newCall(request).execute()) {
       switch (response.code()) {
-        // 200 - Ok - Return the stream to read from
+        // 200 - Ok - The artifact exists
         case 200:
           return true;
 
-        // 404 - Not Found - Return null since 404 is not a fatal error for a maven repository
-        case 404: {
+        // 404 - Not Found - Return false since 404 is not a fatal error for a maven repository
+        case 404:
           return false;
-        }
 
-        // 400 - Bad Request - Some repositories don't implement HEAD requests
-        case 400: {
-          // Fall back to a normal GET request
-          try (InputStream stream = request(fullURI)) {
-            return stream != null;
-          }
-        }
+        // 400 - Bad Request, 405 - Method Not Allowed, 501 - Not Implemented - Some repositories don't implement
+        // HEAD requests
+        case 400:
+        case 405:
+        case 501:
+          return null;
 
         // Every other status code would indicate an error, the 2** codes except 200 itself should never
         // occur on a maven repository, 3** codes should be handled by the http client and everything else
@@ -215,6 +245,45 @@ public class RemoteMavenRepository implements ReadableMavenRepository {
     }
   }
 
+  /**
+   * Executes a HTTP GET request for the first byte of the given URI.
+   *
+   * @param fullURI The URI to send the request to
+   * @return {@code true} if the server returned the content, {@code false} if the server returned 404
+   * @throws IOException If an I/O error occurs while communicating with the server
+   */
+  private boolean requestFirstByte(URI fullURI) throws IOException {
+    Request request = new Request.Builder()
+        .url(fullURI.toString())
+        .headers(headers)
+        .header("Range", "bytes=0-0")
+        .get()
+        .build();
+
+    try (Response response = httpClient.newCall(request).execute()) {
+      switch (response.code()) {
+        // 200 - Ok, 206 - Partial Content - The artifact exists, servers ignoring the range send the full content,
+        // which is discarded when the response is closed
+        case 200:
+        case 206:
+          return true;
+
+        // 416 - Range Not Satisfiable - The artifact exists, but is empty
+        case 416:
+          return true;
+
+        // 404 - Not Found - Return false since 404 is not a fatal error for a maven repository
+        case 404:
+          return false;
+
+        default: {
+          throw new IOException("Maven repository at " + baseURI + " responded with " +
+              response.code() + " (" + response.message() + ")");
+        }
+      }
+    }
+  }
+
   /**
    * Builds the full URL for a given path.
    *
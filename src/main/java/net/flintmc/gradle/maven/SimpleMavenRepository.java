@@ -19,14 +19,16 @@
 
 package net.flintmc.gradle.maven;
 
+import net.flintmc.gradle.maven.cache.PomCache;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.maven.pom.MavenPom;
-import net.flintmc.gradle.maven.pom.io.PomReader;
 import net.flintmc.gradle.maven.pom.io.PomWriter;
+import net.flintmc.gradle.util.Util;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -122,6 +124,18 @@ public class SimpleMavenRepository implements ReadableMavenRepository {
     );
   }
 
+  /**
+   * Retrieves the path of the file locking the installation of an artifact. Lock files are kept in a separate
+   * directory of the repository, named by the hash of the artifact path, so they never end up next to the artifacts.
+   *
+   * @param artifact The artifact to retrieve the lock file for
+   * @return The path to the lock file
+   */
+  public Path getArtifactLockPath(MavenArtifact artifact) {
+    String relativePath = baseDir.relativize(getArtifactPath(artifact)).toString().replace('\\', '/');
+    return baseDir.resolve(".locks").resolve(Util.sha1Hex(relativePath.getBytes(StandardCharsets.UTF_8)) + ".lock");
+  }
+
   /**
    * Retrieves the path for a POM file.
    *
@@ -184,7 +198,7 @@ public class SimpleMavenRepository implements ReadableMavenRepository {
   @Override
   public MavenPom getArtifactPom(MavenArtifact artifact) throws IOException {
     Path pomPath = getPomPath(artifact);
-    return Files.exists(pomPath) ? PomReader.read(pomPath) : null;
+    return PomCache.getInstance().readIfExists(pomPath);
   }
 
   @Override
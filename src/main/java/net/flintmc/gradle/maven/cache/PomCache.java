@@ -0,0 +1,126 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.maven.cache;
+
+import net.flintmc.gradle.maven.pom.MavenPom;
+import net.flintmc.gradle.maven.pom.io.PomReader;
+import net.flintmc.gradle.telemetry.Telemetry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of parsed POM files. The cache is shared by all builds running in the same gradle daemon, entries are
+ * keyed by the path of the POM and invalidated as soon as its size or modification time changes.
+ */
+public class PomCache {
+  private static final int DEFAULT_MAXIMUM_SIZE = 4096;
+  private static final PomCache INSTANCE = new PomCache(DEFAULT_MAXIMUM_SIZE);
+
+  private final Map<Path, CachedPom> entries;
+
+  /**
+   * Constructs a new {@link PomCache}.
+   *
+   * @param maximumSize The maximum amount of POM's to keep, the least recently used ones are evicted first
+   */
+  public PomCache(int maximumSize) {
+    this.entries = new LinkedHashMap<Path, CachedPom>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Path, CachedPom> eldest) {
+        return size() > maximumSize;
+      }
+    };
+  }
+
+  /**
+   * Retrieves the cache shared by the entire daemon.
+   *
+   * @return The shared cache
+   */
+  public static PomCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Reads the POM at the given path, or retrieves it from the cache if the file has not changed since it has been
+   * read the last time.
+   *
+   * @param path The path of the POM to read
+   * @return The read POM, may be modified freely by the caller
+   * @throws IOException If an I/O error occurs while reading the POM or if it can't be parsed
+   */
+  public MavenPom read(Path path) throws IOException {
+    Path key = path.toAbsolutePath();
+    BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    long lastModified = attributes.lastModifiedTime().toMillis();
+
+    CachedPom entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+
+    if (entry == null || entry.size != attributes.size() || entry.lastModified != lastModified) {
+      // Not cached yet or the file has changed
+      Telemetry.cacheMiss("pom");
+      entry = new CachedPom(attributes.size(), lastModified, PomReader.read(key));
+
+      synchronized (entries) {
+        entries.put(key, entry);
+      }
+    } else {
+      Telemetry.cacheHit("pom");
+    }
+
+    // Hand out a copy, the cached POM must not be modified
+    return new MavenPom(entry.pom);
+  }
+
+  /**
+   * Reads the POM at the given path if it exists.
+   *
+   * @param path The path of the POM to read
+   * @return The read POM, or {@code null}, if the file does not exist
+   * @throws IOException If an I/O error occurs while reading the POM or if it can't be parsed
+   * @see #read(Path)
+   */
+  public MavenPom readIfExists(Path path) throws IOException {
+    return Files.exists(path) ? read(path) : null;
+  }
+
+  /**
+   * Parsed POM together with the attributes of the file it has been read from.
+   */
+  private static class CachedPom {
+    private final long size;
+    private final long lastModified;
+    private final MavenPom pom;
+
+    private CachedPom(long size, long lastModified, MavenPom pom) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.pom = pom;
+    }
+  }
+}
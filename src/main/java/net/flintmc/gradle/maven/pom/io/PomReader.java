@@ -22,17 +22,32 @@ package net.flintmc.gradle.maven.pom.io;
 import net.flintmc.gradle.maven.pom.MavenDependency;
 import net.flintmc.gradle.maven.pom.MavenDependencyScope;
 import net.flintmc.gradle.maven.pom.MavenPom;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Streaming reader for maven POM's. Only the coordinates and the dependencies are read, no document tree is built.
+ */
 public class PomReader {
+  private static final XMLInputFactory INPUT_FACTORY;
+
+  static {
+    INPUT_FACTORY = XMLInputFactory.newInstance();
+    INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
   /**
    * Reads a maven POM from the given path.
    *
@@ -54,61 +69,167 @@ public class PomReader {
    * @throws IOException If an I/O exception occurs while reading the POM or if it can't be parsed
    */
   public static MavenPom read(InputStream source) throws IOException {
-    Document document = PomIO.createXmlDocument(source);
-
-    // Get the top level attributes
-    Element root = document.getDocumentElement();
-    MavenPom pom = new MavenPom(
-        readSingleText(root, "groupId"),
-        readSingleText(root, "artifactId"),
-        readSingleText(root, "version")
-    );
+    try {
+      XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(source);
+      try {
+        return read(reader);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Failed to parse XML", e);
+    }
+  }
 
-    NodeList nodes = root.getElementsByTagName("dependency");
-    if (nodes != null && nodes.getLength() > 0) {
-      // Dependencies found, iterate them
-      for (int i = 0; i < nodes.getLength(); i++) {
-        Node dependencyNode = nodes.item(i);
+  /**
+   * Reads a maven POM from the given XML reader.
+   *
+   * @param reader The reader to read the POM from
+   * @return The read POM
+   * @throws XMLStreamException If the POM can't be parsed
+   */
+  private static MavenPom read(XMLStreamReader reader) throws XMLStreamException {
+    // Coordinates of the project itself and of its parent, which supplies them if missing
+    Map<String, String> coordinates = new HashMap<>();
+    Map<String, String> parentCoordinates = new HashMap<>();
+    Map<String, String> dependencyValues = new HashMap<>();
+
+    // Maven does not require any element order, so the POM is only created once the whole document has been read
+    List<MavenDependency> dependencies = new ArrayList<>();
+    String parentElement = null;
+    int depth = 0;
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+        continue;
+      } else if (event != XMLStreamConstants.START_ELEMENT) {
+        continue;
+      }
 
-        if (dependencyNode.getNodeType() != Node.ELEMENT_NODE) {
-          // Dependencies are always nodes, if not the POM is malformed
-          throw new IllegalStateException("Expected dependency node to be an element");
-        }
+      String name = reader.getLocalName();
+      if (depth == 1 && isCoordinate(name)) {
+        // Direct child of the project
+        coordinates.put(name, readText(reader));
+        continue;
+      } else if (depth == 2 && "parent".equals(parentElement) && isCoordinate(name)) {
+        parentCoordinates.put(name, readText(reader));
+        continue;
+      } else if (name.equals("dependency")) {
+        // Dependencies are collected wherever they appear, the same as the document based reader did
+        dependencyValues.clear();
+        readChildren(reader, dependencyValues);
+        dependencies.add(new MavenDependency(
+            dependencyValues.get("groupId"),
+            dependencyValues.get("artifactId"),
+            dependencyValues.get("version"),
+            dependencyValues.get("classifier"),
+            dependencyValues.get("type"),
+            stringToScope(dependencyValues.get("scope")),
+            Boolean.parseBoolean(dependencyValues.get("optional"))
+        ));
+        continue;
+      }
 
-        // Construct the dependency
-        Element dependencyElement = (Element) dependencyNode;
-        MavenDependency dependency = new MavenDependency(
-            readSingleText(dependencyElement, "groupId"),
-            readSingleText(dependencyElement, "artifactId"),
-            readSingleText(dependencyElement, "version"),
-            readSingleText(dependencyElement, "classifier"),
-            readSingleText(dependencyElement, "type"),
-            stringToScope(readSingleText(dependencyElement, "scope")),
-            Boolean.parseBoolean(readSingleText(dependencyElement, "optional"))
-        );
-
-        // Add the constructed dependency to the final POM
-        pom.addDependency(dependency);
+      if (depth == 1) {
+        parentElement = name;
       }
+
+      depth++;
     }
 
+    MavenPom pom = createPom(coordinates, parentCoordinates);
+    pom.addDependencies(dependencies);
     return pom;
   }
 
   /**
-   * Reads the next tag content from the given tag from the given parent.
+   * Creates the POM from the read coordinates.
+   *
+   * @param coordinates       The coordinates of the project
+   * @param parentCoordinates The coordinates of the parent project
+   * @return The created POM
+   */
+  private static MavenPom createPom(Map<String, String> coordinates, Map<String, String> parentCoordinates) {
+    return new MavenPom(
+        coordinates.getOrDefault("groupId", parentCoordinates.get("groupId")),
+        coordinates.get("artifactId"),
+        coordinates.getOrDefault("version", parentCoordinates.get("version"))
+    );
+  }
+
+  /**
+   * Determines whether the given element name is one of the coordinates of a project.
+   *
+   * @param name The name of the element
+   * @return {@code true} if the element is a coordinate, {@code false} otherwise
+   */
+  private static boolean isCoordinate(String name) {
+    return name.equals("groupId") || name.equals("artifactId") || name.equals("version");
+  }
+
+  /**
+   * Reads the text of all direct children of the current element, nested elements are skipped. The reader is
+   * positioned at the end of the current element afterwards.
+   *
+   * @param reader The reader positioned at the start of the element
+   * @param out    The map to store the text of the children in
+   * @throws XMLStreamException If the element can't be parsed
+   */
+  private static void readChildren(XMLStreamReader reader, Map<String, String> out) throws XMLStreamException {
+    int depth = 0;
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        if (depth == 0) {
+          String name = reader.getLocalName();
+          out.putIfAbsent(name, readText(reader));
+        } else {
+          depth++;
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        if (depth == 0) {
+          return;
+        }
+
+        depth--;
+      }
+    }
+  }
+
+  /**
+   * Reads the text of the current element, the text of nested elements is skipped. The reader is positioned at the
+   * end of the current element afterwards.
    *
-   * @param parent  The parent to find the next tag from
-   * @param tagName The name of the next tag to find
-   * @return The content of the tag, or {@code null} if no matching tag was found
+   * @param reader The reader positioned at the start of the element
+   * @return The trimmed text of the element
+   * @throws XMLStreamException If the element can't be parsed
    */
-  private static String readSingleText(Element parent, String tagName) {
-    NodeList elements = parent.getElementsByTagName(tagName);
-    if (elements.getLength() < 1) {
-      return null;
+  private static String readText(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    int depth = 0;
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        if (depth == 0) {
+          break;
+        }
+
+        depth--;
+      } else if (depth == 0 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+        text.append(reader.getText());
+      }
     }
 
-    return elements.item(0).getTextContent();
+    return text.toString().trim();
   }
 
   /**
@@ -19,12 +19,19 @@
 
 package net.flintmc.gradle.minecraft;
 
+import com.fasterxml.jackson.databind.JavaType;
 import net.flintmc.gradle.FlintGradleException;
+import net.flintmc.gradle.FlintGradlePlugin;
+import net.flintmc.gradle.io.ContentStore;
+import net.flintmc.gradle.io.FileStampIndex;
+import net.flintmc.gradle.io.HashAlgorithm;
+import net.flintmc.gradle.io.HashingService;
 import net.flintmc.gradle.json.JsonConverter;
 import net.flintmc.gradle.manifest.dev.DevelopmentStaticFiles;
+import net.flintmc.gradle.property.FlintPluginProperties;
 import net.flintmc.gradle.util.MaybeNull;
+import net.flintmc.gradle.util.Parallel;
 import net.flintmc.gradle.util.Util;
-import net.flintmc.gradle.util.resource.ResourceFinder;
 import net.flintmc.gradle.util.resource.ResourceLoader;
 import net.flintmc.installer.impl.repository.models.PackageModel;
 import net.flintmc.installer.impl.repository.models.install.InstallInstructionModel;
@@ -32,6 +39,7 @@ import net.flintmc.installer.impl.repository.models.install.InstallInstructionTy
 import net.flintmc.installer.impl.repository.models.install.data.DownloadFileDataModel;
 import okhttp3.OkHttpClient;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.credentials.HttpHeaderCredentials;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
@@ -42,15 +50,22 @@ import java.io.*;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * Task for downloading and installing static files.
  */
 public class InstallStaticFilesTask extends DefaultTask {
+  private static final JavaType INSTRUCTION_LIST_TYPE = JsonConverter.OBJECT_MAPPER.getTypeFactory()
+      .constructCollectionType(List.class, StaticFileInstruction.class);
+
   private final OkHttpClient httpClient;
   private final PotentialMinecraftClasspath potentialClasspath;
   private final String minecraftVersion;
@@ -79,6 +94,9 @@ public class InstallStaticFilesTask extends DefaultTask {
 
   private Set<File> classpath;
   private Map<File, StaticFileSource> sources;
+  private ContentStore contentStore;
+  private URI distributorURI;
+  private HttpHeaderCredentials distributorCredentials;
 
   /**
    * Retrieves the minecraft version this task is collecting static files for.
@@ -112,52 +130,97 @@ public class InstallStaticFilesTask extends DefaultTask {
       return;
     }
 
-    // Set up a search for the entire classpath
-    ResourceLoader loader = new ResourceLoader(getClasspath());
-    ResourceFinder finder = loader.findAll("manifest.json");
-
-    Set<PackageModel> manifests = new HashSet<>();
+    // Load the results of previous scans, only jars which changed since need to be opened again
+    FileStampIndex manifestIndex = FileStampIndex.load(
+        new File(Util.getProjectCacheDir(getProject()), "static-files/manifests.index").toPath());
 
-    while(true) {
-      try(InputStream stream = finder.streamNext()) {
-        if(stream == null) {
-          // No further streams found
-          break;
-        }
+    Set<StaticFileInstruction> instructions = new HashSet<>();
 
-        // Deserialize the stream into a package model
-        manifests.add(JsonConverter.PACKAGE_MODEL_SERIALIZER.fromString(
-            Util.readAll(stream), PackageModel.class
-        ));
+    // Search the entire classpath
+    for(File file : getClasspath()) {
+      try {
+        instructions.addAll(scanManifest(file, manifestIndex));
       } catch(IOException e) {
         throw new FlintGradleException("Failed to load manifests from classpath", e);
       }
     }
 
+    try {
+      manifestIndex.save();
+    } catch(IOException e) {
+      getLogger().warn("Failed to save manifest index", e);
+    }
+
     sources = new HashMap<>();
-    // Index all manifests
-    for(PackageModel manifest : manifests) {
-      for(InstallInstructionModel installInstruction : manifest.getInstallInstructions()) {
-        // Filter for DOWNLOAD_FILE instructions
-        if(installInstruction.getType().equals(InstallInstructionTypes.DOWNLOAD_FILE.toString())) {
-          // Try to retrieve a development environment override
-          DownloadFileDataModel data = installInstruction.getData();
-          File localFile = DevelopmentStaticFiles.getFor(
-              manifest.getGroup(), manifest.getName(), manifest.getVersion(), data.getPath());
-
-          // Compute where the file should be
-          File target = new File(workingDir, data.getPath());
-
-          if(localFile != null) {
-            // There is an override available
-            sources.put(target, new LocalSource(localFile));
-          } else {
-            // No override available, download
-            sources.put(target, new RemoteSource(data));
+    // Index all instructions
+    for(StaticFileInstruction instruction : instructions) {
+      // Try to retrieve a development environment override
+      File localFile = DevelopmentStaticFiles.getFor(
+          instruction.getGroup(), instruction.getName(), instruction.getVersion(), instruction.getPath());
+
+      // Compute where the file should be
+      File target = new File(workingDir, instruction.getPath());
+
+      if(localFile != null) {
+        // There is an override available
+        sources.put(target, new LocalSource(localFile));
+      } else {
+        // No override available, download
+        sources.put(target, new RemoteSource(instruction));
+      }
+    }
+  }
+
+  /**
+   * Collects the static file instructions of the manifest contained in the given classpath entry.
+   *
+   * @param file          The classpath entry to search for a manifest
+   * @param manifestIndex The index to look up and record the results of jar scans in
+   * @return The static file instructions of the manifest, empty if there is no manifest
+   * @throws IOException If an I/O error occurs while reading the manifest
+   */
+  private List<StaticFileInstruction> scanManifest(File file, FileStampIndex manifestIndex) throws IOException {
+    // Directories may change without their stamp changing, only jars can be indexed
+    boolean indexable = file.isFile();
+    if(indexable) {
+      String indexed = manifestIndex.get(file);
+      if(indexed != null) {
+        // The jar has not changed since it has been scanned the last time
+        return JsonConverter.OBJECT_MAPPER.readValue(indexed, INSTRUCTION_LIST_TYPE);
+      }
+    }
+
+    List<StaticFileInstruction> instructions = new ArrayList<>();
+
+    try(InputStream stream = new ResourceLoader(Collections.singleton(file)).findAll("manifest.json").streamNext()) {
+      if(stream != null) {
+        // Deserialize the stream into a package model
+        PackageModel manifest = JsonConverter.PACKAGE_MODEL_SERIALIZER.fromString(
+            Util.readAll(stream), PackageModel.class
+        );
+
+        for(InstallInstructionModel installInstruction : manifest.getInstallInstructions()) {
+          // Filter for DOWNLOAD_FILE instructions
+          if(installInstruction.getType().equals(InstallInstructionTypes.DOWNLOAD_FILE.toString())) {
+            DownloadFileDataModel data = installInstruction.getData();
+            instructions.add(new StaticFileInstruction(
+                manifest.getGroup(),
+                manifest.getName(),
+                manifest.getVersion(),
+                data.getPath(),
+                data.getUrl(),
+                data.getMd5()
+            ));
           }
         }
       }
     }
+
+    if(indexable) {
+      manifestIndex.put(file, JsonConverter.OBJECT_MAPPER.writeValueAsString(instructions));
+    }
+
+    return instructions;
   }
 
   /**
@@ -166,15 +229,32 @@ public class InstallStaticFilesTask extends DefaultTask {
   @TaskAction
   public void performInstall() {
     compute();
-    for(Map.Entry<File, StaticFileSource> entry : sources.entrySet()) {
-      File target = entry.getKey();
-      StaticFileSource source = entry.getValue();
+    contentStore = getProject().getPlugins().getPlugin(FlintGradlePlugin.class).getContentStore();
 
-      // Install the file
+    if(httpClient != null) {
+      // The downloads run on threads not managed by gradle, so they must not access the project themselves
+      distributorURI = FlintPluginProperties.DISTRIBUTOR_URL.resolve(getProject());
+      distributorCredentials = Util.getDistributorCredentials(getProject(), false);
+    }
+
+    // Load the stamps of the previous install, unchanged files don't need to be checked again
+    FileStampIndex stamps = FileStampIndex.load(
+        new File(Util.getProjectCacheDir(getProject()), "static-files/" + getName() + ".index").toPath());
+
+    try {
+      // Install the files, remote sources are downloaded concurrently
+      Parallel.forEach(
+          sources.entrySet(),
+          Parallel.NETWORK_PARALLELISM,
+          (entry) -> entry.getValue().install(entry.getKey(), stamps)
+      );
+    } catch(IOException e) {
+      throw new FlintGradleException("Failed to install static files", e);
+    } finally {
       try {
-        source.install(target);
+        stamps.save();
       } catch(IOException e) {
-        throw new FlintGradleException("Failed to install static files", e);
+        getLogger().warn("Failed to save static file stamps", e);
       }
     }
   }
@@ -187,9 +267,10 @@ public class InstallStaticFilesTask extends DefaultTask {
      * Installs the file given from this source to the given target file.
      *
      * @param target The file to install the source file to
+     * @param stamps The index to record and look up the state of installed files in
      * @throws IOException If an I/O error occurs
      */
-    void install(File target) throws IOException;
+    void install(File target, FileStampIndex stamps) throws IOException;
 
     /**
      * Retrieves the dependency used by gradle for up-to-date checks.
@@ -216,18 +297,21 @@ public class InstallStaticFilesTask extends DefaultTask {
     }
 
     @Override
-    public void install(File target) throws IOException {
+    public void install(File target, FileStampIndex stamps) throws IOException {
+      String sourceState = FileStampIndex.describe(source);
+      if(sourceState != null && sourceState.equals(stamps.get(target))) {
+        // Neither the source nor the target changed since the last copy
+        return;
+      }
+
       if(!target.getParentFile().isDirectory() && !target.getParentFile().mkdirs()) {
         throw new IOException("Failed to create directory " + target.getParentFile().getAbsolutePath());
       }
 
-      // Simply copy the file
-      try(
-          FileInputStream in = new FileInputStream(source);
-          FileOutputStream out = new FileOutputStream(target)
-      ) {
-        Util.copyStream(in, out);
-      }
+      // Simply copy the file, replacing the target instead of writing into it, as it may be linked to the content store
+      Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+      stamps.put(target, sourceState);
     }
 
     @InputFile
@@ -241,29 +325,42 @@ public class InstallStaticFilesTask extends DefaultTask {
    * Source for static files which will be downloaded from a server.
    */
   public class RemoteSource implements StaticFileSource {
-    private final DownloadFileDataModel model;
+    private final StaticFileInstruction model;
 
     /**
      * Constructs a new {@link RemoteSource} for the given model.
      *
-     * @param model The data model containing relevant information
+     * @param model The instruction containing relevant information
      */
-    private RemoteSource(DownloadFileDataModel model) {
+    private RemoteSource(StaticFileInstruction model) {
       this.model = model;
     }
 
     @Override
-    public void install(File target) throws IOException {
+    public void install(File target, FileStampIndex stamps) throws IOException {
+      if(model.getMd5().equalsIgnoreCase(stamps.get(target))) {
+        // The file has been verified before and not changed since
+        return;
+      }
+
       String localMD5 = null;
       if(target.isFile()) {
         // File exists, check MD5
-        localMD5 = Util.md5Hex(Files.readAllBytes(target.toPath()));
-        if(localMD5.equals(model.getMd5())) {
+        localMD5 = md5(target);
+        if(localMD5.equalsIgnoreCase(model.getMd5())) {
           // MD5 matches, skip download
+          stamps.put(target, localMD5);
           return;
         }
       }
 
+      // Static files may be edited in the run directory, so they are never linked to the content store
+      if(contentStore.materialize(HashAlgorithm.MD5, model.getMd5(), target.toPath(), false)) {
+        // The file has been downloaded already for another target
+        stamps.put(target, model.getMd5());
+        return;
+      }
+
       if(httpClient == null) {
         String errorMessage = target.isFile() ?
             "the md5 checksums " + localMD5 + " of the static file " + model.getPath() + " (" + target.getAbsolutePath()
@@ -276,11 +373,29 @@ public class InstallStaticFilesTask extends DefaultTask {
 
       try {
         // MD5 mismatch or the file does not exist, download it
-        Util.download(
-            httpClient, URI.create(model.getUrl()), target.toPath(), getProject(), StandardCopyOption.REPLACE_EXISTING);
+        try(InputStream stream = Util.getURLStream(
+            httpClient, URI.create(model.getUrl()), distributorURI, distributorCredentials)) {
+          contentStore.install(stream, target.toPath(), false);
+        }
       } catch(IOException e) {
         throw new IOException("Failed to download file from " + model.getUrl() + " to " + target.toPath(), e);
       }
+
+      // Record the real checksum, a mismatch causes the file to be checked again next time
+      stamps.put(target, md5(target));
+    }
+
+    /**
+     * Computes the MD5 checksum of the given file.
+     *
+     * @param file The file to hash
+     * @return The hex encoded MD5 checksum of the file
+     * @throws IOException If an I/O error occurs while reading the file
+     */
+    private String md5(File file) throws IOException {
+      try(InputStream in = new FileInputStream(file)) {
+        return HashingService.digest(in, HashAlgorithm.MD5);
+      }
     }
 
     @Input
@@ -289,4 +404,83 @@ public class InstallStaticFilesTask extends DefaultTask {
       return URI.create(model.getUrl());
     }
   }
+
+  /**
+   * Static file download instruction extracted from a package manifest.
+   */
+  public static class StaticFileInstruction {
+    private String group;
+    private String name;
+    private String version;
+    private String path;
+    private String url;
+    private String md5;
+
+    /**
+     * Constructs a new, empty {@link StaticFileInstruction}, used for deserialization.
+     */
+    public StaticFileInstruction() {
+    }
+
+    /**
+     * Constructs a new {@link StaticFileInstruction}.
+     *
+     * @param group   The group of the package declaring the file
+     * @param name    The name of the package declaring the file
+     * @param version The version of the package declaring the file
+     * @param path    The path of the file relative to the working directory
+     * @param url     The URL to download the file from
+     * @param md5     The expected MD5 checksum of the file
+     */
+    public StaticFileInstruction(String group, String name, String version, String path, String url, String md5) {
+      this.group = group;
+      this.name = name;
+      this.version = version;
+      this.path = path;
+      this.url = url;
+      this.md5 = md5;
+    }
+
+    public String getGroup() {
+      return group;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getVersion() {
+      return version;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public String getUrl() {
+      return url;
+    }
+
+    public String getMd5() {
+      return md5;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(this == o) return true;
+      if(o == null || getClass() != o.getClass()) return false;
+      StaticFileInstruction that = (StaticFileInstruction) o;
+      return Objects.equals(group, that.group) &&
+          Objects.equals(name, that.name) &&
+          Objects.equals(version, that.version) &&
+          Objects.equals(path, that.path) &&
+          Objects.equals(url, that.url) &&
+          Objects.equals(md5, that.md5);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(group, name, version, path, url, md5);
+    }
+  }
 }
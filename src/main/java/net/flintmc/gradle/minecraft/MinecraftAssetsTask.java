@@ -21,9 +21,14 @@ package net.flintmc.gradle.minecraft;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import net.flintmc.gradle.FlintGradlePlugin;
+import net.flintmc.gradle.io.ContentStore;
+import net.flintmc.gradle.io.HashAlgorithm;
 import net.flintmc.gradle.json.JsonConverter;
 import net.flintmc.gradle.minecraft.data.version.AssetIndex;
 import net.flintmc.gradle.minecraft.data.version.VersionManifest;
+import net.flintmc.gradle.property.FlintPluginProperties;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
 import net.flintmc.gradle.util.Util;
 import okhttp3.OkHttpClient;
 import org.gradle.api.DefaultTask;
@@ -42,7 +47,6 @@ import java.util.Iterator;
  */
 @CacheableTask
 public class MinecraftAssetsTask extends DefaultTask {
-  private static final URI ASSET_BASE_URL = URI.create("https://resources.download.minecraft.net");
 
   private VersionManifest manifest;
   private Path directory;
@@ -71,6 +75,7 @@ public class MinecraftAssetsTask extends DefaultTask {
    * @throws IOException If an I/O error occurs while downloading
    */
   @TaskAction
+  @SuppressWarnings("try")
   public void run() throws IOException {
     // Validate state
     if (manifest == null) {
@@ -84,7 +89,10 @@ public class MinecraftAssetsTask extends DefaultTask {
 
     // Calculate the target path of the index json
     Path indexFile = directory.resolve("indexes").resolve(index.getId() + ".json");
-    OkHttpClient httpClient = getProject().getPlugins().getPlugin(FlintGradlePlugin.class).getHttpClient();
+    FlintGradlePlugin plugin = getProject().getPlugins().getPlugin(FlintGradlePlugin.class);
+    OkHttpClient httpClient = plugin.getHttpClient();
+    ContentStore contentStore = plugin.getContentStore();
+    URI assetBaseURI = FlintPluginProperties.MINECRAFT_ASSETS_URL.resolve(getProject());
 
     if (!Files.exists(indexFile)) {
       // The asset index file has not been downloaded yet, do so now
@@ -115,10 +123,14 @@ public class MinecraftAssetsTask extends DefaultTask {
       String assetPath = hash.substring(0, 2) + "/" + hash;
 
       Path assetTargetPath = objectsDir.resolve(assetPath);
-      if (!Files.isRegularFile(assetTargetPath)) {
+      if (!Files.isRegularFile(assetTargetPath)
+          && !contentStore.materialize(HashAlgorithm.SHA1, hash, assetTargetPath)) {
         // The asset does not exist yet, download it
         getLogger().lifecycle("Downloading asset {} ({})", objectName, assetPath);
-        Util.download(httpClient, Util.concatURI(ASSET_BASE_URL, assetPath), assetTargetPath);
+        try (TelemetrySpan ignored = Telemetry.span("minecraft", "download asset").attribute("hash", hash);
+            InputStream stream = Util.getURLStream(httpClient, Util.concatURI(assetBaseURI, assetPath))) {
+          contentStore.install(stream, assetTargetPath);
+        }
       }
     }
   }
@@ -19,14 +19,18 @@
 
 package net.flintmc.gradle.minecraft;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.FileAlreadyExistsException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -35,6 +39,9 @@ import net.flintmc.gradle.environment.DeobfuscationEnvironment;
 import net.flintmc.gradle.environment.DeobfuscationException;
 import net.flintmc.gradle.environment.DeobfuscationUtilities;
 import net.flintmc.gradle.environment.EnvironmentCacheFileProvider;
+import net.flintmc.gradle.io.ArchiveHelper;
+import net.flintmc.gradle.io.ContentStore;
+import net.flintmc.gradle.io.HashAlgorithm;
 import net.flintmc.gradle.io.TimeStampedFile;
 import net.flintmc.gradle.java.compile.JavaCompileHelper;
 import net.flintmc.gradle.java.exec.JavaExecutionHelper;
@@ -43,11 +50,11 @@ import net.flintmc.gradle.json.JsonConverterException;
 import net.flintmc.gradle.maven.MavenArtifactDownloader;
 import net.flintmc.gradle.maven.MavenResolveException;
 import net.flintmc.gradle.maven.SimpleMavenRepository;
+import net.flintmc.gradle.maven.cache.PomCache;
 import net.flintmc.gradle.maven.pom.MavenArtifact;
 import net.flintmc.gradle.maven.pom.MavenDependency;
 import net.flintmc.gradle.maven.pom.MavenDependencyScope;
 import net.flintmc.gradle.maven.pom.MavenPom;
-import net.flintmc.gradle.maven.pom.io.PomReader;
 import net.flintmc.gradle.minecraft.data.environment.EnvironmentInput;
 import net.flintmc.gradle.minecraft.data.environment.EnvironmentType;
 import net.flintmc.gradle.minecraft.data.manifest.MinecraftManifestVersion;
@@ -55,6 +62,9 @@ import net.flintmc.gradle.minecraft.data.manifest.VersionsManifest;
 import net.flintmc.gradle.minecraft.data.version.VersionManifest;
 import net.flintmc.gradle.minecraft.data.version.VersionedDownload;
 import net.flintmc.gradle.minecraft.data.version.VersionedLibrary;
+import net.flintmc.gradle.telemetry.Telemetry;
+import net.flintmc.gradle.telemetry.TelemetrySpan;
+import net.flintmc.gradle.util.Pair;
 import net.flintmc.gradle.util.RuleChainResolver;
 import net.flintmc.gradle.util.Util;
 import okhttp3.OkHttpClient;
@@ -64,14 +74,11 @@ import org.gradle.api.logging.Logging;
 
 public class MinecraftRepository extends SimpleMavenRepository {
   private static final Logger LOGGER = Logging.getLogger(MinecraftRepository.class);
-  private static final String VERSION_MANIFEST_URL =
-      "https://launchermeta.mojang.com/mc/game/version_manifest.json";
-  private static final String MAPPINGS_URL = "https://dl.labymod.net/mappings/index_new.json";
-
   private static final DateTimeFormatter DATE_TIME_FORMATTER =
       DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
 
   private final OkHttpClient httpClient;
+  private final ContentStore contentStore;
 
   private final TimeStampedFile versionManifestFile;
   private final TimeStampedFile mappingsDefinitionFile;
@@ -88,12 +95,22 @@ public class MinecraftRepository extends SimpleMavenRepository {
    * @param repoBase The base directory of the repository
    * @param cacheDir The directory to keep temporary files in
    * @param httpClient The HTTP client to use
+   * @param contentStore The store to install downloaded jars through
+   * @param versionManifestURI The URI to download the minecraft version manifest from
+   * @param mappingsURI The URI to download the mappings definition index from
    * @throws IOException If an I/O error occurs while creating the directory
    */
-  public MinecraftRepository(Path repoBase, Path cacheDir, OkHttpClient httpClient)
+  public MinecraftRepository(
+      Path repoBase,
+      Path cacheDir,
+      OkHttpClient httpClient,
+      ContentStore contentStore,
+      URI versionManifestURI,
+      URI mappingsURI)
       throws IOException {
     super(repoBase);
     this.httpClient = httpClient;
+    this.contentStore = contentStore;
 
     this.versionManifestFile = new TimeStampedFile(cacheDir.resolve("version-manifest.json"));
     this.mappingsDefinitionFile = new TimeStampedFile(cacheDir.resolve("mappings.json"));
@@ -107,8 +124,9 @@ public class MinecraftRepository extends SimpleMavenRepository {
     }
 
     if (httpClient != null) {
-      this.versionManifestFile.update(httpClient, VERSION_MANIFEST_URL, DATE_TIME_FORMATTER);
-      this.mappingsDefinitionFile.update(httpClient, MAPPINGS_URL, DATE_TIME_FORMATTER);
+      this.versionManifestFile.update(
+          httpClient, versionManifestURI.toString(), DATE_TIME_FORMATTER);
+      this.mappingsDefinitionFile.update(httpClient, mappingsURI.toString(), DATE_TIME_FORMATTER);
     } else {
       if (!Files.isRegularFile(versionManifestFile.toPath())) {
         throw new FlintGradleException(
@@ -187,6 +205,7 @@ public class MinecraftRepository extends SimpleMavenRepository {
    * @throws IllegalArgumentException If the given minecraft version does not exist
    * @throws IOException If an I/O error occurs
    */
+  @SuppressWarnings("try")
   public void install(
       String version,
       DeobfuscationEnvironment environment,
@@ -194,6 +213,43 @@ public class MinecraftRepository extends SimpleMavenRepository {
       MavenArtifactDownloader downloader,
       Project project)
       throws IOException {
+    Pair<MavenPom, MavenPom> jars = installArtifacts(version, internalRepository, downloader);
+    MavenPom clientJar = jars.getFirst();
+    MavenPom serverJar = jars.getSecond();
+
+    try (TelemetrySpan ignored =
+        Telemetry.span("deobfuscation", environment.name()).attribute("version", version)) {
+      environment.runDeobfuscation(
+          clientJar,
+          serverJar,
+          new DeobfuscationUtilities(
+              downloader,
+              this,
+              internalRepository,
+              httpClient,
+              new EnvironmentCacheFileProvider(environmentBasePath.resolve(environment.name())),
+              new JavaExecutionHelper(project),
+              new JavaCompileHelper()));
+    } catch (DeobfuscationException e) {
+      throw new FlintGradleException("Failed to deobfuscate " + version, e);
+    }
+  }
+
+  /**
+   * Installs the obfuscated client and server jars of the given minecraft version including the
+   * client libraries, without running any deobfuscation.
+   *
+   * @param version The version to install
+   * @param internalRepository The repository to use for storing the client libraries
+   * @param downloader The downloader to use for installing the client libraries
+   * @return A pair of the client and the server POM, either of them may be {@code null} if the
+   *     version does not provide the variant
+   * @throws IllegalArgumentException If the given minecraft version does not exist
+   * @throws IOException If an I/O error occurs
+   */
+  public Pair<MavenPom, MavenPom> installArtifacts(
+      String version, SimpleMavenRepository internalRepository, MavenArtifactDownloader downloader)
+      throws IOException {
     MinecraftManifestVersion manifestVersion = null;
 
     for (MinecraftManifestVersion availableVersion : manifest.getVersions()) {
@@ -234,23 +290,10 @@ public class MinecraftRepository extends SimpleMavenRepository {
       throw new FlintGradleException("Could not download client nor server jar");
     }
 
-    try {
-      environment.runDeobfuscation(
-          clientJar,
-          serverJar,
-          new DeobfuscationUtilities(
-              downloader,
-              this,
-              internalRepository,
-              httpClient,
-              new EnvironmentCacheFileProvider(environmentBasePath.resolve(environment.name())),
-              new JavaExecutionHelper(project),
-              new JavaCompileHelper(project)));
-    } catch (DeobfuscationException e) {
-      throw new FlintGradleException("Failed to deobfuscate " + version, e);
-    }
+    return new Pair<>(clientJar, serverJar);
   }
 
+  @SuppressWarnings("try")
   private MavenPom installVariantIfExist(
       VersionManifest manifest,
       String variant,
@@ -265,24 +308,57 @@ public class MinecraftRepository extends SimpleMavenRepository {
     }
 
     Path targetPath = getArtifactPath("net.minecraft", variant, manifest.getId());
-    if (!Files.exists(targetPath)) {
+    if (!Files.exists(targetPath)
+        && !contentStore.materialize(HashAlgorithm.SHA1, download.getSha1(), targetPath)) {
+      if (httpClient == null) {
+        throw new FlintGradleException(
+            "Minecraft "
+                + variant
+                + " "
+                + manifest.getId()
+                + " is missing and can't be downloaded due to gradle operating in offline mode");
+      }
+
       LOGGER.lifecycle("Downloading minecraft {} {}", variant, manifest.getId());
-      Util.download(httpClient, download.getUrl(), targetPath);
+      try (TelemetrySpan ignored = Telemetry.span("minecraft", "download " + variant);
+          InputStream stream = Util.getURLStream(httpClient, download.getUrl())) {
+        contentStore.install(stream, targetPath);
+      }
     }
 
     MavenPom pom = createPom(manifest, variant, includeDependencies);
 
     // If dependencies should be included install them into the internal repository
     if (includeDependencies) {
+      // Get a natives directory to extract the natives libraries.
+      Path nativeDirectory = runDir.resolve("natives").resolve(manifest.getId());
+
+      // The snapshot of the resolved libraries lives next to the version JSON
+      Path graphFile = versionsDir.resolve(manifest.getId() + ".libraries");
+      String graphKey = ResolvedLibraryGraph.computeKey(versionsDir.resolve(manifest.getId() + ".json"));
+      Path repositoryRoot = internalRepository.getBaseDir();
+
+      ResolvedLibraryGraph graph = ResolvedLibraryGraph.read(graphFile);
+      if (graph != null && graph.isValid(graphKey, repositoryRoot, nativeDirectory)) {
+        // Nothing changed since the libraries have been resolved the last time
+        return pom;
+      }
+
       try {
-        downloader.installAll(pom, internalRepository, false);
+        Set<MavenDependency> resolved = downloader.installAll(pom, internalRepository, false);
+        List<Path> libraryPaths = new ArrayList<>();
+
+        for (MavenDependency dependency : resolved) {
+          Path libraryPath = internalRepository.getArtifactPath(dependency);
+          if (Files.isRegularFile(libraryPath)) {
+            libraryPaths.add(libraryPath);
+          }
+        }
 
         for (MavenDependency dependency : pom.getDependencies()) {
 
           if (dependency.getClassifier() != null && dependency.getClassifier().contains("natives")) {
 
-            // Get a natives directory to extract the natives libraries.
-            Path nativeDirectory = runDir.resolve("natives").resolve(manifest.getId());
             if (!Files.isDirectory(nativeDirectory)) {
               // Try to create the natives directory if it does not exist
               try {
@@ -293,24 +369,17 @@ public class MinecraftRepository extends SimpleMavenRepository {
               }
             }
 
-            Path nativeLibrary = runDir.resolve(String.format(
-                    "../../internal-repository/%s/%s/%s/%s-%s-%s.jar",
-                    dependency.getGroupId().replace(".", "/"),
-                    dependency.getArtifactId(),
-                    dependency.getVersion(),
-                    dependency.getArtifactId(),
-                    dependency.getVersion(),
-                    dependency.getClassifier()));
+            Path nativeLibrary = internalRepository.getArtifactPath(dependency);
 
             if (Files.exists(nativeLibrary)) {
-              try {
-                Util.extractZip(nativeLibrary, nativeDirectory);
-              } catch (FileAlreadyExistsException exception) {
-                //
-              }
+              // Natives which have been extracted already are kept
+              ArchiveHelper.extract(
+                  nativeLibrary, nativeDirectory, (name) -> !Files.exists(nativeDirectory.resolve(name)));
             }
           }
         }
+
+        ResolvedLibraryGraph.capture(graphKey, repositoryRoot, libraryPaths, nativeDirectory).write(graphFile);
       } catch (MavenResolveException e) {
         // This will hopefully never happen
         throw new FlintGradleException("Minecraft " + variant + " has broken dependencies", e);
@@ -325,7 +394,7 @@ public class MinecraftRepository extends SimpleMavenRepository {
     Path targetPath = getArtifactPath("net.minecraft", variant, manifest.getId(), null, "pom");
     if (Files.exists(targetPath)) {
       // If the POM exists already we don't need to rewrite it
-      return PomReader.read(targetPath);
+      return PomCache.getInstance().read(targetPath);
     }
 
     // Keep a list of already added artifacts, the minecraft manifest has duplicated dependencies
@@ -333,14 +402,9 @@ public class MinecraftRepository extends SimpleMavenRepository {
     MavenPom pom = new MavenPom("net.minecraft", variant, manifest.getId());
 
     if (includeDependencies) {
-      for (VersionedLibrary library : manifest.getLibraries()) {
-        if (!RuleChainResolver.testRuleChain(library.getRules())) {
-          // If the library does not match the rule chain ignore it,
-          // the generated POM's will only be used locally and thus only need to
-          // match the current environment
-          continue;
-        }
-
+      // Libraries not matching their rule chain are left out, the generated POM's will only be used locally and thus
+      // only need to match the current environment
+      for (VersionedLibrary library : manifest.getApplicableLibraries()) {
         MavenArtifact artifact = library.getName();
         if (!mavenArtifacts.contains(artifact) && library.getDownloads().getArtifact() != null) {
           // Found a new dependency, add it to the POM
@@ -393,6 +457,52 @@ public class MinecraftRepository extends SimpleMavenRepository {
     }
   }
 
+  /**
+   * Retrieves the id of the asset index used by the given version. Only the asset index is read from the version
+   * file, which makes this considerably cheaper than reading the entire manifest.
+   *
+   * @param version The version to retrieve the asset index id for
+   * @return The id of the asset index used by the given version
+   * @throws IOException If an I/O error occurs while reading the version file, or if it contains no asset index
+   * @throws IllegalArgumentException If the given version is not installed
+   */
+  public String getAssetIndexId(String version) throws IOException {
+    Path versionsFile = versionsDir.resolve(version + ".json");
+    if (!Files.exists(versionsFile)) {
+      // We don't have the version installed at all
+      throw new IllegalArgumentException("Minecraft version " + version + " is not installed");
+    }
+
+    try (JsonParser parser = JsonConverter.OBJECT_MAPPER.getFactory().createParser(versionsFile.toFile())) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Version manifest of " + version + " is not a json object");
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+
+        if (field.equals("assetIndex") && value == JsonToken.START_OBJECT) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String indexField = parser.getCurrentName();
+            parser.nextToken();
+
+            if (indexField.equals("id")) {
+              return parser.getValueAsString();
+            }
+
+            parser.skipChildren();
+          }
+        }
+
+        // Skip everything else without building it
+        parser.skipChildren();
+      }
+    }
+
+    throw new IOException("Version manifest of " + version + " does not define an asset index");
+  }
+
   public Path getEnvironmentBasePath() {
     return environmentBasePath;
   }
@@ -27,7 +27,6 @@ import net.flintmc.gradle.minecraft.ui.LoginDialogResult;
 import net.flintmc.gradle.minecraft.yggdrasil.YggdrasilAuthenticationException;
 import net.flintmc.gradle.minecraft.yggdrasil.YggdrasilAuthenticator;
 import net.flintmc.gradle.property.FlintPluginProperties;
-import net.flintmc.gradle.util.RuleChainResolver;
 import net.flintmc.gradle.util.Util;
 import org.gradle.api.tasks.*;
 
@@ -197,8 +196,8 @@ public class MinecraftRunTask extends JavaExec {
     }
 
     // Resolve the commandline arguments
-    List<String> jvmArgs = resolveArguments(versionedArguments.getJvm(), variables, true);
-    List<String> programArgs = resolveArguments(versionedArguments.getGame(), variables, false);
+    List<String> jvmArgs = resolveArguments(versionedArguments.getApplicableJvm(), variables, true);
+    List<String> programArgs = resolveArguments(versionedArguments.getApplicableGame(), variables, false);
 
     // Set the JVM arguments
     jvmArgs(jvmArgs);
@@ -229,7 +228,7 @@ public class MinecraftRunTask extends JavaExec {
   /**
    * Resolves the given list of minecraft launch arguments.
    *
-   * @param arguments          The arguments to resolve
+   * @param arguments          The arguments to resolve, already filtered by their rule chains
    * @param variables          The variables to use while resolving
    * @param stripClasspathArgs If arguments related to the java classpath should be removed while resolving
    * @return The resolved arguments
@@ -241,11 +240,6 @@ public class MinecraftRunTask extends JavaExec {
 
     // Iterate all arguments
     for(ArgumentString argument : arguments) {
-      // Test if the arguments apply to this platform, if not, skip them
-      if(!RuleChainResolver.testRuleChain(argument.getRules())) {
-        continue;
-      }
-
       // Extract the value of the argument
       String value = argument.getValue();
       if(stripClasspathArgs && value.equals("-cp")) {
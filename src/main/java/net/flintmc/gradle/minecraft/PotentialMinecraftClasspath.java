@@ -25,6 +25,8 @@ import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.tasks.TaskProvider;
 
 import java.io.File;
 import java.util.HashMap;
@@ -65,25 +67,24 @@ public class PotentialMinecraftClasspath {
   }
 
   /**
-   * Retrieves the tasks required to build the input for this classpath.
+   * Retrieves the tasks required to build the input for this classpath. The tasks are returned as providers, so
+   * querying the dependencies does not realize them.
    *
    * @param minecraftVersion The minecraft version to retrieve the tasks for
    * @return The tasks required to build the input for this classpath
    */
-  public Set<Task> getTaskDependencies(String minecraftVersion) {
-    Set<Task> tasks = new HashSet<>();
+  public Set<TaskProvider<Task>> getTaskDependencies(String minecraftVersion) {
+    Set<TaskProvider<Task>> tasks = new HashSet<>();
     sourceSets.forEach((sourceSet, project) -> {
       if(isSourceSetUsableWith(sourceSet, minecraftVersion)) {
         // The source set can be used with the minecraft version, retrieve the task
         // building the source set and add it to the dependency list
-        Task task = project.getTasks().findByName(sourceSet.getJarTaskName());
-        if(task == null) {
+        TaskContainer projectTasks = project.getTasks();
+        if(projectTasks.getNames().contains(sourceSet.getJarTaskName())) {
+          tasks.add(projectTasks.named(sourceSet.getJarTaskName()));
+        } else if(projectTasks.getNames().contains(sourceSet.getCompileJavaTaskName())) {
           // Fall back to the Java task name if the source set does not generate a jar
-          task = project.getTasks().findByName(sourceSet.getCompileJavaTaskName());
-        }
-
-        if(task != null) {
-          tasks.add(task);
+          tasks.add(projectTasks.named(sourceSet.getCompileJavaTaskName()));
         }
       }
     });
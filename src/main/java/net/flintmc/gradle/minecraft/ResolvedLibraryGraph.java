@@ -0,0 +1,263 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.minecraft;
+
+import net.flintmc.gradle.io.HashAlgorithm;
+import net.flintmc.gradle.io.HashingService;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot of the fully resolved library graph of a minecraft version. The snapshot contains the flattened list of
+ * installed libraries and the natives which have been extracted for them, so that a build
+ * can skip traversing the POM's and extracting the natives as long as nothing has changed.
+ * <p>
+ * A snapshot is only valid for the version JSON and the platform it has been created for, and as long as all recorded
+ * files are still present with their recorded size and modification time.
+ */
+public class ResolvedLibraryGraph {
+  private static final Logger LOGGER = Logging.getLogger(ResolvedLibraryGraph.class);
+  private static final int FORMAT_VERSION = 2;
+
+  private final String key;
+  private final List<Library> libraries;
+  private final List<String> natives;
+
+  private ResolvedLibraryGraph(String key, List<Library> libraries, List<String> natives) {
+    this.key = key;
+    this.libraries = libraries;
+    this.natives = natives;
+  }
+
+  /**
+   * Computes the key a snapshot for the given version JSON has to match.
+   *
+   * @param versionJson The version JSON the libraries are resolved from
+   * @return The key of the snapshot
+   * @throws IOException If an I/O error occurs while hashing the version JSON
+   */
+  public static String computeKey(Path versionJson) throws IOException {
+    String hash;
+    try (InputStream in = Files.newInputStream(versionJson)) {
+      hash = HashingService.digest(in, HashAlgorithm.SHA1);
+    }
+
+    // The rule chains of the libraries depend on the platform
+    return hash + ":" + System.getProperty("os.name") + ":" + System.getProperty("os.arch");
+  }
+
+  /**
+   * Captures a snapshot of the given libraries and the natives extracted for them.
+   *
+   * @param key              The key of the snapshot, see {@link #computeKey(Path)}
+   * @param repositoryRoot   The root directory of the repository the libraries are installed in
+   * @param libraryPaths     The paths of all installed libraries
+   * @param nativesDirectory The directory the natives have been extracted to, or {@code null} if there are none
+   * @return The captured snapshot
+   * @throws IOException If an I/O error occurs while reading the attributes of the libraries or listing the natives
+   */
+  public static ResolvedLibraryGraph capture(
+      String key, Path repositoryRoot, Collection<Path> libraryPaths, Path nativesDirectory) throws IOException {
+    List<Library> libraries = new ArrayList<>();
+
+    for (Path libraryPath : libraryPaths) {
+      // Only the size and modification time are recorded, hashing every library would cost what the snapshot saves
+      BasicFileAttributes attributes = Files.readAttributes(libraryPath, BasicFileAttributes.class);
+
+      libraries.add(new Library(
+          toRelativeName(repositoryRoot, libraryPath),
+          attributes.size(),
+          attributes.lastModifiedTime().toMillis()));
+    }
+
+    List<String> natives = Collections.emptyList();
+    if (nativesDirectory != null && Files.isDirectory(nativesDirectory)) {
+      try (Stream<Path> files = Files.walk(nativesDirectory)) {
+        natives = files
+            .filter(Files::isRegularFile)
+            .map((file) -> toRelativeName(nativesDirectory, file))
+            .collect(Collectors.toList());
+      }
+    }
+
+    return new ResolvedLibraryGraph(key, libraries, natives);
+  }
+
+  /**
+   * Reads a snapshot from the given file.
+   *
+   * @param file The file to read the snapshot from
+   * @return The read snapshot, or {@code null}, if the file does not exist or can't be read
+   */
+  public static ResolvedLibraryGraph read(Path file) {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        // Written by another version of the plugin
+        return null;
+      }
+
+      String key = in.readUTF();
+
+      int libraryCount = in.readInt();
+      List<Library> libraries = new ArrayList<>(libraryCount);
+      for (int i = 0; i < libraryCount; i++) {
+        libraries.add(new Library(in.readUTF(), in.readLong(), in.readLong()));
+      }
+
+      int nativeCount = in.readInt();
+      List<String> natives = new ArrayList<>(nativeCount);
+      for (int i = 0; i < nativeCount; i++) {
+        natives.add(in.readUTF());
+      }
+
+      return new ResolvedLibraryGraph(key, libraries, natives);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to read resolved library graph {}, resolving libraries again", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes this snapshot to the given file. Failures are logged but not propagated, as the snapshot is optional.
+   *
+   * @param file The file to write the snapshot to
+   */
+  public void write(Path file) {
+    Path temporaryFile = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(key);
+
+        out.writeInt(libraries.size());
+        for (Library library : libraries) {
+          out.writeUTF(library.path);
+          out.writeLong(library.size);
+          out.writeLong(library.lastModified);
+        }
+
+        out.writeInt(natives.size());
+        for (String nativeFile : natives) {
+          out.writeUTF(nativeFile);
+        }
+      }
+
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to write resolved library graph {}", file, e);
+    } finally {
+      try {
+        Files.deleteIfExists(temporaryFile);
+      } catch (IOException e) {
+        LOGGER.debug("Failed to delete temporary library graph file {}", temporaryFile, e);
+      }
+    }
+  }
+
+  /**
+   * Determines whether this snapshot still describes the installed libraries.
+   *
+   * @param key              The key the snapshot has to match, see {@link #computeKey(Path)}
+   * @param repositoryRoot   The root directory of the repository the libraries are installed in
+   * @param nativesDirectory The directory the natives have been extracted to
+   * @return {@code true} if the snapshot is up to date, {@code false} otherwise
+   */
+  public boolean isValid(String key, Path repositoryRoot, Path nativesDirectory) {
+    if (!this.key.equals(key)) {
+      return false;
+    }
+
+    try {
+      for (Library library : libraries) {
+        Path libraryPath = repositoryRoot.resolve(library.path);
+        if (!Files.isRegularFile(libraryPath)) {
+          return false;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(libraryPath, BasicFileAttributes.class);
+        if (attributes.size() != library.size || attributes.lastModifiedTime().toMillis() != library.lastModified) {
+          // The library has been replaced
+          return false;
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Failed to validate resolved library graph", e);
+      return false;
+    }
+
+    for (String nativeFile : natives) {
+      if (!Files.isRegularFile(nativesDirectory.resolve(nativeFile))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Converts the given path to a name relative to the given root, using forward slashes as the separator.
+   *
+   * @param root The root to relativize against
+   * @param path The path to relativize
+   * @return The relative name
+   */
+  private static String toRelativeName(Path root, Path path) {
+    return root.toAbsolutePath().relativize(path.toAbsolutePath()).toString().replace('\\', '/');
+  }
+
+  /**
+   * An installed library recorded in the snapshot.
+   */
+  private static class Library {
+    private final String path;
+    private final long size;
+    private final long lastModified;
+
+    private Library(String path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+}
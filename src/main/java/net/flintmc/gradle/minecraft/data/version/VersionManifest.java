@@ -19,8 +19,10 @@
 
 package net.flintmc.gradle.minecraft.data.version;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import net.flintmc.gradle.minecraft.data.manifest.MinecraftVersionType;
+import net.flintmc.gradle.util.RuleChainResolver;
 
 import java.util.Date;
 import java.util.List;
@@ -43,6 +45,9 @@ public class VersionManifest {
   private Map<String, VersionedLoggingConfiguration> logging;
   private String minecraftArguments;
 
+  // Libraries applying to the current environment, resolved once per manifest
+  private volatile List<VersionedLibrary> applicableLibraries;
+
   public String getId() {
     return id;
   }
@@ -87,6 +92,21 @@ public class VersionManifest {
     return libraries;
   }
 
+  /**
+   * Retrieves the libraries whose rule chain applies to the current environment.
+   *
+   * @return The applying libraries
+   */
+  @JsonIgnore
+  public List<VersionedLibrary> getApplicableLibraries() {
+    List<VersionedLibrary> applicable = applicableLibraries;
+    if (applicable == null) {
+      applicable = applicableLibraries = RuleChainResolver.filter(libraries, VersionedLibrary::getRules);
+    }
+
+    return applicable;
+  }
+
   public Map<String, VersionedLoggingConfiguration> getLogging() {
     return logging;
   }
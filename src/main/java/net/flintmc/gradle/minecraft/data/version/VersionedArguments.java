@@ -19,7 +19,10 @@
 
 package net.flintmc.gradle.minecraft.data.version;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import net.flintmc.gradle.util.RuleChainResolver;
+
 import java.util.List;
 import java.util.Objects;
 
@@ -30,12 +33,32 @@ public class VersionedArguments {
   @JsonDeserialize(using = ArgumentString.ListDeserializer.class)
   private List<ArgumentString> jvm;
 
+  // Arguments applying to the current environment, resolved once per manifest
+  private volatile List<ArgumentString> applicableGame;
+  private volatile List<ArgumentString> applicableJvm;
+
   public List<ArgumentString> getGame() {
     return game;
   }
 
   public void setGame(List<ArgumentString> game) {
     this.game = game;
+    this.applicableGame = null;
+  }
+
+  /**
+   * Retrieves the game arguments whose rule chain applies to the current environment.
+   *
+   * @return The applying game arguments
+   */
+  @JsonIgnore
+  public List<ArgumentString> getApplicableGame() {
+    List<ArgumentString> applicable = applicableGame;
+    if (applicable == null) {
+      applicable = applicableGame = RuleChainResolver.filter(game, ArgumentString::getRules);
+    }
+
+    return applicable;
   }
 
   public List<ArgumentString> getJvm() {
@@ -44,6 +67,22 @@ public class VersionedArguments {
 
   public void setJvm(List<ArgumentString> jvm) {
     this.jvm = jvm;
+    this.applicableJvm = null;
+  }
+
+  /**
+   * Retrieves the JVM arguments whose rule chain applies to the current environment.
+   *
+   * @return The applying JVM arguments
+   */
+  @JsonIgnore
+  public List<ArgumentString> getApplicableJvm() {
+    List<ArgumentString> applicable = applicableJvm;
+    if (applicable == null) {
+      applicable = applicableJvm = RuleChainResolver.filter(jvm, ArgumentString::getRules);
+    }
+
+    return applicable;
   }
 
   @Override
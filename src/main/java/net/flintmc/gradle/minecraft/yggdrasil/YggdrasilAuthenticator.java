@@ -30,6 +30,7 @@ import okhttp3.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -44,9 +45,8 @@ import static javax.swing.text.DefaultStyledDocument.ElementSpec.ContentType;
  * Utility class for accessing minecraft logins.
  */
 public class YggdrasilAuthenticator {
-  private static final String BASE_URL = "https://authserver.mojang.com/";
-
   private final OkHttpClient httpClient;
+  private final String baseURL;
 
   private final Path accessTokenPath;
   private final Path playerNamePath;
@@ -58,11 +58,15 @@ public class YggdrasilAuthenticator {
    *
    * @param httpClient The HTTP client to use for authentication requests
    * @param cacheDir   The directory to store the auth cache in
+   * @param baseURI    The base URI of the authentication server
    * @throws IOException If the reading/generation of the client token fails
    */
-  public YggdrasilAuthenticator(OkHttpClient httpClient, Path cacheDir) throws IOException {
+  public YggdrasilAuthenticator(OkHttpClient httpClient, Path cacheDir, URI baseURI) throws IOException {
     this.httpClient = httpClient;
 
+    String base = baseURI.toString();
+    this.baseURL = base.endsWith("/") ? base : base + "/";
+
     if (!Files.isDirectory(cacheDir)) {
       // The cache dir is required for the next operations, create it
       Files.createDirectories(cacheDir);
@@ -114,7 +118,7 @@ public class YggdrasilAuthenticator {
     // Form and execute the post request
     try (Response response = httpClient.newCall(
         new Request.Builder()
-            .url(BASE_URL + "refresh")
+            .url(baseURL + "refresh")
             .header("Content-Type", "application/json")
             .post(RequestBody.create(payload, MediaType.get("application/json")))
             .build()).execute()) {
@@ -188,7 +192,7 @@ public class YggdrasilAuthenticator {
       // Send the web request for authentication
       try (Response response = httpClient.newCall(
           new Request.Builder()
-              .url(BASE_URL + "authenticate")
+              .url(baseURL + "authenticate")
               .post(RequestBody.create(payload, MediaType.get("application/json")))
               .build())
           .execute()) {
@@ -311,7 +315,7 @@ public class YggdrasilAuthenticator {
     // Form and execute the post request
     try (Response response = httpClient.newCall(
         new Request.Builder()
-            .url(BASE_URL + "validate")
+            .url(baseURL + "validate")
             .post(RequestBody.create(payload, MediaType.get("application/json")))
             .build())
         .execute()) {
@@ -0,0 +1,128 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.patch;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A line of a patch target or hunk which has been canonicalized once, so that comparing it against other lines does
+ * not need to process the text again.
+ */
+final class CanonicalLine {
+
+  private static final Pattern WHITESPACE = Pattern.compile("[\t| ]+");
+  private static final int LABEL_TOKEN = -1;
+
+  private final String text;
+  private final int[] tokens;
+  private final int trailingAccess;
+
+  /**
+   * Constructs a new {@link CanonicalLine}.
+   *
+   * @param text The canonicalized text of the line.
+   * @param tokens The ids of all tokens which are not access modifiers, or {@code null} if access
+   *     modifiers are not canonicalized.
+   * @param trailingAccess The amount of access modifiers after the last other token.
+   */
+  private CanonicalLine(String text, int[] tokens, int trailingAccess) {
+    this.text = text;
+    this.tokens = tokens;
+    this.trailingAccess = trailingAccess;
+  }
+
+  /**
+   * Canonicalizes the given line.
+   *
+   * @param line The line to canonicalize.
+   * @param access Whether access modifiers should be ignored.
+   * @param whitespace Whether sequences of whitespace should be treated as a single space.
+   * @param tokenIds The ids of all tokens seen so far, new tokens are added to it.
+   * @return The canonicalized line.
+   */
+  static CanonicalLine of(
+      String line, boolean access, boolean whitespace, Map<String, Integer> tokenIds) {
+    String text = whitespace ? WHITESPACE.matcher(line).replaceAll(" ") : line;
+    if (!access) {
+      return new CanonicalLine(text, null, 0);
+    }
+
+    String[] parts = text.split(" ");
+    int[] tokens = new int[parts.length];
+    int tokenCount = 0;
+    int trailingAccess = 0;
+
+    for (String part : parts) {
+      if (isAccess(part)) {
+        trailingAccess++;
+        continue;
+      }
+
+      // All labels are considered equal
+      tokens[tokenCount++] =
+          isLabel(part) ? LABEL_TOKEN : tokenIds.computeIfAbsent(part, (key) -> tokenIds.size());
+      trailingAccess = 0;
+    }
+
+    return new CanonicalLine(text, Arrays.copyOf(tokens, tokenCount), trailingAccess);
+  }
+
+  /**
+   * Checks if this line is similar to the given line. Both lines must have been canonicalized with
+   * the same settings and token ids.
+   *
+   * @param other The line to compare with.
+   * @return {@code true} if the lines are similar, otherwise {@code false}.
+   */
+  boolean similar(CanonicalLine other) {
+    if (this.tokens == null) {
+      return this.text.equals(other.text);
+    }
+
+    // Access modifiers are skipped in both lines at the same time once one of them has no other
+    // tokens left, so the amount of trailing ones has to match
+    return this.trailingAccess == other.trailingAccess && Arrays.equals(this.tokens, other.tokens);
+  }
+
+  /**
+   * Checks if the given data is a valid access.
+   *
+   * @param data The data to check.
+   * @return {@code true} if the given data is a valid access, otherwise {@code false}.
+   */
+  private static boolean isAccess(String data) {
+    return data.equalsIgnoreCase("public")
+        || data.equalsIgnoreCase("private")
+        || data.equalsIgnoreCase("protected")
+        || data.equalsIgnoreCase("final");
+  }
+
+  /**
+   * Checks whether the specified data starts with "label".
+   *
+   * @param data The data to check.
+   * @return {@code true} if the specified data starts with "label", otherwise {@code false}.
+   */
+  private static boolean isLabel(String data) {
+    return data.startsWith("label");
+  }
+}
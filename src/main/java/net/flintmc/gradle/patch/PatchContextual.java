@@ -29,7 +29,9 @@ import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.flintmc.gradle.patch.context.LocalPatchContextProvider;
@@ -69,6 +71,7 @@ public final class PatchContextual {
   private String patchLine;
   private boolean patchLineRead;
   private int lastPatchedLine;
+  private final Map<String, Integer> tokenIds = new HashMap<>();
 
   /**
    * Constructs a new {@link PatchContextual} with the given parameters.
@@ -234,11 +237,13 @@ public final class PatchContextual {
       target = new ArrayList<>();
     } else {
       if (!patch.isBinary()) {
+        // Canonicalize the target once, hunks are compared against it at many offsets
+        List<CanonicalLine> canonicalTarget = canonicalize(target);
         int x = 0;
         for (Hunk hunk : patch.getHunks()) {
           x++;
           try {
-            hunkReports.add(applyHunk(target, hunk, x));
+            hunkReports.add(applyHunk(target, canonicalTarget, hunk, x));
           } catch (Exception exception) {
             hunkReports.add(HunkReport.create(PatchStatus.FAILURE, exception, 0, 0, x, hunk));
           }
@@ -280,7 +285,7 @@ public final class PatchContextual {
     }
 
     List<String> target = new ArrayList<>(hunk.modifiedCount);
-    this.applyHunk(target, hunk, 0);
+    this.applyHunk(target, new ArrayList<>(hunk.modifiedCount), hunk, 0);
     return target.equals(originalFile);
   }
 
@@ -300,17 +305,25 @@ public final class PatchContextual {
    * Applied the hunk.
    *
    * @param target The target to which the patch should be applied.
+   * @param canonicalTarget The canonicalized lines of the target, kept in sync with the target.
    * @param hunk The hunk to applied.
    * @param hunkIdentifier The identifier of the hunk.
    * @return The applied hunk.
    * @throws PatchException If the patch is invalid.
    */
-  private HunkReport applyHunk(List<String> target, Hunk hunk, int hunkIdentifier)
+  private HunkReport applyHunk(
+      List<String> target, List<CanonicalLine> canonicalTarget, Hunk hunk, int hunkIdentifier)
       throws PatchException {
+    // Canonicalize the hunk once for all offsets and attempts
+    List<CanonicalLine> canonicalHunk = new ArrayList<>(hunk.lines.size());
+    for (String hunkLine : hunk.lines) {
+      canonicalHunk.add(PatchHelper.canonicalize(this, hunkLine.substring(1), this.tokenIds));
+    }
+
     int index = -1;
     int attempt = 0;
     while (index == -1 && attempt <= this.maximalAttempt) {
-      index = findHunkIndex(target, hunk, attempt, hunkIdentifier);
+      index = findHunkIndex(target, canonicalTarget, hunk, canonicalHunk, attempt, hunkIdentifier);
       if (index != -1) {
         break;
       }
@@ -321,38 +334,85 @@ public final class PatchContextual {
       throw new PatchException("Cannot find hunk target");
     }
 
-    return applyHunk(target, hunk, index, false, attempt, hunkIdentifier);
+    return applyHunk(
+        target, canonicalTarget, hunk, canonicalHunk, index, false, attempt, hunkIdentifier);
+  }
+
+  /**
+   * Canonicalizes all lines of the given target.
+   *
+   * @param target The target to canonicalize.
+   * @return The canonicalized lines of the target.
+   */
+  private List<CanonicalLine> canonicalize(List<String> target) {
+    List<CanonicalLine> canonicalTarget = new ArrayList<>(target.size());
+    for (String line : target) {
+      canonicalTarget.add(PatchHelper.canonicalize(this, line, this.tokenIds));
+    }
+    return canonicalTarget;
   }
 
   /**
    * Finds a hunk index.
    *
    * @param target The target to which the patch should be applied.
+   * @param canonicalTarget The canonicalized lines of the target.
    * @param hunk The hunk to applied.
+   * @param canonicalHunk The canonicalized lines of the hunk.
    * @param attempt The attempts to find the hunk index.
    * @param hunkIdentifier The identifier of the hunk.
    * @return The hunk index.
    * @throws PatchException If the patch is invalid.
    */
-  private int findHunkIndex(List<String> target, Hunk hunk, int attempt, int hunkIdentifier)
+  private int findHunkIndex(
+      List<String> target,
+      List<CanonicalLine> canonicalTarget,
+      Hunk hunk,
+      List<CanonicalLine> canonicalHunk,
+      int attempt,
+      int hunkIdentifier)
       throws PatchException {
     int modifiedStartIndex = hunk.modifiedStart; // first guess from the hunk range specification
     if (modifiedStartIndex >= this.lastPatchedLine
-        && applyHunk(target, hunk, modifiedStartIndex, true, attempt, hunkIdentifier)
+        && applyHunk(
+                target,
+                canonicalTarget,
+                hunk,
+                canonicalHunk,
+                modifiedStartIndex,
+                true,
+                attempt,
+                hunkIdentifier)
             .getPatchStatus()
             .isSuccess()) {
       return modifiedStartIndex;
     } else {
       // try to search for the context
       for (int index = modifiedStartIndex - 1; index >= this.lastPatchedLine; index--) {
-        if (applyHunk(target, hunk, index, true, attempt, hunkIdentifier)
+        if (applyHunk(
+                target,
+                canonicalTarget,
+                hunk,
+                canonicalHunk,
+                index,
+                true,
+                attempt,
+                hunkIdentifier)
             .getPatchStatus()
             .isSuccess()) {
           return index;
         }
       }
       for (int index = modifiedStartIndex + 1; index < target.size(); index++) {
-        if (applyHunk(target, hunk, index, true, attempt, hunkIdentifier)
+        if (applyHunk(
+                target,
+                canonicalTarget,
+                hunk,
+                canonicalHunk,
+                index,
+                true,
+                attempt,
+                hunkIdentifier)
             .getPatchStatus()
             .isSuccess()) {
           return index;
@@ -366,7 +426,9 @@ public final class PatchContextual {
    * Applied the hunk.
    *
    * @param target The target to which the patch should be applied.
+   * @param canonicalTarget The canonicalized lines of the target, kept in sync with the target.
    * @param hunk The hunk to applied.
+   * @param canonicalHunk The canonicalized lines of the hunk.
    * @param index The hunk index.
    * @param dryRun {@code true} if the run is to be repeated, otherwise {@code false}.
    * @param attempt The attempts of the try.
@@ -375,7 +437,14 @@ public final class PatchContextual {
    * @throws PatchException If the patch is invalid.
    */
   private HunkReport applyHunk(
-      List<String> target, Hunk hunk, int index, boolean dryRun, int attempt, int hunkIdentifier)
+      List<String> target,
+      List<CanonicalLine> canonicalTarget,
+      Hunk hunk,
+      List<CanonicalLine> canonicalHunk,
+      int index,
+      boolean dryRun,
+      int attempt,
+      int hunkIdentifier)
       throws PatchException {
     int startIndex = index;
     index--;
@@ -391,7 +460,7 @@ public final class PatchContextual {
             throw new PatchException("Unapplicable hunk #" + hunkIdentifier + " @@ " + startIndex);
           }
         }
-        boolean match = PatchHelper.similar(this, target.get(index), hunkLine.substring(1));
+        boolean match = canonicalTarget.get(index).similar(canonicalHunk.get(hunkIndex));
         if (!match && attempt != 0 && !isRemovalLine(hunkLine)) {
           match = hunkIndex < attempt || hunkIndex >= hunk.lines.size() - attempt;
         }
@@ -410,8 +479,10 @@ public final class PatchContextual {
       } else {
         if (isAddition) {
           target.add(index, hunkLine.substring(1));
+          canonicalTarget.add(index, canonicalHunk.get(hunkIndex));
         } else if (isRemovalLine(hunkLine)) {
           target.remove(index);
+          canonicalTarget.remove(index);
           index--;
         }
       }
@@ -19,6 +19,9 @@
 
 package net.flintmc.gradle.patch;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /** A helper object for patch files. */
 public final class PatchHelper {
 
@@ -33,67 +36,21 @@ public final class PatchHelper {
    *     and {@code hunk}, otherwise {@code false}.
    */
   public static boolean similar(PatchContextual patch, String target, String hunk) {
-    if (patch.isC14nAccess()) {
-      if (patch.isC14nWhitespace()) {
-        target = target.replaceAll("[\t| ]+", " ");
-        hunk = hunk.replaceAll("[\t| ]+", " ");
-      }
-      String[] targetSplit = target.split(" ");
-      String[] hunkSplit = hunk.split(" ");
-
-      int targetIndex = 0;
-      int hunkIndex = 0;
-      while (targetIndex < targetSplit.length && hunkIndex < hunkSplit.length) {
-        boolean isTargetAccess = isAccess(targetSplit[targetIndex]);
-        boolean isHunkAccess = isAccess(hunkSplit[hunkIndex]);
-        if (isTargetAccess || isHunkAccess) {
-
-          if (isTargetAccess) {
-            targetIndex++;
-          }
-          if (isHunkAccess) {
-            hunkIndex++;
-          }
-          continue;
-        }
-        String hunkPart = hunkSplit[hunkIndex];
-        String targetPart = targetSplit[targetIndex];
-        boolean labels = isLabel(targetPart) && isLabel(hunkPart);
-        if (!labels && !targetPart.equals(hunkPart)) {
-          return false;
-        }
-        hunkIndex++;
-        targetIndex++;
-      }
-      return hunkSplit.length == hunkIndex && targetSplit.length == targetIndex;
-    }
-    if (patch.isC14nWhitespace()) {
-      return target.replaceAll("[\t| ]+", " ").equals(hunk.replaceAll("[\t| ]+", " "));
-    } else {
-      return target.equals(hunk);
-    }
-  }
-
-  /**
-   * Checks if the given data is a valid access.
-   *
-   * @param data The data to check.
-   * @return {@code true} if the given data is a valid access, otherwise {@code false}.
-   */
-  private static boolean isAccess(String data) {
-    return data.equalsIgnoreCase("public")
-        || data.equalsIgnoreCase("private")
-        || data.equalsIgnoreCase("protected")
-        || data.equalsIgnoreCase("final");
+    Map<String, Integer> tokenIds = new HashMap<>();
+    return canonicalize(patch, target, tokenIds).similar(canonicalize(patch, hunk, tokenIds));
   }
 
   /**
-   * Checks whether the specified data starts with "label".
+   * Canonicalizes the specified {@code line} using the settings of the specified {@code patch}.
    *
-   * @param data The data to check.
-   * @return {@code true} if the specified data starts with "label", otherwise {@code false}.
+   * @param patch The patch whose canonicalization settings should be used.
+   * @param line The line to canonicalize.
+   * @param tokenIds The ids of all tokens seen so far, shared by all lines which are compared with
+   *     each other.
+   * @return The canonicalized line.
    */
-  private static boolean isLabel(String data) {
-    return data.startsWith("label");
+  static CanonicalLine canonicalize(
+      PatchContextual patch, String line, Map<String, Integer> tokenIds) {
+    return CanonicalLine.of(line, patch.isC14nAccess(), patch.isC14nWhitespace(), tokenIds);
   }
 }
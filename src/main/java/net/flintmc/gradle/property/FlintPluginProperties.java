@@ -120,4 +120,83 @@ public final class FlintPluginProperties {
       .deprecatedName("net.flint.distributor.publish-token")
       .environment("FLINT_DISTRIBUTOR_PUBLISH_TOKEN")
       .complete(String.class);
+
+  /**
+   * Determines the URL of the minecraft version manifest.
+   * <p>
+   * The property is a URL and can be set using the project property {@code net.flintmc.minecraft.version-manifest-url}
+   * or the environment variable {@code FLINT_MINECRAFT_VERSION_MANIFEST_URL}. Overriding it is mostly useful for
+   * mirrors and for testing against a local server.
+   */
+  public static final FlintPluginProperty<URI> MINECRAFT_VERSION_MANIFEST_URL = FlintPluginProperty.builder()
+      .name("net.flintmc.minecraft.version-manifest-url")
+      .environment("FLINT_MINECRAFT_VERSION_MANIFEST_URL")
+      .complete(URI.class, URI.create("https://launchermeta.mojang.com/mc/game/version_manifest.json"));
+
+  /**
+   * Determines the URL of the index of the default deobfuscation environments per minecraft version.
+   * <p>
+   * The property is a URL and can be set using the project property {@code net.flintmc.mappings.index-url} or the
+   * environment variable {@code FLINT_MAPPINGS_INDEX_URL}.
+   */
+  public static final FlintPluginProperty<URI> MAPPINGS_INDEX_URL = FlintPluginProperty.builder()
+      .name("net.flintmc.mappings.index-url")
+      .environment("FLINT_MAPPINGS_INDEX_URL")
+      .complete(URI.class, URI.create("https://dl.labymod.net/mappings/index_new.json"));
+
+  /**
+   * Determines the base URL minecraft asset objects are downloaded from.
+   * <p>
+   * The property is a URL and can be set using the project property {@code net.flintmc.minecraft.assets-url} or the
+   * environment variable {@code FLINT_MINECRAFT_ASSETS_URL}.
+   */
+  public static final FlintPluginProperty<URI> MINECRAFT_ASSETS_URL = FlintPluginProperty.builder()
+      .name("net.flintmc.minecraft.assets-url")
+      .environment("FLINT_MINECRAFT_ASSETS_URL")
+      .complete(URI.class, URI.create("https://resources.download.minecraft.net"));
+
+  /**
+   * Determines the URL of the maven repository minecraft libraries are downloaded from.
+   * <p>
+   * The property is a URL and can be set using the project property {@code net.flintmc.minecraft.libraries-url} or
+   * the environment variable {@code FLINT_MINECRAFT_LIBRARIES_URL}.
+   */
+  public static final FlintPluginProperty<URI> MINECRAFT_LIBRARIES_URL = FlintPluginProperty.builder()
+      .name("net.flintmc.minecraft.libraries-url")
+      .environment("FLINT_MINECRAFT_LIBRARIES_URL")
+      .complete(URI.class, URI.create("https://libraries.minecraft.net"));
+
+  /**
+   * Determines the URL of the maven central repository used for installing internal dependencies.
+   * <p>
+   * The property is a URL and can be set using the project property {@code net.flintmc.maven-central-url} or the
+   * environment variable {@code FLINT_MAVEN_CENTRAL_URL}.
+   */
+  public static final FlintPluginProperty<URI> MAVEN_CENTRAL_URL = FlintPluginProperty.builder()
+      .name("net.flintmc.maven-central-url")
+      .environment("FLINT_MAVEN_CENTRAL_URL")
+      .complete(URI.class, URI.create("https://repo.maven.apache.org/maven2/"));
+
+  /**
+   * Determines the base URL of the Yggdrasil authentication server used for logging in to minecraft.
+   * <p>
+   * The property is a URL and can be set using the project property {@code net.flintmc.minecraft.auth-url} or the
+   * environment variable {@code FLINT_MINECRAFT_AUTH_URL}.
+   */
+  public static final FlintPluginProperty<URI> MINECRAFT_AUTH_URL = FlintPluginProperty.builder()
+      .name("net.flintmc.minecraft.auth-url")
+      .environment("FLINT_MINECRAFT_AUTH_URL")
+      .complete(URI.class, URI.create("https://authserver.mojang.com/"));
+
+  /**
+   * Determines whether timings and I/O statistics of the plugin's operations are recorded.
+   * <p>
+   * The property is a boolean and can be set using the project property {@code net.flintmc.telemetry} or the
+   * environment variable {@code FLINT_TELEMETRY}. If enabled, a Chrome trace is written to
+   * {@code build/flint-telemetry} of the root project and a summary is printed at the end of the build.
+   */
+  public static final FlintPluginProperty<Boolean> TELEMETRY = FlintPluginProperty.builder()
+      .name("net.flintmc.telemetry")
+      .environment("FLINT_TELEMETRY")
+      .complete(boolean.class, false);
 }
@@ -0,0 +1,247 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.telemetry;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Entry point for recording timings and I/O statistics of flint-gradle operations. Recording is only active while a
+ * {@link TelemetryRecorder} is installed, otherwise all methods are cheap no-ops, so call sites don't need to check
+ * whether telemetry is enabled.
+ * <p>
+ * Byte counters are attributed to the innermost span opened on the current thread in addition to the build totals.
+ */
+public final class Telemetry {
+  // Only threads which ever opened a span get a deque, and only while a span is open
+  private static final ThreadLocal<Deque<TelemetrySpan>> ACTIVE_SPANS = new ThreadLocal<>();
+
+  private static volatile TelemetryRecorder recorder;
+
+  private Telemetry() {}
+
+  /**
+   * Installs the given recorder, all following operations are recorded into it.
+   *
+   * @param recorder The recorder to install
+   */
+  public static void start(TelemetryRecorder recorder) {
+    Telemetry.recorder = recorder;
+  }
+
+  /**
+   * Uninstalls the given recorder if it is the active one.
+   *
+   * @param recorder The recorder to uninstall
+   */
+  public static synchronized void stop(TelemetryRecorder recorder) {
+    if(Telemetry.recorder == recorder) {
+      Telemetry.recorder = null;
+    }
+  }
+
+  /**
+   * Determines whether telemetry is currently being recorded.
+   *
+   * @return {@code true} if a recorder is installed, {@code false} otherwise
+   */
+  public static boolean isEnabled() {
+    return recorder != null;
+  }
+
+  /**
+   * Opens a new span on the current thread. The span should be closed using try-with-resources on the same thread.
+   *
+   * @param category The subsystem the operation belongs to, such as {@code maven} or {@code mcp}
+   * @param name     The name of the operation, spans are aggregated by category and name in the summary
+   * @return The opened span, a no-op span if telemetry is disabled
+   */
+  public static TelemetrySpan span(String category, String name) {
+    TelemetryRecorder current = recorder;
+    if(current == null) {
+      return TelemetrySpan.NOOP;
+    }
+
+    Deque<TelemetrySpan> spans = ACTIVE_SPANS.get();
+    if(spans == null) {
+      spans = new ArrayDeque<>();
+      ACTIVE_SPANS.set(spans);
+    }
+
+    TelemetrySpan span = new TelemetrySpan(current, category, name);
+    spans.push(span);
+    return span;
+  }
+
+  /**
+   * Records that the given amount of bytes has been read from disk.
+   *
+   * @param count The amount of bytes
+   */
+  public static void bytesRead(long count) {
+    TelemetryRecorder current = recorder;
+    if(current != null) {
+      current.increment(TelemetryRecorder.BYTES_READ, count);
+
+      TelemetrySpan span = activeSpan();
+      if(span != null) {
+        span.addBytesRead(count);
+      }
+    }
+  }
+
+  /**
+   * Records that the given amount of bytes has been written to disk.
+   *
+   * @param count The amount of bytes
+   */
+  public static void bytesWritten(long count) {
+    TelemetryRecorder current = recorder;
+    if(current != null) {
+      current.increment(TelemetryRecorder.BYTES_WRITTEN, count);
+
+      TelemetrySpan span = activeSpan();
+      if(span != null) {
+        span.addBytesWritten(count);
+      }
+    }
+  }
+
+  /**
+   * Records that the given amount of bytes has been downloaded.
+   *
+   * @param count The amount of bytes
+   */
+  public static void bytesDownloaded(long count) {
+    TelemetryRecorder current = recorder;
+    if(current != null) {
+      current.increment(TelemetryRecorder.BYTES_DOWNLOADED, count);
+
+      TelemetrySpan span = activeSpan();
+      if(span != null) {
+        span.addBytesDownloaded(count);
+      }
+    }
+  }
+
+  /**
+   * Records a hit of the given cache.
+   *
+   * @param cache The name of the cache
+   */
+  public static void cacheHit(String cache) {
+    TelemetryRecorder current = recorder;
+    if(current != null) {
+      current.increment("cache." + cache + ".hit", 1);
+    }
+  }
+
+  /**
+   * Records a miss of the given cache.
+   *
+   * @param cache The name of the cache
+   */
+  public static void cacheMiss(String cache) {
+    TelemetryRecorder current = recorder;
+    if(current != null) {
+      current.increment("cache." + cache + ".miss", 1);
+    }
+  }
+
+  /**
+   * Records the time spent waiting for the given kind of lock.
+   *
+   * @param lock  The kind of lock
+   * @param nanos The time spent waiting in nanoseconds
+   */
+  public static void lockWait(String lock, long nanos) {
+    TelemetryRecorder current = recorder;
+    if(current != null) {
+      current.increment("lock." + lock + ".count", 1);
+      current.increment("lock." + lock + ".nanos", nanos);
+    }
+  }
+
+  /**
+   * Wraps the given stream so all bytes read from it are recorded as downloaded.
+   *
+   * @param stream The stream to wrap
+   * @return The wrapped stream, or the given stream itself if telemetry is disabled
+   */
+  public static InputStream countDownloaded(InputStream stream) {
+    if(recorder == null) {
+      return stream;
+    }
+
+    return new FilterInputStream(stream) {
+      @Override
+      public int read() throws IOException {
+        int value = super.read();
+        if(value != -1) {
+          bytesDownloaded(1);
+        }
+
+        return value;
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if(count > 0) {
+          bytesDownloaded(count);
+        }
+
+        return count;
+      }
+    };
+  }
+
+  /**
+   * Removes the given span from the spans of the current thread.
+   *
+   * @param span The span which has been closed
+   */
+  static void closed(TelemetrySpan span) {
+    Deque<TelemetrySpan> spans = ACTIVE_SPANS.get();
+    if(spans == null) {
+      // Closed on another thread than it has been opened on
+      return;
+    }
+
+    spans.remove(span);
+
+    if(spans.isEmpty()) {
+      ACTIVE_SPANS.remove();
+    }
+  }
+
+  /**
+   * Retrieves the innermost span opened on the current thread.
+   *
+   * @return The innermost span, or {@code null}, if no span is open on the current thread
+   */
+  private static TelemetrySpan activeSpan() {
+    Deque<TelemetrySpan> spans = ACTIVE_SPANS.get();
+    return spans == null ? null : spans.peek();
+  }
+}
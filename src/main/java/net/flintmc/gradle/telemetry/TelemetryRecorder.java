@@ -0,0 +1,283 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.telemetry;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.flintmc.gradle.json.JsonConverter;
+import net.flintmc.gradle.util.Util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the spans and counters of a single build. Spans are aggregated by category and name for the summary and
+ * additionally kept for the trace, up to a fixed limit so huge builds don't exhaust the memory.
+ */
+public class TelemetryRecorder {
+  static final String BYTES_READ = "bytes.read";
+  static final String BYTES_WRITTEN = "bytes.written";
+  static final String BYTES_DOWNLOADED = "bytes.downloaded";
+
+  private static final int MAX_TRACE_SPANS = 100000;
+  private static final int SUMMARY_ROWS = 15;
+
+  private final long startNanos;
+  private final Queue<TelemetrySpan> spans;
+  private final AtomicInteger spanCount;
+  private final Map<String, Aggregate> aggregates;
+  private final Map<String, LongAdder> counters;
+
+  /**
+   * Constructs a new {@link TelemetryRecorder}, timestamps in the trace are relative to its creation.
+   */
+  public TelemetryRecorder() {
+    this.startNanos = System.nanoTime();
+    this.spans = new ConcurrentLinkedQueue<>();
+    this.spanCount = new AtomicInteger();
+    this.aggregates = new ConcurrentHashMap<>();
+    this.counters = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Adds the given amount to a counter.
+   *
+   * @param counter The name of the counter
+   * @param amount  The amount to add
+   */
+  void increment(String counter, long amount) {
+    counters.computeIfAbsent(counter, (k) -> new LongAdder()).add(amount);
+  }
+
+  /**
+   * Records a closed span.
+   *
+   * @param span The span to record
+   */
+  void finish(TelemetrySpan span) {
+    aggregates.computeIfAbsent(span.getCategory() + "\t" + span.getName(),
+        (k) -> new Aggregate(span.getCategory(), span.getName())).add(span);
+
+    if(spanCount.incrementAndGet() <= MAX_TRACE_SPANS) {
+      spans.add(span);
+    }
+  }
+
+  /**
+   * Retrieves the value of a counter.
+   *
+   * @param counter The name of the counter
+   * @return The value of the counter, {@code 0} if nothing has been recorded
+   */
+  public long getCounter(String counter) {
+    LongAdder adder = counters.get(counter);
+    return adder == null ? 0 : adder.sum();
+  }
+
+  /**
+   * Writes all recorded spans and counters as a Chrome trace, which can be opened with {@code chrome://tracing} or
+   * Perfetto.
+   *
+   * @param file The file to write the trace to
+   * @throws IOException If an I/O error occurs while writing the trace
+   */
+  public void writeTrace(Path file) throws IOException {
+    if(!Files.isDirectory(file.getParent())) {
+      Files.createDirectories(file.getParent());
+    }
+
+    try(JsonGenerator generator = JsonConverter.OBJECT_MAPPER.getFactory()
+        .createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeStringField("displayTimeUnit", "ms");
+      generator.writeArrayFieldStart("traceEvents");
+
+      Map<Long, String> threadNames = new HashMap<>();
+      for(TelemetrySpan span : spans) {
+        threadNames.putIfAbsent(span.getThreadId(), span.getThreadName());
+
+        generator.writeStartObject();
+        generator.writeStringField("name", span.getName());
+        generator.writeStringField("cat", span.getCategory());
+        generator.writeStringField("ph", "X");
+        generator.writeNumberField("ts", TimeUnit.NANOSECONDS.toMicros(span.getStartNanos() - startNanos));
+        generator.writeNumberField("dur", TimeUnit.NANOSECONDS.toMicros(span.getDurationNanos()));
+        generator.writeNumberField("pid", 1);
+        generator.writeNumberField("tid", span.getThreadId());
+
+        generator.writeObjectFieldStart("args");
+        for(Map.Entry<String, String> attribute : span.getAttributes().entrySet()) {
+          generator.writeStringField(attribute.getKey(), attribute.getValue());
+        }
+        writeNonZero(generator, "bytesRead", span.getBytesRead());
+        writeNonZero(generator, "bytesWritten", span.getBytesWritten());
+        writeNonZero(generator, "bytesDownloaded", span.getBytesDownloaded());
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+      }
+
+      for(Map.Entry<Long, String> thread : threadNames.entrySet()) {
+        // Metadata events naming the threads in the viewer
+        generator.writeStartObject();
+        generator.writeStringField("name", "thread_name");
+        generator.writeStringField("ph", "M");
+        generator.writeNumberField("pid", 1);
+        generator.writeNumberField("tid", thread.getKey());
+        generator.writeObjectFieldStart("args");
+        generator.writeStringField("name", thread.getValue());
+        generator.writeEndObject();
+        generator.writeEndObject();
+      }
+
+      generator.writeEndArray();
+
+      generator.writeObjectFieldStart("otherData");
+      generator.writeNumberField("droppedSpans", Math.max(0, spanCount.get() - MAX_TRACE_SPANS));
+      for(Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+        generator.writeNumberField(counter.getKey(), counter.getValue().sum());
+      }
+      generator.writeEndObject();
+
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Builds a concise summary of the recorded operations, the slowest operations first.
+   *
+   * @return The lines of the summary
+   */
+  public List<String> summary() {
+    List<String> lines = new ArrayList<>();
+
+    List<Aggregate> sorted = new ArrayList<>(aggregates.values());
+    sorted.sort(Comparator.comparingLong((Aggregate aggregate) -> aggregate.totalNanos.get()).reversed());
+
+    lines.add(String.format(Locale.ROOT, "%-10s %-36s %7s %10s %10s %12s",
+        "Category", "Operation", "Count", "Total", "Max", "Downloaded"));
+    for(Aggregate aggregate : sorted.subList(0, Math.min(SUMMARY_ROWS, sorted.size()))) {
+      lines.add(String.format(Locale.ROOT, "%-10s %-36s %7d %10s %10s %12s",
+          aggregate.category,
+          abbreviate(aggregate.name, 36),
+          aggregate.count.sum(),
+          formatNanos(aggregate.totalNanos.get()),
+          formatNanos(aggregate.maxNanos.get()),
+          Util.formatBytes(aggregate.bytesDownloaded.sum())));
+    }
+
+    if(sorted.size() > SUMMARY_ROWS) {
+      lines.add(String.format(Locale.ROOT, "... and %d more operations", sorted.size() - SUMMARY_ROWS));
+    }
+
+    lines.add(String.format(Locale.ROOT, "I/O: %s downloaded, %s written, %s read",
+        Util.formatBytes(getCounter(BYTES_DOWNLOADED)),
+        Util.formatBytes(getCounter(BYTES_WRITTEN)),
+        Util.formatBytes(getCounter(BYTES_READ))));
+
+    Set<String> cacheNames = new TreeSet<>();
+    List<String> locks = new ArrayList<>();
+    for(String counter : new TreeMap<>(counters).keySet()) {
+      if(counter.startsWith("cache.")) {
+        cacheNames.add(counter.substring(6, counter.lastIndexOf('.')));
+      } else if(counter.startsWith("lock.") && counter.endsWith(".count")) {
+        String lock = counter.substring(5, counter.lastIndexOf('.'));
+        locks.add(String.format(Locale.ROOT, "%s %dx waited %s",
+            lock, getCounter(counter), formatNanos(getCounter("lock." + lock + ".nanos"))));
+      }
+    }
+
+    List<String> caches = new ArrayList<>();
+    for(String cache : cacheNames) {
+      caches.add(String.format(Locale.ROOT, "%s %d/%d",
+          cache, getCounter("cache." + cache + ".hit"), getCounter("cache." + cache + ".miss")));
+    }
+
+    if(!caches.isEmpty()) {
+      lines.add("Caches (hits/misses): " + String.join(", ", caches));
+    }
+
+    if(!locks.isEmpty()) {
+      lines.add("Locks: " + String.join(", ", locks));
+    }
+
+    return lines;
+  }
+
+  private static void writeNonZero(JsonGenerator generator, String name, long value) throws IOException {
+    if(value != 0) {
+      generator.writeNumberField(name, value);
+    }
+  }
+
+  private static String formatNanos(long nanos) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    return millis < 10000 ? millis + "ms" : String.format(Locale.ROOT, "%.1fs", millis / 1000.0);
+  }
+
+  private static String abbreviate(String value, int length) {
+    return value.length() <= length ? value : value.substring(0, length - 3) + "...";
+  }
+
+  /**
+   * Aggregated statistics of all spans sharing a category and name.
+   */
+  private static class Aggregate {
+    private final String category;
+    private final String name;
+    private final LongAdder count;
+    private final AtomicLong totalNanos;
+    private final AtomicLong maxNanos;
+    private final LongAdder bytesDownloaded;
+
+    private Aggregate(String category, String name) {
+      this.category = category;
+      this.name = name;
+      this.count = new LongAdder();
+      this.totalNanos = new AtomicLong();
+      this.maxNanos = new AtomicLong();
+      this.bytesDownloaded = new LongAdder();
+    }
+
+    private void add(TelemetrySpan span) {
+      count.increment();
+      totalNanos.addAndGet(span.getDurationNanos());
+      maxNanos.accumulateAndGet(span.getDurationNanos(), Math::max);
+      bytesDownloaded.add(span.getBytesDownloaded());
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.telemetry;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Build service owning the {@link TelemetryRecorder} of a build. Recording starts as soon as the service is created
+ * and stops when Gradle closes the service at the end of the build, at which point the trace is written and the
+ * summary is logged.
+ */
+public abstract class TelemetryService implements BuildService<TelemetryService.Parameters>, AutoCloseable {
+  public static final String NAME = "flintTelemetry";
+
+  private static final Logger LOGGER = Logging.getLogger(TelemetryService.class);
+  private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final TelemetryRecorder recorder;
+
+  public TelemetryService() {
+    this.recorder = new TelemetryRecorder();
+    Telemetry.start(recorder);
+  }
+
+  @Override
+  public void close() {
+    Telemetry.stop(recorder);
+
+    Path traceFile = getParameters().getOutputDirectory().get().getAsFile().toPath()
+        .resolve("trace-" + FILE_NAME_FORMATTER.format(LocalDateTime.now()) + ".json");
+
+    try {
+      recorder.writeTrace(traceFile);
+    } catch(IOException e) {
+      LOGGER.warn("Failed to write flint-gradle telemetry trace to {}", traceFile, e);
+      traceFile = null;
+    }
+
+    LOGGER.lifecycle("flint-gradle telemetry{}", traceFile != null ? " (trace written to " + traceFile + ")" : "");
+    for(String line : recorder.summary()) {
+      LOGGER.lifecycle(line);
+    }
+  }
+
+  /**
+   * Parameters of the {@link TelemetryService}.
+   */
+  public interface Parameters extends BuildServiceParameters {
+    /**
+     * Retrieves the directory the traces are written to.
+     *
+     * @return The directory the traces are written to
+     */
+    DirectoryProperty getOutputDirectory();
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.telemetry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A timed operation recorded by {@link Telemetry}. Spans are opened using {@link Telemetry#span(String, String)} and
+ * finish when closed.
+ */
+public class TelemetrySpan implements AutoCloseable {
+  static final TelemetrySpan NOOP = new TelemetrySpan(null, "", "");
+
+  private final TelemetryRecorder recorder;
+  private final String category;
+  private final String name;
+  private final long threadId;
+  private final String threadName;
+  private final long startNanos;
+  private final Map<String, String> attributes;
+
+  private final AtomicLong bytesRead;
+  private final AtomicLong bytesWritten;
+  private final AtomicLong bytesDownloaded;
+
+  private volatile long durationNanos;
+
+  TelemetrySpan(TelemetryRecorder recorder, String category, String name) {
+    Thread thread = Thread.currentThread();
+
+    this.recorder = recorder;
+    this.category = category;
+    this.name = name;
+    this.threadId = thread.getId();
+    this.threadName = thread.getName();
+    this.startNanos = System.nanoTime();
+    this.attributes = recorder == null ? Collections.emptyMap() : new LinkedHashMap<>();
+    this.bytesRead = new AtomicLong();
+    this.bytesWritten = new AtomicLong();
+    this.bytesDownloaded = new AtomicLong();
+    this.durationNanos = -1;
+  }
+
+  /**
+   * Attaches a detail to this span, such as the artifact being installed. Attributes are only written to the trace,
+   * they don't affect the aggregation in the summary.
+   *
+   * @param key   The key of the attribute
+   * @param value The value of the attribute
+   * @return This span
+   */
+  public TelemetrySpan attribute(String key, Object value) {
+    if(recorder != null) {
+      synchronized(attributes) {
+        attributes.put(key, String.valueOf(value));
+      }
+    }
+
+    return this;
+  }
+
+  void addBytesRead(long count) {
+    bytesRead.addAndGet(count);
+  }
+
+  void addBytesWritten(long count) {
+    bytesWritten.addAndGet(count);
+  }
+
+  void addBytesDownloaded(long count) {
+    bytesDownloaded.addAndGet(count);
+  }
+
+  @Override
+  public void close() {
+    if(recorder == null || durationNanos != -1) {
+      // No-op span or closed already
+      return;
+    }
+
+    durationNanos = System.nanoTime() - startNanos;
+    Telemetry.closed(this);
+    recorder.finish(this);
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getThreadId() {
+    return threadId;
+  }
+
+  public String getThreadName() {
+    return threadName;
+  }
+
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public Map<String, String> getAttributes() {
+    synchronized(attributes) {
+      return new LinkedHashMap<>(attributes);
+    }
+  }
+
+  public long getBytesRead() {
+    return bytesRead.get();
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  public long getBytesDownloaded() {
+    return bytesDownloaded.get();
+  }
+}
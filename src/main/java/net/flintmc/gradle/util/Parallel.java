@@ -0,0 +1,166 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class for running I/O bound work in parallel.
+ */
+public final class Parallel {
+  /**
+   * The amount of parallel network transfers used by default.
+   */
+  public static final int NETWORK_PARALLELISM = 8;
+
+  /**
+   * The amount of parallel CPU bound tasks used by default.
+   */
+  public static final int CPU_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+  private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+  // Threads are shared by all parallel actions and only kept while in use, every action limits its own parallelism.
+  // Nested actions can't starve each other, as the pool grows whenever all threads are busy.
+  private static final ExecutorService SHARED_EXECUTOR = newExecutor(0);
+
+  private Parallel() {}
+
+  /**
+   * Runs the given action for every item using at most the given amount of threads. The method blocks until all
+   * items have been processed or one of the actions failed, in which case the remaining actions are cancelled.
+   *
+   * @param items       The items to process
+   * @param parallelism The maximum amount of threads to use
+   * @param action      The action to run for every item
+   * @param <T>         The type of the items
+   * @throws IOException If one of the actions fails with an I/O error
+   */
+  public static <T> void forEach(Collection<T> items, int parallelism, Action<? super T> action) throws IOException {
+    int threadCount = Math.min(parallelism, items.size());
+    if(threadCount <= 1) {
+      // Not worth spawning threads
+      for(T item : items) {
+        action.run(item);
+      }
+
+      return;
+    }
+
+    // Every worker processes the next unprocessed item until all items are done or an action failed
+    List<T> queue = new ArrayList<>(items);
+    AtomicInteger nextIndex = new AtomicInteger();
+    AtomicBoolean failed = new AtomicBoolean();
+
+    List<Future<?>> workers = new ArrayList<>(threadCount);
+    try {
+      for(int i = 0; i < threadCount; i++) {
+        workers.add(SHARED_EXECUTOR.submit(() -> {
+          int index;
+          while(!failed.get() && (index = nextIndex.getAndIncrement()) < queue.size()) {
+            try {
+              action.run(queue.get(index));
+            } catch(Throwable t) {
+              failed.set(true);
+              throw t;
+            }
+          }
+
+          return null;
+        }));
+      }
+
+      for(Future<?> worker : workers) {
+        try {
+          worker.get();
+        } catch(ExecutionException e) {
+          Throwable cause = e.getCause();
+          if(cause instanceof IOException) {
+            throw (IOException) cause;
+          } else if(cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if(cause instanceof Error) {
+            throw (Error) cause;
+          }
+
+          throw new IOException("Parallel action failed", cause);
+        } catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for parallel actions");
+        }
+      }
+    } finally {
+      // Cancels all remaining actions in case of a failure
+      failed.set(true);
+      for(Future<?> worker : workers) {
+        worker.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Creates a new executor with daemon threads. The caller is responsible for shutting it down.
+   *
+   * @param threadCount The amount of threads to use, or {@code 0} to create threads as required and discard them
+   *                    once they have been idle for a while
+   * @return The created executor
+   */
+  public static ExecutorService newExecutor(int threadCount) {
+    int poolId = POOL_COUNTER.incrementAndGet();
+    AtomicInteger threadCounter = new AtomicInteger();
+
+    ThreadFactory threadFactory = (runnable) -> {
+      Thread thread = new Thread(runnable, "flint-gradle-parallel-" + poolId + "-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    return threadCount == 0
+        ? Executors.newCachedThreadPool(threadFactory)
+        : Executors.newFixedThreadPool(threadCount, threadFactory);
+  }
+
+  /**
+   * Action which is executed for every item processed in parallel.
+   *
+   * @param <T> The type of the items
+   */
+  @FunctionalInterface
+  public interface Action<T> {
+    /**
+     * Processes the given item.
+     *
+     * @param item The item to process
+     * @throws IOException If an I/O error occurs while processing the item
+     */
+    void run(T item) throws IOException;
+  }
+}
@@ -22,10 +22,13 @@ package net.flintmc.gradle.util;
 import net.flintmc.gradle.minecraft.data.version.*;
 import org.apache.tools.ant.taskdefs.condition.Os;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 public class RuleChainResolver {
@@ -34,6 +37,9 @@ public class RuleChainResolver {
   private static final String RULE_OS_VERSION;
   private static final String RULE_OS_ARCH;
 
+  // The OS version rules are regular expressions, a manifest only uses a handful of them many times
+  private static final Map<String, Pattern> OS_VERSION_PATTERNS = new ConcurrentHashMap<>();
+
   static {
     // Convert the OS family to a usable value
     if (Os.isFamily(Os.FAMILY_MAC)) {
@@ -74,54 +80,86 @@ public class RuleChainResolver {
       return true;
     }
 
+    // Testing a chain once is cheaper than compiling it, the last applying rule decides
     boolean allow = false;
 
     for (VersionedRule rule : rules) {
-      boolean applies = true;
-
-      // First check if the OS matches
-      if (rule.getOs() != null) {
-        // We got an OS rule
-        VersionedOsRule osRule = rule.getOs();
-
-        if (osRule.getName() != null) {
-          // If the OS name is not null, check if it matches the current OS
-          applies = osRule.getName() == RULE_OS_NAME;
-        }
-
-        if (applies && osRule.getVersion() != null) {
-          // Then check the OS version, this seems to be a Regex in the Json
-          Pattern versionPattern = Pattern.compile(osRule.getVersion());
-          applies = versionPattern.matcher(RULE_OS_VERSION).matches();
-        }
-
-        if (applies && osRule.getArch() != null) {
-          // Also check the arch, this check is kind of fragile, but it also is not
-          // used for important rules
-          applies = RULE_OS_ARCH.equals(osRule.getArch());
-        }
+      if ((rule.getOs() == null || testOsRule(rule.getOs())) && testFeatures(rule.getFeatures(), features)) {
+        allow = rule.getAction() == VersionedRuleAction.ALLOW;
       }
+    }
 
-      if (applies && rule.getFeatures() != null) {
-        // Last check for features
-        for (String key : rule.getFeatures().keySet()) {
-          // This would also allow null keys
-          // Since there is no documentation about it, simply assume that equal means match, even
-          // if both are null
-          applies = Objects.equals(features.get(key), rule.getFeatures().get(key));
-          if (!applies) {
-            break;
-          }
-        }
+    return allow;
+  }
+
+  /**
+   * Tests if the features of a rule match the given features.
+   *
+   * @param required The features required by the rule, or {@code null}, if there are none
+   * @param features The features to use for detection
+   * @return {@code true} if the features match, {@code false} otherwise
+   */
+  private static boolean testFeatures(Map<String, Object> required, Map<String, Object> features) {
+    if (required == null) {
+      return true;
+    }
+
+    for (Map.Entry<String, Object> feature : required.entrySet()) {
+      // Since there is no documentation about it, simply assume that equal means match, even if both are null
+      if (!Objects.equals(features.get(feature.getKey()), feature.getValue())) {
+        return false;
       }
+    }
 
-      if (applies) {
-        // If the rule applies, take the selected action
-        allow = rule.getAction() == VersionedRuleAction.ALLOW;
+    return true;
+  }
+
+  /**
+   * Filters the given elements down to the ones whose rule chain applies to the current environment.
+   *
+   * @param elements The elements to filter, may be {@code null}
+   * @param rules    Function extracting the rule chain of an element
+   * @param <T>      The type of the elements
+   * @return An unmodifiable list of the applying elements, in their original order
+   */
+  public static <T> List<T> filter(List<T> elements, Function<T, List<VersionedRule>> rules) {
+    if (elements == null || elements.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<T> applying = new ArrayList<>(elements.size());
+    for (T element : elements) {
+      if (testRuleChain(rules.apply(element))) {
+        applying.add(element);
       }
     }
 
-    return allow;
+    return Collections.unmodifiableList(applying);
+  }
+
+  /**
+   * Tests if the given OS rule matches the current environment.
+   *
+   * @param osRule The rule to test
+   * @return {@code true} if the rule matches, {@code false} otherwise
+   */
+  private static boolean testOsRule(VersionedOsRule osRule) {
+    if (osRule.getName() != null && osRule.getName() != RULE_OS_NAME) {
+      // If the OS name is not null, it has to match the current OS
+      return false;
+    }
+
+    if (osRule.getVersion() != null) {
+      // Then check the OS version, this seems to be a Regex in the Json
+      Pattern versionPattern = OS_VERSION_PATTERNS.computeIfAbsent(osRule.getVersion(), Pattern::compile);
+      if (!versionPattern.matcher(RULE_OS_VERSION).matches()) {
+        return false;
+      }
+    }
+
+    // Also check the arch, this check is kind of fragile, but it also is not
+    // used for important rules
+    return osRule.getArch() == null || RULE_OS_ARCH.equals(osRule.getArch());
   }
 
   /**
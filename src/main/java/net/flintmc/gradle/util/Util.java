@@ -27,7 +27,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -36,34 +35,25 @@ import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.CopyOption;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
-import net.flintmc.gradle.json.JsonConverter;
-import net.flintmc.gradle.json.JsonConverterException;
+import net.flintmc.gradle.io.ArchiveHelper;
 import net.flintmc.gradle.property.FlintPluginProperties;
 import net.flintmc.gradle.property.FlintPluginProperty;
-import net.flintmc.installer.impl.repository.models.PackageModel;
+import net.flintmc.gradle.telemetry.Telemetry;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -156,6 +146,33 @@ public class Util {
    */
   public static InputStream getURLStream(OkHttpClient client, URI uri, Project project)
       throws IOException {
+    URI distributorURI = null;
+    HttpHeaderCredentials credentials = null;
+
+    if (project != null) {
+      distributorURI = FlintPluginProperties.DISTRIBUTOR_URL.resolve(project);
+      if (distributorURI.getHost().equals(uri.getHost())) {
+        credentials = getDistributorCredentials(project, false);
+      }
+    }
+
+    return getURLStream(client, uri, distributorURI, credentials);
+  }
+
+  /**
+   * Opens a stream to read from the given URL. Unlike {@link #getURLStream(OkHttpClient, URI, Project)} this does
+   * not access the project, so it can be used from threads not managed by Gradle.
+   *
+   * @param client         The {@link OkHttpClient} to use for opening the connection
+   * @param uri            The URI to open
+   * @param distributorURI The URI of the distributor, or {@code null}, if authentication can be ignored
+   * @param credentials    The credentials to send when reaching out to the distributor, or {@code null}, if there
+   *                       are none
+   * @return An input stream to read the data from
+   * @throws IOException If an I/O error occurs while opening the connection
+   */
+  public static InputStream getURLStream(
+      OkHttpClient client, URI uri, URI distributorURI, HttpHeaderCredentials credentials) throws IOException {
     if (uri.getScheme().equals("jar") || uri.getScheme().equals("file")) {
       return uri.toURL().openStream();
     } else {
@@ -163,15 +180,9 @@ public class Util {
           .url(uri.toString())
           .get();
 
-      if (project != null) {
-        URI distributorURI = FlintPluginProperties.DISTRIBUTOR_URL.resolve(project);
-        if (distributorURI.getHost().equals(uri.getHost())) {
-          // Reaching out to the distributor, add the authorization
-          HttpHeaderCredentials credentials = getDistributorCredentials(project, false);
-          if (credentials != null) {
-            requestBuilder.header(credentials.getName(), credentials.getValue());
-          }
-        }
+      if (distributorURI != null && credentials != null && distributorURI.getHost().equals(uri.getHost())) {
+        // Reaching out to the distributor, add the authorization
+        requestBuilder.header(credentials.getName(), credentials.getValue());
       }
 
       Response response = client.newCall(requestBuilder.build()).execute();
@@ -181,7 +192,7 @@ public class Util {
             + response.code() + " (" + response.message() + ")");
       }
 
-      return response.body().byteStream();
+      return Telemetry.countDownloaded(response.body().byteStream());
     }
   }
 
@@ -232,35 +243,7 @@ public class Util {
    */
   public static void extractZip(Path zip, Path targetDir, CopyOption... options)
       throws IOException {
-    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
-      // Get a list of all entries
-      Enumeration<? extends ZipEntry> entries = zipFile.entries();
-      while (entries.hasMoreElements()) {
-        ZipEntry entry = entries.nextElement();
-        if (entry.isDirectory()) {
-          // Required directories will be created automatically
-          continue;
-        }
-
-        String name = entry.getName();
-        if (name.startsWith("/")) {
-          // Make sure that the entry does not start with a /, else it will corrupt
-          // the Path#resolve result
-          name = name.substring(1);
-        }
-
-        Path targetFile = targetDir.resolve(name);
-        if (!Files.exists(targetFile.getParent())) {
-          // Make sure the parent directories exist
-          Files.createDirectories(targetFile.getParent());
-        }
-
-        try (InputStream entryStream = zipFile.getInputStream(entry)) {
-          // Copy the entire entry to the target file
-          Files.copy(entryStream, targetFile, options);
-        }
-      }
-    }
+    ArchiveHelper.extract(zip, targetDir, options);
   }
 
   /**
@@ -271,7 +254,7 @@ public class Util {
    * @throws IOException If an I/O error occurs while copying
    */
   public static void copyStream(InputStream in, OutputStream out) throws IOException {
-    byte[] buffer = new byte[4096];
+    byte[] buffer = new byte[65536];
 
     int count;
     while ((count = in.read(buffer)) != -1) {
@@ -279,6 +262,21 @@ public class Util {
     }
   }
 
+  /**
+   * Formats the given amount of bytes in a human readable way.
+   *
+   * @param bytes The amount of bytes to format
+   * @return The formatted amount of bytes
+   */
+  public static String formatBytes(long bytes) {
+    if (bytes < 1024) {
+      return bytes + " B";
+    }
+
+    int exponent = (int) (Math.log(bytes) / Math.log(1024));
+    return String.format(Locale.ROOT, "%.1f %siB", bytes / Math.pow(1024, exponent), "KMGTPE".charAt(exponent - 1));
+  }
+
   /**
    * Reads all lines from the given input stream without closing it.
    *
@@ -394,54 +392,6 @@ public class Util {
     return (T) in;
   }
 
-  /**
-   * Checks if a file is a package jar file.
-   *
-   * @param file The file to check
-   * @return {@code true} if the jar is a package jar, {@code false} otherwise
-   * @throws IOException If an I/O error occurs
-   */
-  public static boolean isPackageJar(File file) throws IOException {
-    if (!file.getName().endsWith(".jar")) {
-      // Needs to be a jar file
-      return false;
-    }
-
-    try (JarFile jarFile = new JarFile(file)) {
-      return jarFile.getJarEntry("manifest.json") != null;
-    }
-  }
-
-  /**
-   * Tries to read the package model from a jar file.
-   *
-   * @param file The file to read the package model from
-   * @return The read package model, or {@code null}, if the file is not a jar or does not contain a
-   * manifest
-   * @throws IOException            If an I/O error occurs
-   * @throws JsonConverterException If the {@code manifest.json} can't be read as a {@link
-   *                                PackageModel}
-   */
-  public static PackageModel getPackageModelFromJar(File file)
-      throws IOException, JsonConverterException {
-    if (!file.getName().endsWith(".jar")) {
-      // Needs to be a jar file
-      return null;
-    }
-
-    try (JarFile jarFile = new JarFile(file)) {
-      JarEntry entry = jarFile.getJarEntry("manifest.json");
-      if (entry == null) {
-        return null;
-      }
-
-      try (InputStream stream = jarFile.getInputStream(entry)) {
-        return JsonConverter.PACKAGE_MODEL_SERIALIZER.fromString(readAll(stream),
-            PackageModel.class);
-      }
-    }
-  }
-
   /**
    * Retrieves the per project unique cache directory.
    *
@@ -643,6 +593,28 @@ public class Util {
     }
   }
 
+  /**
+   * Converts the given bytes, usually a digest, to a lower case hex string.
+   *
+   * @param data The bytes to convert
+   * @return The bytes as a hex string
+   */
+  public static String toHexString(byte[] data) {
+    StringBuilder buffer = new StringBuilder(data.length * 2);
+    for(byte b : data) {
+      String hex = Integer.toHexString(b & 0xFF);
+
+      if(hex.length() < 2) {
+        // Insert a 0 if the string is too short
+        buffer.append('0');
+      }
+
+      buffer.append(hex);
+    }
+
+    return buffer.toString();
+  }
+
   /**
    * Zips the {@code input} to a zip file.
    *
@@ -651,32 +623,7 @@ public class Util {
    * @throws IOException Is thrown when an I/O error occurs.
    */
   public static void toZip(Path input, Path output) throws IOException {
-
-    try (FileOutputStream fileOutputStream = new FileOutputStream(output.toFile());
-        ZipOutputStream zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-
-      Files.walkFileTree(
-          input,
-          new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-                throws IOException {
-              zipOutputStream.putNextEntry(
-                  new ZipEntry(input.relativize(file).toString().replace("\\", "/")));
-              Files.copy(file, zipOutputStream);
-              zipOutputStream.closeEntry();
-              return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
-                throws IOException {
-              zipOutputStream.putNextEntry(new ZipEntry(input.relativize(dir).toString() + "/"));
-              zipOutputStream.closeEntry();
-              return FileVisitResult.CONTINUE;
-            }
-          });
-    }
+    ArchiveHelper.zip(input, output);
   }
 
   /**
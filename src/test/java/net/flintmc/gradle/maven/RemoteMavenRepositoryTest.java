@@ -0,0 +1,131 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.flintmc.gradle.maven;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.flintmc.gradle.maven.pom.MavenArtifact;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks probing a remote repository for artifacts against a local server, both with and without HEAD support.
+ */
+class RemoteMavenRepositoryTest {
+  private static final String PRESENT_PATH = "/net/flintmc/present/1.0.0/present-1.0.0.jar";
+  private static final byte[] PRESENT_CONTENT = "not really a jar".getBytes(StandardCharsets.UTF_8);
+
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  private HttpServer server;
+  private volatile boolean headSupported;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  void probesWithHeadRequests() throws IOException {
+    headSupported = true;
+    RemoteMavenRepository repository = createRepository();
+
+    assertEquals(uriOf(PRESENT_PATH), repository.getArtifactURI(new MavenArtifact("net.flintmc", "present", "1.0.0")));
+    assertNull(repository.getArtifactURI(new MavenArtifact("net.flintmc", "missing", "1.0.0")));
+
+    assertEquals(Arrays.asList(
+        "HEAD " + PRESENT_PATH,
+        "HEAD /net/flintmc/missing/1.0.0/missing-1.0.0.jar"
+    ), requests);
+  }
+
+  @Test
+  void fallsBackToRangedGetWithoutHeadSupport() throws IOException {
+    headSupported = false;
+    RemoteMavenRepository repository = createRepository();
+
+    assertEquals(uriOf(PRESENT_PATH), repository.getArtifactURI(new MavenArtifact("net.flintmc", "present", "1.0.0")));
+    assertNull(repository.getArtifactURI(new MavenArtifact("net.flintmc", "missing", "1.0.0")));
+
+    // HEAD is only attempted once, later checks go straight to the ranged GET
+    assertEquals(Arrays.asList(
+        "HEAD " + PRESENT_PATH,
+        "GET " + PRESENT_PATH + " bytes=0-0",
+        "GET /net/flintmc/missing/1.0.0/missing-1.0.0.jar bytes=0-0"
+    ), requests);
+  }
+
+  private RemoteMavenRepository createRepository() {
+    return new RemoteMavenRepository(new OkHttpClient(), uriOf("/"));
+  }
+
+  private URI uriOf(String path) {
+    return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String method = exchange.getRequestMethod();
+    String path = exchange.getRequestURI().getPath();
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    requests.add(method + " " + path + (range == null ? "" : " " + range));
+
+    try {
+      if (method.equals("HEAD")) {
+        exchange.sendResponseHeaders(headSupported ? (path.equals(PRESENT_PATH) ? 200 : 404) : 405, -1);
+      } else if (!path.equals(PRESENT_PATH)) {
+        exchange.sendResponseHeaders(404, -1);
+      } else if (range != null) {
+        exchange.getResponseHeaders().set("Content-Range", "bytes 0-0/" + PRESENT_CONTENT.length);
+        exchange.sendResponseHeaders(206, 1);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+          outputStream.write(PRESENT_CONTENT, 0, 1);
+        }
+      } else {
+        exchange.sendResponseHeaders(200, PRESENT_CONTENT.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+          outputStream.write(PRESENT_CONTENT);
+        }
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * FlintMC
+ * Copyright (C) 2020-2021 LabyMedia GmbH and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+
+package net.flintmc.gradle.patch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Checks the canonicalized line comparison against the comparison it replaced. */
+class PatchHelperTest {
+
+  private static final String[] TOKENS = {
+    "public", "PRIVATE", "protected", "final", "Final", "label", "label12", "label3", "int", "x",
+    "{", "}", "return", "this.field_1234_a;", "", "func_4321_b(int"
+  };
+  private static final String[] SEPARATORS = {" ", "  ", "\t", " \t ", "|", " | "};
+  private static final int PAIRS = 200_000;
+
+  @Test
+  void similarMatchesPreviousImplementation() {
+    for (boolean access : new boolean[] {false, true}) {
+      for (boolean whitespace : new boolean[] {false, true}) {
+        PatchContextual patch = PatchContextual.create(PatchFile.from(""), null);
+        patch.setCanonicalization(access, whitespace);
+
+        Random random = new Random(access ? (whitespace ? 1 : 2) : (whitespace ? 3 : 4));
+        for (int i = 0; i < PAIRS; i++) {
+          String target = randomLine(random);
+          String hunk = random.nextBoolean() ? mutate(random, target) : randomLine(random);
+
+          assertEquals(
+              previousSimilar(patch, target, hunk),
+              PatchHelper.similar(patch, target, hunk),
+              () -> describe(access, whitespace, target, hunk));
+        }
+      }
+    }
+  }
+
+  @Test
+  void sharedTokenIdsMatchPreviousImplementation() {
+    // Patching canonicalizes all lines of a target and its hunks with the same token ids
+    for (boolean access : new boolean[] {false, true}) {
+      for (boolean whitespace : new boolean[] {false, true}) {
+        PatchContextual patch = PatchContextual.create(PatchFile.from(""), null);
+        patch.setCanonicalization(access, whitespace);
+
+        Random random = new Random(access ? (whitespace ? 5 : 6) : (whitespace ? 7 : 8));
+        Map<String, Integer> tokenIds = new HashMap<>();
+        List<String> lines = new ArrayList<>();
+        List<CanonicalLine> canonicalLines = new ArrayList<>();
+
+        for (int i = 0; i < 400; i++) {
+          String line = i > 0 && random.nextBoolean()
+              ? mutate(random, lines.get(random.nextInt(i)))
+              : randomLine(random);
+          lines.add(line);
+          canonicalLines.add(PatchHelper.canonicalize(patch, line, tokenIds));
+        }
+
+        for (int i = 0; i < lines.size(); i++) {
+          for (int j = 0; j < lines.size(); j++) {
+            String target = lines.get(i);
+            String hunk = lines.get(j);
+
+            assertEquals(
+                previousSimilar(patch, target, hunk),
+                canonicalLines.get(i).similar(canonicalLines.get(j)),
+                () -> describe(access, whitespace, target, hunk));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Generates a random line out of tokens and separators.
+   *
+   * @param random The random to use.
+   * @return The generated line.
+   */
+  private static String randomLine(Random random) {
+    StringBuilder builder = new StringBuilder();
+    int length = random.nextInt(8);
+    for (int i = 0; i < length; i++) {
+      if (i > 0 || random.nextInt(4) == 0) {
+        builder.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+      }
+      builder.append(TOKENS[random.nextInt(TOKENS.length)]);
+    }
+    if (random.nextInt(4) == 0) {
+      builder.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Changes the given line slightly, so that the result is often, but not always, similar to it.
+   *
+   * @param random The random to use.
+   * @param line The line to change.
+   * @return The changed line.
+   */
+  private static String mutate(Random random, String line) {
+    switch (random.nextInt(4)) {
+      case 0:
+        // Change the whitespace
+        return line.replace(" ", SEPARATORS[random.nextInt(SEPARATORS.length)]);
+      case 1:
+        // Add or remove an access modifier
+        return line.startsWith("public ") ? line.substring(7) : "public " + line;
+      case 2:
+        // Rename a label
+        return line.replace("label12", "label3");
+      default:
+        return line + SEPARATORS[random.nextInt(SEPARATORS.length)] + "final";
+    }
+  }
+
+  /**
+   * Describes a compared pair for assertion messages.
+   *
+   * @param access Whether access modifiers were canonicalized.
+   * @param whitespace Whether whitespace was canonicalized.
+   * @param target The target line.
+   * @param hunk The hunk line.
+   * @return The description.
+   */
+  private static String describe(boolean access, boolean whitespace, String target, String hunk) {
+    return "access=" + access + ", whitespace=" + whitespace + ", target='" + target + "', hunk='"
+        + hunk + "'";
+  }
+
+  /**
+   * The line comparison as it was before lines were canonicalized once.
+   *
+   * @param patch The patch whose canonicalization settings should be used.
+   * @param target The target line.
+   * @param hunk The hunk line.
+   * @return {@code true} if the lines are similar, otherwise {@code false}.
+   */
+  private static boolean previousSimilar(PatchContextual patch, String target, String hunk) {
+    if (patch.isC14nAccess()) {
+      if (patch.isC14nWhitespace()) {
+        target = target.replaceAll("[\t| ]+", " ");
+        hunk = hunk.replaceAll("[\t| ]+", " ");
+      }
+      String[] targetSplit = target.split(" ");
+      String[] hunkSplit = hunk.split(" ");
+
+      int targetIndex = 0;
+      int hunkIndex = 0;
+      while (targetIndex < targetSplit.length && hunkIndex < hunkSplit.length) {
+        boolean isTargetAccess = isAccess(targetSplit[targetIndex]);
+        boolean isHunkAccess = isAccess(hunkSplit[hunkIndex]);
+        if (isTargetAccess || isHunkAccess) {
+          if (isTargetAccess) {
+            targetIndex++;
+          }
+          if (isHunkAccess) {
+            hunkIndex++;
+          }
+          continue;
+        }
+        String hunkPart = hunkSplit[hunkIndex];
+        String targetPart = targetSplit[targetIndex];
+        boolean labels = targetPart.startsWith("label") && hunkPart.startsWith("label");
+        if (!labels && !targetPart.equals(hunkPart)) {
+          return false;
+        }
+        hunkIndex++;
+        targetIndex++;
+      }
+      return hunkSplit.length == hunkIndex && targetSplit.length == targetIndex;
+    }
+    if (patch.isC14nWhitespace()) {
+      return target.replaceAll("[\t| ]+", " ").equals(hunk.replaceAll("[\t| ]+", " "));
+    } else {
+      return target.equals(hunk);
+    }
+  }
+
+  /**
+   * Checks if the given data is a valid access.
+   *
+   * @param data The data to check.
+   * @return {@code true} if the given data is a valid access, otherwise {@code false}.
+   */
+  private static boolean isAccess(String data) {
+    return data.equalsIgnoreCase("public")
+        || data.equalsIgnoreCase("private")
+        || data.equalsIgnoreCase("protected")
+        || data.equalsIgnoreCase("final");
+  }
+}